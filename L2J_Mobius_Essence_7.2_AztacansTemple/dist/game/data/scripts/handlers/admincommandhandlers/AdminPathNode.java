@@ -16,8 +16,6 @@
  */
 package handlers.admincommandhandlers;
 
-import java.util.List;
-
 import org.l2jmobius.Config;
 import org.l2jmobius.gameserver.geoengine.pathfinding.AbstractNodeLoc;
 import org.l2jmobius.gameserver.geoengine.pathfinding.PathFinding;
@@ -45,16 +43,18 @@ public class AdminPathNode implements IAdminCommandHandler
 			
 			if (activeChar.getTarget() != null)
 			{
-				final List<AbstractNodeLoc> path = PathFinding.getInstance().findPath(activeChar.getX(), activeChar.getY(), (short) activeChar.getZ(), activeChar.getTarget().getX(), activeChar.getTarget().getY(), (short) activeChar.getTarget().getZ(), activeChar.getInstanceWorld(), true);
-				if (path == null)
-				{
-					BuilderUtil.sendSysMessage(activeChar, "No Route!");
-					return true;
-				}
-				for (AbstractNodeLoc a : path)
+				PathFinding.getInstance().findPathAsync(activeChar.getX(), activeChar.getY(), (short) activeChar.getZ(), activeChar.getTarget().getX(), activeChar.getTarget().getY(), (short) activeChar.getTarget().getZ(), activeChar.getInstanceWorld(), true).thenAccept(path ->
 				{
-					BuilderUtil.sendSysMessage(activeChar, "x:" + a.getX() + " y:" + a.getY() + " z:" + a.getZ());
-				}
+					if (path == null)
+					{
+						BuilderUtil.sendSysMessage(activeChar, "No Route!");
+						return;
+					}
+					for (AbstractNodeLoc a : path)
+					{
+						BuilderUtil.sendSysMessage(activeChar, "x:" + a.getX() + " y:" + a.getY() + " z:" + a.getZ());
+					}
+				});
 			}
 			else
 			{
@@ -18,14 +18,26 @@ package handlers.admincommandhandlers;
 
 import java.util.StringTokenizer;
 
+import org.l2jmobius.Config;
+import org.l2jmobius.commons.network.WritablePacket;
 import org.l2jmobius.commons.threads.ThreadPool;
 import org.l2jmobius.gameserver.data.xml.SkillData;
+import org.l2jmobius.gameserver.geoengine.GeoEngine;
+import org.l2jmobius.gameserver.geoengine.pathfinding.PathFinding;
 import org.l2jmobius.gameserver.handler.IAdminCommandHandler;
+import org.l2jmobius.gameserver.model.World;
 import org.l2jmobius.gameserver.model.WorldObject;
 import org.l2jmobius.gameserver.model.actor.Creature;
 import org.l2jmobius.gameserver.model.actor.Player;
 import org.l2jmobius.gameserver.model.skill.Skill;
+import org.l2jmobius.gameserver.network.GameClient;
 import org.l2jmobius.gameserver.network.serverpackets.MagicSkillUse;
+import org.l2jmobius.gameserver.taskmanager.CreatureSeeTaskManager;
+import org.l2jmobius.gameserver.taskmanager.EffectTickTaskManager;
+import org.l2jmobius.gameserver.taskmanager.ItemWriteBehindTaskManager;
+import org.l2jmobius.gameserver.taskmanager.MovementTaskManager;
+import org.l2jmobius.gameserver.taskmanager.PlayerAutoSaveTaskManager;
+import org.l2jmobius.gameserver.taskmanager.QuestWriteBehindTaskManager;
 import org.l2jmobius.gameserver.util.BuilderUtil;
 
 /**
@@ -48,6 +60,68 @@ public class AdminTest implements IAdminCommandHandler
 			{
 				activeChar.sendMessage(line);
 			}
+			for (String line : MovementTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : CreatureSeeTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : EffectTickTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : PlayerAutoSaveTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : ItemWriteBehindTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : QuestWriteBehindTaskManager.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : GeoEngine.getInstance().getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			for (String line : WritablePacket.getStats())
+			{
+				activeChar.sendMessage(line);
+			}
+			if (Config.PATHFINDING > 0)
+			{
+				for (String line : PathFinding.getInstance().getStats())
+				{
+					activeChar.sendMessage(line);
+				}
+			}
+			
+			// Client packet queue depth.
+			int pendingPackets = 0;
+			int maxPendingPackets = 0;
+			Player maxPendingPlayer = null;
+			for (Player player : World.getInstance().getPlayers())
+			{
+				final GameClient client = player.getClient();
+				if (client != null)
+				{
+					final int size = client.getPacketQueue().size();
+					pendingPackets += size;
+					if (size > maxPendingPackets)
+					{
+						maxPendingPackets = size;
+						maxPendingPlayer = player;
+					}
+				}
+			}
+			activeChar.sendMessage("Client packet queues:");
+			activeChar.sendMessage(" |- PendingPackets: .... " + pendingPackets);
+			activeChar.sendMessage(" |- LargestQueue: ...... " + maxPendingPackets + (maxPendingPlayer != null ? " (" + maxPendingPlayer.getName() + ")" : ""));
+			activeChar.sendMessage(" | -------");
 		}
 		else if (command.startsWith("admin_skill_test"))
 		{
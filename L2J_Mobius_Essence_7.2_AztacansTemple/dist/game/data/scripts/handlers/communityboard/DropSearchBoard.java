@@ -28,6 +28,7 @@ import java.util.StringJoiner;
 import org.l2jmobius.Config;
 import org.l2jmobius.commons.util.Rnd;
 import org.l2jmobius.gameserver.cache.HtmCache;
+import org.l2jmobius.gameserver.cache.HtmlTemplate;
 import org.l2jmobius.gameserver.data.xml.ItemData;
 import org.l2jmobius.gameserver.data.xml.NpcData;
 import org.l2jmobius.gameserver.data.xml.SpawnData;
@@ -156,14 +157,15 @@ public class DropSearchBoard implements IParseBoardHandler
 	{
 		final String navigation = HtmCache.getInstance().getHtm(player, NAVIGATION_PATH);
 		final String[] params = command.split(" ");
-		String html = HtmCache.getInstance().getHtm(player, "data/html/CommunityBoard/Custom/dropsearch/main.html");
+		final HtmlTemplate template = HtmCache.getInstance().getTemplate(player, "data/html/CommunityBoard/Custom/dropsearch/main.html");
+		final String[] values = template != null ? new String[template.getPlaceholderCount()] : null;
 		switch (params[0])
 		{
 			case "_bbs_search_item":
 			{
 				final String itemName = buildItemName(params);
 				final String result = buildItemSearchResult(itemName);
-				html = html.replace("%searchResult%", result);
+				template.setValue(values, "%searchResult%", result);
 				break;
 			}
 			case "_bbs_search_drop":
@@ -305,7 +307,7 @@ public class DropSearchBoard implements IParseBoardHandler
 					builder.append("</tr>");
 				}
 				
-				html = html.replace("%searchResult%", builder.toString());
+				template.setValue(values, "%searchResult%", builder.toString());
 				builder.setLength(0);
 				
 				builder.append("<tr>");
@@ -314,7 +316,7 @@ public class DropSearchBoard implements IParseBoardHandler
 					builder.append("<td>").append("<a action=\"bypass -h _bbs_search_drop " + itemId + " " + page + " $order $level\">").append(page).append("</a>").append("</td>");
 				}
 				builder.append("</tr>");
-				html = html.replace("%pages%", builder.toString());
+				template.setValue(values, "%pages%", builder.toString());
 				break;
 			}
 			case "_bbs_npc_trace":
@@ -334,10 +336,10 @@ public class DropSearchBoard implements IParseBoardHandler
 			}
 		}
 		
-		if (html != null)
+		if (template != null)
 		{
-			html = html.replace("%navigation%", navigation);
-			CommunityBoardHandler.separateAndSend(html, player);
+			template.setValue(values, "%navigation%", navigation);
+			CommunityBoardHandler.separateAndSend(template.render(values), player);
 		}
 		
 		return false;
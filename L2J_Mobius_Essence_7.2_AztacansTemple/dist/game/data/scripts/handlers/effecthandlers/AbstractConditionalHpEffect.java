@@ -82,6 +82,12 @@ abstract class AbstractConditionalHpEffect extends AbstractStatEffect
 		return (_hpPercent <= 0) || (effected.getCurrentHpPercent() <= _hpPercent);
 	}
 	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return (_hpPercent > 0) || super.isPumpDynamic();
+	}
+	
 	private void onHpChange(OnCreatureHpChange event)
 	{
 		final Creature creature = event.getCreature();
@@ -148,4 +148,10 @@ public abstract class AbstractStatEffect extends AbstractEffect
 			}
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return !_conditions.isEmpty();
+	}
 }
@@ -57,6 +57,12 @@ public class AddSkillBySkill extends AbstractEffect
 		}, 100);
 	}
 	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
+	
 	@Override
 	public void onExit(Creature effector, Creature effected, Skill skill)
 	{
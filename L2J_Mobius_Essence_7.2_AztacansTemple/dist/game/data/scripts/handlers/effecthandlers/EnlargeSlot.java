@@ -76,4 +76,10 @@ public class EnlargeSlot extends AbstractEffect
 			effected.getActingPlayer().sendStorageMaxCount();
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
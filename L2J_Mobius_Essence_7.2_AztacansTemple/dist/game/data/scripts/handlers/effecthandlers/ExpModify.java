@@ -54,4 +54,10 @@ public class ExpModify extends AbstractStatAddEffect
 		
 		player.sendUserBoostStat();
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
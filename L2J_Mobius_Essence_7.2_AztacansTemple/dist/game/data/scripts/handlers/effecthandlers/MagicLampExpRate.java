@@ -51,4 +51,10 @@ public class MagicLampExpRate extends AbstractStatPercentEffect
 		
 		player.sendPacket(new ExMagicLampInfo(player));
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
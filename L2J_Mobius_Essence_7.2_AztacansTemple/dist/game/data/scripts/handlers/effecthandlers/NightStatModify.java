@@ -103,6 +103,12 @@ public class NightStatModify extends AbstractEffect
 		}
 	}
 	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
+	
 	public void onDayNightChange(OnDayNightChange event)
 	{
 		// System message for Shadow Sense.
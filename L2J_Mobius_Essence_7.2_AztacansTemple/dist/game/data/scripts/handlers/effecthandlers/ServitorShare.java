@@ -65,4 +65,10 @@ public class ServitorShare extends AbstractEffect
 			}
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
\ No newline at end of file
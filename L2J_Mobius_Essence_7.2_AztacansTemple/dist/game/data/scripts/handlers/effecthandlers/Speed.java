@@ -95,4 +95,10 @@ public class Speed extends AbstractEffect
 			}
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return _condition != null;
+	}
 }
@@ -62,4 +62,10 @@ public class StatAddForLevel extends AbstractEffect
 			effected.getStat().mergeAdd(_stat, amount);
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
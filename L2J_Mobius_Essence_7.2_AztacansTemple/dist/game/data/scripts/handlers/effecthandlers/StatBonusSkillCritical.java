@@ -69,4 +69,10 @@ public class StatBonusSkillCritical extends AbstractEffect
 			effected.getStat().mergeAdd(Stat.STAT_BONUS_SKILL_CRITICAL, _stat);
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return _armorTypeCondition != null;
+	}
 }
@@ -69,4 +69,10 @@ public class StatBonusSpeed extends AbstractEffect
 			effected.getStat().mergeAdd(Stat.STAT_BONUS_SPEED, _stat);
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return _armorTypeCondition != null;
+	}
 }
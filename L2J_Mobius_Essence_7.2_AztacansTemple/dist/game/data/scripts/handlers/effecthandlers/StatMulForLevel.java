@@ -62,4 +62,10 @@ public class StatMulForLevel extends AbstractEffect
 			effected.getStat().mergeMul(_stat, (amount / 100) + 1);
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
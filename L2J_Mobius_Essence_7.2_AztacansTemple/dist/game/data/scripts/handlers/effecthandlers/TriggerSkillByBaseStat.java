@@ -113,4 +113,10 @@ public class TriggerSkillByBaseStat extends AbstractEffect
 			}
 		}, 100);
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
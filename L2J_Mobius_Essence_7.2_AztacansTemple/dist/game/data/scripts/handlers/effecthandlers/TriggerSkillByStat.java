@@ -75,4 +75,10 @@ public class TriggerSkillByStat extends AbstractEffect
 			}
 		}, 100);
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
@@ -279,4 +279,10 @@ public class TwoHandedBluntBonus extends AbstractEffect
 			}
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
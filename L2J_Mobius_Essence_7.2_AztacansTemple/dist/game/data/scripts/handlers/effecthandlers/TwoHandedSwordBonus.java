@@ -279,4 +279,10 @@ public class TwoHandedSwordBonus extends AbstractEffect
 			}
 		}
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
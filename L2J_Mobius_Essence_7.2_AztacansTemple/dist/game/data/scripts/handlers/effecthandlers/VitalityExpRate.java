@@ -46,4 +46,10 @@ public class VitalityExpRate extends AbstractStatPercentEffect
 		
 		player.sendUserBoostStat();
 	}
+	
+	@Override
+	public boolean isPumpDynamic()
+	{
+		return true;
+	}
 }
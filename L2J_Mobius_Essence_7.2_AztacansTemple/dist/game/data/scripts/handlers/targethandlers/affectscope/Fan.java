@@ -50,6 +50,7 @@ public class Fan implements IAffectScopeHandler
 		final int affectLimit = skill.getAffectLimit();
 		// Target checks.
 		final TargetType targetType = skill.getTargetType();
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(creature);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -69,7 +70,7 @@ public class Fan implements IAffectScopeHandler
 			{
 				return false;
 			}
-			if (!GeoEngine.getInstance().canSeeTarget(creature, c))
+			if (!lineOfSight.test(c))
 			{
 				return false;
 			}
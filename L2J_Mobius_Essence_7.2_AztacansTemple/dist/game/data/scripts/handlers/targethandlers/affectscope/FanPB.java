@@ -49,6 +49,7 @@ public class FanPB implements IAffectScopeHandler
 		final int affectLimit = skill.getAffectLimit();
 		
 		// Target checks.
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(creature);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -68,7 +69,7 @@ public class FanPB implements IAffectScopeHandler
 			{
 				return false;
 			}
-			if (!GeoEngine.getInstance().canSeeTarget(creature, c))
+			if (!lineOfSight.test(c))
 			{
 				return false;
 			}
@@ -47,6 +47,7 @@ public class PointBlank implements IAffectScopeHandler
 		final int affectLimit = skill.getAffectLimit();
 		
 		// Target checks.
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(target);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -65,7 +66,7 @@ public class PointBlank implements IAffectScopeHandler
 					return false;
 				}
 			}
-			if (!GeoEngine.getInstance().canSeeTarget(target, c))
+			if (!lineOfSight.test(c))
 			{
 				return false;
 			}
@@ -47,6 +47,7 @@ public class Range implements IAffectScopeHandler
 		
 		// Target checks.
 		final TargetType targetType = skill.getTargetType();
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(target);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -66,7 +67,7 @@ public class Range implements IAffectScopeHandler
 			{
 				return false;
 			}
-			if (!GeoEngine.getInstance().canSeeTarget(target, c))
+			if (!lineOfSight.test(c))
 			{
 				return false;
 			}
@@ -45,6 +45,7 @@ public class RingRange implements IAffectScopeHandler
 		final int startRange = skill.getFanRange()[2];
 		
 		// Target checks.
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(target);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -69,7 +70,7 @@ public class RingRange implements IAffectScopeHandler
 				return false;
 			}
 			
-			if (!GeoEngine.getInstance().canSeeTarget(target, c))
+			if (!lineOfSight.test(c))
 			{
 				return false;
 			}
@@ -56,6 +56,7 @@ public class Square implements IAffectScopeHandler
 		
 		// Target checks.
 		final TargetType targetType = skill.getTargetType();
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(creature);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -79,7 +80,7 @@ public class Square implements IAffectScopeHandler
 				{
 					return false;
 				}
-				if (!GeoEngine.getInstance().canSeeTarget(creature, c))
+				if (!lineOfSight.test(c))
 				{
 					return false;
 				}
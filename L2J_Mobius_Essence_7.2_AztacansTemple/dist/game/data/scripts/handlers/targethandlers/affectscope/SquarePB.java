@@ -54,6 +54,7 @@ public class SquarePB implements IAffectScopeHandler
 		final double sin = Math.sin(-heading);
 		
 		// Target checks.
+		final Predicate<WorldObject> lineOfSight = GeoEngine.getInstance().canSeeTargets(creature);
 		final AtomicInteger affected = new AtomicInteger(0);
 		final Predicate<Creature> filter = c ->
 		{
@@ -77,7 +78,7 @@ public class SquarePB implements IAffectScopeHandler
 				{
 					return false;
 				}
-				if (!GeoEngine.getInstance().canSeeTarget(creature, c))
+				if (!lineOfSight.test(c))
 				{
 					return false;
 				}
@@ -504,6 +504,9 @@ public class Config
 	public static int HIGH_PRIORITY_SCHEDULED_THREAD_POOL_SIZE;
 	public static int INSTANT_THREAD_POOL_SIZE;
 	public static boolean THREADS_FOR_LOADING;
+	public static String PACKET_EXECUTOR_TYPE;
+	public static int PACKET_THREAD_POOL_SIZE;
+	public static boolean TIMING_WHEEL_TIMERS;
 	public static boolean DEADLOCK_DETECTOR;
 	public static int DEADLOCK_CHECK_INTERVAL;
 	public static boolean RESTART_ON_DEADLOCK;
@@ -513,9 +516,14 @@ public class Config
 	public static Set<Integer> LIST_PROTECTED_ITEMS;
 	public static boolean DATABASE_CLEAN_UP;
 	public static int CHAR_DATA_STORE_INTERVAL;
+	public static int CHAR_DATA_STORE_THREADS;
+	public static int CHAR_DATA_STORE_BATCH_SIZE;
+	public static int CHAR_DATA_STORE_TARGET_LATENCY;
 	public static int CLAN_VARIABLES_STORE_INTERVAL;
 	public static boolean LAZY_ITEMS_UPDATE;
 	public static boolean UPDATE_ITEMS_ON_CHAR_STORE;
+	public static int ITEM_WRITE_BEHIND_INTERVAL;
+	public static int QUEST_WRITE_BEHIND_INTERVAL;
 	public static boolean DESTROY_DROPPED_PLAYER_ITEM;
 	public static boolean DESTROY_EQUIPABLE_PLAYER_ITEM;
 	public static boolean DESTROY_ALL_ITEMS;
@@ -813,6 +821,9 @@ public class Config
 	public static String LOGIN_BIND_ADDRESS;
 	public static int LOGIN_TRY_BEFORE_BAN;
 	public static int LOGIN_BLOCK_AFTER_BAN;
+	public static int LOGIN_AUTH_THREADS;
+	public static int LOGIN_AUTH_QUEUE_SIZE;
+	public static int LOGIN_ACCOUNT_CACHE_TIME;
 	public static String GAMESERVER_HOSTNAME;
 	public static String DATABASE_DRIVER;
 	public static String DATABASE_URL;
@@ -834,6 +845,9 @@ public class Config
 	public static int MAX_CHARACTERS_NUMBER_PER_ACCOUNT;
 	public static File DATAPACK_ROOT;
 	public static File SCRIPT_ROOT;
+	public static File SCRIPT_CACHE_ROOT;
+	public static int SCRIPT_COMPILE_THREADS;
+	public static File DATAPACK_SNAPSHOT_ROOT;
 	public static boolean ACCEPT_ALTERNATE_ID;
 	public static int REQUEST_ID;
 	public static boolean RESERVE_HOST_ON_LOGIN = false;
@@ -1008,10 +1022,14 @@ public class Config
 	// GeoEngine
 	// --------------------------------------------------
 	public static Path GEODATA_PATH;
+	public static boolean GEODATA_LAZY_LOAD;
+	public static int LOS_CACHE_SIZE;
+	public static int LOS_CACHE_TIME;
 	public static Path PATHNODE_PATH;
 	public static Path GEOEDIT_PATH;
 	public static int PATHFINDING;
 	public static String PATHFIND_BUFFERS;
+	public static int PATHFIND_CACHE_SIZE;
 	public static float LOW_WEIGHT;
 	public static float MEDIUM_WEIGHT;
 	public static float HIGH_WEIGHT;
@@ -1461,6 +1479,27 @@ public class Config
 				LOGGER.log(Level.WARNING, "Error setting script root!", e);
 				SCRIPT_ROOT = new File(".");
 			}
+			final String scriptCacheRoot = serverConfig.getString("ScriptCacheRoot", "./data/scripts.cache").replaceAll("\\\\", "/");
+			try
+			{
+				SCRIPT_CACHE_ROOT = scriptCacheRoot.isEmpty() ? null : new File(scriptCacheRoot).getCanonicalFile();
+			}
+			catch (Exception e)
+			{
+				LOGGER.log(Level.WARNING, "Error setting script cache root!", e);
+				SCRIPT_CACHE_ROOT = null;
+			}
+			SCRIPT_COMPILE_THREADS = Math.max(1, serverConfig.getInt("ScriptCompileThreads", 1));
+			final String datapackSnapshotRoot = serverConfig.getString("DatapackSnapshotRoot", "./data/snapshots").replaceAll("\\\\", "/");
+			try
+			{
+				DATAPACK_SNAPSHOT_ROOT = datapackSnapshotRoot.isEmpty() ? null : new File(datapackSnapshotRoot).getCanonicalFile();
+			}
+			catch (Exception e)
+			{
+				LOGGER.log(Level.WARNING, "Error setting datapack snapshot root!", e);
+				DATAPACK_SNAPSHOT_ROOT = null;
+			}
 			Pattern charNamePattern;
 			try
 			{
@@ -1511,6 +1550,13 @@ public class Config
 				INSTANT_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
 			}
 			THREADS_FOR_LOADING = serverConfig.getBoolean("ThreadsForLoading", false);
+			PACKET_EXECUTOR_TYPE = serverConfig.getString("PacketExecutor", "ThreadPool");
+			PACKET_THREAD_POOL_SIZE = serverConfig.getInt("PacketThreadPoolSize", -1);
+			if (PACKET_THREAD_POOL_SIZE == -1)
+			{
+				PACKET_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+			}
+			TIMING_WHEEL_TIMERS = serverConfig.getBoolean("TimingWheelTimers", true);
 			DEADLOCK_DETECTOR = serverConfig.getBoolean("DeadLockDetector", true);
 			DEADLOCK_CHECK_INTERVAL = serverConfig.getInt("DeadLockCheckInterval", 20);
 			RESTART_ON_DEADLOCK = serverConfig.getBoolean("RestartOnDeadlock", false);
@@ -2210,9 +2256,14 @@ public class Config
 			}
 			DATABASE_CLEAN_UP = generalConfig.getBoolean("DatabaseCleanUp", true);
 			CHAR_DATA_STORE_INTERVAL = generalConfig.getInt("CharacterDataStoreInterval", 15) * 60 * 1000;
+			CHAR_DATA_STORE_THREADS = Math.max(1, generalConfig.getInt("CharacterDataStoreThreads", 4));
+			CHAR_DATA_STORE_BATCH_SIZE = Math.max(CHAR_DATA_STORE_THREADS, generalConfig.getInt("CharacterDataStoreBatchSize", 100));
+			CHAR_DATA_STORE_TARGET_LATENCY = Math.max(1, generalConfig.getInt("CharacterDataStoreTargetLatency", 200));
 			CLAN_VARIABLES_STORE_INTERVAL = generalConfig.getInt("ClanVariablesStoreInterval", 15) * 60 * 1000;
 			LAZY_ITEMS_UPDATE = generalConfig.getBoolean("LazyItemsUpdate", false);
 			UPDATE_ITEMS_ON_CHAR_STORE = generalConfig.getBoolean("UpdateItemsOnCharStore", false);
+			ITEM_WRITE_BEHIND_INTERVAL = generalConfig.getInt("ItemWriteBehindInterval", 0) * 1000;
+			QUEST_WRITE_BEHIND_INTERVAL = generalConfig.getInt("QuestWriteBehindInterval", 0) * 1000;
 			DESTROY_DROPPED_PLAYER_ITEM = generalConfig.getBoolean("DestroyPlayerDroppedItem", false);
 			DESTROY_EQUIPABLE_PLAYER_ITEM = generalConfig.getBoolean("DestroyEquipableItem", false);
 			DESTROY_ALL_ITEMS = generalConfig.getBoolean("DestroyAllItems", false);
@@ -2739,10 +2790,14 @@ public class Config
 			// Load GeoEngine config file (if exists)
 			final PropertiesParser geoEngineConfig = new PropertiesParser(GEOENGINE_CONFIG_FILE);
 			GEODATA_PATH = Paths.get(Config.DATAPACK_ROOT.getPath() + "/" + geoEngineConfig.getString("GeoDataPath", "geodata"));
+			GEODATA_LAZY_LOAD = geoEngineConfig.getBoolean("GeoDataLazyLoad", false);
+			LOS_CACHE_SIZE = geoEngineConfig.getInt("LineOfSightCacheSize", 16384);
+			LOS_CACHE_TIME = geoEngineConfig.getInt("LineOfSightCacheTime", 2000);
 			PATHNODE_PATH = Paths.get(Config.DATAPACK_ROOT.getPath() + "/" + geoEngineConfig.getString("PathnodePath", "pathnode"));
 			GEOEDIT_PATH = Paths.get(Config.DATAPACK_ROOT.getPath() + "/" + geoEngineConfig.getString("GeoEditPath", "saves"));
 			PATHFINDING = geoEngineConfig.getInt("PathFinding", 0);
 			PATHFIND_BUFFERS = geoEngineConfig.getString("PathFindBuffers", "100x6;128x6;192x6;256x4;320x4;384x4;500x2");
+			PATHFIND_CACHE_SIZE = geoEngineConfig.getInt("PathFindCacheSize", 2048);
 			LOW_WEIGHT = geoEngineConfig.getFloat("LowWeight", 0.5f);
 			MEDIUM_WEIGHT = geoEngineConfig.getFloat("MediumWeight", 2);
 			HIGH_WEIGHT = geoEngineConfig.getFloat("HighWeight", 3);
@@ -3822,6 +3877,13 @@ public class Config
 			ACCEPT_NEW_GAMESERVER = loginConfig.getBoolean("AcceptNewGameServer", true);
 			LOGIN_TRY_BEFORE_BAN = loginConfig.getInt("LoginTryBeforeBan", 5);
 			LOGIN_BLOCK_AFTER_BAN = loginConfig.getInt("LoginBlockAfterBan", 900);
+			LOGIN_AUTH_THREADS = loginConfig.getInt("LoginAuthThreads", -1);
+			if (LOGIN_AUTH_THREADS == -1)
+			{
+				LOGIN_AUTH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+			}
+			LOGIN_AUTH_QUEUE_SIZE = loginConfig.getInt("LoginAuthQueueSize", 2000);
+			LOGIN_ACCOUNT_CACHE_TIME = loginConfig.getInt("LoginAccountCacheTime", 30);
 			LOGIN_SERVER_SCHEDULE_RESTART = loginConfig.getBoolean("LoginRestartSchedule", false);
 			LOGIN_SERVER_SCHEDULE_RESTART_TIME = loginConfig.getLong("LoginRestartTime", 24);
 			DATABASE_DRIVER = loginConfig.getString("Driver", "org.mariadb.jdbc.Driver");
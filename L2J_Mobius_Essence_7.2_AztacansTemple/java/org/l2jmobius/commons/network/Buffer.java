@@ -18,6 +18,9 @@
  */
 package org.l2jmobius.commons.network;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Represents a buffer for reading and writing different data types.<br>
  * This interface provides methods to read and write primitive data types<br>
@@ -80,4 +83,43 @@ public interface Buffer
 	 * @param newLimit The new limit to be set for the buffer.
 	 */
 	void limit(int newLimit);
+	
+	/**
+	 * Passes the bytes from the specified index to the processor, one underlying {@link ByteBuffer} region at a time and in order.<br>
+	 * Allows bulk operations, such as packet encryption, to work on the underlying storage instead of reading and writing each byte through this interface.<br>
+	 * The default implementation copies the bytes to a temporary array and writes them back once processed.
+	 * @param index The index of the first byte to be processed.
+	 * @param length The number of bytes to be processed.
+	 * @param processor The processor of the regions.
+	 */
+	default void processRegions(int index, int length, RegionProcessor processor)
+	{
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+		{
+			bytes[i] = readByte(index + i);
+		}
+		
+		processor.process(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN), 0, length);
+		
+		for (int i = 0; i < length; i++)
+		{
+			writeByte(index + i, bytes[i]);
+		}
+	}
+	
+	/**
+	 * Processes a region of the underlying storage of a buffer.
+	 */
+	@FunctionalInterface
+	interface RegionProcessor
+	{
+		/**
+		 * Processes the bytes of the region, the buffer position and limit must not be changed.
+		 * @param buffer The byte buffer holding the region.
+		 * @param index The index of the region within the byte buffer.
+		 * @param length The number of bytes of the region.
+		 */
+		void process(ByteBuffer buffer, int index, int length);
+	}
 }
@@ -47,6 +47,7 @@ public abstract class Client<T extends Connection<?>>
 	private boolean _readingPayload;
 	private int _expectedReadSize;
 	private final AtomicBoolean _readNext = new AtomicBoolean(false);
+	private final PacketQueue _packetQueue = new PacketQueue();
 	
 	public final AtomicBoolean isReading = new AtomicBoolean(false);
 	
@@ -326,6 +327,15 @@ public abstract class Client<T extends Connection<?>>
 		return _estimateQueueSize;
 	}
 	
+	/**
+	 * Gets the queue of received packets waiting to be executed, used by {@link OrderedPacketExecutor}.
+	 * @return The packet queue of this client.
+	 */
+	public PacketQueue getPacketQueue()
+	{
+		return _packetQueue;
+	}
+	
 	public ResourcePool getResourcePool()
 	{
 		return _connection.getResourcePool();
@@ -48,6 +48,7 @@ public class ConnectionConfig
 	public SocketAddress address;
 	
 	public float initBufferPoolFactor;
+	public int bufferPoolThreadCacheSize;
 	public long shutdownWaitTime = 5000;
 	public int threadPoolSize;
 	public boolean useNagle;
@@ -110,6 +111,7 @@ public class ConnectionConfig
 		maxCachedThreads = parseInt(properties, "MaxCachedThreads", maxCachedThreads);
 		threadPriority = parseInt(properties, "ThreadPriority", threadPriority);
 		initBufferPoolFactor = parseFloat(properties, "BufferPool.InitFactor", 0);
+		bufferPoolThreadCacheSize = parseInt(properties, "BufferPool.ThreadCacheSize", 4);
 		dropPackets = parseBoolean(properties, "DropPackets", dropPackets);
 		dropPacketThreshold = parseInt(properties, "DropPacketThreshold", 250);
 		resourcePool.setBufferSegmentSize(parseInt(properties, "BufferSegmentSize", resourcePool.getSegmentSize()));
@@ -168,7 +170,7 @@ public class ConnectionConfig
 	
 	public void newBufferGroup(int groupSize, int bufferSize)
 	{
-		resourcePool.addBufferPool(bufferSize, new BufferPool(groupSize, bufferSize));
+		resourcePool.addBufferPool(bufferSize, new BufferPool(groupSize, bufferSize, bufferPoolThreadCacheSize));
 	}
 	
 	public ConnectionConfig complete()
@@ -185,7 +187,7 @@ public class ConnectionConfig
 		for (int i = 0; i < missingPools; i++)
 		{
 			int bufferSize = 256 << i;
-			resourcePool.addBufferPool(bufferSize, new BufferPool(10, bufferSize));
+			resourcePool.addBufferPool(bufferSize, new BufferPool(10, bufferSize, bufferPoolThreadCacheSize));
 		}
 	}
 }
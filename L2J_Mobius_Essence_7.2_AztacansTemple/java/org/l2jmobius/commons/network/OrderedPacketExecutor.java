@@ -0,0 +1,70 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.commons.network;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.l2jmobius.commons.threads.ThreadProvider;
+
+/**
+ * Executes the packets of each client in the order they were received, using the {@link PacketQueue} of the client.<br>
+ * A slow packet only delays the following packets of the same client, packets of other clients keep being executed.
+ * @param <T> The type of Client associated with the packets to be executed.
+ * @author Mobius
+ */
+public class OrderedPacketExecutor<T extends Client<Connection<T>>> implements PacketExecutor<T>
+{
+	private final Executor _executor;
+	
+	/**
+	 * @param executor the executor that drains the client packet queues.
+	 */
+	public OrderedPacketExecutor(Executor executor)
+	{
+		_executor = executor;
+	}
+	
+	/**
+	 * Creates an executor that drains each client packet queue on its own virtual thread, so blocking work does not hold a platform thread.
+	 * @param <T> The type of Client associated with the packets to be executed.
+	 * @param name the name of the virtual threads.
+	 * @return the packet executor.
+	 */
+	public static <T extends Client<Connection<T>>> OrderedPacketExecutor<T> ofVirtualThreads(String name)
+	{
+		return new OrderedPacketExecutor<>(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + " ", 1).factory()));
+	}
+	
+	/**
+	 * Creates an executor that drains the client packet queues on a dedicated pool of platform threads.
+	 * @param <T> The type of Client associated with the packets to be executed.
+	 * @param name the name of the pool threads.
+	 * @param size the number of pool threads.
+	 * @return the packet executor.
+	 */
+	public static <T extends Client<Connection<T>>> OrderedPacketExecutor<T> ofThreadPool(String name, int size)
+	{
+		return new OrderedPacketExecutor<>(Executors.newFixedThreadPool(size, new ThreadProvider(name)));
+	}
+	
+	@Override
+	public void execute(ReadablePacket<T> packet)
+	{
+		packet.getClient().getPacketQueue().execute(packet, _executor);
+	}
+}
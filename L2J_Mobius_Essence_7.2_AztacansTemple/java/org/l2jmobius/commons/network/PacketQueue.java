@@ -0,0 +1,102 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.commons.network;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queue of the received packets of a client that are waiting to be executed.<br>
+ * Packets are executed one at a time in the order they were received, at most one executor task drains the queue at any time.
+ * @author Mobius
+ */
+public class PacketQueue implements Runnable
+{
+	private static final Logger LOGGER = Logger.getLogger(PacketQueue.class.getName());
+	
+	/** Packets executed before the draining task yields to other clients. */
+	private static final int PACKETS_PER_RUN = 16;
+	
+	private final Queue<Runnable> _packets = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger _size = new AtomicInteger();
+	private final AtomicBoolean _scheduled = new AtomicBoolean();
+	private volatile Executor _executor;
+	
+	/**
+	 * Adds a packet to the queue and schedules the queue on the given executor when it is not already being drained.
+	 * @param packet the packet to execute.
+	 * @param executor the executor that drains the queue.
+	 */
+	public void execute(Runnable packet, Executor executor)
+	{
+		_packets.add(packet);
+		_size.incrementAndGet();
+		if (_scheduled.compareAndSet(false, true))
+		{
+			_executor = executor;
+			executor.execute(this);
+		}
+	}
+	
+	@Override
+	public void run()
+	{
+		try
+		{
+			for (int i = 0; i < PACKETS_PER_RUN; i++)
+			{
+				final Runnable packet = _packets.poll();
+				if (packet == null)
+				{
+					break;
+				}
+				
+				_size.decrementAndGet();
+				try
+				{
+					packet.run();
+				}
+				catch (Throwable e)
+				{
+					LOGGER.log(Level.WARNING, "Problem executing packet " + packet.getClass().getSimpleName() + ".", e);
+				}
+			}
+		}
+		finally
+		{
+			// Release the queue, then take it again if packets were added meanwhile or the run limit was reached.
+			_scheduled.set(false);
+			if (!_packets.isEmpty() && _scheduled.compareAndSet(false, true))
+			{
+				_executor.execute(this);
+			}
+		}
+	}
+	
+	/**
+	 * @return the number of packets waiting to be executed.
+	 */
+	public int size()
+	{
+		return _size.get();
+	}
+}
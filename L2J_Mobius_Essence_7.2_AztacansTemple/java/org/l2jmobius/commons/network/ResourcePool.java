@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.l2jmobius.commons.network.internal.BufferPool;
 
@@ -37,6 +38,7 @@ public class ResourcePool
 	private final Map<Integer, BufferPool> _bufferPools;
 	private int[] _bufferSizes;
 	private int _bufferSegmentSize;
+	private final LongAdder _unpooledAllocations = new LongAdder();
 	
 	public ResourcePool()
 	{
@@ -83,16 +85,14 @@ public class ResourcePool
 	private ByteBuffer getSizedBuffer(int size)
 	{
 		final BufferPool pool = _bufferPools.get(size);
-		ByteBuffer buffer = null;
-		if (pool != null)
+		if (pool == null)
 		{
-			buffer = pool.get();
+			_unpooledAllocations.increment();
+			return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
 		}
-		if (buffer == null)
-		{
-			buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
-		}
-		return buffer;
+		
+		final ByteBuffer buffer = pool.get();
+		return buffer != null ? buffer : pool.allocate();
 	}
 	
 	private int determineBufferSize(int size)
@@ -150,6 +150,58 @@ public class ResourcePool
 		_bufferSegmentSize = size;
 	}
 	
+	/**
+	 * @return the number of buffer requests served from the pools.
+	 */
+	public long getHits()
+	{
+		long hits = 0;
+		for (BufferPool pool : _bufferPools.values())
+		{
+			hits += pool.getHits();
+		}
+		return hits;
+	}
+	
+	/**
+	 * @return the number of buffer requests that found their pool empty.
+	 */
+	public long getMisses()
+	{
+		long misses = 0;
+		for (BufferPool pool : _bufferPools.values())
+		{
+			misses += pool.getMisses();
+		}
+		return misses;
+	}
+	
+	/**
+	 * @return the number of direct buffers allocated, including buffers of sizes without a pool.
+	 */
+	public long getAllocations()
+	{
+		long allocations = _unpooledAllocations.sum();
+		for (BufferPool pool : _bufferPools.values())
+		{
+			allocations += pool.getAllocations();
+		}
+		return allocations;
+	}
+	
+	/**
+	 * @return the number of idle buffers held by the pools.
+	 */
+	public int getOccupancy()
+	{
+		int occupancy = 0;
+		for (BufferPool pool : _bufferPools.values())
+		{
+			occupancy += pool.getSharedSize() + pool.getThreadCachedSize();
+		}
+		return occupancy;
+	}
+	
 	public String stats()
 	{
 		final StringBuilder sb = new StringBuilder();
@@ -157,6 +209,7 @@ public class ResourcePool
 		{
 			sb.append(pool.toString()).append(System.lineSeparator());
 		}
+		sb.append("Total {occupancy=").append(getOccupancy()).append(", hits=").append(getHits()).append(", misses=").append(getMisses()).append(", allocations=").append(getAllocations()).append(", unpooledAllocations=").append(_unpooledAllocations.sum()).append('}').append(System.lineSeparator());
 		return sb.toString();
 	}
 }
@@ -18,6 +18,8 @@
  */
 package org.l2jmobius.commons.network;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import org.l2jmobius.commons.network.internal.ArrayPacketBuffer;
 import org.l2jmobius.commons.network.internal.InternalWritableBuffer;
 import org.l2jmobius.commons.network.internal.NotWrittenBufferException;
@@ -31,6 +33,12 @@ import org.l2jmobius.commons.network.internal.NotWrittenBufferException;
  */
 public abstract class WritablePacket<T extends Client<Connection<T>>>
 {
+	// Metrics.
+	private static final LongAdder SERIALIZED_PACKETS = new LongAdder();
+	private static final LongAdder SERIALIZED_BYTES = new LongAdder();
+	private static final LongAdder SENT_PACKETS = new LongAdder();
+	private static final LongAdder SENT_BYTES = new LongAdder();
+	
 	private volatile boolean _broadcast;
 	private ArrayPacketBuffer _broadcastCacheBuffer;
 	
@@ -40,12 +48,10 @@ public abstract class WritablePacket<T extends Client<Connection<T>>>
 	
 	public InternalWritableBuffer writeData(T client) throws NotWrittenBufferException
 	{
-		if (_broadcast)
-		{
-			return writeDataWithCache(client);
-		}
-		
-		return writeDataToBuffer(client);
+		final InternalWritableBuffer buffer = _broadcast ? writeDataWithCache(client) : writeDataToBuffer(client);
+		SENT_PACKETS.increment();
+		SENT_BYTES.add(buffer.limit());
+		return buffer;
 	}
 	
 	private synchronized InternalWritableBuffer writeDataWithCache(T client) throws NotWrittenBufferException
@@ -72,6 +78,8 @@ public abstract class WritablePacket<T extends Client<Connection<T>>>
 		if (write(client, buffer))
 		{
 			buffer.mark();
+			SERIALIZED_PACKETS.increment();
+			SERIALIZED_BYTES.add(buffer.limit());
 			return buffer;
 		}
 		
@@ -129,4 +137,21 @@ public abstract class WritablePacket<T extends Client<Connection<T>>>
 	{
 		return getClass().getSimpleName();
 	}
+	
+	public static String[] getStats()
+	{
+		final long serializedBytes = SERIALIZED_BYTES.sum();
+		final long sentBytes = SENT_BYTES.sum();
+		
+		final String[] stats = new String[7];
+		int pos = 0;
+		stats[pos++] = "Packet serialization:";
+		stats[pos++] = " |- SerializedPackets: . " + SERIALIZED_PACKETS.sum();
+		stats[pos++] = " |- SerializedBytes: ... " + serializedBytes;
+		stats[pos++] = " |- SentPackets: ....... " + SENT_PACKETS.sum();
+		stats[pos++] = " |- SentBytes: ......... " + sentBytes;
+		stats[pos++] = " |- SharedBytes: ....... " + (sentBytes - serializedBytes);
+		stats[pos] = " | -------";
+		return stats;
+	}
 }
@@ -19,6 +19,7 @@
 package org.l2jmobius.commons.network.internal;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.l2jmobius.commons.network.ReadableBuffer;
@@ -244,6 +245,17 @@ public class ArrayPacketBuffer extends InternalWritableBuffer implements Readabl
 		return readUnsigned(index++) | (readUnsigned(index++) << 8) | (readUnsigned(index++) << 16) | (readUnsigned(index) << 24);
 	}
 	
+	@Override
+	public void processRegions(int index, int length, RegionProcessor processor)
+	{
+		if ((index < 0) || ((index + length) > _limit))
+		{
+			throw new IndexOutOfBoundsException("Trying access index " + index + " until index " + (index + length) + " , max accessible index is " + _limit);
+		}
+		
+		processor.process(ByteBuffer.wrap(_data).order(ByteOrder.LITTLE_ENDIAN), index, length);
+	}
+	
 	@Override
 	public int limit()
 	{
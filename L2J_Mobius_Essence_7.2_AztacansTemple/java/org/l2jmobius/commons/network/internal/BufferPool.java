@@ -21,19 +21,35 @@ package org.l2jmobius.commons.network.internal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents a pool of ByteBuffer objects for reuse, to avoid frequent allocation and deallocation.<br>
- * Buffers are managed in a concurrent queue with a maximum size limit.
- * @author JoeAlisson
+ * Buffers are kept in a small cache of each platform thread and in a shared lock-free queue.<br>
+ * The shared queue never holds more than the maximum size, its occupancy is reserved with a compare-and-set before a buffer is added.
+ * @author JoeAlisson, Mobius
  */
 public class BufferPool
 {
 	private final Queue<ByteBuffer> _buffers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger _size = new AtomicInteger();
 	private final int _maxSize;
 	private final int _bufferSize;
-	private int _estimateSize;
+	
+	// Thread caches, virtual threads do not use them because they are not reused.
+	private final int _threadCacheSize;
+	private final Set<ThreadCache> _threadCaches = ConcurrentHashMap.newKeySet();
+	private final ThreadLocal<ThreadCache> _threadCache;
+	
+	// Metrics.
+	private final LongAdder _hits = new LongAdder();
+	private final LongAdder _misses = new LongAdder();
+	private final LongAdder _allocations = new LongAdder();
+	private final LongAdder _discarded = new LongAdder();
 	
 	/**
 	 * Create a Buffer Pool
@@ -41,9 +57,22 @@ public class BufferPool
 	 * @param bufferSize the size of the buffers kept in Buffer Pool
 	 */
 	public BufferPool(int maxSize, int bufferSize)
+	{
+		this(maxSize, bufferSize, 0);
+	}
+	
+	/**
+	 * Create a Buffer Pool
+	 * @param maxSize the pool max size
+	 * @param bufferSize the size of the buffers kept in Buffer Pool
+	 * @param threadCacheSize the number of buffers each platform thread keeps for itself, limited to a quarter of the max size
+	 */
+	public BufferPool(int maxSize, int bufferSize, int threadCacheSize)
 	{
 		_maxSize = maxSize;
 		_bufferSize = bufferSize;
+		_threadCacheSize = Math.max(0, Math.min(threadCacheSize, maxSize / 4));
+		_threadCache = _threadCacheSize > 0 ? ThreadLocal.withInitial(this::createThreadCache) : null;
 	}
 	
 	/**
@@ -56,26 +85,63 @@ public class BufferPool
 		final int amount = (int) Math.min(_maxSize, _maxSize * factor);
 		for (int i = 0; i < amount; i++)
 		{
-			_buffers.offer(ByteBuffer.allocateDirect(_bufferSize).order(ByteOrder.LITTLE_ENDIAN));
+			if (!recycleShared(allocate()))
+			{
+				break;
+			}
 		}
-		_estimateSize = amount;
+	}
+	
+	/**
+	 * Allocates a new direct ByteBuffer of the size of this pool.
+	 * @return the new ByteBuffer.
+	 */
+	public ByteBuffer allocate()
+	{
+		_allocations.increment();
+		return ByteBuffer.allocateDirect(_bufferSize).order(ByteOrder.LITTLE_ENDIAN);
 	}
 	
 	/**
 	 * Attempts to recycle a ByteBuffer back into the pool.<br>
-	 * If the pool size has not reached its maximum, the buffer is added back to the pool; otherwise, it is discarded.
+	 * The buffer is kept in the cache of the current thread when there is room, otherwise in the shared queue if it has not reached its maximum size; otherwise, it is discarded.
 	 * @param buffer The ByteBuffer to be recycled.
 	 * @return true if the buffer was successfully recycled, false otherwise.
 	 */
 	public boolean recycle(ByteBuffer buffer)
 	{
-		final boolean recycle = _estimateSize < _maxSize;
-		if (recycle)
+		buffer.clear();
+		
+		final ThreadCache cache = getThreadCache();
+		if ((cache != null) && cache.push(buffer))
+		{
+			return true;
+		}
+		
+		if (recycleShared(buffer))
+		{
+			return true;
+		}
+		
+		_discarded.increment();
+		return false;
+	}
+	
+	private boolean recycleShared(ByteBuffer buffer)
+	{
+		int size;
+		do
 		{
-			_buffers.offer(buffer.clear());
-			_estimateSize++;
+			size = _size.get();
+			if (size >= _maxSize)
+			{
+				return false;
+			}
 		}
-		return recycle;
+		while (!_size.compareAndSet(size, size + 1));
+		
+		_buffers.offer(buffer);
+		return true;
 	}
 	
 	/**
@@ -85,13 +151,166 @@ public class BufferPool
 	 */
 	public ByteBuffer get()
 	{
-		_estimateSize--;
-		return _buffers.poll();
+		final ThreadCache cache = getThreadCache();
+		if (cache != null)
+		{
+			final ByteBuffer buffer = cache.pop();
+			if (buffer != null)
+			{
+				_hits.increment();
+				return buffer;
+			}
+		}
+		
+		final ByteBuffer buffer = _buffers.poll();
+		if (buffer == null)
+		{
+			_misses.increment();
+			return null;
+		}
+		
+		_size.decrementAndGet();
+		_hits.increment();
+		return buffer;
+	}
+	
+	private ThreadCache getThreadCache()
+	{
+		if ((_threadCache == null) || Thread.currentThread().isVirtual())
+		{
+			return null;
+		}
+		return _threadCache.get();
+	}
+	
+	private ThreadCache createThreadCache()
+	{
+		// Buffers of finished threads are released with their cache.
+		_threadCaches.removeIf(ThreadCache::isFinished);
+		
+		final ThreadCache cache = new ThreadCache(_threadCacheSize);
+		_threadCaches.add(cache);
+		return cache;
+	}
+	
+	/**
+	 * @return the size of the buffers kept in this pool.
+	 */
+	public int getBufferSize()
+	{
+		return _bufferSize;
+	}
+	
+	/**
+	 * @return the number of buffers in the shared queue.
+	 */
+	public int getSharedSize()
+	{
+		return _size.get();
+	}
+	
+	/**
+	 * @return the number of buffers in the caches of running threads.
+	 */
+	public int getThreadCachedSize()
+	{
+		_threadCaches.removeIf(ThreadCache::isFinished);
+		
+		int size = 0;
+		for (ThreadCache cache : _threadCaches)
+		{
+			size += cache.size();
+		}
+		return size;
+	}
+	
+	/**
+	 * @return the number of requests served from the pool.
+	 */
+	public long getHits()
+	{
+		return _hits.sum();
+	}
+	
+	/**
+	 * @return the number of requests that found the pool empty.
+	 */
+	public long getMisses()
+	{
+		return _misses.sum();
+	}
+	
+	/**
+	 * @return the number of buffers allocated for this pool.
+	 */
+	public long getAllocations()
+	{
+		return _allocations.sum();
+	}
+	
+	/**
+	 * @return the number of recycled buffers discarded because the pool was full.
+	 */
+	public long getDiscarded()
+	{
+		return _discarded.sum();
 	}
 	
 	@Override
 	public String toString()
 	{
-		return "Pool {maxSize=" + _maxSize + ", bufferSize=" + _bufferSize + ", estimateUse=" + _estimateSize + '}';
+		return "Pool {maxSize=" + _maxSize + ", bufferSize=" + _bufferSize + ", shared=" + getSharedSize() + ", threadCached=" + getThreadCachedSize() + ", hits=" + getHits() + ", misses=" + getMisses() + ", allocations=" + getAllocations() + ", discarded=" + getDiscarded() + '}';
+	}
+	
+	/**
+	 * Buffers kept by a single platform thread, only accessed by that thread apart from the size.
+	 */
+	private static class ThreadCache
+	{
+		private final Thread _owner = Thread.currentThread();
+		private final ByteBuffer[] _buffers;
+		private volatile int _count;
+		
+		public ThreadCache(int size)
+		{
+			_buffers = new ByteBuffer[size];
+		}
+		
+		public boolean push(ByteBuffer buffer)
+		{
+			final int count = _count;
+			if (count == _buffers.length)
+			{
+				return false;
+			}
+			
+			_buffers[count] = buffer;
+			_count = count + 1;
+			return true;
+		}
+		
+		public ByteBuffer pop()
+		{
+			final int count = _count;
+			if (count == 0)
+			{
+				return null;
+			}
+			
+			final ByteBuffer buffer = _buffers[count - 1];
+			_buffers[count - 1] = null;
+			_count = count - 1;
+			return buffer;
+		}
+		
+		public int size()
+		{
+			return _count;
+		}
+		
+		public boolean isFinished()
+		{
+			return !_owner.isAlive();
+		}
 	}
 }
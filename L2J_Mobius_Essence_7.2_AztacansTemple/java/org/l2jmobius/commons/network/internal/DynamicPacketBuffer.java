@@ -316,6 +316,33 @@ public class DynamicPacketBuffer extends InternalWritableBuffer
 		return Double.longBitsToDouble(readLong(index));
 	}
 	
+	@Override
+	public void processRegions(int index, int length, RegionProcessor processor)
+	{
+		if (length <= 0)
+		{
+			return;
+		}
+		
+		checkBounds(index, length);
+		PacketNode node = indexToNode(index);
+		int remaining = length;
+		int position = index;
+		while (true)
+		{
+			final int available = Math.min(remaining, node.endIndex - position);
+			processor.process(node.buffer, node.idx(position), available);
+			remaining -= available;
+			if (remaining == 0)
+			{
+				break;
+			}
+			
+			position += available;
+			node = _nodes[node.offset + 1];
+		}
+	}
+	
 	@Override
 	public int limit()
 	{
@@ -134,6 +134,12 @@ public class SinglePacketBuffer implements ReadableBuffer
 		_buffer.putInt(index, value);
 	}
 	
+	@Override
+	public void processRegions(int index, int length, RegionProcessor processor)
+	{
+		processor.process(_buffer, index, length);
+	}
+	
 	@Override
 	public int limit()
 	{
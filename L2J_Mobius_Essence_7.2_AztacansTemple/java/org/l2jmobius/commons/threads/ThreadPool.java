@@ -41,6 +41,7 @@ public class ThreadPool
 	private static final long MIN_DELAY = 0L;
 	
 	private static ScheduledThreadPoolExecutor HIGH_PRIORITY_SCHEDULED_POOL;
+	private static TimingWheel TIMING_WHEEL;
 	
 	public static void init()
 	{
@@ -62,6 +63,13 @@ public class ThreadPool
 		INSTANT_POOL.setRejectedExecutionHandler(new RejectedExecutionHandlerImpl());
 		INSTANT_POOL.prestartAllCoreThreads();
 		
+		// Configure TimingWheel.
+		if (Config.TIMING_WHEEL_TIMERS)
+		{
+			TIMING_WHEEL = new TimingWheel("L2jMobius TimingWheel", INSTANT_POOL);
+			LOGGER.info("...timing wheel for game timers.");
+		}
+		
 		// Schedule the purge task.
 		scheduleAtFixedRate(ThreadPool::purge, 60000, 60000);
 		
@@ -135,6 +143,61 @@ public class ThreadPool
 		}
 	}
 	
+	/**
+	 * Creates and executes a one-shot game timer that becomes enabled after the given delay.<br>
+	 * Timers are kept on the timing wheel when enabled, which suits the many short lived and often cancelled timers of the game, otherwise on the scheduled pool.
+	 * @param runnable : the task to execute.
+	 * @param delay : the time from now to delay execution.
+	 * @return a ScheduledFuture representing pending completion of the task and whose get() method will return null upon completion.
+	 */
+	public static ScheduledFuture<?> scheduleTimer(Runnable runnable, long delay)
+	{
+		if (TIMING_WHEEL == null)
+		{
+			return schedule(runnable, delay);
+		}
+		
+		try
+		{
+			return TIMING_WHEEL.schedule(new RunnableWrapper(runnable), validate(delay), 0);
+		}
+		catch (Exception e)
+		{
+			LOGGER.warning(runnable.getClass().getSimpleName() + Config.EOL + e.getMessage() + Config.EOL + e.getStackTrace());
+			return null;
+		}
+	}
+	
+	/**
+	 * Creates and executes a periodic game timer that becomes enabled first after the given initial delay.<br>
+	 * Timers are kept on the timing wheel when enabled, otherwise on the scheduled pool.
+	 * @param runnable : the task to execute.
+	 * @param initialDelay : the time to delay first execution.
+	 * @param period : the period between successive executions.
+	 * @return a ScheduledFuture representing pending completion of the task and whose get() method will throw an exception upon cancellation.
+	 */
+	public static ScheduledFuture<?> scheduleTimerAtFixedRate(Runnable runnable, long initialDelay, long period)
+	{
+		if (TIMING_WHEEL == null)
+		{
+			return scheduleAtFixedRate(runnable, initialDelay, period);
+		}
+		
+		try
+		{
+			if (period <= 0)
+			{
+				throw new IllegalArgumentException("Period " + period + " must be positive.");
+			}
+			return TIMING_WHEEL.schedule(new RunnableWrapper(runnable), validate(initialDelay), validate(period));
+		}
+		catch (Exception e)
+		{
+			LOGGER.warning(runnable.getClass().getSimpleName() + Config.EOL + e.getMessage() + Config.EOL + e.getStackTrace());
+			return null;
+		}
+	}
+	
 	/**
 	 * Executes the given task sometime in the future.
 	 * @param runnable : the task to execute.
@@ -206,6 +269,16 @@ public class ThreadPool
 		stats[pos++] = " |- QueuedTaskCount: .. " + INSTANT_POOL.getQueue().size();
 		stats[pos++] = " |- TaskCount: ........ " + INSTANT_POOL.getTaskCount();
 		stats[pos] = " | -------";
+		
+		if (TIMING_WHEEL != null)
+		{
+			final String[] wheelStats = TIMING_WHEEL.getStats();
+			final String[] allStats = new String[stats.length + wheelStats.length];
+			System.arraycopy(stats, 0, allStats, 0, stats.length);
+			System.arraycopy(wheelStats, 0, allStats, stats.length, wheelStats.length);
+			return allStats;
+		}
+		
 		return stats;
 	}
 	
@@ -0,0 +1,381 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.commons.threads;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed hierarchical timing wheel with a resolution of one millisecond.<br>
+ * The first level has 256 slots of one tick, each following level has 64 slots covering a whole rotation of the level below, so five levels cover about 49 days. Later tasks wait in the last level and are placed again when it cascades.<br>
+ * Scheduling and cancelling only add the task to a concurrent queue, the wheel thread links and unlinks tasks in their slot in constant time and hands expired tasks to the executor.
+ * @author Mobius
+ */
+public class TimingWheel implements Runnable
+{
+	private static final Logger LOGGER = Logger.getLogger(TimingWheel.class.getName());
+	
+	private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final int FIRST_LEVEL_BITS = 8;
+	private static final int LEVEL_BITS = 6;
+	private static final int LEVELS = 5;
+	private static final long MAX_DELTA = (1L << (FIRST_LEVEL_BITS + ((LEVELS - 1) * LEVEL_BITS))) - 1;
+	
+	private final Executor _executor;
+	private final Thread _thread;
+	private final long _startTime = System.nanoTime();
+	
+	// Slots of each level, only accessed by the wheel thread.
+	private final TimerTask[][] _slots = new TimerTask[LEVELS][];
+	private long _currentTick;
+	
+	private final Queue<TimerTask> _added = new ConcurrentLinkedQueue<>();
+	private final Queue<TimerTask> _cancelled = new ConcurrentLinkedQueue<>();
+	private volatile boolean _idle;
+	
+	// Metrics.
+	private final AtomicInteger _size = new AtomicInteger();
+	private final AtomicLong _scheduledCount = new AtomicLong();
+	private final AtomicLong _expiredCount = new AtomicLong();
+	private final AtomicLong _cancelledCount = new AtomicLong();
+	
+	/**
+	 * @param name the name of the wheel thread.
+	 * @param executor the executor that runs expired tasks.
+	 */
+	public TimingWheel(String name, Executor executor)
+	{
+		_executor = executor;
+		_slots[0] = new TimerTask[1 << FIRST_LEVEL_BITS];
+		for (int level = 1; level < LEVELS; level++)
+		{
+			_slots[level] = new TimerTask[1 << LEVEL_BITS];
+		}
+		
+		_thread = new ThreadProvider(name, ThreadPriority.PRIORITY_8, true).newThread(this);
+		_thread.start();
+	}
+	
+	/**
+	 * Schedules a task.
+	 * @param runnable the task to execute.
+	 * @param delay the delay in milliseconds before the first execution.
+	 * @param period the period in milliseconds between successive executions, 0 for a one-shot task.
+	 * @return a ScheduledFuture representing pending completion of the task.
+	 */
+	public ScheduledFuture<?> schedule(Runnable runnable, long delay, long period)
+	{
+		if ((delay < 0) || (period < 0))
+		{
+			throw new IllegalArgumentException("Negative delay " + delay + " or period " + period + ".");
+		}
+		
+		final TimerTask task = new TimerTask(runnable, getTick(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay)), period);
+		_scheduledCount.incrementAndGet();
+		add(task);
+		return task;
+	}
+	
+	/**
+	 * @param time a System.nanoTime() value.
+	 * @return the first tick at or after the given time.
+	 */
+	private long getTick(long time)
+	{
+		return Math.ceilDiv(time - _startTime, TICK_NANOS);
+	}
+	
+	private void add(TimerTask task)
+	{
+		_added.offer(task);
+		if (_idle)
+		{
+			LockSupport.unpark(_thread);
+		}
+	}
+	
+	@Override
+	public void run()
+	{
+		while (true)
+		{
+			try
+			{
+				processQueues();
+				
+				if (_size.get() == 0)
+				{
+					// Nothing to expire, wait for new tasks instead of ticking.
+					_idle = true;
+					if (_added.isEmpty())
+					{
+						LockSupport.park(this);
+					}
+					_idle = false;
+					_currentTick = Math.max(_currentTick, getTick(System.nanoTime()) - 1);
+					continue;
+				}
+				
+				final long wait = (_startTime + (_currentTick * TICK_NANOS)) - System.nanoTime();
+				if (wait > 0)
+				{
+					LockSupport.parkNanos(this, wait);
+					continue;
+				}
+				
+				processTick(_currentTick);
+				_currentTick++;
+			}
+			catch (Throwable t)
+			{
+				LOGGER.log(Level.WARNING, "TimingWheel: Problem processing tick " + _currentTick + ".", t);
+			}
+		}
+	}
+	
+	private void processQueues()
+	{
+		TimerTask task;
+		while ((task = _added.poll()) != null)
+		{
+			if (!task.isCancelled())
+			{
+				place(task);
+			}
+		}
+		
+		while ((task = _cancelled.poll()) != null)
+		{
+			if (task._slot != null)
+			{
+				unlink(task);
+			}
+		}
+	}
+	
+	private void processTick(long tick)
+	{
+		// Cascade the slots whose rotation starts at this tick, highest level first so tasks move down one level at a time.
+		if ((tick & ((1 << FIRST_LEVEL_BITS) - 1)) == 0)
+		{
+			int levels = 1;
+			while ((levels < (LEVELS - 1)) && ((tick & ((1L << getShift(levels + 1)) - 1)) == 0))
+			{
+				levels++;
+			}
+			
+			for (int level = levels; level > 0; level--)
+			{
+				final TimerTask[] slots = _slots[level];
+				final int index = (int) ((tick >> getShift(level)) & ((1 << LEVEL_BITS) - 1));
+				TimerTask task = slots[index];
+				slots[index] = null;
+				while (task != null)
+				{
+					final TimerTask next = task._next;
+					task._slot = null;
+					task._next = null;
+					task._previous = null;
+					_size.decrementAndGet();
+					place(task);
+					task = next;
+				}
+			}
+		}
+		
+		final TimerTask[] slots = _slots[0];
+		final int index = (int) (tick & ((1 << FIRST_LEVEL_BITS) - 1));
+		TimerTask task = slots[index];
+		slots[index] = null;
+		while (task != null)
+		{
+			final TimerTask next = task._next;
+			task._slot = null;
+			task._next = null;
+			task._previous = null;
+			_size.decrementAndGet();
+			if (!task.isCancelled())
+			{
+				_expiredCount.incrementAndGet();
+				try
+				{
+					_executor.execute(task);
+				}
+				catch (Exception e)
+				{
+					LOGGER.log(Level.WARNING, "TimingWheel: Could not execute expired task.", e);
+				}
+			}
+			task = next;
+		}
+	}
+	
+	/**
+	 * @param level a level above the first one.
+	 * @return the bit shift of the tick giving the slot of the level.
+	 */
+	private static int getShift(int level)
+	{
+		return FIRST_LEVEL_BITS + ((level - 1) * LEVEL_BITS);
+	}
+	
+	private void place(TimerTask task)
+	{
+		long deadline = Math.max(task._deadline, _currentTick);
+		long delta = deadline - _currentTick;
+		if (delta > MAX_DELTA)
+		{
+			// Wait in the farthest slot, the task is placed again when it cascades.
+			delta = MAX_DELTA;
+			deadline = _currentTick + MAX_DELTA;
+		}
+		
+		final TimerTask[] slots;
+		final int index;
+		if (delta < (1 << FIRST_LEVEL_BITS))
+		{
+			slots = _slots[0];
+			index = (int) (deadline & ((1 << FIRST_LEVEL_BITS) - 1));
+		}
+		else
+		{
+			int level = 1;
+			while (delta >= (1L << (getShift(level) + LEVEL_BITS)))
+			{
+				level++;
+			}
+			slots = _slots[level];
+			index = (int) ((deadline >> getShift(level)) & ((1 << LEVEL_BITS) - 1));
+		}
+		
+		final TimerTask head = slots[index];
+		task._next = head;
+		if (head != null)
+		{
+			head._previous = task;
+		}
+		task._slot = slots;
+		task._index = index;
+		slots[index] = task;
+		_size.incrementAndGet();
+	}
+	
+	private void unlink(TimerTask task)
+	{
+		if (task._previous != null)
+		{
+			task._previous._next = task._next;
+		}
+		else
+		{
+			task._slot[task._index] = task._next;
+		}
+		if (task._next != null)
+		{
+			task._next._previous = task._previous;
+		}
+		
+		task._slot = null;
+		task._next = null;
+		task._previous = null;
+		_size.decrementAndGet();
+	}
+	
+	public String[] getStats()
+	{
+		final String[] stats = new String[6];
+		int pos = 0;
+		stats[pos++] = "Timing wheel:";
+		stats[pos++] = " |- PendingTasks: ...... " + (_size.get() + _added.size());
+		stats[pos++] = " |- ScheduledTasks: .... " + _scheduledCount.get();
+		stats[pos++] = " |- ExpiredTasks: ...... " + _expiredCount.get();
+		stats[pos++] = " |- CancelledTasks: .... " + _cancelledCount.get();
+		stats[pos] = " | -------";
+		return stats;
+	}
+	
+	/**
+	 * A task of the wheel, linked in its slot by the wheel thread.
+	 */
+	private class TimerTask extends FutureTask<Void> implements ScheduledFuture<Void>
+	{
+		private final long _period;
+		private volatile long _deadline;
+		
+		// Slot links, only accessed by the wheel thread.
+		private TimerTask[] _slot;
+		private int _index;
+		private TimerTask _previous;
+		private TimerTask _next;
+		
+		public TimerTask(Runnable runnable, long deadline, long period)
+		{
+			super(runnable, null);
+			_deadline = deadline;
+			_period = period;
+		}
+		
+		@Override
+		public void run()
+		{
+			if (_period == 0)
+			{
+				super.run();
+			}
+			else if (runAndReset())
+			{
+				// Fixed rate, late executions are run as soon as possible.
+				_deadline += _period;
+				add(this);
+			}
+		}
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			final boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled)
+			{
+				_cancelledCount.incrementAndGet();
+				_cancelled.offer(this);
+			}
+			return cancelled;
+		}
+		
+		@Override
+		public long getDelay(TimeUnit unit)
+		{
+			return unit.convert((_startTime + (_deadline * TICK_NANOS)) - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		
+		@Override
+		public int compareTo(Delayed other)
+		{
+			return other == this ? 0 : Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+}
@@ -99,7 +99,7 @@ public interface IXmlReader
 			dbf.setAttribute(JAXP_SCHEMA_LANGUAGE, W3C_XML_SCHEMA);
 			final DocumentBuilder db = dbf.newDocumentBuilder();
 			db.setErrorHandler(new XMLErrorHandler());
-			parseDocument(db.parse(f), f);
+			parseDocument(isUsingSnapshot() ? XmlSnapshot.getDocument(f, db) : db.parse(f), f);
 		}
 		catch (SAXParseException e)
 		{
@@ -120,6 +120,15 @@ public interface IXmlReader
 		return true;
 	}
 	
+	/**
+	 * Checks if parsed documents are stored as binary snapshots that are used while the XML file is unchanged.
+	 * @return {@code true} if snapshots are used, {@code false} otherwise
+	 */
+	default boolean isUsingSnapshot()
+	{
+		return false;
+	}
+	
 	/**
 	 * Checks if XML comments are ignored.
 	 * @return {@code true} if its comments are ignored, {@code false} otherwise
@@ -0,0 +1,293 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.commons.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import org.l2jmobius.Config;
+
+/**
+ * Binary snapshot of parsed XML documents.<br>
+ * A snapshot stores the element tree of a datapack XML file with a shared string table, so the document can be rebuilt without parsing and validating the XML again.<br>
+ * Snapshots are created the first time a file is parsed and are reused while the CRC32C checksum of the XML file is unchanged, so reloading changed files keeps working.
+ * @author Mobius
+ */
+public class XmlSnapshot
+{
+	private static final Logger LOGGER = Logger.getLogger(XmlSnapshot.class.getName());
+	
+	private static final int MAGIC = 0x4C32584D; // L2XM
+	private static final int VERSION = 1;
+	
+	private XmlSnapshot()
+	{
+	}
+	
+	/**
+	 * Gets the document of an XML file, from its snapshot when the XML file did not change.<br>
+	 * Otherwise the XML file is parsed with the given builder and a new snapshot is stored.
+	 * @param file the XML file.
+	 * @param builder the builder used when the XML file has to be parsed.
+	 * @return the document.
+	 * @throws Exception if the XML file could not be parsed.
+	 */
+	public static Document getDocument(File file, DocumentBuilder builder) throws Exception
+	{
+		final Path snapshotFile = getSnapshotFile(file);
+		if (snapshotFile == null)
+		{
+			return builder.parse(file);
+		}
+		
+		final byte[] data = Files.readAllBytes(file.toPath());
+		final CRC32C crc = new CRC32C();
+		crc.update(data);
+		final long checksum = crc.getValue();
+		
+		if (Files.isRegularFile(snapshotFile))
+		{
+			try
+			{
+				final Document document = read(snapshotFile, checksum, data.length, builder);
+				if (document != null)
+				{
+					document.setDocumentURI(file.toURI().toString());
+					return document;
+				}
+			}
+			catch (Exception e)
+			{
+				LOGGER.log(Level.WARNING, "Could not read snapshot " + snapshotFile + ", parsing " + file.getName() + " instead.", e);
+			}
+		}
+		
+		final Document document = builder.parse(new ByteArrayInputStream(data), file.toURI().toString());
+		try
+		{
+			write(snapshotFile, checksum, data.length, document);
+		}
+		catch (Exception e)
+		{
+			LOGGER.log(Level.WARNING, "Could not write snapshot " + snapshotFile + ".", e);
+		}
+		return document;
+	}
+	
+	/**
+	 * @param file the XML file.
+	 * @return the snapshot file of the given XML file, {@code null} if snapshots are disabled or the file is not part of the datapack.
+	 */
+	private static Path getSnapshotFile(File file)
+	{
+		if ((Config.DATAPACK_SNAPSHOT_ROOT == null) || (Config.DATAPACK_ROOT == null))
+		{
+			return null;
+		}
+		
+		final Path datapackRoot = Config.DATAPACK_ROOT.toPath().toAbsolutePath().normalize();
+		final Path path = file.toPath().toAbsolutePath().normalize();
+		if (!path.startsWith(datapackRoot))
+		{
+			return null;
+		}
+		
+		return Config.DATAPACK_SNAPSHOT_ROOT.toPath().resolve(datapackRoot.relativize(path).toString() + ".bin");
+	}
+	
+	private static Document read(Path snapshotFile, long checksum, int length, DocumentBuilder builder) throws IOException
+	{
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		
+		if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION) || (buffer.getLong() != checksum) || (buffer.getInt() != length))
+		{
+			return null;
+		}
+		
+		final String[] strings = new String[buffer.getInt()];
+		byte[] bytes = new byte[256];
+		for (int i = 0; i < strings.length; i++)
+		{
+			final int size = buffer.getInt();
+			if (size > bytes.length)
+			{
+				bytes = new byte[size];
+			}
+			buffer.get(bytes, 0, size);
+			strings[i] = new String(bytes, 0, size, StandardCharsets.UTF_8);
+		}
+		
+		final Document document = builder.newDocument();
+		document.setStrictErrorChecking(false);
+		readChildren(buffer, strings, document, document);
+		return document;
+	}
+	
+	private static void readChildren(ByteBuffer buffer, String[] strings, Document document, Node parent)
+	{
+		final int count = buffer.getInt();
+		for (int i = 0; i < count; i++)
+		{
+			final byte type = buffer.get();
+			switch (type)
+			{
+				case Node.ELEMENT_NODE:
+				{
+					final Element element = document.createElement(strings[buffer.getInt()]);
+					final int attributes = buffer.getShort() & 0xFFFF;
+					for (int j = 0; j < attributes; j++)
+					{
+						element.setAttribute(strings[buffer.getInt()], strings[buffer.getInt()]);
+					}
+					parent.appendChild(element);
+					readChildren(buffer, strings, document, element);
+					break;
+				}
+				case Node.TEXT_NODE:
+				{
+					parent.appendChild(document.createTextNode(strings[buffer.getInt()]));
+					break;
+				}
+				case Node.CDATA_SECTION_NODE:
+				{
+					parent.appendChild(document.createCDATASection(strings[buffer.getInt()]));
+					break;
+				}
+				default:
+				{
+					throw new IllegalStateException("Unknown node type " + type + ".");
+				}
+			}
+		}
+	}
+	
+	private static void write(Path snapshotFile, long checksum, int length, Document document) throws IOException
+	{
+		final Map<String, Integer> stringIndexes = new HashMap<>();
+		final List<String> strings = new ArrayList<>();
+		final ByteArrayOutputStream tree = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(tree))
+		{
+			writeChildren(out, document, stringIndexes, strings);
+		}
+		
+		final ByteArrayOutputStream snapshot = new ByteArrayOutputStream(tree.size() + (strings.size() * 16));
+		try (DataOutputStream out = new DataOutputStream(snapshot))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checksum);
+			out.writeInt(length);
+			out.writeInt(strings.size());
+			for (String string : strings)
+			{
+				final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			tree.writeTo(out);
+		}
+		
+		// Write to a temporary file first, so a snapshot is never read while incomplete.
+		Files.createDirectories(snapshotFile.getParent());
+		final Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+		Files.write(tempFile, snapshot.toByteArray());
+		Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	private static void writeChildren(DataOutputStream out, Node parent, Map<String, Integer> stringIndexes, List<String> strings) throws IOException
+	{
+		final List<Node> children = new ArrayList<>();
+		for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+		{
+			switch (node.getNodeType())
+			{
+				case Node.ELEMENT_NODE:
+				case Node.TEXT_NODE:
+				case Node.CDATA_SECTION_NODE:
+				{
+					children.add(node);
+					break;
+				}
+			}
+		}
+		
+		out.writeInt(children.size());
+		for (Node node : children)
+		{
+			out.writeByte(node.getNodeType());
+			if (node.getNodeType() == Node.ELEMENT_NODE)
+			{
+				out.writeInt(getStringIndex(node.getNodeName(), stringIndexes, strings));
+				final NamedNodeMap attributes = node.getAttributes();
+				out.writeShort(attributes.getLength());
+				for (int i = 0; i < attributes.getLength(); i++)
+				{
+					final Node attribute = attributes.item(i);
+					out.writeInt(getStringIndex(attribute.getNodeName(), stringIndexes, strings));
+					out.writeInt(getStringIndex(attribute.getNodeValue(), stringIndexes, strings));
+				}
+				writeChildren(out, node, stringIndexes, strings);
+			}
+			else
+			{
+				out.writeInt(getStringIndex(node.getNodeValue(), stringIndexes, strings));
+			}
+		}
+	}
+	
+	private static int getStringIndex(String value, Map<String, Integer> stringIndexes, List<String> strings)
+	{
+		Integer index = stringIndexes.get(value);
+		if (index == null)
+		{
+			index = strings.size();
+			stringIndexes.put(value, index);
+			strings.add(value);
+		}
+		return index;
+	}
+}
@@ -34,6 +34,8 @@ import org.l2jmobius.commons.database.DatabaseFactory;
 import org.l2jmobius.commons.enums.ServerMode;
 import org.l2jmobius.commons.network.ConnectionBuilder;
 import org.l2jmobius.commons.network.ConnectionHandler;
+import org.l2jmobius.commons.network.OrderedPacketExecutor;
+import org.l2jmobius.commons.network.PacketExecutor;
 import org.l2jmobius.commons.threads.ThreadPool;
 import org.l2jmobius.commons.util.DeadLockDetector;
 import org.l2jmobius.commons.util.PropertiesParser;
@@ -519,7 +521,21 @@ public class GameServer
 		LOGGER.info(getClass().getSimpleName() + ": Maximum number of connected players is " + Config.MAXIMUM_ONLINE_USERS + ".");
 		LOGGER.info(getClass().getSimpleName() + ": Server loaded in " + ((System.currentTimeMillis() - serverLoadStart) / 1000) + " seconds.");
 		
-		final ConnectionHandler<GameClient> connectionHandler = new ConnectionBuilder<>(new InetSocketAddress(Config.PORT_GAME), GameClient::new, new GamePacketHandler(), ThreadPool::execute).build();
+		final PacketExecutor<GameClient> packetExecutor;
+		if (Config.PACKET_EXECUTOR_TYPE.equalsIgnoreCase("VirtualThreads"))
+		{
+			packetExecutor = OrderedPacketExecutor.ofVirtualThreads("L2jMobius PacketThread");
+		}
+		else if (Config.PACKET_EXECUTOR_TYPE.equalsIgnoreCase("CarrierPool"))
+		{
+			packetExecutor = OrderedPacketExecutor.ofThreadPool("L2jMobius PacketThread", Config.PACKET_THREAD_POOL_SIZE);
+		}
+		else
+		{
+			packetExecutor = ThreadPool::execute;
+		}
+		
+		final ConnectionHandler<GameClient> connectionHandler = new ConnectionBuilder<>(new InetSocketAddress(Config.PORT_GAME), GameClient::new, new GamePacketHandler(), packetExecutor).build();
 		connectionHandler.start();
 		
 		LoginServerThread.getInstance().start();
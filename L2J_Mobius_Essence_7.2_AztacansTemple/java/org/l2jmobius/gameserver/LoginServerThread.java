@@ -36,8 +36,12 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,8 +49,8 @@ import org.l2jmobius.Config;
 import org.l2jmobius.commons.crypt.NewCrypt;
 import org.l2jmobius.commons.database.DatabaseFactory;
 import org.l2jmobius.commons.network.base.BaseWritablePacket;
+import org.l2jmobius.commons.threads.ThreadPool;
 import org.l2jmobius.commons.util.CommonUtil;
-import org.l2jmobius.gameserver.model.World;
 import org.l2jmobius.gameserver.model.actor.Player;
 import org.l2jmobius.gameserver.network.ConnectionState;
 import org.l2jmobius.gameserver.network.Disconnection;
@@ -83,20 +87,28 @@ public class LoginServerThread extends Thread
 	/**
 	 * @see org.l2jmobius.loginserver.LoginServer#PROTOCOL_REV
 	 */
-	private static final int REVISION = 0x0106;
+	private static final int REVISION = 0x0107;
+	/** Maximum accounts written in one PlayerInGame or PlayerLogout packet. */
+	private static final int ACCOUNT_BATCH = 1000;
+	/** Delay in milliseconds before pending logouts are sent, so logouts close in time share a packet. */
+	private static final long LOGOUT_DELAY = 100;
 	private final String _hostname;
 	private final int _port;
 	private final int _gamePort;
 	private Socket _socket;
-	private OutputStream _out;
+	private volatile OutputStream _out;
+	private final Queue<byte[]> _sendQueue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean _sending = new AtomicBoolean();
 	private NewCrypt _blowfish;
 	private byte[] _hexID;
 	private final boolean _acceptAlternate;
 	private int _requestID;
 	private final boolean _reserveHost;
 	private int _maxPlayer;
-	private final Set<WaitingClient> _waitingClients = ConcurrentHashMap.newKeySet();
+	private final Map<String, WaitingClient> _waitingClients = new ConcurrentHashMap<>();
 	private final Map<String, GameClient> _accountsInGameServer = new ConcurrentHashMap<>();
+	private final List<AccountNotification> _pendingAccounts = new ArrayList<>();
+	private ScheduledFuture<?> _logoutTask;
 	private int _status;
 	private String _serverName;
 	private final List<String> _subnets;
@@ -142,6 +154,13 @@ public class LoginServerThread extends Thread
 				final InputStream in = _socket.getInputStream();
 				_out = new BufferedOutputStream(_socket.getOutputStream());
 				
+				// Packets of a previous connection were encrypted with its key.
+				_sendQueue.clear();
+				synchronized (_pendingAccounts)
+				{
+					_pendingAccounts.clear();
+				}
+				
 				// Initialize Blowfish.
 				final byte[] blowfishKey = CommonUtil.generateHex(40);
 				_blowfish = new NewCrypt("_;v.]05-31!|+-%xT!^[$\00");
@@ -261,48 +280,52 @@ public class LoginServerThread extends Thread
 								st.addAttribute(ServerStatus.SERVER_AGE, ServerStatus.SERVER_AGE_ALL);
 							}
 							sendPacket(st);
-							final List<String> playerList = new ArrayList<>();
-							for (Player player : World.getInstance().getPlayers())
+							
+							// Resync the accounts that are on this server.
+							synchronized (_pendingAccounts)
 							{
-								if (!player.isInOfflineMode())
+								for (Entry<String, GameClient> entry : _accountsInGameServer.entrySet())
 								{
-									playerList.add(player.getAccountName());
+									final Player player = entry.getValue().getPlayer();
+									if (!_waitingClients.containsKey(entry.getKey()) && ((player == null) || !player.isInOfflineMode()))
+									{
+										_pendingAccounts.add(new AccountNotification(entry.getKey(), false));
+									}
 								}
 							}
-							if (!playerList.isEmpty())
+							sendAccountNotifications();
+							
+							// Requests lost with the previous connection are sent again.
+							for (WaitingClient wc : _waitingClients.values())
 							{
-								sendPacket(new PlayerInGame(playerList));
+								sendPacket(new PlayerAuthRequest(wc.account, wc.sessionKey));
 							}
 							break;
 						}
 						case 0x03:
 						{
 							final PlayerAuthResponse par = new PlayerAuthResponse(incoming);
-							final String account = par.getAccount();
-							WaitingClient wcToRemove = null;
-							synchronized (_waitingClients)
-							{
-								for (WaitingClient wc : _waitingClients)
-								{
-									if (wc.account.equals(account))
-									{
-										wcToRemove = wc;
-										break;
-									}
-								}
-							}
+							final WaitingClient wcToRemove = _waitingClients.remove(par.getAccount());
 							if (wcToRemove != null)
 							{
 								if (par.isAuthed())
 								{
-									final PlayerInGame pig = new PlayerInGame(par.getAccount());
-									sendPacket(pig);
-									wcToRemove.gameClient.setConnectionState(ConnectionState.AUTHENTICATED);
-									wcToRemove.gameClient.setSessionId(wcToRemove.sessionKey);
-									wcToRemove.gameClient.sendPacket(LoginFail.LOGIN_SUCCESS);
-									final CharSelectionInfo cl = new CharSelectionInfo(wcToRemove.account, wcToRemove.gameClient.getSessionId().playOkID1);
-									wcToRemove.gameClient.sendPacket(cl);
-									wcToRemove.gameClient.setCharSelection(cl.getCharInfo());
+									// Sent with the other responses of this read.
+									synchronized (_pendingAccounts)
+									{
+										_pendingAccounts.add(new AccountNotification(wcToRemove.account, false));
+									}
+									
+									// Loading the character list must not hold up the other responses.
+									ThreadPool.execute(() ->
+									{
+										wcToRemove.gameClient.setConnectionState(ConnectionState.AUTHENTICATED);
+										wcToRemove.gameClient.setSessionId(wcToRemove.sessionKey);
+										wcToRemove.gameClient.sendPacket(LoginFail.LOGIN_SUCCESS);
+										final CharSelectionInfo cl = new CharSelectionInfo(wcToRemove.account, wcToRemove.gameClient.getSessionId().playOkID1);
+										wcToRemove.gameClient.sendPacket(cl);
+										wcToRemove.gameClient.setCharSelection(cl.getCharInfo());
+									});
 								}
 								else
 								{
@@ -311,7 +334,6 @@ public class LoginServerThread extends Thread
 									wcToRemove.gameClient.close(new LoginFail(LoginFail.SYSTEM_ERROR_LOGIN_LATER));
 									sendLogout(wcToRemove.account);
 								}
-								_waitingClients.remove(wcToRemove);
 							}
 							break;
 						}
@@ -324,7 +346,7 @@ public class LoginServerThread extends Thread
 						case 0x05:
 						{
 							final RequestCharacters rc = new RequestCharacters(incoming);
-							getCharsOnServer(rc.getAccount());
+							ThreadPool.execute(() -> getCharsOnServer(rc.getAccount()));
 							break;
 						}
 						case 0x06:
@@ -333,6 +355,12 @@ public class LoginServerThread extends Thread
 							break;
 						}
 					}
+					
+					// Notify login of the accounts authed by this read at once.
+					if (in.available() == 0)
+					{
+						sendAccountNotifications();
+					}
 				}
 			}
 			catch (UnknownHostException e)
@@ -382,11 +410,7 @@ public class LoginServerThread extends Thread
 	 */
 	public void addWaitingClientAndSendRequest(String accountName, GameClient client, SessionKey key)
 	{
-		synchronized (_waitingClients)
-		{
-			_waitingClients.add(new WaitingClient(accountName, client, key));
-		}
-		
+		_waitingClients.put(accountName, new WaitingClient(accountName, client, key));
 		sendPacket(new PlayerAuthRequest(accountName, key));
 	}
 	
@@ -396,22 +420,7 @@ public class LoginServerThread extends Thread
 	 */
 	public void removeWaitingClient(GameClient client)
 	{
-		WaitingClient toRemove = null;
-		synchronized (_waitingClients)
-		{
-			for (WaitingClient c : _waitingClients)
-			{
-				if (c.gameClient == client)
-				{
-					toRemove = c;
-					break;
-				}
-			}
-			if (toRemove != null)
-			{
-				_waitingClients.remove(toRemove);
-			}
-		}
+		_waitingClients.values().removeIf(wc -> wc.gameClient == client);
 	}
 	
 	/**
@@ -430,8 +439,50 @@ public class LoginServerThread extends Thread
 		{
 			removed.disconnect();
 		}
+		_waitingClients.remove(account);
 		
-		sendPacket(new PlayerLogout(account));
+		// Sent with the other logouts of the next few milliseconds, after the in game notifications queued before it.
+		synchronized (_pendingAccounts)
+		{
+			_pendingAccounts.add(new AccountNotification(account, true));
+			if (_logoutTask == null)
+			{
+				_logoutTask = ThreadPool.schedule(this::sendAccountNotifications, LOGOUT_DELAY);
+			}
+		}
+	}
+	
+	/**
+	 * Sends the pending in game and logout notifications in the order they were queued.<br>
+	 * Consecutive notifications of the same kind share a packet, up to {@link #ACCOUNT_BATCH} accounts each.
+	 */
+	private void sendAccountNotifications()
+	{
+		synchronized (_pendingAccounts)
+		{
+			if (_logoutTask != null)
+			{
+				_logoutTask.cancel(false);
+				_logoutTask = null;
+			}
+			
+			final int size = _pendingAccounts.size();
+			int start = 0;
+			while (start < size)
+			{
+				final boolean logout = _pendingAccounts.get(start).logout;
+				final List<String> accounts = new ArrayList<>();
+				int i = start;
+				while ((i < size) && (_pendingAccounts.get(i).logout == logout) && (accounts.size() < ACCOUNT_BATCH))
+				{
+					accounts.add(_pendingAccounts.get(i).account);
+					i++;
+				}
+				sendPacket(logout ? new PlayerLogout(accounts) : new PlayerInGame(accounts));
+				start = i;
+			}
+			_pendingAccounts.clear();
+		}
 	}
 	
 	/**
@@ -586,30 +637,48 @@ public class LoginServerThread extends Thread
 			
 			// Encrypt.
 			size = data.length - 2; // Data size without header.
+			NewCrypt.appendChecksum(data, 2, size);
+			_blowfish.crypt(data, 2, size);
 			
-			synchronized (_out)
-			{
-				NewCrypt.appendChecksum(data, 2, size);
-				_blowfish.crypt(data, 2, size);
-				
-				_out.write(data);
-				try
-				{
-					_out.flush();
-				}
-				catch (IOException e)
-				{
-					// LoginServer might have terminated.
-				}
-			}
+			_sendQueue.add(data);
+			flushSendQueue();
 		}
 		catch (Exception e)
 		{
-			LOGGER.severe("LoginServerThread: IOException while sending packet " + packet.getClass().getSimpleName());
+			LOGGER.severe("LoginServerThread: Exception while sending packet " + packet.getClass().getSimpleName());
 			LOGGER.severe(CommonUtil.getStackTrace(e));
 		}
 	}
 	
+	/**
+	 * Writes the queued packets with a single flush.<br>
+	 * Packets queued by other threads meanwhile are written by the thread already sending.
+	 */
+	private void flushSendQueue()
+	{
+		while (!_sendQueue.isEmpty() && _sending.compareAndSet(false, true))
+		{
+			try
+			{
+				final OutputStream out = _out;
+				byte[] data;
+				while ((data = _sendQueue.poll()) != null)
+				{
+					out.write(data);
+				}
+				out.flush();
+			}
+			catch (IOException e)
+			{
+				// LoginServer might have terminated.
+			}
+			finally
+			{
+				_sending.set(false);
+			}
+		}
+	}
+	
 	/**
 	 * Sets the max player.
 	 * @param maxPlayer The maxPlayer to set.
@@ -778,6 +847,18 @@ public class LoginServerThread extends Thread
 		}
 	}
 	
+	private static class AccountNotification
+	{
+		public final String account;
+		public final boolean logout;
+		
+		public AccountNotification(String acc, boolean isLogout)
+		{
+			account = acc;
+			logout = isLogout;
+		}
+	}
+	
 	public static LoginServerThread getInstance()
 	{
 		return SingletonHolder.INSTANCE;
@@ -48,6 +48,8 @@ import org.l2jmobius.gameserver.network.loginserverpackets.game.ServerStatus;
 import org.l2jmobius.gameserver.network.serverpackets.ServerClose;
 import org.l2jmobius.gameserver.network.serverpackets.SystemMessage;
 import org.l2jmobius.gameserver.taskmanager.GameTimeTaskManager;
+import org.l2jmobius.gameserver.taskmanager.ItemWriteBehindTaskManager;
+import org.l2jmobius.gameserver.taskmanager.QuestWriteBehindTaskManager;
 import org.l2jmobius.gameserver.util.Broadcast;
 
 /**
@@ -506,6 +508,20 @@ public class Shutdown extends Thread
 			LOGGER.info("Bot Report Table: Successfully saved reports to database!");
 		}
 		
+		// Write pending item changes.
+		if (Config.ITEM_WRITE_BEHIND_INTERVAL > 0)
+		{
+			ItemWriteBehindTaskManager.getInstance().flushAll();
+			LOGGER.info("Item Write Behind Task Manager: Data saved(" + tc.getEstimatedTimeAndRestartCounter() + "ms).");
+		}
+		
+		// Write pending quest changes.
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			QuestWriteBehindTaskManager.getInstance().flushAll();
+			LOGGER.info("Quest Write Behind Task Manager: Data saved(" + tc.getEstimatedTimeAndRestartCounter() + "ms).");
+		}
+		
 		try
 		{
 			Thread.sleep(5000);
@@ -41,7 +41,7 @@ public class HtmCache
 	
 	private static final HTMLFilter HTML_FILTER = new HTMLFilter();
 	
-	private static final Map<String, String> HTML_CACHE = Config.HTM_CACHE ? new HashMap<>() : new ConcurrentHashMap<>();
+	private static final Map<String, HtmlTemplate> HTML_CACHE = Config.HTM_CACHE ? new HashMap<>() : new ConcurrentHashMap<>();
 	
 	private int _loadedFiles;
 	private long _bytesBuffLen;
@@ -109,6 +109,12 @@ public class HtmCache
 	}
 	
 	public String loadFile(File file)
+	{
+		final HtmlTemplate template = loadTemplate(file);
+		return template == null ? null : template.getContent();
+	}
+	
+	private HtmlTemplate loadTemplate(File file)
 	{
 		if (!HTML_FILTER.accept(file))
 		{
@@ -116,7 +122,7 @@ public class HtmCache
 		}
 		
 		String filePath = null;
-		String content = null;
+		HtmlTemplate template = null;
 		try (FileInputStream fis = new FileInputStream(file);
 			BufferedInputStream bis = new BufferedInputStream(fis))
 		{
@@ -124,7 +130,7 @@ public class HtmCache
 			final byte[] raw = new byte[bytes];
 			
 			bis.read(raw);
-			content = new String(raw, StandardCharsets.UTF_8);
+			String content = new String(raw, StandardCharsets.UTF_8);
 			content = content.replaceAll("(?s)<!--.*?-->", ""); // Remove html comments.
 			content = content.replaceAll("[\\t\\n]", ""); // Remove tabs and new lines.
 			
@@ -141,42 +147,55 @@ public class HtmCache
 				LOGGER.warning("HTML encoding check: File " + filePath + " contains non ASCII content.");
 			}
 			
-			final String oldContent = HTML_CACHE.put(filePath, content);
-			if (oldContent == null)
+			// Placeholders are located once, so pages can be filled without searching them again.
+			template = new HtmlTemplate(content);
+			final HtmlTemplate oldTemplate = HTML_CACHE.put(filePath, template);
+			if (oldTemplate == null)
 			{
 				_bytesBuffLen += bytes;
 				_loadedFiles++;
 			}
 			else
 			{
-				_bytesBuffLen = (_bytesBuffLen - oldContent.length()) + bytes;
+				_bytesBuffLen = (_bytesBuffLen - oldTemplate.getContent().length()) + bytes;
 			}
 		}
 		catch (Exception e)
 		{
 			LOGGER.log(Level.WARNING, "Problem with htm file:", e);
 		}
-		return content;
+		return template;
 	}
 	
 	public String getHtm(Player player, String path)
+	{
+		final HtmlTemplate template = getTemplate(player, path);
+		return template == null ? null : template.getContent();
+	}
+	
+	/**
+	 * @param player the player whose language is used, can be {@code null}
+	 * @param path the path to the HTM
+	 * @return the template of the HTM, or {@code null} if it does not exist
+	 */
+	public HtmlTemplate getTemplate(Player player, String path)
 	{
 		final String prefix = player != null ? player.getHtmlPrefix() : "";
 		String newPath = prefix + path;
-		String content = HTML_CACHE.get(newPath);
-		if (!Config.HTM_CACHE && (content == null))
+		HtmlTemplate template = HTML_CACHE.get(newPath);
+		if (!Config.HTM_CACHE && (template == null))
 		{
-			content = loadFile(new File(Config.DATAPACK_ROOT, newPath));
-			if (content == null)
+			template = loadTemplate(new File(Config.DATAPACK_ROOT, newPath));
+			if (template == null)
 			{
-				content = loadFile(new File(Config.SCRIPT_ROOT, newPath));
+				template = loadTemplate(new File(Config.SCRIPT_ROOT, newPath));
 			}
 		}
 		
 		// In case localisation does not exist try the default path.
-		if ((content == null) && !prefix.contentEquals(""))
+		if ((template == null) && !prefix.contentEquals(""))
 		{
-			content = HTML_CACHE.get(path);
+			template = HTML_CACHE.get(path);
 			newPath = path;
 		}
 		
@@ -185,7 +204,7 @@ public class HtmCache
 			BuilderUtil.sendHtmlMessage(player, newPath.substring(5));
 		}
 		
-		return content;
+		return template;
 	}
 	
 	public boolean contains(String path)
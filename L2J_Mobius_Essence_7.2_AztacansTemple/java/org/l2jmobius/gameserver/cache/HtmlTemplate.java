@@ -0,0 +1,227 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An immutable html page with pre-located {@code %name%} placeholders.<br>
+ * Values are bound by placeholder index and written in a single pass, without copying the page for every placeholder.
+ * @author Mobius
+ */
+public class HtmlTemplate
+{
+	private static final char PLACEHOLDER_CHAR = '%';
+	
+	private final String _content;
+	private final Map<String, Integer> _placeholders;
+	private final int[] _slotStarts;
+	private final int[] _slotEnds;
+	private final int[] _slotPlaceholders;
+	private final boolean _exact;
+	
+	public HtmlTemplate(String content)
+	{
+		_content = content;
+		
+		final Map<String, Integer> placeholders = new HashMap<>();
+		final List<int[]> slots = new ArrayList<>();
+		final int length = content.length();
+		int index = content.indexOf(PLACEHOLDER_CHAR);
+		while (index >= 0)
+		{
+			int end = index + 1;
+			while ((end < length) && isPlaceholderChar(content.charAt(end)))
+			{
+				end++;
+			}
+			
+			if ((end < length) && (end > (index + 1)) && (content.charAt(end) == PLACEHOLDER_CHAR))
+			{
+				final String placeholder = content.substring(index, end + 1);
+				final Integer placeholderIndex = placeholders.computeIfAbsent(placeholder, k -> placeholders.size());
+				slots.add(new int[]
+				{
+					index,
+					end + 1,
+					placeholderIndex
+				});
+				index = content.indexOf(PLACEHOLDER_CHAR, end + 1);
+			}
+			else
+			{
+				index = content.indexOf(PLACEHOLDER_CHAR, index + 1);
+			}
+		}
+		
+		_placeholders = placeholders;
+		_slotStarts = new int[slots.size()];
+		_slotEnds = new int[slots.size()];
+		_slotPlaceholders = new int[slots.size()];
+		final int[] slotCounts = new int[placeholders.size()];
+		for (int i = 0; i < slots.size(); i++)
+		{
+			final int[] slot = slots.get(i);
+			_slotStarts[i] = slot[0];
+			_slotEnds[i] = slot[1];
+			_slotPlaceholders[i] = slot[2];
+			slotCounts[slot[2]]++;
+		}
+		
+		// Binding gives the same result as replacing in order only when every literal occurrence of a placeholder is one of its slots.
+		boolean exact = content.indexOf("%%") < 0;
+		for (Entry<String, Integer> entry : placeholders.entrySet())
+		{
+			if (countOccurrences(content, entry.getKey()) != slotCounts[entry.getValue()])
+			{
+				exact = false;
+				break;
+			}
+		}
+		_exact = exact;
+	}
+	
+	private static boolean isPlaceholderChar(char c)
+	{
+		return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '_');
+	}
+	
+	private static int countOccurrences(String content, String pattern)
+	{
+		int count = 0;
+		int index = content.indexOf(pattern);
+		while (index >= 0)
+		{
+			count++;
+			index = content.indexOf(pattern, index + pattern.length());
+		}
+		return count;
+	}
+	
+	/**
+	 * @param pattern the text to look for
+	 * @return {@code true} if the pattern is a {@code %name%} placeholder, {@code false} otherwise.
+	 */
+	public static boolean isPlaceholder(String pattern)
+	{
+		final int length = pattern.length();
+		if ((length < 3) || (pattern.charAt(0) != PLACEHOLDER_CHAR) || (pattern.charAt(length - 1) != PLACEHOLDER_CHAR))
+		{
+			return false;
+		}
+		
+		for (int i = 1; i < (length - 1); i++)
+		{
+			if (!isPlaceholderChar(pattern.charAt(i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the raw html of this template
+	 */
+	public String getContent()
+	{
+		return _content;
+	}
+	
+	/**
+	 * @return {@code true} if values can be bound to this template, {@code false} if it must be handled as plain text.
+	 */
+	public boolean isExact()
+	{
+		return _exact;
+	}
+	
+	/**
+	 * @return the number of distinct placeholders in this template
+	 */
+	public int getPlaceholderCount()
+	{
+		return _placeholders.size();
+	}
+	
+	/**
+	 * @param placeholder the placeholder, including the surrounding {@code %} characters
+	 * @return the index of the placeholder, or {@code -1} if this template does not have it
+	 */
+	public int indexOf(String placeholder)
+	{
+		final Integer index = _placeholders.get(placeholder);
+		return index == null ? -1 : index.intValue();
+	}
+	
+	/**
+	 * Sets the value of a placeholder in the given values, if this template has the placeholder.
+	 * @param values the values by placeholder index, of {@link #getPlaceholderCount()} length
+	 * @param placeholder the placeholder, including the surrounding {@code %} characters
+	 * @param value the value to write in place of the placeholder
+	 */
+	public void setValue(String[] values, String placeholder, String value)
+	{
+		final int index = indexOf(placeholder);
+		if (index >= 0)
+		{
+			values[index] = value;
+		}
+	}
+	
+	/**
+	 * Writes this template with the given values in place of its placeholders.
+	 * @param values the values by placeholder index, placeholders without a value are kept as they are
+	 * @return the resulting html
+	 */
+	public String render(String[] values)
+	{
+		if (_slotStarts.length == 0)
+		{
+			return _content;
+		}
+		
+		int length = _content.length();
+		for (int i = 0; i < _slotStarts.length; i++)
+		{
+			final String value = values[_slotPlaceholders[i]];
+			if (value != null)
+			{
+				length += value.length() - (_slotEnds[i] - _slotStarts[i]);
+			}
+		}
+		
+		final StringBuilder sb = new StringBuilder(length);
+		int position = 0;
+		for (int i = 0; i < _slotStarts.length; i++)
+		{
+			final String value = values[_slotPlaceholders[i]];
+			if (value != null)
+			{
+				sb.append(_content, position, _slotStarts[i]);
+				sb.append(value);
+				position = _slotEnds[i];
+			}
+		}
+		sb.append(_content, position, _content.length());
+		return sb.toString();
+	}
+}
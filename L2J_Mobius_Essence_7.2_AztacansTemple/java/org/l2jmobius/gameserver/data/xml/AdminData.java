@@ -295,6 +295,8 @@ public class AdminData implements IXmlReader
 	 */
 	public void broadcastToGMs(ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (Player gm : getAllGms(true))
 		{
 			gm.sendPacket(packet);
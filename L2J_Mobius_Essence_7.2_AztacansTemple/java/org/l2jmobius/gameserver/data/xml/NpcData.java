@@ -84,6 +84,12 @@ public class NpcData implements IXmlReader
 		}
 	}
 	
+	@Override
+	public boolean isUsingSnapshot()
+	{
+		return true;
+	}
+	
 	@Override
 	public void parseDocument(Document doc, File f)
 	{
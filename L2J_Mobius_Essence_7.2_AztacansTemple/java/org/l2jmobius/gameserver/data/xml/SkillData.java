@@ -210,6 +210,12 @@ public class SkillData implements IXmlReader
 		return false;
 	}
 	
+	@Override
+	public boolean isUsingSnapshot()
+	{
+		return true;
+	}
+	
 	@Override
 	public synchronized void load()
 	{
@@ -18,6 +18,11 @@ package org.l2jmobius.gameserver.geoengine;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -53,8 +58,36 @@ public class GeoEngine
 	
 	private final GeoData _geodata = new GeoData();
 	
+	// Line of sight cache, direct mapped by the pair of origin and target cells.
+	private final LosEntry[] _losCache;
+	private final AtomicInteger _losGeneration = new AtomicInteger();
+	private final LongAdder _losLookups = new LongAdder();
+	private final LongAdder _losHits = new LongAdder();
+	private final LongAdder _losTraces = new LongAdder();
+	private final LongAdder _losInvalidations = new LongAdder();
+	
+	private static class LosEntry
+	{
+		protected final long fromKey;
+		protected final long toKey;
+		protected final int generation;
+		protected final long expireTime;
+		protected final boolean result;
+		
+		protected LosEntry(long fromKey, long toKey, int generation, long expireTime, boolean result)
+		{
+			this.fromKey = fromKey;
+			this.toKey = toKey;
+			this.generation = generation;
+			this.expireTime = expireTime;
+			this.result = result;
+		}
+	}
+	
 	protected GeoEngine()
 	{
+		_losCache = Config.LOS_CACHE_SIZE > 0 ? new LosEntry[Integer.highestOneBit(Math.min(Config.LOS_CACHE_SIZE, 1 << 24) * 2 - 1)] : null;
+		
 		int loadedRegions = 0;
 		try
 		{
@@ -85,7 +118,7 @@ public class GeoEngine
 			System.exit(1);
 		}
 		
-		LOGGER.info(getClass().getSimpleName() + ": Loaded " + loadedRegions + " regions.");
+		LOGGER.info(getClass().getSimpleName() + ": " + (Config.GEODATA_LAZY_LOAD ? "Registered " : "Loaded ") + loadedRegions + " regions.");
 	}
 	
 	public boolean hasGeoPos(int geoX, int geoY)
@@ -131,11 +164,22 @@ public class GeoEngine
 	public void setNearestNswe(int geoX, int geoY, int worldZ, byte nswe)
 	{
 		_geodata.setNearestNswe(geoX, geoY, worldZ, nswe);
+		invalidateLineOfSight();
 	}
 	
 	public void unsetNearestNswe(int geoX, int geoY, int worldZ, byte nswe)
 	{
 		_geodata.unsetNearestNswe(geoX, geoY, worldZ, nswe);
+		invalidateLineOfSight();
+	}
+	
+	/**
+	 * Discards all cached line of sight results. Must be called whenever geodata cells are changed at runtime.
+	 */
+	public void invalidateLineOfSight()
+	{
+		_losGeneration.incrementAndGet();
+		_losInvalidations.increment();
 	}
 	
 	public int getNearestZ(int geoX, int geoY, int worldZ)
@@ -237,6 +281,62 @@ public class GeoEngine
 		return (target != null) && (target.isDoor() || canSeeTarget(cha.getX(), cha.getY(), cha.getZ(), cha.getInstanceWorld(), target.getX(), target.getY(), target.getZ(), target.getInstanceWorld()));
 	}
 	
+	/**
+	 * Can see targets from a single origin, as done by area skills. The origin cell, its nearest geo Z and instance are resolved once and targets that share a cell are traced once.<br>
+	 * Doors as target always return true. Checks doors between.<br>
+	 * The returned predicate keeps per call state and must not be shared between threads.
+	 * @param origin the origin of the line of sight
+	 * @return a predicate returning {@code true} if the origin can see the tested target (LOS), {@code false} otherwise
+	 */
+	public Predicate<WorldObject> canSeeTargets(WorldObject origin)
+	{
+		final int x = origin.getX();
+		final int y = origin.getY();
+		final int z = origin.getZ();
+		final Instance instance = origin.getInstanceWorld();
+		final int geoX = getGeoX(x);
+		final int geoY = getGeoY(y);
+		final int nearestFromZ = getNearestZ(geoX, geoY, z);
+		final Map<Long, Boolean> traced = new HashMap<>();
+		return target ->
+		{
+			if (target == null)
+			{
+				return false;
+			}
+			if (target.isDoor())
+			{
+				return true;
+			}
+			if (instance != target.getInstanceWorld())
+			{
+				return false;
+			}
+			
+			final int tx = target.getX();
+			final int ty = target.getY();
+			final int tz = target.getZ();
+			if (DoorData.getInstance().checkIfDoorsBetween(x, y, z, tx, ty, tz, instance, true) || FenceData.getInstance().checkIfFenceBetween(x, y, z, tx, ty, tz, instance))
+			{
+				return false;
+			}
+			
+			final int tGeoX = getGeoX(tx);
+			final int tGeoY = getGeoY(ty);
+			final int nearestToZ = getNearestZ(tGeoX, tGeoY, tz);
+			final Long key = getCellKey(tGeoX, tGeoY, nearestToZ);
+			final Boolean result = traced.get(key);
+			if (result != null)
+			{
+				return result.booleanValue();
+			}
+			
+			final boolean canSee = canSeeCell(geoX, geoY, nearestFromZ, tGeoX, tGeoY, nearestToZ);
+			traced.put(key, canSee);
+			return canSee;
+		};
+	}
+	
 	/**
 	 * Can see target. Checks doors between.
 	 * @param cha the character
@@ -314,35 +414,67 @@ public class GeoEngine
 	 */
 	public boolean canSeeTarget(int x, int y, int z, int tx, int ty, int tz)
 	{
-		int geoX = getGeoX(x);
-		int geoY = getGeoY(y);
-		int tGeoX = getGeoX(tx);
-		int tGeoY = getGeoY(ty);
-		
-		int nearestFromZ = getNearestZ(geoX, geoY, z);
-		int nearestToZ = getNearestZ(tGeoX, tGeoY, tz);
-		
+		final int geoX = getGeoX(x);
+		final int geoY = getGeoY(y);
+		final int tGeoX = getGeoX(tx);
+		final int tGeoY = getGeoY(ty);
+		return canSeeCell(geoX, geoY, getNearestZ(geoX, geoY, z), tGeoX, tGeoY, getNearestZ(tGeoX, tGeoY, tz));
+	}
+	
+	/**
+	 * Looks up the line of sight between two resolved geodata cells in the cache and traces it on a miss.
+	 * @param geoX the origin geo X
+	 * @param geoY the origin geo Y
+	 * @param nearestFromZ the origin nearest geo Z
+	 * @param tGeoX the target geo X
+	 * @param tGeoY the target geo Y
+	 * @param nearestToZ the target nearest geo Z
+	 * @return {@code true} if there is line of sight between the given cells, {@code false} otherwise
+	 */
+	private boolean canSeeCell(int geoX, int geoY, int nearestFromZ, int tGeoX, int tGeoY, int nearestToZ)
+	{
 		// Fastpath.
 		if ((geoX == tGeoX) && (geoY == tGeoY))
 		{
 			return !hasGeoPos(tGeoX, tGeoY) || (nearestFromZ == nearestToZ);
 		}
 		
-		int fromX = tx;
-		int fromY = ty;
-		int toX = tx;
-		int toY = ty;
+		if (_losCache == null)
+		{
+			_losTraces.increment();
+			return traceLineOfSight(geoX, geoY, nearestFromZ, tGeoX, tGeoY, nearestToZ);
+		}
+		
+		final long fromKey = getCellKey(geoX, geoY, nearestFromZ);
+		final long toKey = getCellKey(tGeoX, tGeoY, nearestToZ);
+		final int slot = (int) (((fromKey * 0x9E3779B97F4A7C15L) ^ (toKey * 0xC2B2AE3D27D4EB4FL)) >>> 40) & (_losCache.length - 1);
+		final long time = System.currentTimeMillis();
+		final int generation = _losGeneration.get();
+		_losLookups.increment();
+		
+		final LosEntry entry = _losCache[slot];
+		if ((entry != null) && (entry.fromKey == fromKey) && (entry.toKey == toKey) && (entry.generation == generation) && (entry.expireTime > time))
+		{
+			_losHits.increment();
+			return entry.result;
+		}
+		
+		_losTraces.increment();
+		final boolean result = traceLineOfSight(geoX, geoY, nearestFromZ, tGeoX, tGeoY, nearestToZ);
+		_losCache[slot] = new LosEntry(fromKey, toKey, generation, time + Config.LOS_CACHE_TIME, result);
+		return result;
+	}
+	
+	private static long getCellKey(int geoX, int geoY, int geoZ)
+	{
+		return ((long) (geoX & 0xFFFF) << 32) | ((long) (geoY & 0xFFFF) << 16) | (geoZ & 0xFFFF);
+	}
+	
+	private boolean traceLineOfSight(int geoX, int geoY, int nearestFromZ, int tGeoX, int tGeoY, int nearestToZ)
+	{
 		if (nearestToZ > nearestFromZ)
 		{
-			int tmp = toX;
-			toX = fromX;
-			fromX = tmp;
-			
-			tmp = toY;
-			toY = fromY;
-			fromY = tmp;
-			
-			tmp = nearestToZ;
+			int tmp = nearestToZ;
 			nearestToZ = nearestFromZ;
 			nearestFromZ = tmp;
 			
@@ -608,6 +740,25 @@ public class GeoEngine
 		return hasGeoPos(getGeoX(x), getGeoY(y));
 	}
 	
+	public String[] getStats()
+	{
+		final long lookups = _losLookups.sum();
+		final long hits = _losHits.sum();
+		
+		final String[] stats = new String[9];
+		int pos = 0;
+		stats[pos++] = "Geo engine LOS cache:";
+		stats[pos++] = " |- Enabled: ........... " + (_losCache != null);
+		stats[pos++] = " |- Slots: ............. " + (_losCache == null ? 0 : _losCache.length);
+		stats[pos++] = " |- CacheTime: ......... " + Config.LOS_CACHE_TIME + " ms";
+		stats[pos++] = " |- Lookups: ........... " + lookups;
+		stats[pos++] = " |- Hits: .............. " + hits + " (" + (lookups > 0 ? (hits * 100) / lookups : 0) + "%)";
+		stats[pos++] = " |- GeoTraces: ......... " + _losTraces.sum();
+		stats[pos++] = " |- Invalidations: ..... " + _losInvalidations.sum();
+		stats[pos] = " | -------";
+		return stats;
+	}
+	
 	public static GeoEngine getInstance()
 	{
 		return SingletonHolder._instance;
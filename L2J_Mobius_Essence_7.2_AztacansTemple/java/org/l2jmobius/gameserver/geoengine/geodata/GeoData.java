@@ -17,12 +17,11 @@
 package org.l2jmobius.gameserver.geoengine.geodata;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.ByteOrder;
-import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.l2jmobius.Config;
+import org.l2jmobius.gameserver.geoengine.geodata.regions.MappedRegion;
 import org.l2jmobius.gameserver.geoengine.geodata.regions.NullRegion;
 import org.l2jmobius.gameserver.geoengine.geodata.regions.Region;
 
@@ -93,10 +92,7 @@ public class GeoData
 	public void loadRegion(Path filePath, int regionX, int regionY) throws IOException
 	{
 		final int regionOffset = (regionX * GEO_REGIONS_Y) + regionY;
-		try (RandomAccessFile raf = new RandomAccessFile(filePath.toFile(), "r"))
-		{
-			_regions.set(regionOffset, new Region(raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length()).order(ByteOrder.LITTLE_ENDIAN)));
-		}
+		_regions.set(regionOffset, new MappedRegion(filePath, Config.GEODATA_LAZY_LOAD));
 	}
 	
 	public void setRegion(int regionX, int regionY, Region region)
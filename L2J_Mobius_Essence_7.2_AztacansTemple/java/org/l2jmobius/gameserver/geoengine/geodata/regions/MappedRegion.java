@@ -0,0 +1,566 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.geoengine.geodata.regions;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.l2jmobius.Config;
+import org.l2jmobius.gameserver.geoengine.geodata.Cell;
+import org.l2jmobius.gameserver.geoengine.geodata.IBlock;
+import org.l2jmobius.gameserver.geoengine.geodata.IRegion;
+import org.l2jmobius.gameserver.geoengine.geodata.blocks.ComplexBlock;
+import org.l2jmobius.gameserver.geoengine.geodata.blocks.MultilayerBlock;
+
+/**
+ * Region read directly from its memory mapped geodata file.<br>
+ * Only the offset of each block is kept on the heap. Blocks changed with {@link #setNearestNswe} or {@link #unsetNearestNswe} are copied to heap blocks of a copy-on-write overlay, the mapped file is never written.
+ * @author HorridoJoho, Mobius
+ */
+public class MappedRegion implements IRegion
+{
+	private static final Logger LOGGER = Logger.getLogger(MappedRegion.class.getName());
+	
+	private final Path _filePath;
+	private volatile ByteBuffer _buffer;
+	private int[] _blockOffsets;
+	private boolean _failed;
+	private volatile Map<Integer, IBlock> _overlay = Collections.emptyMap();
+	
+	/**
+	 * @param filePath the geodata file of the region.
+	 * @param lazy if true, the file is mapped on first access instead of now.
+	 * @throws IOException if the file could not be mapped.
+	 */
+	public MappedRegion(Path filePath, boolean lazy) throws IOException
+	{
+		_filePath = filePath;
+		if (!lazy)
+		{
+			load();
+		}
+	}
+	
+	private synchronized void load() throws IOException
+	{
+		if ((_buffer != null) || _failed)
+		{
+			return;
+		}
+		
+		final ByteBuffer buffer;
+		try (RandomAccessFile raf = new RandomAccessFile(_filePath.toFile(), "r"))
+		{
+			buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		
+		// Index the blocks, the last offset is the end of the region data.
+		final int[] blockOffsets = new int[IRegion.REGION_BLOCKS + 1];
+		int offset = 0;
+		for (int blockOffset = 0; blockOffset < IRegion.REGION_BLOCKS; blockOffset++)
+		{
+			blockOffsets[blockOffset] = offset;
+			final int blockType = buffer.get(offset);
+			switch (blockType)
+			{
+				case IBlock.TYPE_FLAT:
+				{
+					offset += 3;
+					break;
+				}
+				case IBlock.TYPE_COMPLEX:
+				{
+					offset += 1 + (IBlock.BLOCK_CELLS * 2);
+					break;
+				}
+				case IBlock.TYPE_MULTILAYER:
+				{
+					offset++;
+					for (int blockCellOffset = 0; blockCellOffset < IBlock.BLOCK_CELLS; blockCellOffset++)
+					{
+						final byte nLayers = buffer.get(offset);
+						if ((nLayers <= 0) || (nLayers > 125))
+						{
+							throw new RuntimeException("L2JGeoDriver: Geo file corrupted! Invalid layers count!");
+						}
+						offset += 1 + (nLayers * 2);
+					}
+					break;
+				}
+				default:
+				{
+					throw new RuntimeException("Invalid block type " + blockType + "!");
+				}
+			}
+		}
+		blockOffsets[IRegion.REGION_BLOCKS] = offset;
+		
+		_blockOffsets = blockOffsets;
+		_buffer = buffer;
+	}
+	
+	/**
+	 * @return the mapped region data, or null if the file could not be loaded.
+	 */
+	private ByteBuffer getBuffer()
+	{
+		final ByteBuffer buffer = _buffer;
+		if (buffer != null)
+		{
+			return buffer;
+		}
+		
+		try
+		{
+			load();
+		}
+		catch (Exception e)
+		{
+			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Failed to load " + _filePath.getFileName() + "!", e);
+			synchronized (this)
+			{
+				_failed = true;
+			}
+		}
+		return _buffer;
+	}
+	
+	private static int getBlockIndex(int geoX, int geoY)
+	{
+		return (((geoX / IBlock.BLOCK_CELLS_X) % IRegion.REGION_BLOCKS_X) * IRegion.REGION_BLOCKS_Y) + ((geoY / IBlock.BLOCK_CELLS_Y) % IRegion.REGION_BLOCKS_Y);
+	}
+	
+	private static int getCellIndex(int geoX, int geoY)
+	{
+		return ((geoX % IBlock.BLOCK_CELLS_X) * IBlock.BLOCK_CELLS_Y) + (geoY % IBlock.BLOCK_CELLS_Y);
+	}
+	
+	/**
+	 * @param geoX the geo X.
+	 * @param geoY the geo Y.
+	 * @return the overlay block of the cell, null if the block was not changed.
+	 */
+	private IBlock getOverlayBlock(int geoX, int geoY)
+	{
+		final Map<Integer, IBlock> overlay = _overlay;
+		return overlay.isEmpty() ? null : overlay.get(getBlockIndex(geoX, geoY));
+	}
+	
+	/**
+	 * @param buffer the region data.
+	 * @param offset the offset of a complex block.
+	 * @param geoX the geo X.
+	 * @param geoY the geo Y.
+	 * @return the cell data.
+	 */
+	private static short getCellData(ByteBuffer buffer, int offset, int geoX, int geoY)
+	{
+		return buffer.getShort(offset + 1 + (getCellIndex(geoX, geoY) * 2));
+	}
+	
+	/**
+	 * @param buffer the region data.
+	 * @param offset the offset of a multilayer block.
+	 * @param geoX the geo X.
+	 * @param geoY the geo Y.
+	 * @return the offset of the layer count of the cell.
+	 */
+	private static int getLayersOffset(ByteBuffer buffer, int offset, int geoX, int geoY)
+	{
+		final int cellLocalOffset = getCellIndex(geoX, geoY);
+		int cellDataOffset = offset + 1;
+		for (int i = 0; i < cellLocalOffset; i++)
+		{
+			cellDataOffset += 1 + (buffer.get(cellDataOffset) * 2);
+		}
+		return cellDataOffset;
+	}
+	
+	private static short getNearestLayer(ByteBuffer buffer, int offset, int geoX, int geoY, int worldZ)
+	{
+		final int startOffset = getLayersOffset(buffer, offset, geoX, geoY);
+		final int endOffset = startOffset + 1 + (buffer.get(startOffset) * 2);
+		
+		// One layer at least was required on loading so this is set at least once on the loop below.
+		int nearestDZ = 0;
+		short nearestData = 0;
+		for (int layerOffset = startOffset + 1; layerOffset < endOffset; layerOffset += 2)
+		{
+			final short layerData = buffer.getShort(layerOffset);
+			final int layerZ = getHeight(layerData);
+			if (layerZ == worldZ)
+			{
+				// Exact z.
+				return layerData;
+			}
+			
+			final int layerDZ = Math.abs(layerZ - worldZ);
+			if ((layerOffset == (startOffset + 1)) || (layerDZ < nearestDZ))
+			{
+				nearestDZ = layerDZ;
+				nearestData = layerData;
+			}
+		}
+		
+		return nearestData;
+	}
+	
+	private static int getHeight(short data)
+	{
+		return (short) (data & 0x0fff0) >> 1;
+	}
+	
+	@Override
+	public boolean checkNearestNswe(int geoX, int geoY, int worldZ, int nswe)
+	{
+		final IBlock block = getOverlayBlock(geoX, geoY);
+		if (block != null)
+		{
+			return block.checkNearestNswe(geoX, geoY, worldZ, nswe);
+		}
+		
+		final ByteBuffer buffer = getBuffer();
+		if (buffer == null)
+		{
+			return true;
+		}
+		
+		final int offset = _blockOffsets[getBlockIndex(geoX, geoY)];
+		switch (buffer.get(offset))
+		{
+			case IBlock.TYPE_FLAT:
+			{
+				return true;
+			}
+			case IBlock.TYPE_COMPLEX:
+			{
+				return (getCellData(buffer, offset, geoX, geoY) & nswe) == nswe;
+			}
+			default:
+			{
+				return (getNearestLayer(buffer, offset, geoX, geoY, worldZ) & 0x000f & nswe) == nswe;
+			}
+		}
+	}
+	
+	@Override
+	public int getNearestZ(int geoX, int geoY, int worldZ)
+	{
+		final IBlock block = getOverlayBlock(geoX, geoY);
+		if (block != null)
+		{
+			return block.getNearestZ(geoX, geoY, worldZ);
+		}
+		
+		final ByteBuffer buffer = getBuffer();
+		if (buffer == null)
+		{
+			return worldZ;
+		}
+		
+		final int offset = _blockOffsets[getBlockIndex(geoX, geoY)];
+		switch (buffer.get(offset))
+		{
+			case IBlock.TYPE_FLAT:
+			{
+				return buffer.getShort(offset + 1);
+			}
+			case IBlock.TYPE_COMPLEX:
+			{
+				return getHeight(getCellData(buffer, offset, geoX, geoY));
+			}
+			default:
+			{
+				return getHeight(getNearestLayer(buffer, offset, geoX, geoY, worldZ));
+			}
+		}
+	}
+	
+	@Override
+	public int getNextLowerZ(int geoX, int geoY, int worldZ)
+	{
+		final IBlock block = getOverlayBlock(geoX, geoY);
+		if (block != null)
+		{
+			return block.getNextLowerZ(geoX, geoY, worldZ);
+		}
+		
+		final ByteBuffer buffer = getBuffer();
+		if (buffer == null)
+		{
+			return worldZ;
+		}
+		
+		final int offset = _blockOffsets[getBlockIndex(geoX, geoY)];
+		switch (buffer.get(offset))
+		{
+			case IBlock.TYPE_FLAT:
+			{
+				final int height = buffer.getShort(offset + 1);
+				return height <= worldZ ? height : worldZ;
+			}
+			case IBlock.TYPE_COMPLEX:
+			{
+				final int cellHeight = getHeight(getCellData(buffer, offset, geoX, geoY));
+				return cellHeight <= worldZ ? cellHeight : worldZ;
+			}
+			default:
+			{
+				final int startOffset = getLayersOffset(buffer, offset, geoX, geoY);
+				final int endOffset = startOffset + 1 + (buffer.get(startOffset) * 2);
+				int lowerZ = Integer.MIN_VALUE;
+				for (int layerOffset = startOffset + 1; layerOffset < endOffset; layerOffset += 2)
+				{
+					final int layerZ = getHeight(buffer.getShort(layerOffset));
+					if (layerZ == worldZ)
+					{
+						// Exact z.
+						return layerZ;
+					}
+					
+					if ((layerZ < worldZ) && (layerZ > lowerZ))
+					{
+						lowerZ = layerZ;
+					}
+				}
+				return lowerZ == Integer.MIN_VALUE ? worldZ : lowerZ;
+			}
+		}
+	}
+	
+	@Override
+	public int getNextHigherZ(int geoX, int geoY, int worldZ)
+	{
+		final IBlock block = getOverlayBlock(geoX, geoY);
+		if (block != null)
+		{
+			return block.getNextHigherZ(geoX, geoY, worldZ);
+		}
+		
+		final ByteBuffer buffer = getBuffer();
+		if (buffer == null)
+		{
+			return worldZ;
+		}
+		
+		final int offset = _blockOffsets[getBlockIndex(geoX, geoY)];
+		switch (buffer.get(offset))
+		{
+			case IBlock.TYPE_FLAT:
+			{
+				final int height = buffer.getShort(offset + 1);
+				return height >= worldZ ? height : worldZ;
+			}
+			case IBlock.TYPE_COMPLEX:
+			{
+				final int cellHeight = getHeight(getCellData(buffer, offset, geoX, geoY));
+				return cellHeight >= worldZ ? cellHeight : worldZ;
+			}
+			default:
+			{
+				final int startOffset = getLayersOffset(buffer, offset, geoX, geoY);
+				final int endOffset = startOffset + 1 + (buffer.get(startOffset) * 2);
+				int higherZ = Integer.MAX_VALUE;
+				for (int layerOffset = startOffset + 1; layerOffset < endOffset; layerOffset += 2)
+				{
+					final int layerZ = getHeight(buffer.getShort(layerOffset));
+					if (layerZ == worldZ)
+					{
+						// Exact z.
+						return layerZ;
+					}
+					
+					if ((layerZ > worldZ) && (layerZ < higherZ))
+					{
+						higherZ = layerZ;
+					}
+				}
+				return higherZ == Integer.MAX_VALUE ? worldZ : higherZ;
+			}
+		}
+	}
+	
+	@Override
+	public void setNearestNswe(int geoX, int geoY, int worldZ, byte nswe)
+	{
+		updateNearestNswe(geoX, geoY, worldZ, nswe, true);
+	}
+	
+	@Override
+	public void unsetNearestNswe(int geoX, int geoY, int worldZ, byte nswe)
+	{
+		updateNearestNswe(geoX, geoY, worldZ, nswe, false);
+	}
+	
+	private synchronized void updateNearestNswe(int geoX, int geoY, int worldZ, byte nswe, boolean set)
+	{
+		final ByteBuffer buffer = getBuffer();
+		if (buffer == null)
+		{
+			return;
+		}
+		
+		final int blockIndex = getBlockIndex(geoX, geoY);
+		IBlock block = _overlay.get(blockIndex);
+		if (block != null)
+		{
+			if (set)
+			{
+				block.setNearestNswe(geoX, geoY, worldZ, nswe);
+			}
+			else
+			{
+				block.unsetNearestNswe(geoX, geoY, worldZ, nswe);
+			}
+			return;
+		}
+		
+		final int offset = _blockOffsets[blockIndex];
+		switch (buffer.get(offset))
+		{
+			case IBlock.TYPE_FLAT:
+			{
+				// Flat block cells are enabled by default on all directions.
+				if (set)
+				{
+					return;
+				}
+				
+				final short encodedHeight = (short) ((buffer.getShort(offset + 1) << 1) & 0xffff);
+				final short combinedData = (short) (encodedHeight | Cell.NSWE_ALL);
+				final ByteBuffer data = ByteBuffer.allocate(IBlock.BLOCK_CELLS * 2);
+				for (int i = 0; i < IBlock.BLOCK_CELLS; i++)
+				{
+					data.putShort(combinedData);
+				}
+				data.rewind();
+				block = new ComplexBlock(data);
+				break;
+			}
+			case IBlock.TYPE_COMPLEX:
+			{
+				block = new ComplexBlock(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(offset + 1));
+				break;
+			}
+			default:
+			{
+				block = new MultilayerBlock(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(offset + 1));
+				break;
+			}
+		}
+		
+		// Change the copy before it becomes visible to readers.
+		if (set)
+		{
+			block.setNearestNswe(geoX, geoY, worldZ, nswe);
+		}
+		else
+		{
+			block.unsetNearestNswe(geoX, geoY, worldZ, nswe);
+		}
+		
+		final Map<Integer, IBlock> overlay = new HashMap<>(_overlay);
+		overlay.put(blockIndex, block);
+		_overlay = overlay;
+	}
+	
+	@Override
+	public boolean hasGeo()
+	{
+		return getBuffer() != null;
+	}
+	
+	/**
+	 * Saves this region to a file, including the changed blocks.
+	 * @param fileName the target file name.
+	 * @return true if the file was saved successfully, false otherwise.
+	 */
+	@Override
+	public boolean saveToFile(String fileName)
+	{
+		final ByteBuffer buffer = getBuffer();
+		if (buffer == null)
+		{
+			return false;
+		}
+		
+		final Path filePath = new File(Config.GEOEDIT_PATH + File.separator + fileName).toPath();
+		if (Files.exists(filePath))
+		{
+			try
+			{
+				Files.delete(filePath);
+			}
+			catch (IOException e)
+			{
+				return false;
+			}
+		}
+		
+		final Map<Integer, IBlock> overlay = _overlay;
+		try (BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(filePath.toFile())))
+		{
+			for (int blockIndex = 0; blockIndex < IRegion.REGION_BLOCKS; blockIndex++)
+			{
+				final IBlock block = overlay.get(blockIndex);
+				if (block instanceof ComplexBlock)
+				{
+					final short[] data = ((ComplexBlock) block).getData();
+					final ByteBuffer blockBuffer = ByteBuffer.allocate(1 + (data.length * 2));
+					blockBuffer.put((byte) IBlock.TYPE_COMPLEX);
+					for (short info : data)
+					{
+						blockBuffer.putShort(Short.reverseBytes(info));
+					}
+					bos.write(blockBuffer.array());
+				}
+				else if (block instanceof MultilayerBlock)
+				{
+					final byte[] data = ((MultilayerBlock) block).getData();
+					bos.write(IBlock.TYPE_MULTILAYER);
+					bos.write(data);
+				}
+				else
+				{
+					// Unchanged blocks are written as stored in the file.
+					final byte[] data = new byte[_blockOffsets[blockIndex + 1] - _blockOffsets[blockIndex]];
+					buffer.get(_blockOffsets[blockIndex], data);
+					bos.write(data);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+		
+		return true;
+	}
+}
@@ -17,8 +17,10 @@
 package org.l2jmobius.gameserver.geoengine.pathfinding;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.l2jmobius.Config;
+import org.l2jmobius.commons.threads.ThreadPool;
 import org.l2jmobius.gameserver.geoengine.pathfinding.cellnodes.CellPathFinding;
 import org.l2jmobius.gameserver.geoengine.pathfinding.geonodes.GeoPathFinding;
 import org.l2jmobius.gameserver.model.World;
@@ -38,6 +40,23 @@ public abstract class PathFinding
 	
 	public abstract List<AbstractNodeLoc> findPath(int x, int y, int z, int tx, int ty, int tz, Instance instance, boolean playable);
 	
+	/**
+	 * Searches a path on the instant thread pool, so the calling thread does not wait for long searches.
+	 * @param x the start X.
+	 * @param y the start Y.
+	 * @param z the start Z.
+	 * @param tx the target X.
+	 * @param ty the target Y.
+	 * @param tz the target Z.
+	 * @param instance the instance of the search.
+	 * @param playable true if the search is for a playable.
+	 * @return a future completed with the path, or with null if no path was found.
+	 */
+	public CompletableFuture<List<AbstractNodeLoc>> findPathAsync(int x, int y, int z, int tx, int ty, int tz, Instance instance, boolean playable)
+	{
+		return CompletableFuture.supplyAsync(() -> findPath(x, y, z, tx, ty, tz, instance, playable), ThreadPool::execute);
+	}
+	
 	/**
 	 * Convert geodata position to pathnode position
 	 * @param geoPos
@@ -93,8 +112,8 @@ public abstract class PathFinding
 		return World.WORLD_Y_MIN + (nodeY * 128) + 48;
 	}
 	
-	public String[] getStat()
+	public String[] getStats()
 	{
-		return null;
+		return new String[0];
 	}
 }
@@ -20,8 +20,6 @@ import org.l2jmobius.gameserver.geoengine.pathfinding.AbstractNode;
 
 public class CellNode extends AbstractNode<NodeLoc>
 {
-	private CellNode _next = null;
-	private boolean _isInUse = true;
 	private float _cost = -1000;
 	
 	public CellNode(NodeLoc loc)
@@ -29,26 +27,6 @@ public class CellNode extends AbstractNode<NodeLoc>
 		super(loc);
 	}
 	
-	public boolean isInUse()
-	{
-		return _isInUse;
-	}
-	
-	public void setInUse()
-	{
-		_isInUse = true;
-	}
-	
-	public CellNode getNext()
-	{
-		return _next;
-	}
-	
-	public void setNext(CellNode next)
-	{
-		_next = next;
-	}
-	
 	public float getCost()
 	{
 		return _cost;
@@ -58,12 +36,4 @@ public class CellNode extends AbstractNode<NodeLoc>
 	{
 		_cost = (float) cost;
 	}
-	
-	public void free()
-	{
-		setParent(null);
-		_cost = -1000;
-		_isInUse = false;
-		_next = null;
-	}
-}
\ No newline at end of file
+}
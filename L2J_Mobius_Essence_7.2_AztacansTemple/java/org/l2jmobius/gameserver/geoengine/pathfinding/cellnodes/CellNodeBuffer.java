@@ -16,23 +16,28 @@
  */
 package org.l2jmobius.gameserver.geoengine.pathfinding.cellnodes;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.l2jmobius.Config;
+import org.l2jmobius.gameserver.geoengine.GeoEngine;
+import org.l2jmobius.gameserver.geoengine.geodata.Cell;
+import org.l2jmobius.gameserver.geoengine.pathfinding.AbstractNodeLoc;
 
 /**
+ * Search state of the cell pathfinding, reused by one thread at a time.<br>
+ * Nodes are kept in primitive arrays indexed by node id. A hash table maps the cells of the search area to node ids and the open set is a binary heap of node ids, so a search does not create objects until the path is built.
  * @author DS Credits to Diamond
  */
 public class CellNodeBuffer
 {
 	private static final int MAX_ITERATIONS = 3500;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final float NOT_ADDED = -1000;
 	
-	private final ReentrantLock _lock = new ReentrantLock();
-	private final int _mapSize;
-	private final CellNode[][] _buffer;
-	
+	private int _mapSize = 0;
 	private int _baseX = 0;
 	private int _baseY = 0;
 	
@@ -43,66 +48,83 @@ public class CellNodeBuffer
 	private long _timeStamp = 0;
 	private long _lastElapsedTime = 0;
 	
-	private CellNode _current = null;
+	// Cell table, open addressing from cell key to node id. Entries of previous searches are recognized by their stamp.
+	private int[] _cellKeys = new int[INITIAL_CAPACITY * 2];
+	private int[] _cellNodes = new int[INITIAL_CAPACITY * 2];
+	private int[] _cellStamps = new int[INITIAL_CAPACITY * 2];
+	private int _stamp = 0;
 	
-	public CellNodeBuffer(int size)
-	{
-		_mapSize = size;
-		_buffer = new CellNode[_mapSize][_mapSize];
-	}
+	// Nodes.
+	private int _nodeCount = 0;
+	private int[] _nodeX = new int[INITIAL_CAPACITY];
+	private int[] _nodeY = new int[INITIAL_CAPACITY];
+	private int[] _nodeZ = new int[INITIAL_CAPACITY];
+	private byte[] _nodeNswe = new byte[INITIAL_CAPACITY];
+	private float[] _nodeCost = new float[INITIAL_CAPACITY];
+	private int[] _nodeParent = new int[INITIAL_CAPACITY];
+	private int[] _nodeOrder = new int[INITIAL_CAPACITY];
 	
-	public final boolean lock()
-	{
-		return _lock.tryLock();
-	}
+	// Open set, binary heap of node ids ordered by cost, then by insertion order.
+	private int[] _open = new int[INITIAL_CAPACITY];
+	private int _openSize = 0;
+	private int _order = 0;
+	
+	private int _current = -1;
 	
-	public final CellNode findPath(int x, int y, int z, int tx, int ty, int tz)
+	/**
+	 * Searches a path on the geodata cells.
+	 * @param mapSize the size of the search area, centered between start and target.
+	 * @param x the start geo X.
+	 * @param y the start geo Y.
+	 * @param z the start Z.
+	 * @param tx the target geo X.
+	 * @param ty the target geo Y.
+	 * @param tz the target Z.
+	 * @return the id of the target node, -1 if no path was found.
+	 */
+	public final int findPath(int mapSize, int x, int y, int z, int tx, int ty, int tz)
 	{
 		_timeStamp = System.currentTimeMillis();
+		_mapSize = mapSize;
 		_baseX = x + ((tx - x - _mapSize) / 2); // Middle of the line (x,y) - (tx,ty).
 		_baseY = y + ((ty - y - _mapSize) / 2); // Will be in the center of the buffer.
 		_targetX = tx;
 		_targetY = ty;
 		_targetZ = tz;
+		
+		// Start a new search.
+		if (++_stamp == 0)
+		{
+			Arrays.fill(_cellStamps, 0);
+			_stamp = 1;
+		}
+		_nodeCount = 0;
+		_openSize = 0;
+		_order = 0;
+		
 		_current = getNode(x, y, z);
-		_current.setCost(getCost(x, y, z, Config.HIGH_WEIGHT));
+		_nodeCost[_current] = getCost(x, y, z, Config.HIGH_WEIGHT);
 		
 		for (int count = 0; count < MAX_ITERATIONS; count++)
 		{
-			if ((_current.getLoc().getNodeX() == _targetX) && (_current.getLoc().getNodeY() == _targetY) && (Math.abs(_current.getLoc().getZ() - _targetZ) < 64))
+			if ((_nodeX[_current] == _targetX) && (_nodeY[_current] == _targetY) && (Math.abs(_nodeZ[_current] - _targetZ) < 64))
 			{
 				return _current; // Found.
 			}
 			
 			getNeighbors();
-			if (_current.getNext() == null)
+			if (_openSize == 0)
 			{
-				return null; // No more ways.
+				return -1; // No more ways.
 			}
 			
-			_current = _current.getNext();
+			_current = poll();
 		}
-		return null;
+		return -1;
 	}
 	
 	public void free()
 	{
-		_current = null;
-		
-		CellNode node;
-		for (int i = 0; i < _mapSize; i++)
-		{
-			for (int j = 0; j < _mapSize; j++)
-			{
-				node = _buffer[i][j];
-				if (node != null)
-				{
-					node.free();
-				}
-			}
-		}
-		
-		_lock.unlock();
 		_lastElapsedTime = System.currentTimeMillis() - _timeStamp;
 	}
 	
@@ -111,67 +133,157 @@ public class CellNodeBuffer
 		return _lastElapsedTime;
 	}
 	
+	/**
+	 * @return the number of nodes of the last search.
+	 */
+	public final int getNodeCount()
+	{
+		return _nodeCount;
+	}
+	
+	public final int getParent(int node)
+	{
+		return _nodeParent[node];
+	}
+	
+	public final int getNodeX(int node)
+	{
+		return _nodeX[node];
+	}
+	
+	public final int getNodeY(int node)
+	{
+		return _nodeY[node];
+	}
+	
+	/**
+	 * @param node the node id.
+	 * @return a new location of the node.
+	 */
+	public final NodeLoc getLoc(int node)
+	{
+		return new NodeLoc(_nodeX[node], _nodeY[node], _nodeZ[node], _nodeNswe[node]);
+	}
+	
 	public final List<CellNode> debugPath()
 	{
 		final List<CellNode> result = new LinkedList<>();
-		for (CellNode n = _current; n.getParent() != null; n = (CellNode) n.getParent())
+		final boolean[] onPath = new boolean[_nodeCount];
+		for (int n = _current; _nodeParent[n] >= 0; n = _nodeParent[n])
+		{
+			final CellNode node = new CellNode(getLoc(n));
+			node.setCost(-_nodeCost[n]);
+			result.add(node);
+			onPath[n] = true;
+		}
+		
+		for (int n = 0; n < _nodeCount; n++)
 		{
-			result.add(n);
-			n.setCost(-n.getCost());
+			if (onPath[n] || (_nodeCost[n] <= 0))
+			{
+				continue;
+			}
+			
+			final CellNode node = new CellNode(getLoc(n));
+			node.setCost(_nodeCost[n]);
+			result.add(node);
 		}
+		return result;
+	}
+	
+	/**
+	 * @param node the last node of the path.
+	 * @return the locations of the path where the moving direction changes, from the start to the given node.
+	 */
+	public final List<AbstractNodeLoc> constructPath(int node)
+	{
+		final List<AbstractNodeLoc> path = new ArrayList<>();
+		int previousDirectionX = Integer.MIN_VALUE;
+		int previousDirectionY = Integer.MIN_VALUE;
+		int directionX;
+		int directionY;
 		
-		for (int i = 0; i < _mapSize; i++)
+		int tempNode = node;
+		while (_nodeParent[tempNode] >= 0)
 		{
-			for (int j = 0; j < _mapSize; j++)
+			final int parent = _nodeParent[tempNode];
+			if (!Config.ADVANCED_DIAGONAL_STRATEGY && (_nodeParent[parent] >= 0))
 			{
-				final CellNode n = _buffer[i][j];
-				if ((n == null) || !n.isInUse() || (n.getCost() <= 0))
+				final int tmpX = _nodeX[tempNode] - _nodeX[_nodeParent[parent]];
+				final int tmpY = _nodeY[tempNode] - _nodeY[_nodeParent[parent]];
+				if (Math.abs(tmpX) == Math.abs(tmpY))
+				{
+					directionX = tmpX;
+					directionY = tmpY;
+				}
+				else
 				{
-					continue;
+					directionX = _nodeX[tempNode] - _nodeX[parent];
+					directionY = _nodeY[tempNode] - _nodeY[parent];
 				}
-				
-				result.add(n);
 			}
+			else
+			{
+				directionX = _nodeX[tempNode] - _nodeX[parent];
+				directionY = _nodeY[tempNode] - _nodeY[parent];
+			}
+			
+			// Only add a new route point if moving direction changes.
+			if ((directionX != previousDirectionX) || (directionY != previousDirectionY))
+			{
+				previousDirectionX = directionX;
+				previousDirectionY = directionY;
+				path.add(getLoc(tempNode));
+			}
+			
+			tempNode = parent;
 		}
-		return result;
+		
+		// Points were collected from the end.
+		for (int i = 0, j = path.size() - 1; i < j; i++, j--)
+		{
+			path.set(i, path.set(j, path.get(i)));
+		}
+		return path;
 	}
 	
 	private void getNeighbors()
 	{
-		if (_current.getLoc().canGoNone())
+		final byte nswe = _nodeNswe[_current];
+		if (nswe == 0)
 		{
 			return;
 		}
 		
-		final int x = _current.getLoc().getNodeX();
-		final int y = _current.getLoc().getNodeY();
-		final int z = _current.getLoc().getZ();
+		final int x = _nodeX[_current];
+		final int y = _nodeY[_current];
+		final int z = _nodeZ[_current];
 		
-		CellNode nodeE = null;
-		CellNode nodeS = null;
-		CellNode nodeW = null;
-		CellNode nodeN = null;
+		int nodeE = -1;
+		int nodeS = -1;
+		int nodeW = -1;
+		int nodeN = -1;
 		
 		// East
-		if (_current.getLoc().canGoEast())
+		if ((nswe & Cell.NSWE_EAST) != 0)
 		{
 			nodeE = addNode(x + 1, y, z, false);
 		}
 		
 		// South
-		if (_current.getLoc().canGoSouth())
+		if ((nswe & Cell.NSWE_SOUTH) != 0)
 		{
 			nodeS = addNode(x, y + 1, z, false);
 		}
 		
 		// West
-		if (_current.getLoc().canGoWest())
+		if ((nswe & Cell.NSWE_WEST) != 0)
 		{
 			nodeW = addNode(x - 1, y, z, false);
 		}
 		
 		// North
-		if (_current.getLoc().canGoNorth())
+		if ((nswe & Cell.NSWE_NORTH) != 0)
 		{
 			nodeN = addNode(x, y - 1, z, false);
 		}
@@ -182,85 +294,132 @@ public class CellNodeBuffer
 		}
 		
 		// SouthEast
-		if ((nodeE != null) && (nodeS != null) && nodeE.getLoc().canGoSouth() && nodeS.getLoc().canGoEast())
+		if ((nodeE >= 0) && (nodeS >= 0) && canGo(nodeE, Cell.NSWE_SOUTH) && canGo(nodeS, Cell.NSWE_EAST))
 		{
 			addNode(x + 1, y + 1, z, true);
 		}
 		
 		// SouthWest
-		if ((nodeS != null) && (nodeW != null) && nodeW.getLoc().canGoSouth() && nodeS.getLoc().canGoWest())
+		if ((nodeS >= 0) && (nodeW >= 0) && canGo(nodeW, Cell.NSWE_SOUTH) && canGo(nodeS, Cell.NSWE_WEST))
 		{
 			addNode(x - 1, y + 1, z, true);
 		}
 		
 		// NorthEast
-		if ((nodeN != null) && (nodeE != null) && nodeE.getLoc().canGoNorth() && nodeN.getLoc().canGoEast())
+		if ((nodeN >= 0) && (nodeE >= 0) && canGo(nodeE, Cell.NSWE_NORTH) && canGo(nodeN, Cell.NSWE_EAST))
 		{
 			addNode(x + 1, y - 1, z, true);
 		}
 		
 		// NorthWest
-		if ((nodeN != null) && (nodeW != null) && nodeW.getLoc().canGoNorth() && nodeN.getLoc().canGoWest())
+		if ((nodeN >= 0) && (nodeW >= 0) && canGo(nodeW, Cell.NSWE_NORTH) && canGo(nodeN, Cell.NSWE_WEST))
 		{
 			addNode(x - 1, y - 1, z, true);
 		}
 	}
 	
-	private final CellNode getNode(int x, int y, int z)
+	private boolean canGo(int node, byte direction)
+	{
+		return (_nodeNswe[node] & direction) != 0;
+	}
+	
+	/**
+	 * @param x the geo X.
+	 * @param y the geo Y.
+	 * @param z the Z used to select the geodata layer when the cell is first reached.
+	 * @return the id of the node of the cell, -1 if the cell is outside of the search area.
+	 */
+	private int getNode(int x, int y, int z)
 	{
 		final int aX = x - _baseX;
 		if ((aX < 0) || (aX >= _mapSize))
 		{
-			return null;
+			return -1;
 		}
 		
 		final int aY = y - _baseY;
 		if ((aY < 0) || (aY >= _mapSize))
 		{
-			return null;
+			return -1;
 		}
 		
-		CellNode result = _buffer[aX][aY];
-		if (result == null)
-		{
-			result = new CellNode(new NodeLoc(x, y, z));
-			_buffer[aX][aY] = result;
-		}
-		else if (!result.isInUse())
+		final int key = (aX * _mapSize) + aY;
+		final int mask = _cellKeys.length - 1;
+		int index = hash(key) & mask;
+		while (_cellStamps[index] == _stamp)
 		{
-			result.setInUse();
-			// Re-init node if needed.
-			if (result.getLoc() != null)
+			if (_cellKeys[index] == key)
 			{
-				result.getLoc().set(x, y, z);
+				return _cellNodes[index];
 			}
-			else
+			index = (index + 1) & mask;
+		}
+		
+		// New node.
+		if (((_nodeCount + 1) * 2) > _cellKeys.length)
+		{
+			growCells();
+			index = hash(key) & (_cellKeys.length - 1);
+			while (_cellStamps[index] == _stamp)
 			{
-				result.setLoc(new NodeLoc(x, y, z));
+				index = (index + 1) & (_cellKeys.length - 1);
 			}
 		}
+		if (_nodeCount == _nodeX.length)
+		{
+			growNodes();
+		}
 		
-		return result;
+		final int node = _nodeCount++;
+		_nodeX[node] = x;
+		_nodeY[node] = y;
+		byte nswe = 0;
+		if (GeoEngine.getInstance().checkNearestNswe(x, y, z, Cell.NSWE_NORTH))
+		{
+			nswe |= Cell.NSWE_NORTH;
+		}
+		if (GeoEngine.getInstance().checkNearestNswe(x, y, z, Cell.NSWE_EAST))
+		{
+			nswe |= Cell.NSWE_EAST;
+		}
+		if (GeoEngine.getInstance().checkNearestNswe(x, y, z, Cell.NSWE_SOUTH))
+		{
+			nswe |= Cell.NSWE_SOUTH;
+		}
+		if (GeoEngine.getInstance().checkNearestNswe(x, y, z, Cell.NSWE_WEST))
+		{
+			nswe |= Cell.NSWE_WEST;
+		}
+		_nodeNswe[node] = nswe;
+		_nodeZ[node] = GeoEngine.getInstance().getNearestZ(x, y, z);
+		_nodeCost[node] = NOT_ADDED;
+		_nodeParent[node] = -1;
+		
+		_cellStamps[index] = _stamp;
+		_cellKeys[index] = key;
+		_cellNodes[index] = node;
+		
+		return node;
 	}
 	
-	private final CellNode addNode(int x, int y, int z, boolean diagonal)
+	private int addNode(int x, int y, int z, boolean diagonal)
 	{
-		final CellNode newNode = getNode(x, y, z);
-		if (newNode == null)
+		final int node = getNode(x, y, z);
+		if (node < 0)
 		{
-			return null;
+			return -1;
 		}
-		if (newNode.getCost() >= 0)
+		if (_nodeCost[node] >= 0)
 		{
-			return newNode;
+			return node;
 		}
 		
-		final int geoZ = newNode.getLoc().getZ();
+		final int geoZ = _nodeZ[node];
 		
-		final int stepZ = Math.abs(geoZ - _current.getLoc().getZ());
+		final int stepZ = Math.abs(geoZ - _nodeZ[_current]);
 		float weight = diagonal ? Config.DIAGONAL_WEIGHT : Config.LOW_WEIGHT;
 		
-		if (!newNode.getLoc().canGoAll() || (stepZ > 16))
+		if ((_nodeNswe[node] != Cell.NSWE_ALL) || (stepZ > 16))
 		{
 			weight = Config.HIGH_WEIGHT;
 		}
@@ -281,39 +440,21 @@ public class CellNodeBuffer
 			weight = Config.MEDIUM_WEIGHT;
 		}
 		
-		newNode.setParent(_current);
-		newNode.setCost(getCost(x, y, geoZ, weight));
-		
-		CellNode node = _current;
-		int count = 0;
-		while ((node.getNext() != null) && (count < (MAX_ITERATIONS * 4)))
-		{
-			count++;
-			if (node.getNext().getCost() > newNode.getCost())
-			{
-				// Insert node into a chain.
-				newNode.setNext(node.getNext());
-				break;
-			}
-			node = node.getNext();
-		}
-		if (count == (MAX_ITERATIONS * 4))
-		{
-			System.err.println("Pathfinding: too long loop detected, cost:" + newNode.getCost());
-		}
-		
-		node.setNext(newNode); // Add last.
+		_nodeParent[node] = _current;
+		_nodeCost[node] = getCost(x, y, geoZ, weight);
+		_nodeOrder[node] = _order++;
+		offer(node);
 		
-		return newNode;
+		return node;
 	}
 	
-	private final boolean isHighWeight(int x, int y, int z)
+	private boolean isHighWeight(int x, int y, int z)
 	{
-		final CellNode result = getNode(x, y, z);
-		return (result == null) || !result.getLoc().canGoAll() || (Math.abs(result.getLoc().getZ() - z) > 16);
+		final int node = getNode(x, y, z);
+		return (node < 0) || (_nodeNswe[node] != Cell.NSWE_ALL) || (Math.abs(_nodeZ[node] - z) > 16);
 	}
 	
-	private final double getCost(int x, int y, int z, float weight)
+	private float getCost(int x, int y, int z, float weight)
 	{
 		final int dX = x - _targetX;
 		final int dY = y - _targetY;
@@ -330,6 +471,103 @@ public class CellNodeBuffer
 			result = Float.MAX_VALUE;
 		}
 		
+		return (float) result;
+	}
+	
+	private boolean isBefore(int node, int other)
+	{
+		final float cost = _nodeCost[node];
+		final float otherCost = _nodeCost[other];
+		return (cost < otherCost) || ((cost == otherCost) && (_nodeOrder[node] < _nodeOrder[other]));
+	}
+	
+	private void offer(int node)
+	{
+		if (_openSize == _open.length)
+		{
+			_open = Arrays.copyOf(_open, _open.length * 2);
+		}
+		
+		int index = _openSize++;
+		while (index > 0)
+		{
+			final int parentIndex = (index - 1) >> 1;
+			final int parent = _open[parentIndex];
+			if (!isBefore(node, parent))
+			{
+				break;
+			}
+			_open[index] = parent;
+			index = parentIndex;
+		}
+		_open[index] = node;
+	}
+	
+	private int poll()
+	{
+		final int result = _open[0];
+		final int last = _open[--_openSize];
+		int index = 0;
+		while (true)
+		{
+			int child = (index << 1) + 1;
+			if (child >= _openSize)
+			{
+				break;
+			}
+			if (((child + 1) < _openSize) && isBefore(_open[child + 1], _open[child]))
+			{
+				child++;
+			}
+			if (!isBefore(_open[child], last))
+			{
+				break;
+			}
+			_open[index] = _open[child];
+			index = child;
+		}
+		_open[index] = last;
 		return result;
 	}
-}
\ No newline at end of file
+	
+	private void growNodes()
+	{
+		final int capacity = _nodeX.length * 2;
+		_nodeX = Arrays.copyOf(_nodeX, capacity);
+		_nodeY = Arrays.copyOf(_nodeY, capacity);
+		_nodeZ = Arrays.copyOf(_nodeZ, capacity);
+		_nodeNswe = Arrays.copyOf(_nodeNswe, capacity);
+		_nodeCost = Arrays.copyOf(_nodeCost, capacity);
+		_nodeParent = Arrays.copyOf(_nodeParent, capacity);
+		_nodeOrder = Arrays.copyOf(_nodeOrder, capacity);
+	}
+	
+	private void growCells()
+	{
+		final int capacity = _cellKeys.length * 2;
+		_cellKeys = new int[capacity];
+		_cellNodes = new int[capacity];
+		_cellStamps = new int[capacity];
+		
+		// Insert the nodes of the current search again.
+		final int mask = capacity - 1;
+		for (int node = 0; node < _nodeCount; node++)
+		{
+			final int key = ((_nodeX[node] - _baseX) * _mapSize) + (_nodeY[node] - _baseY);
+			int index = hash(key) & mask;
+			while (_cellStamps[index] == _stamp)
+			{
+				index = (index + 1) & mask;
+			}
+			_cellStamps[index] = _stamp;
+			_cellKeys[index] = key;
+			_cellNodes[index] = node;
+		}
+	}
+	
+	private static int hash(int key)
+	{
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
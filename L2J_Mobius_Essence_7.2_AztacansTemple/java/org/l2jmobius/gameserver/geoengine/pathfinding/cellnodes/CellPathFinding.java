@@ -17,16 +17,20 @@
 package org.l2jmobius.gameserver.geoengine.pathfinding.cellnodes;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.l2jmobius.Config;
-import org.l2jmobius.commons.util.StringUtil;
 import org.l2jmobius.gameserver.geoengine.GeoEngine;
-import org.l2jmobius.gameserver.geoengine.pathfinding.AbstractNode;
 import org.l2jmobius.gameserver.geoengine.pathfinding.AbstractNodeLoc;
 import org.l2jmobius.gameserver.geoengine.pathfinding.PathFinding;
 import org.l2jmobius.gameserver.instancemanager.IdManager;
@@ -34,19 +38,43 @@ import org.l2jmobius.gameserver.model.instancezone.Instance;
 import org.l2jmobius.gameserver.model.item.instance.Item;
 
 /**
+ * Pathfinding on the geodata cells.<br>
+ * Each platform thread searches with its own {@link CellNodeBuffer}, virtual threads borrow one from a shared queue. Recent paths are kept in a cache keyed by the start and target areas, a cached path is reused when all of its segments can still be walked.
  * @author Sami, DS Credits to Diamond
  */
 public class CellPathFinding extends PathFinding
 {
 	private static final Logger LOGGER = Logger.getLogger(CellPathFinding.class.getName());
 	
-	private BufferInfo[] _allBuffers;
-	private int _findSuccess = 0;
-	private int _findFails = 0;
-	private int _postFilterUses = 0;
-	private int _postFilterPlayableUses = 0;
-	private int _postFilterPasses = 0;
-	private long _postFilterElapsed = 0;
+	// Cached paths are shared by starts and targets in the same area of 8x8 cells and 64 Z.
+	private static final int CACHE_XY_SHIFT = 3;
+	private static final int CACHE_Z_SHIFT = 6;
+	
+	private SizeInfo[] _allSizes;
+	private final ThreadLocal<CellNodeBuffer> _threadBuffers = ThreadLocal.withInitial(this::createBuffer);
+	private final ConcurrentLinkedQueue<CellNodeBuffer> _sharedBuffers = new ConcurrentLinkedQueue<>();
+	private final LongAdder _bufferCount = new LongAdder();
+	
+	private final Map<PathKey, List<AbstractNodeLoc>> _pathCache = new LinkedHashMap<>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Entry<PathKey, List<AbstractNodeLoc>> eldest)
+		{
+			return size() > Config.PATHFIND_CACHE_SIZE;
+		}
+	};
+	
+	private final LongAdder _findSuccess = new LongAdder();
+	private final LongAdder _findFails = new LongAdder();
+	private final LongAdder _findNodes = new LongAdder();
+	private final LongAdder _oversized = new LongAdder();
+	private final LongAdder _cacheHits = new LongAdder();
+	private final LongAdder _cacheMisses = new LongAdder();
+	private final LongAdder _cacheInvalid = new LongAdder();
+	private final LongAdder _postFilterUses = new LongAdder();
+	private final LongAdder _postFilterPlayableUses = new LongAdder();
+	private final LongAdder _postFilterPasses = new LongAdder();
+	private final LongAdder _postFilterElapsed = new LongAdder();
 	
 	private List<Item> _debugItems = null;
 	
@@ -56,7 +84,7 @@ public class CellPathFinding extends PathFinding
 		{
 			final String[] array = Config.PATHFIND_BUFFERS.split(";");
 			
-			_allBuffers = new BufferInfo[array.length];
+			_allSizes = new SizeInfo[array.length];
 			
 			String buf;
 			String[] args;
@@ -64,12 +92,13 @@ public class CellPathFinding extends PathFinding
 			{
 				buf = array[i];
 				args = buf.split("x");
-				if (args.length != 2)
+				if ((args.length < 1) || (args.length > 2))
 				{
 					throw new Exception("Invalid buffer definition: " + buf);
 				}
 				
-				_allBuffers[i] = new BufferInfo(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+				// The buffer count of older configurations is ignored, buffers are kept per thread.
+				_allSizes[i] = new SizeInfo(Integer.parseInt(args[0].trim()));
 			}
 		}
 		catch (Exception e)
@@ -102,14 +131,29 @@ public class CellPathFinding extends PathFinding
 			return null;
 		}
 		final int gtz = GeoEngine.getInstance().getHeight(tx, ty, tz);
-		final CellNodeBuffer buffer = alloc(64 + (2 * Math.max(Math.abs(gx - gtx), Math.abs(gy - gty))), playable);
-		if (buffer == null)
+		final SizeInfo size = getSize(64 + (2 * Math.max(Math.abs(gx - gtx), Math.abs(gy - gty))));
+		if (size == null)
 		{
+			_oversized.increment();
 			return null;
 		}
 		
 		final boolean debug = Config.DEBUG_PATH && playable;
 		
+		// Try a recent path between the same areas.
+		final PathKey key = debug || (Config.PATHFIND_CACHE_SIZE <= 0) ? null : new PathKey(gx, gy, gz, gtx, gty, gtz, instance, playable);
+		if (key != null)
+		{
+			final List<AbstractNodeLoc> path = getCachedPath(key, x, y, z, gtx, gty, gtz, instance);
+			if (path != null)
+			{
+				_cacheHits.increment();
+				_findSuccess.increment();
+				return path;
+			}
+			_cacheMisses.increment();
+		}
+		
 		if (debug)
 		{
 			if (_debugItems == null)
@@ -127,10 +171,18 @@ public class CellPathFinding extends PathFinding
 			}
 		}
 		
+		final boolean virtual = Thread.currentThread().isVirtual();
+		CellNodeBuffer buffer = virtual ? _sharedBuffers.poll() : _threadBuffers.get();
+		if (buffer == null)
+		{
+			buffer = createBuffer();
+		}
+		
 		List<AbstractNodeLoc> path = null;
 		try
 		{
-			final CellNode result = buffer.findPath(gx, gy, gz, gtx, gty, gtz);
+			final int result = buffer.findPath(size.mapSize, gx, gy, gz, gtx, gty, gtz);
+			_findNodes.add(buffer.getNodeCount());
 			
 			if (debug)
 			{
@@ -148,13 +200,13 @@ public class CellPathFinding extends PathFinding
 				}
 			}
 			
-			if (result == null)
+			if (result < 0)
 			{
-				_findFails++;
+				_findFails.increment();
 				return null;
 			}
 			
-			path = constructPath(result);
+			path = buffer.constructPath(result);
 		}
 		catch (Exception e)
 		{
@@ -164,19 +216,30 @@ public class CellPathFinding extends PathFinding
 		finally
 		{
 			buffer.free();
+			size.uses.increment();
+			if (playable)
+			{
+				size.playableUses.increment();
+			}
+			size.elapsed.add(buffer.getElapsedTime());
+			if (virtual)
+			{
+				_sharedBuffers.offer(buffer);
+			}
 		}
 		
 		if ((path.size() < 3) || (Config.MAX_POSTFILTER_PASSES <= 0))
 		{
-			_findSuccess++;
+			_findSuccess.increment();
+			putCachedPath(key, path);
 			return path;
 		}
 		
 		final long timeStamp = System.currentTimeMillis();
-		_postFilterUses++;
+		_postFilterUses.increment();
 		if (playable)
 		{
-			_postFilterPlayableUses++;
+			_postFilterPlayableUses.increment();
 		}
 		
 		ListIterator<AbstractNodeLoc> middlePoint;
@@ -188,7 +251,7 @@ public class CellPathFinding extends PathFinding
 		do
 		{
 			pass++;
-			_postFilterPasses++;
+			_postFilterPasses.increment();
 			
 			remove = false;
 			middlePoint = path.listIterator();
@@ -230,109 +293,99 @@ public class CellPathFinding extends PathFinding
 			path.forEach(n -> dropDebugItem(1061, 1, n));
 		}
 		
-		_findSuccess++;
-		_postFilterElapsed += System.currentTimeMillis() - timeStamp;
+		_findSuccess.increment();
+		_postFilterElapsed.add(System.currentTimeMillis() - timeStamp);
+		putCachedPath(key, path);
 		return path;
 	}
 	
-	private List<AbstractNodeLoc> constructPath(AbstractNode<NodeLoc> node)
+	/**
+	 * @param key the areas of the search.
+	 * @param x the start X.
+	 * @param y the start Y.
+	 * @param z the start Z.
+	 * @param gtx the target geo X.
+	 * @param gty the target geo Y.
+	 * @param gtz the target Z.
+	 * @param instance the instance of the search.
+	 * @return a copy of the cached path ending at the given target, or null if there is none or it can no longer be walked.
+	 */
+	private List<AbstractNodeLoc> getCachedPath(PathKey key, int x, int y, int z, int gtx, int gty, int gtz, Instance instance)
 	{
-		final LinkedList<AbstractNodeLoc> path = new LinkedList<>();
-		int previousDirectionX = Integer.MIN_VALUE;
-		int previousDirectionY = Integer.MIN_VALUE;
-		int directionX;
-		int directionY;
+		final List<AbstractNodeLoc> cached;
+		synchronized (_pathCache)
+		{
+			cached = _pathCache.get(key);
+		}
+		if (cached == null)
+		{
+			return null;
+		}
+		
+		// The cached path ends at the cell of its own target.
+		final List<AbstractNodeLoc> path = new ArrayList<>(cached);
+		final AbstractNodeLoc last = path.get(path.size() - 1);
+		if ((last.getNodeX() != gtx) || (last.getNodeY() != gty))
+		{
+			path.set(path.size() - 1, new NodeLoc(gtx, gty, gtz));
+		}
 		
-		AbstractNode<NodeLoc> tempNode = node;
-		while (tempNode.getParent() != null)
+		// Doors and geodata changes may have blocked the path since it was found.
+		int currentX = x;
+		int currentY = y;
+		int currentZ = z;
+		for (AbstractNodeLoc loc : path)
 		{
-			if (!Config.ADVANCED_DIAGONAL_STRATEGY && (tempNode.getParent().getParent() != null))
+			if (!GeoEngine.getInstance().canMoveToTarget(currentX, currentY, currentZ, loc.getX(), loc.getY(), loc.getZ(), instance))
 			{
-				final int tmpX = tempNode.getLoc().getNodeX() - tempNode.getParent().getParent().getLoc().getNodeX();
-				final int tmpY = tempNode.getLoc().getNodeY() - tempNode.getParent().getParent().getLoc().getNodeY();
-				if (Math.abs(tmpX) == Math.abs(tmpY))
-				{
-					directionX = tmpX;
-					directionY = tmpY;
-				}
-				else
+				_cacheInvalid.increment();
+				synchronized (_pathCache)
 				{
-					directionX = tempNode.getLoc().getNodeX() - tempNode.getParent().getLoc().getNodeX();
-					directionY = tempNode.getLoc().getNodeY() - tempNode.getParent().getLoc().getNodeY();
+					_pathCache.remove(key, cached);
 				}
+				return null;
 			}
-			else
-			{
-				directionX = tempNode.getLoc().getNodeX() - tempNode.getParent().getLoc().getNodeX();
-				directionY = tempNode.getLoc().getNodeY() - tempNode.getParent().getLoc().getNodeY();
-			}
-			
-			// Only add a new route point if moving direction changes.
-			if ((directionX != previousDirectionX) || (directionY != previousDirectionY))
-			{
-				previousDirectionX = directionX;
-				previousDirectionY = directionY;
-				
-				path.addFirst(tempNode.getLoc());
-				tempNode.setLoc(null);
-			}
-			
-			tempNode = tempNode.getParent();
+			currentX = loc.getX();
+			currentY = loc.getY();
+			currentZ = loc.getZ();
 		}
-		
 		return path;
 	}
 	
-	private CellNodeBuffer alloc(int size, boolean playable)
+	private void putCachedPath(PathKey key, List<AbstractNodeLoc> path)
 	{
-		CellNodeBuffer current = null;
-		for (BufferInfo i : _allBuffers)
+		if ((key == null) || path.isEmpty())
 		{
-			if (i.mapSize >= size)
+			return;
+		}
+		
+		synchronized (_pathCache)
+		{
+			_pathCache.put(key, new ArrayList<>(path));
+		}
+	}
+	
+	/**
+	 * @param size the size of the search area needed.
+	 * @return the smallest configured search area of at least the given size, null if there is none.
+	 */
+	private SizeInfo getSize(int size)
+	{
+		SizeInfo result = null;
+		for (SizeInfo info : _allSizes)
+		{
+			if ((info.mapSize >= size) && ((result == null) || (info.mapSize < result.mapSize)))
 			{
-				for (CellNodeBuffer buf : i.bufs)
-				{
-					if (buf.lock())
-					{
-						i.uses++;
-						if (playable)
-						{
-							i.playableUses++;
-						}
-						i.elapsed += buf.getElapsedTime();
-						current = buf;
-						break;
-					}
-				}
-				if (current != null)
-				{
-					break;
-				}
-				
-				// Not found, allocate temporary buffer.
-				current = new CellNodeBuffer(i.mapSize);
-				current.lock();
-				if (i.bufs.size() < i.count)
-				{
-					i.bufs.add(current);
-					i.uses++;
-					if (playable)
-					{
-						i.playableUses++;
-					}
-					break;
-				}
-				
-				i.overflows++;
-				if (playable)
-				{
-					i.playableOverflows++;
-					// System.err.println("Overflow, size requested: " + size + " playable:"+playable);
-				}
+				result = info;
 			}
 		}
-		
-		return current;
+		return result;
+	}
+	
+	private CellNodeBuffer createBuffer()
+	{
+		_bufferCount.increment();
+		return new CellNodeBuffer();
 	}
 	
 	private void dropDebugItem(int itemId, int num, AbstractNodeLoc loc)
@@ -343,59 +396,105 @@ public class CellPathFinding extends PathFinding
 		_debugItems.add(item);
 	}
 	
-	private static class BufferInfo
+	private static class SizeInfo
 	{
 		final int mapSize;
-		final int count;
-		List<CellNodeBuffer> bufs;
-		int uses = 0;
-		int playableUses = 0;
-		int overflows = 0;
-		int playableOverflows = 0;
-		long elapsed = 0;
+		final LongAdder uses = new LongAdder();
+		final LongAdder playableUses = new LongAdder();
+		final LongAdder elapsed = new LongAdder();
 		
-		public BufferInfo(int size, int cnt)
+		public SizeInfo(int size)
 		{
 			mapSize = size;
-			count = cnt;
-			bufs = new ArrayList<>(count);
 		}
 		
 		@Override
 		public String toString()
 		{
+			final long total = uses.sum();
 			final StringBuilder stat = new StringBuilder(100);
-			StringUtil.append(stat, String.valueOf(mapSize), "x", String.valueOf(mapSize), " num:", String.valueOf(bufs.size()), "/", String.valueOf(count), " uses:", String.valueOf(uses), "/", String.valueOf(playableUses));
-			if (uses > 0)
+			stat.append(mapSize).append('x').append(mapSize).append(" uses: ").append(total).append('/').append(playableUses.sum());
+			if (total > 0)
 			{
-				StringUtil.append(stat, " total/avg(ms):", String.valueOf(elapsed), "/", String.format("%1.2f", (double) elapsed / uses));
+				stat.append(" total/avg(ms): ").append(elapsed.sum()).append('/').append(String.format("%1.2f", (double) elapsed.sum() / total));
 			}
-			
-			StringUtil.append(stat, " ovf:", String.valueOf(overflows), "/", String.valueOf(playableOverflows));
-			
 			return stat.toString();
 		}
 	}
 	
-	@Override
-	public String[] getStat()
+	private static class PathKey
 	{
-		final String[] result = new String[_allBuffers.length + 1];
-		for (int i = 0; i < _allBuffers.length; i++)
+		private final int _startX;
+		private final int _startY;
+		private final int _startZ;
+		private final int _targetX;
+		private final int _targetY;
+		private final int _targetZ;
+		private final int _instanceId;
+		private final boolean _playable;
+		
+		public PathKey(int gx, int gy, int gz, int gtx, int gty, int gtz, Instance instance, boolean playable)
 		{
-			result[i] = _allBuffers[i].toString();
+			_startX = gx >> CACHE_XY_SHIFT;
+			_startY = gy >> CACHE_XY_SHIFT;
+			_startZ = gz >> CACHE_Z_SHIFT;
+			_targetX = gtx >> CACHE_XY_SHIFT;
+			_targetY = gty >> CACHE_XY_SHIFT;
+			_targetZ = gtz >> CACHE_Z_SHIFT;
+			_instanceId = instance == null ? 0 : instance.getId();
+			_playable = playable;
 		}
 		
-		final StringBuilder stat = new StringBuilder(100);
-		StringUtil.append(stat, "LOS postfilter uses:", String.valueOf(_postFilterUses), "/", String.valueOf(_postFilterPlayableUses));
-		if (_postFilterUses > 0)
+		@Override
+		public int hashCode()
 		{
-			StringUtil.append(stat, " total/avg(ms):", String.valueOf(_postFilterElapsed), "/", String.format("%1.2f", (double) _postFilterElapsed / _postFilterUses), " passes total/avg:", String.valueOf(_postFilterPasses), "/", String.format("%1.1f", (double) _postFilterPasses / _postFilterUses), Config.EOL);
+			return Objects.hash(_startX, _startY, _startZ, _targetX, _targetY, _targetZ, _instanceId, _playable);
 		}
-		StringUtil.append(stat, "Pathfind success/fail:", String.valueOf(_findSuccess), "/", String.valueOf(_findFails));
-		result[result.length - 1] = stat.toString();
 		
-		return result;
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof PathKey))
+			{
+				return false;
+			}
+			final PathKey other = (PathKey) obj;
+			return (_startX == other._startX) && (_startY == other._startY) && (_startZ == other._startZ) && (_targetX == other._targetX) && (_targetY == other._targetY) && (_targetZ == other._targetZ) && (_instanceId == other._instanceId) && (_playable == other._playable);
+		}
+	}
+	
+	@Override
+	public String[] getStats()
+	{
+		final long uses = _postFilterUses.sum();
+		final long hits = _cacheHits.sum();
+		final long lookups = hits + _cacheMisses.sum();
+		final long searches = _findSuccess.sum() + _findFails.sum() - hits;
+		final int cacheSize;
+		synchronized (_pathCache)
+		{
+			cacheSize = _pathCache.size();
+		}
+		
+		final String[] stats = new String[_allSizes.length + 8];
+		int pos = 0;
+		stats[pos++] = "Cell pathfinding:";
+		stats[pos++] = " |- Success/Fail: ..... " + _findSuccess.sum() + "/" + _findFails.sum();
+		stats[pos++] = " |- Oversized: ........ " + _oversized.sum();
+		stats[pos++] = " |- AvgNodes: ......... " + (searches > 0 ? _findNodes.sum() / searches : 0);
+		stats[pos++] = " |- Buffers: .......... " + _bufferCount.sum();
+		stats[pos++] = " |- Cache: ............ " + cacheSize + "/" + Config.PATHFIND_CACHE_SIZE + " hits: " + hits + "/" + lookups + (lookups > 0 ? String.format(" (%1.1f%%)", (100.0 * hits) / lookups) : "") + " invalid: " + _cacheInvalid.sum();
+		stats[pos++] = " |- Postfilter: ....... " + uses + "/" + _postFilterPlayableUses.sum() + (uses > 0 ? " total/avg(ms): " + _postFilterElapsed.sum() + "/" + String.format("%1.2f", (double) _postFilterElapsed.sum() / uses) + " passes total/avg: " + _postFilterPasses.sum() + "/" + String.format("%1.1f", (double) _postFilterPasses.sum() / uses) : "");
+		for (SizeInfo info : _allSizes)
+		{
+			stats[pos++] = " |- Area " + info;
+		}
+		stats[pos] = " | -------";
+		return stats;
 	}
 	
 	public static CellPathFinding getInstance()
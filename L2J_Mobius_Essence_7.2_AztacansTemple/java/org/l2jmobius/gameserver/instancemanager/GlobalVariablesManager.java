@@ -21,7 +21,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Map.Entry;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,7 +39,8 @@ public class GlobalVariablesManager extends AbstractVariables
 	// SQL Queries.
 	private static final String SELECT_QUERY = "SELECT * FROM global_variables";
 	private static final String DELETE_QUERY = "DELETE FROM global_variables";
-	private static final String INSERT_QUERY = "INSERT INTO global_variables (var, value) VALUES (?, ?)";
+	private static final String INSERT_QUERY = "REPLACE INTO global_variables (var, value) VALUES (?, ?)";
+	private static final String DELETE_VAR_QUERY = "DELETE FROM global_variables WHERE var = ?";
 	
 	// Public variable names
 	public static final String DAILY_TASK_RESET = "DAILY_TASK_RESET";
@@ -74,6 +75,10 @@ public class GlobalVariablesManager extends AbstractVariables
 			LOGGER.warning(getClass().getSimpleName() + ": Couldn't restore global variables.");
 			return false;
 		}
+		finally
+		{
+			clearChanges();
+		}
 		
 		LOGGER.info(getClass().getSimpleName() + ": Loaded " + getSet().size() + " variables.");
 		return true;
@@ -82,29 +87,44 @@ public class GlobalVariablesManager extends AbstractVariables
 	@Override
 	public boolean storeMe()
 	{
+		// No changes, nothing to store.
+		final List<String> changes = takeChanges();
+		if (changes.isEmpty())
+		{
+			return false;
+		}
+		
 		try (Connection con = DatabaseFactory.getConnection();
-			Statement del = con.createStatement();
-			PreparedStatement st = con.prepareStatement(INSERT_QUERY))
+			PreparedStatement delete = con.prepareStatement(DELETE_VAR_QUERY);
+			PreparedStatement insert = con.prepareStatement(INSERT_QUERY))
 		{
-			// Clear previous entries.
-			del.execute(DELETE_QUERY);
-			
-			// Insert all variables.
-			for (Entry<String, Object> entry : getSet().entrySet())
+			// Write only the changed variables, removed variables are deleted.
+			for (String name : changes)
 			{
-				st.setString(1, entry.getKey());
-				st.setString(2, String.valueOf(entry.getValue()));
-				st.addBatch();
+				final Object value = getSet().get(name);
+				if (value == null)
+				{
+					delete.setString(1, name);
+					delete.addBatch();
+				}
+				else
+				{
+					insert.setString(1, name);
+					insert.setString(2, String.valueOf(value));
+					insert.addBatch();
+				}
 			}
-			st.executeBatch();
+			delete.executeBatch();
+			insert.executeBatch();
 		}
 		catch (SQLException e)
 		{
+			restoreChanges(changes);
 			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Couldn't save global variables to database.", e);
 			return false;
 		}
 		
-		LOGGER.info(getClass().getSimpleName() + ": Stored " + getSet().size() + " variables.");
+		LOGGER.info(getClass().getSimpleName() + ": Stored " + changes.size() + " changed variables.");
 		return true;
 	}
 	
@@ -27,10 +27,15 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ScheduledFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -73,7 +78,18 @@ public class WorldExchangeManager implements IXmlReader
 	private static final String RESTORE_INFO = "SELECT * FROM world_exchange_items";
 	private static final String INSERT_WORLD_EXCHANGE = "REPLACE INTO world_exchange_items (`world_exchange_id`, `item_object_id`, `item_status`, `category_id`, `price`, `old_owner_id`, `start_time`, `end_time`) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 	
+	private static final int MAX_LISTED_ITEMS = 399;
+	private static final String TEMPLATE_NAMES = "";
+	private static final Comparator<WorldExchangeHolder> PRICE_COMPARATOR = Comparator.comparingLong(WorldExchangeHolder::getPrice).thenComparingLong(WorldExchangeHolder::getWorldExchangeId);
+	
 	private final Map<Long, WorldExchangeHolder> _itemBids = new ConcurrentHashMap<>();
+	
+	// Indexes of _itemBids, kept up to date by addBid, updateBid and removeBid.
+	private final Map<Integer, Set<WorldExchangeHolder>> _bidsByOwner = new ConcurrentHashMap<>();
+	private final Map<Integer, Set<WorldExchangeHolder>> _bidsByItemId = new ConcurrentHashMap<>();
+	private final Map<WorldExchangeItemSubType, NavigableSet<WorldExchangeHolder>> _registeredByPrice = new ConcurrentHashMap<>();
+	private final Map<String, Map<WorldExchangeItemSubType, NavigableSet<WorldExchangeHolder>>> _registeredByName = new ConcurrentHashMap<>();
+	
 	private final Map<Integer, WorldExchangeItemSubType> _itemCategories = new ConcurrentHashMap<>();
 	private final Map<String, Map<Integer, String>> _localItemNames = new HashMap<>(new HashMap<>());
 	private long _lastWorldExchangeId = 0;
@@ -125,6 +141,8 @@ public class WorldExchangeManager implements IXmlReader
 		{
 			parseDatapackFile("data/lang/" + Config.WORLD_EXCHANGE_DEFAULT_LANG + "/ItemNameLocalisation.xml");
 		}
+		
+		rebuildNameIndexes();
 	}
 	
 	@Override
@@ -183,14 +201,14 @@ public class WorldExchangeManager implements IXmlReader
 			{
 				case WORLD_EXCHANGE_NONE:
 				{
-					_itemBids.remove(entry.getKey());
+					removeBid(entry.getKey());
 					continue;
 				}
 				case WORLD_EXCHANGE_REGISTERED:
 				{
 					holder.setEndTime(calculateDate(Config.WORLD_EXCHANGE_ITEM_BACK_PERIOD));
 					holder.setStoreType(WorldExchangeItemStatusType.WORLD_EXCHANGE_OUT_TIME);
-					_itemBids.replace(entry.getKey(), holder);
+					updateBid(holder);
 					insert(entry.getKey(), false);
 					break;
 				}
@@ -290,7 +308,7 @@ public class WorldExchangeManager implements IXmlReader
 					storeType = WorldExchangeItemStatusType.WORLD_EXCHANGE_OUT_TIME;
 					needChange = true;
 				}
-				_itemBids.put(worldExchangeId, new WorldExchangeHolder(worldExchangeId, itemInstance, new ItemInfo(itemInstance), price, bidPlayerObjectId, storeType, categoryId, startTime, endTime, needChange));
+				addBid(new WorldExchangeHolder(worldExchangeId, itemInstance, new ItemInfo(itemInstance), price, bidPlayerObjectId, storeType, categoryId, startTime, endTime, needChange));
 			}
 		}
 		catch (Exception e)
@@ -392,7 +410,7 @@ public class WorldExchangeManager implements IXmlReader
 		player.sendPacket(iu);
 		player.getInventory().reduceAdena("World Exchange Registration", feePrice, player, null);
 		final long endTime = calculateDate(Config.WORLD_EXCHANGE_ITEM_SELL_PERIOD);
-		_itemBids.put(freeId, new WorldExchangeHolder(freeId, itemInstance, new ItemInfo(itemInstance), priceForEach, player.getObjectId(), WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED, category, System.currentTimeMillis(), endTime, true));
+		addBid(new WorldExchangeHolder(freeId, itemInstance, new ItemInfo(itemInstance), priceForEach, player.getObjectId(), WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED, category, System.currentTimeMillis(), endTime, true));
 		player.sendPacket(new WorldExchangeRegisterItem(itemObjectId, amount, (byte) 1));
 		if (!Config.WORLD_EXCHANGE_LAZY_UPDATE)
 		{
@@ -412,6 +430,166 @@ public class WorldExchangeManager implements IXmlReader
 		return calendar.getTimeInMillis();
 	}
 	
+	/**
+	 * Adds a holder to the bids and to the indexes.
+	 * @param holder
+	 */
+	private synchronized void addBid(WorldExchangeHolder holder)
+	{
+		final WorldExchangeHolder oldHolder = _itemBids.put(holder.getWorldExchangeId(), holder);
+		if (oldHolder != null)
+		{
+			removeFromIndexes(oldHolder);
+		}
+		addToIndexes(holder);
+	}
+	
+	/**
+	 * Updates the indexes after the store type of a holder changed.
+	 * @param holder
+	 */
+	private synchronized void updateBid(WorldExchangeHolder holder)
+	{
+		if (_itemBids.get(holder.getWorldExchangeId()) != holder)
+		{
+			return;
+		}
+		
+		if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED)
+		{
+			addToRegisteredIndexes(holder);
+		}
+		else
+		{
+			removeFromRegisteredIndexes(holder);
+		}
+	}
+	
+	/**
+	 * Removes a holder from the bids and from the indexes.
+	 * @param worldExchangeId
+	 */
+	private synchronized void removeBid(long worldExchangeId)
+	{
+		final WorldExchangeHolder holder = _itemBids.remove(worldExchangeId);
+		if (holder != null)
+		{
+			removeFromIndexes(holder);
+		}
+	}
+	
+	private synchronized void addToIndexes(WorldExchangeHolder holder)
+	{
+		_bidsByOwner.computeIfAbsent(holder.getOldOwnerId(), k -> ConcurrentHashMap.newKeySet()).add(holder);
+		_bidsByItemId.computeIfAbsent(holder.getItemInstance().getId(), k -> ConcurrentHashMap.newKeySet()).add(holder);
+		if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED)
+		{
+			addToRegisteredIndexes(holder);
+		}
+	}
+	
+	private synchronized void removeFromIndexes(WorldExchangeHolder holder)
+	{
+		final Set<WorldExchangeHolder> ownerBids = _bidsByOwner.get(holder.getOldOwnerId());
+		if ((ownerBids != null) && ownerBids.remove(holder) && ownerBids.isEmpty())
+		{
+			_bidsByOwner.remove(holder.getOldOwnerId());
+		}
+		
+		final Set<WorldExchangeHolder> itemBids = _bidsByItemId.get(holder.getItemInstance().getId());
+		if ((itemBids != null) && itemBids.remove(holder) && itemBids.isEmpty())
+		{
+			_bidsByItemId.remove(holder.getItemInstance().getId());
+		}
+		
+		removeFromRegisteredIndexes(holder);
+	}
+	
+	/**
+	 * Registered holders are kept sorted by price and by name for each category, so item lists are read in order instead of sorted on each request.
+	 * @param holder
+	 */
+	private void addToRegisteredIndexes(WorldExchangeHolder holder)
+	{
+		final WorldExchangeItemSubType category = holder.getCategory();
+		if (category == null)
+		{
+			return;
+		}
+		
+		_registeredByPrice.computeIfAbsent(category, k -> new ConcurrentSkipListSet<>(PRICE_COMPARATOR)).add(holder);
+		for (Entry<String, Map<WorldExchangeItemSubType, NavigableSet<WorldExchangeHolder>>> entry : _registeredByName.entrySet())
+		{
+			final String names = entry.getKey();
+			entry.getValue().computeIfAbsent(category, k -> new ConcurrentSkipListSet<>(getNameComparator(names))).add(holder);
+		}
+	}
+	
+	private void removeFromRegisteredIndexes(WorldExchangeHolder holder)
+	{
+		final WorldExchangeItemSubType category = holder.getCategory();
+		if (category == null)
+		{
+			return;
+		}
+		
+		final NavigableSet<WorldExchangeHolder> byPrice = _registeredByPrice.get(category);
+		if (byPrice != null)
+		{
+			byPrice.remove(holder);
+		}
+		for (Map<WorldExchangeItemSubType, NavigableSet<WorldExchangeHolder>> byName : _registeredByName.values())
+		{
+			final NavigableSet<WorldExchangeHolder> holders = byName.get(category);
+			if (holders != null)
+			{
+				holders.remove(holder);
+			}
+		}
+	}
+	
+	/**
+	 * Rebuilds the name indexes for the template names and every loaded item name localisation.
+	 */
+	private synchronized void rebuildNameIndexes()
+	{
+		_registeredByName.clear();
+		_registeredByName.put(TEMPLATE_NAMES, new ConcurrentHashMap<>());
+		for (String lang : _localItemNames.keySet())
+		{
+			if (!lang.equals("en"))
+			{
+				_registeredByName.put(lang, new ConcurrentHashMap<>());
+			}
+		}
+		
+		for (WorldExchangeHolder holder : _itemBids.values())
+		{
+			if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED)
+			{
+				addToRegisteredIndexes(holder);
+			}
+		}
+	}
+	
+	/**
+	 * @param lang
+	 * @return the key of the name index used for the given language
+	 */
+	private String getNameIndexKey(String lang)
+	{
+		return (lang != null) && _registeredByName.containsKey(lang) ? lang : TEMPLATE_NAMES;
+	}
+	
+	private Comparator<WorldExchangeHolder> getNameComparator(String names)
+	{
+		if (names.equals(TEMPLATE_NAMES))
+		{
+			return Comparator.comparing((WorldExchangeHolder o) -> (o.getItemInstance().isBlessed() ? "Blessed " : "") + o.getItemInstance().getItemName()).thenComparingLong(WorldExchangeHolder::getWorldExchangeId);
+		}
+		return Comparator.comparing((WorldExchangeHolder o) -> getItemName(names, o.getItemInstance().getId(), o.getItemInstance().isBlessed())).thenComparingLong(WorldExchangeHolder::getWorldExchangeId);
+	}
+	
 	/**
 	 * Forwarded from ExWorldExchangeSettleRecvResult for make Action, because client send only WORLD EXCHANGE Index without anu addition info.
 	 * @param player
@@ -508,7 +686,7 @@ public class WorldExchangeManager implements IXmlReader
 		player.getInventory().addItem("World Exchange Cancellation", worldExchangeItem.getItemInstance(), player, player);
 		worldExchangeItem.setStoreType(WorldExchangeItemStatusType.WORLD_EXCHANGE_NONE);
 		worldExchangeItem.setHasChanges(true);
-		_itemBids.replace(worldExchangeItem.getWorldExchangeId(), worldExchangeItem);
+		updateBid(worldExchangeItem);
 		if (!Config.WORLD_EXCHANGE_LAZY_UPDATE)
 		{
 			insert(worldExchangeItem.getWorldExchangeId(), true);
@@ -583,7 +761,7 @@ public class WorldExchangeManager implements IXmlReader
 		item.setItemLocation(ItemLocation.VOID);
 		item.updateDatabase(!Config.WORLD_EXCHANGE_LAZY_UPDATE);
 		worldExchangeItem.setHasChanges(true);
-		_itemBids.replace(worldExchangeItem.getWorldExchangeId(), worldExchangeItem);
+		updateBid(worldExchangeItem);
 		if (!Config.WORLD_EXCHANGE_LAZY_UPDATE)
 		{
 			insert(worldExchangeItem.getWorldExchangeId(), true);
@@ -653,7 +831,7 @@ public class WorldExchangeManager implements IXmlReader
 		player.getInventory().addItem("World Exchange Took Out Time Item Back", worldExchangeItem.getItemInstance(), player, null);
 		worldExchangeItem.setStoreType(WorldExchangeItemStatusType.WORLD_EXCHANGE_NONE);
 		worldExchangeItem.setHasChanges(true);
-		_itemBids.replace(worldExchangeItem.getWorldExchangeId(), worldExchangeItem);
+		updateBid(worldExchangeItem);
 		if (!Config.WORLD_EXCHANGE_LAZY_UPDATE)
 		{
 			insert(worldExchangeItem.getWorldExchangeId(), true);
@@ -706,7 +884,11 @@ public class WorldExchangeManager implements IXmlReader
 		final Item newItem = createItem(worldExchangeItem.getItemInstance(), player);
 		final long destroyTime = calculateDate(Config.WORLD_EXCHANGE_PAYMENT_TAKE_PERIOD);
 		WorldExchangeHolder newHolder = new WorldExchangeHolder(worldExchangeId, newItem, new ItemInfo(newItem), worldExchangeItem.getPrice(), worldExchangeItem.getOldOwnerId(), WorldExchangeItemStatusType.WORLD_EXCHANGE_SOLD, worldExchangeItem.getCategory(), worldExchangeItem.getStartTime(), destroyTime, true);
-		_itemBids.replace(worldExchangeId, worldExchangeItem, newHolder);
+		if (_itemBids.replace(worldExchangeId, worldExchangeItem, newHolder))
+		{
+			removeFromIndexes(worldExchangeItem);
+			addToIndexes(newHolder);
+		}
 		if (!Config.WORLD_EXCHANGE_LAZY_UPDATE)
 		{
 			insert(worldExchangeItem.getWorldExchangeId(), false);
@@ -785,31 +967,48 @@ public class WorldExchangeManager implements IXmlReader
 	 */
 	public List<WorldExchangeHolder> getItemBids(int ownerId, WorldExchangeItemSubType type, WorldExchangeSortType sortType, String lang)
 	{
-		if (!Config.ENABLE_WORLD_EXCHANGE)
+		if (!Config.ENABLE_WORLD_EXCHANGE || (type == null))
 		{
 			return Collections.emptyList();
 		}
 		
-		final List<WorldExchangeHolder> returnList = new ArrayList<>();
-		for (WorldExchangeHolder holder : _itemBids.values())
+		final NavigableSet<WorldExchangeHolder> holders;
+		final boolean descending;
+		switch (sortType == null ? WorldExchangeSortType.NONE : sortType)
 		{
-			if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_NONE)
+			case ITEM_NAME_ASCE:
+			case ITEM_NAME_DESC:
 			{
-				continue;
+				holders = _registeredByName.getOrDefault(getNameIndexKey(lang), Collections.emptyMap()).get(type);
+				descending = sortType == WorldExchangeSortType.ITEM_NAME_DESC;
+				break;
 			}
-			
-			if ((holder.getOldOwnerId() == ownerId) || (holder.getCategory() != type))
+			default:
 			{
-				continue;
+				holders = _registeredByPrice.get(type);
+				descending = (sortType == WorldExchangeSortType.PRICE_DESC) || (sortType == WorldExchangeSortType.PRICE_PER_PIECE_DESC);
+				break;
 			}
-			
-			if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED)
+		}
+		
+		if (holders == null)
+		{
+			return Collections.emptyList();
+		}
+		
+		// The indexes are already sorted, only the listed items are visited.
+		final List<WorldExchangeHolder> returnList = new ArrayList<>();
+		final Iterator<WorldExchangeHolder> iterator = descending ? holders.descendingIterator() : holders.iterator();
+		while (iterator.hasNext() && (returnList.size() < MAX_LISTED_ITEMS))
+		{
+			final WorldExchangeHolder holder = iterator.next();
+			if ((holder.getOldOwnerId() != ownerId) && (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED))
 			{
 				returnList.add(holder);
 			}
 		}
 		
-		return sortList(returnList, sortType, lang);
+		return returnList;
 	}
 	
 	/**
@@ -826,16 +1025,20 @@ public class WorldExchangeManager implements IXmlReader
 		}
 		
 		final List<WorldExchangeHolder> returnList = new ArrayList<>();
-		for (WorldExchangeHolder holder : _itemBids.values())
+		for (int id : new HashSet<>(ids))
 		{
-			if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_NONE)
+			final Set<WorldExchangeHolder> holders = _bidsByItemId.get(id);
+			if (holders == null)
 			{
 				continue;
 			}
 			
-			if (ids.contains(holder.getItemInstance().getId()) && (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED))
+			for (WorldExchangeHolder holder : holders)
 			{
-				returnList.add(holder);
+				if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_REGISTERED)
+				{
+					returnList.add(holder);
+				}
 			}
 		}
 		
@@ -901,9 +1104,9 @@ public class WorldExchangeManager implements IXmlReader
 			}
 		}
 		
-		if (sortedList.size() > 399)
+		if (sortedList.size() > MAX_LISTED_ITEMS)
 		{
-			return sortedList.subList(0, 399);
+			return sortedList.subList(0, MAX_LISTED_ITEMS);
 		}
 		
 		return sortedList;
@@ -945,18 +1148,8 @@ public class WorldExchangeManager implements IXmlReader
 		final List<WorldExchangeHolder> registered = new ArrayList<>();
 		final List<WorldExchangeHolder> sold = new ArrayList<>();
 		final List<WorldExchangeHolder> outTime = new ArrayList<>();
-		for (WorldExchangeHolder holder : _itemBids.values())
+		for (WorldExchangeHolder holder : _bidsByOwner.getOrDefault(ownerId, Collections.emptySet()))
 		{
-			if (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_NONE)
-			{
-				continue;
-			}
-			
-			if (holder.getOldOwnerId() != ownerId)
-			{
-				continue;
-			}
-			
 			switch (holder.getStoreType())
 			{
 				case WORLD_EXCHANGE_REGISTERED:
@@ -1008,9 +1201,9 @@ public class WorldExchangeManager implements IXmlReader
 			return;
 		}
 		
-		for (WorldExchangeHolder holder : _itemBids.values())
+		for (WorldExchangeHolder holder : _bidsByOwner.getOrDefault(player.getObjectId(), Collections.emptySet()))
 		{
-			if ((holder.getOldOwnerId() == player.getObjectId()) && ((holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_SOLD) || (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_OUT_TIME)))
+			if ((holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_SOLD) || (holder.getStoreType() == WorldExchangeItemStatusType.WORLD_EXCHANGE_OUT_TIME))
 			{
 				player.sendPacket(new WorldExchangeSellCompleteAlarm(holder.getItemInstance().getId(), holder.getItemInstance().getCount()));
 				break;
@@ -1076,7 +1269,7 @@ public class WorldExchangeManager implements IXmlReader
 			statement.execute();
 			if (remove)
 			{
-				_itemBids.remove(worldExchangeId);
+				removeBid(worldExchangeId);
 			}
 		}
 		catch (SQLException e)
@@ -1094,13 +1287,8 @@ public class WorldExchangeManager implements IXmlReader
 	{
 		long totalPrice = 0;
 		long totalItemCount = 0;
-		for (WorldExchangeHolder holder : _itemBids.values())
+		for (WorldExchangeHolder holder : _bidsByItemId.getOrDefault(itemId, Collections.emptySet()))
 		{
-			if (holder.getItemInstance().getTemplate().getId() != itemId)
-			{
-				continue;
-			}
-			
 			totalItemCount++;
 			totalPrice += holder.getPrice();
 		}
@@ -92,7 +92,7 @@ public class ZoneManager implements IXmlReader
 	
 	private static final Map<String, AbstractZoneSettings> SETTINGS = new HashMap<>();
 	
-	private static final int SHIFT_BY = 15;
+	private static final int SHIFT_BY = ZoneRegion.REGION_SHIFT;
 	private static final int OFFSET_X = Math.abs(World.WORLD_X_MIN >> SHIFT_BY);
 	private static final int OFFSET_Y = Math.abs(World.WORLD_Y_MIN >> SHIFT_BY);
 	
@@ -164,7 +164,7 @@ public class ZoneManager implements IXmlReader
 		{
 			for (ZoneRegion zoneRegion : zoneRegions)
 			{
-				zoneRegion.getZones().clear();
+				zoneRegion.clearZones();
 				count++;
 			}
 		}
@@ -463,10 +463,33 @@ public class ZoneManager implements IXmlReader
 		_spawnTerritories.clear();
 		parseDatapackDirectory("data/zones", false);
 		LOGGER.info(getClass().getSimpleName() + ": Loaded " + _classZones.size() + " zone classes and " + getSize() + " zones.");
+		buildGrids();
 		final OptionalInt maxId = _classZones.values().stream().flatMap(map -> map.keySet().stream()).mapToInt(Integer.class::cast).filter(value -> value < 300000).max();
 		LOGGER.info(getClass().getSimpleName() + ": Last static id " + maxId.getAsInt() + ".");
 	}
 	
+	/**
+	 * Precomputes the zone lookup grid of every region.
+	 */
+	private void buildGrids()
+	{
+		int regions = 0;
+		int cells = 0;
+		for (int x = 0; x < _zoneRegions.length; x++)
+		{
+			for (int y = 0; y < _zoneRegions[x].length; y++)
+			{
+				final int distinctCells = _zoneRegions[x][y].buildGrid((x - OFFSET_X) << SHIFT_BY, (y - OFFSET_Y) << SHIFT_BY);
+				if (distinctCells > 0)
+				{
+					regions++;
+					cells += distinctCells;
+				}
+			}
+		}
+		LOGGER.info(getClass().getSimpleName() + ": Built zone lookup grid for " + regions + " regions with " + cells + " distinct cells.");
+	}
+	
 	/**
 	 * Gets the size.
 	 * @return the size
@@ -636,15 +659,7 @@ public class ZoneManager implements IXmlReader
 	 */
 	public List<ZoneType> getZones(int x, int y)
 	{
-		final List<ZoneType> temp = new ArrayList<>();
-		for (ZoneType zone : getRegion(x, y).getZones().values())
-		{
-			if (zone.isInsideZone(x, y))
-			{
-				temp.add(zone);
-			}
-		}
-		return temp;
+		return getRegion(x, y).getZones(x, y);
 	}
 	
 	/**
@@ -656,15 +671,7 @@ public class ZoneManager implements IXmlReader
 	 */
 	public List<ZoneType> getZones(int x, int y, int z)
 	{
-		final List<ZoneType> temp = new ArrayList<>();
-		for (ZoneType zone : getRegion(x, y).getZones().values())
-		{
-			if (zone.isInsideZone(x, y, z))
-			{
-				temp.add(zone);
-			}
-		}
-		return temp;
+		return getRegion(x, y).getZones(x, y, z);
 	}
 	
 	/**
@@ -676,17 +683,9 @@ public class ZoneManager implements IXmlReader
 	 * @param type the type
 	 * @return zone from given coordinates
 	 */
-	@SuppressWarnings("unchecked")
 	public <T extends ZoneType> T getZone(int x, int y, int z, Class<T> type)
 	{
-		for (ZoneType zone : getRegion(x, y).getZones().values())
-		{
-			if (zone.isInsideZone(x, y, z) && type.isInstance(zone))
-			{
-				return (T) zone;
-			}
-		}
-		return null;
+		return getRegion(x, y).getZone(x, y, z, type);
 	}
 	
 	/**
@@ -132,6 +132,8 @@ public abstract class AbstractPlayerGroup
 	 */
 	public void broadcastPacket(ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		forEachMember(m ->
 		{
 			if (m != null)
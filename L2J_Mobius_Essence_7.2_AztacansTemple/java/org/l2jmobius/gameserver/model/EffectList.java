@@ -1302,8 +1302,8 @@ public class EffectList
 			_hiddenBuffs.decrementAndGet();
 		});
 		
-		// Recalculate all stats
-		_owner.getStat().recalculateStats(broadcast);
+		// Update the stats affected by the changed effects.
+		_owner.getStat().updateEffectStats(broadcast);
 		
 		if (broadcast)
 		{
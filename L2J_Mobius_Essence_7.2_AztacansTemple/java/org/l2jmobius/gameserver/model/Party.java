@@ -270,6 +270,8 @@ public class Party extends AbstractPlayerGroup
 	 */
 	public void broadcastToPartyMembers(Player player, ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (Player member : _members)
 		{
 			if ((member != null) && (member.getObjectId() != player.getObjectId()))
@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -645,28 +646,38 @@ public class World
 			return;
 		}
 		
+		final boolean[] mask = WorldRegion.getBucketMask(clazz);
+		final int instanceId = object.getInstanceId();
 		final WorldRegion[] surroundingRegions = worldRegion.getSurroundingRegions();
 		for (int i = 0; i < surroundingRegions.length; i++)
 		{
-			final Collection<WorldObject> visibleObjects = surroundingRegions[i].getVisibleObjects();
-			if (visibleObjects.isEmpty())
+			final Set<WorldObject>[] buckets = surroundingRegions[i].getVisibleObjectBuckets(instanceId);
+			if (buckets == null)
 			{
 				continue;
 			}
 			
-			for (WorldObject wo : visibleObjects)
+			for (int b = 0; b < WorldRegion.BUCKET_COUNT; b++)
 			{
-				if ((wo == object) || !clazz.isInstance(wo))
+				if (!mask[b])
 				{
 					continue;
 				}
 				
-				if (wo.getInstanceWorld() != object.getInstanceWorld())
+				for (WorldObject wo : buckets[b])
 				{
-					continue;
+					if ((wo == object) || !clazz.isInstance(wo))
+					{
+						continue;
+					}
+					
+					if (wo.getInstanceWorld() != object.getInstanceWorld())
+					{
+						continue;
+					}
+					
+					c.accept(clazz.cast(wo));
 				}
-				
-				c.accept(clazz.cast(wo));
 			}
 		}
 	}
@@ -693,7 +704,7 @@ public class World
 	
 	public <T extends WorldObject> void forEachVisibleObjectInRange(WorldObject object, Class<T> clazz, int range, Consumer<T> c)
 	{
-		if (object == null)
+		if ((object == null) || (range < 0))
 		{
 			return;
 		}
@@ -704,30 +715,47 @@ public class World
 			return;
 		}
 		
+		final int x = object.getX();
+		final int y = object.getY();
+		final int z = object.getZ();
+		final long rangeSq = (long) range * range;
+		final boolean[] mask = WorldRegion.getBucketMask(clazz);
+		final int instanceId = object.getInstanceId();
 		final WorldRegion[] surroundingRegions = worldRegion.getSurroundingRegions();
 		for (int i = 0; i < surroundingRegions.length; i++)
 		{
-			final Collection<WorldObject> visibleObjects = surroundingRegions[i].getVisibleObjects();
-			if (visibleObjects.isEmpty())
+			final Set<WorldObject>[] buckets = surroundingRegions[i].getVisibleObjectBuckets(instanceId);
+			if (buckets == null)
 			{
 				continue;
 			}
 			
-			for (WorldObject wo : visibleObjects)
+			for (int b = 0; b < WorldRegion.BUCKET_COUNT; b++)
 			{
-				if ((wo == object) || !clazz.isInstance(wo))
+				if (!mask[b])
 				{
 					continue;
 				}
 				
-				if (wo.getInstanceWorld() != object.getInstanceWorld())
+				for (WorldObject wo : buckets[b])
 				{
-					continue;
-				}
-				
-				if (wo.calculateDistance3D(object) <= range)
-				{
-					c.accept(clazz.cast(wo));
+					if ((wo == object) || !clazz.isInstance(wo))
+					{
+						continue;
+					}
+					
+					if (wo.getInstanceWorld() != object.getInstanceWorld())
+					{
+						continue;
+					}
+					
+					final long dx = wo.getX() - x;
+					final long dy = wo.getY() - y;
+					final long dz = wo.getZ() - z;
+					if (((dx * dx) + (dy * dy) + (dz * dz)) <= rangeSq)
+					{
+						c.accept(clazz.cast(wo));
+					}
 				}
 			}
 		}
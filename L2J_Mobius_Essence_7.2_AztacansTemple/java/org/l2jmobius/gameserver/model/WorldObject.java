@@ -666,6 +666,10 @@ public abstract class WorldObject extends ListenersContainer implements IIdentif
 				World.getInstance().switchRegion(this, newRegion);
 				setWorldRegion(newRegion);
 			}
+			else if ((_worldRegion != null) && isCreature())
+			{
+				_worldRegion.onCreatureChange();
+			}
 		}
 	}
 	
@@ -716,6 +720,7 @@ public abstract class WorldObject extends ListenersContainer implements IIdentif
 		}
 		
 		// Leave old instance
+		final int oldInstanceId = getInstanceId();
 		if (_instance != null)
 		{
 			_instance.onInstanceChange(this, false);
@@ -724,6 +729,13 @@ public abstract class WorldObject extends ListenersContainer implements IIdentif
 		// Set new instance
 		_instance = newInstance;
 		
+		// Move to the buckets of the new instance
+		final WorldRegion worldRegion = _worldRegion;
+		if (worldRegion != null)
+		{
+			worldRegion.onInstanceChange(this, oldInstanceId);
+		}
+		
 		// Enter into new instance
 		if (newInstance != null)
 		{
@@ -858,6 +870,11 @@ public abstract class WorldObject extends ListenersContainer implements IIdentif
 	{
 		_isInvisible = invisible;
 		
+		if (!invisible && (_worldRegion != null) && isCreature())
+		{
+			_worldRegion.onCreatureChange();
+		}
+		
 		if (invisible)
 		{
 			final DeleteObject deletePacket = new DeleteObject(this);
@@ -19,6 +19,7 @@ package org.l2jmobius.gameserver.model;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
@@ -29,14 +30,55 @@ import org.l2jmobius.commons.threads.ThreadPool;
 import org.l2jmobius.gameserver.ai.CtrlIntention;
 import org.l2jmobius.gameserver.model.actor.Attackable;
 import org.l2jmobius.gameserver.model.actor.Npc;
+import org.l2jmobius.gameserver.model.actor.Player;
+import org.l2jmobius.gameserver.model.actor.Summon;
 import org.l2jmobius.gameserver.model.actor.instance.Door;
 import org.l2jmobius.gameserver.model.actor.instance.Fence;
+import org.l2jmobius.gameserver.model.item.instance.Item;
 import org.l2jmobius.gameserver.taskmanager.RandomAnimationTaskManager;
 
 public class WorldRegion
 {
+	/** Bucket indexes of visible objects by type. */
+	public static final int PLAYERS = 0;
+	public static final int SUMMONS = 1;
+	public static final int NPCS = 2;
+	public static final int ITEMS = 3;
+	public static final int OTHERS = 4;
+	public static final int BUCKET_COUNT = 5;
+	private static final Class<?>[] BUCKET_TYPES =
+	{
+		Player.class,
+		Summon.class,
+		Npc.class,
+		Item.class
+	};
+	/** The buckets that can contain objects of a class. */
+	private static final ClassValue<boolean[]> BUCKET_MASKS = new ClassValue<>()
+	{
+		@Override
+		protected boolean[] computeValue(Class<?> clazz)
+		{
+			final boolean[] mask = new boolean[BUCKET_COUNT];
+			mask[OTHERS] = true;
+			for (int i = 0; i < BUCKET_TYPES.length; i++)
+			{
+				mask[i] = clazz.isAssignableFrom(BUCKET_TYPES[i]) || BUCKET_TYPES[i].isAssignableFrom(clazz);
+				if (BUCKET_TYPES[i].isAssignableFrom(clazz))
+				{
+					mask[OTHERS] = false;
+				}
+			}
+			return mask;
+		}
+	};
+	
 	/** Set containing visible objects in this world region. */
 	private final Set<WorldObject> _visibleObjects = ConcurrentHashMap.newKeySet();
+	/** Visible objects of the normal world by type. */
+	private final Set<WorldObject>[] _buckets = createBuckets();
+	/** Visible objects of instance worlds by instance id and type. */
+	private final Map<Integer, Set<WorldObject>[]> _instanceBuckets = new ConcurrentHashMap<>();
 	/** List containing doors in this world region. */
 	private final List<Door> _doors = new ArrayList<>(1);
 	/** List containing fences in this world region. */
@@ -48,6 +90,8 @@ public class WorldRegion
 	private boolean _active = Config.GRIDS_ALWAYS_ON;
 	private ScheduledFuture<?> _neighborsTask = null;
 	private final AtomicInteger _activeNeighbors = new AtomicInteger();
+	/** Last time a creature entered, moved in or became visible in this world region. */
+	private volatile long _lastCreatureChange;
 	
 	public WorldRegion(int regionX, int regionY)
 	{
@@ -272,7 +316,15 @@ public class WorldRegion
 			return;
 		}
 		
-		_visibleObjects.add(object);
+		if (_visibleObjects.add(object))
+		{
+			addToBucket(object, object.getInstanceId());
+		}
+		
+		if (object.isCreature())
+		{
+			onCreatureChange();
+		}
 		
 		if (object.isDoor())
 		{
@@ -312,7 +364,10 @@ public class WorldRegion
 			return;
 		}
 		
-		_visibleObjects.remove(object);
+		if (_visibleObjects.remove(object))
+		{
+			removeFromBucket(object, object.getInstanceId());
+		}
 		
 		if (object.isDoor())
 		{
@@ -340,6 +395,131 @@ public class WorldRegion
 		return _visibleObjects;
 	}
 	
+	/**
+	 * @param instanceId the instance id, 0 for the normal world
+	 * @return the visible objects of the instance by bucket index, or {@code null} if there are none
+	 */
+	public Set<WorldObject>[] getVisibleObjectBuckets(int instanceId)
+	{
+		return instanceId == 0 ? _buckets : _instanceBuckets.get(instanceId);
+	}
+	
+	/**
+	 * @param clazz the class of the wanted objects
+	 * @return {@code true} for each bucket index that can contain objects of the class
+	 */
+	public static boolean[] getBucketMask(Class<?> clazz)
+	{
+		return BUCKET_MASKS.get(clazz);
+	}
+	
+	/**
+	 * Moves a visible object to the buckets of its new instance.
+	 * @param object the object that changed instance
+	 * @param oldInstanceId the previous instance id of the object
+	 */
+	public void onInstanceChange(WorldObject object, int oldInstanceId)
+	{
+		if (_visibleObjects.contains(object))
+		{
+			removeFromBucket(object, oldInstanceId);
+			addToBucket(object, object.getInstanceId());
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Set<WorldObject>[] createBuckets()
+	{
+		final Set<WorldObject>[] buckets = new Set[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			buckets[i] = ConcurrentHashMap.newKeySet();
+		}
+		return buckets;
+	}
+	
+	private static int getBucket(WorldObject object)
+	{
+		if (object instanceof Player)
+		{
+			return PLAYERS;
+		}
+		if (object instanceof Summon)
+		{
+			return SUMMONS;
+		}
+		if (object instanceof Npc)
+		{
+			return NPCS;
+		}
+		if (object instanceof Item)
+		{
+			return ITEMS;
+		}
+		return OTHERS;
+	}
+	
+	private void addToBucket(WorldObject object, int instanceId)
+	{
+		if (instanceId == 0)
+		{
+			_buckets[getBucket(object)].add(object);
+			return;
+		}
+		
+		synchronized (_instanceBuckets)
+		{
+			_instanceBuckets.computeIfAbsent(instanceId, k -> createBuckets())[getBucket(object)].add(object);
+		}
+	}
+	
+	private void removeFromBucket(WorldObject object, int instanceId)
+	{
+		final int bucket = getBucket(object);
+		if ((instanceId == 0) && _buckets[bucket].remove(object))
+		{
+			return;
+		}
+		
+		synchronized (_instanceBuckets)
+		{
+			if (instanceId != 0)
+			{
+				final Set<WorldObject>[] buckets = _instanceBuckets.get(instanceId);
+				if ((buckets != null) && buckets[bucket].remove(object))
+				{
+					removeIfEmpty(instanceId, buckets);
+					return;
+				}
+			}
+			
+			// The instance changed while the object was visible here, look in all buckets.
+			_buckets[bucket].remove(object);
+			for (Integer id : _instanceBuckets.keySet())
+			{
+				final Set<WorldObject>[] buckets = _instanceBuckets.get(id);
+				if ((buckets != null) && buckets[bucket].remove(object))
+				{
+					removeIfEmpty(id, buckets);
+				}
+			}
+		}
+	}
+	
+	private void removeIfEmpty(int instanceId, Set<WorldObject>[] buckets)
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			if (!buckets[i].isEmpty())
+			{
+				return;
+			}
+		}
+		
+		// Drop the buckets of an instance without objects here.
+		_instanceBuckets.remove(instanceId);
+	}
+	
 	public synchronized void addDoor(Door door)
 	{
 		if (!_doors.contains(door))
@@ -392,6 +572,26 @@ public class WorldRegion
 		}
 	}
 	
+	/**
+	 * Marks this region as changed for the creatures watching it.
+	 */
+	public void onCreatureChange()
+	{
+		final long time = System.currentTimeMillis();
+		if (_lastCreatureChange != time)
+		{
+			_lastCreatureChange = time;
+		}
+	}
+	
+	/**
+	 * @return the last time a creature entered, moved in or became visible in this region
+	 */
+	public long getLastCreatureChange()
+	{
+		return _lastCreatureChange;
+	}
+	
 	public WorldRegion[] getSurroundingRegions()
 	{
 		return _surroundingRegions;
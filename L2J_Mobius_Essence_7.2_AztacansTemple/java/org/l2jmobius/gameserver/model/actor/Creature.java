@@ -26,12 +26,10 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,7 +39,6 @@ import java.util.logging.Logger;
 
 import org.l2jmobius.Config;
 import org.l2jmobius.commons.threads.ThreadPool;
-import org.l2jmobius.commons.util.EmptyQueue;
 import org.l2jmobius.commons.util.Rnd;
 import org.l2jmobius.gameserver.ai.AttackableAI;
 import org.l2jmobius.gameserver.ai.CreatureAI;
@@ -101,6 +98,7 @@ import org.l2jmobius.gameserver.model.effects.EffectFlag;
 import org.l2jmobius.gameserver.model.events.Containers;
 import org.l2jmobius.gameserver.model.events.EventDispatcher;
 import org.l2jmobius.gameserver.model.events.EventType;
+import org.l2jmobius.gameserver.model.events.ListenersContainer;
 import org.l2jmobius.gameserver.model.events.impl.creature.OnCreatureAttack;
 import org.l2jmobius.gameserver.model.events.impl.creature.OnCreatureAttackAvoid;
 import org.l2jmobius.gameserver.model.events.impl.creature.OnCreatureAttacked;
@@ -132,7 +130,6 @@ import org.l2jmobius.gameserver.model.itemcontainer.Inventory;
 import org.l2jmobius.gameserver.model.options.OptionSkillHolder;
 import org.l2jmobius.gameserver.model.options.OptionSkillType;
 import org.l2jmobius.gameserver.model.skill.AbnormalType;
-import org.l2jmobius.gameserver.model.skill.BuffFinishTask;
 import org.l2jmobius.gameserver.model.skill.BuffInfo;
 import org.l2jmobius.gameserver.model.skill.CommonSkill;
 import org.l2jmobius.gameserver.model.skill.Skill;
@@ -171,6 +168,7 @@ import org.l2jmobius.gameserver.network.serverpackets.UserInfo;
 import org.l2jmobius.gameserver.taskmanager.AttackStanceTaskManager;
 import org.l2jmobius.gameserver.taskmanager.CreatureAttackTaskManager;
 import org.l2jmobius.gameserver.taskmanager.CreatureSeeTaskManager;
+import org.l2jmobius.gameserver.taskmanager.EffectTickTaskManager;
 import org.l2jmobius.gameserver.taskmanager.GameTimeTaskManager;
 import org.l2jmobius.gameserver.taskmanager.MovementTaskManager;
 import org.l2jmobius.gameserver.util.Broadcast;
@@ -264,7 +262,6 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
 	
 	private SkillChannelized _channelized = null;
 	
-	private BuffFinishTask _buffFinishTask = null;
 	
 	private Optional<Transform> _transform = Optional.empty();
 	
@@ -719,6 +716,8 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
 	 */
 	public void broadcastPacket(ServerPacket packet, int radiusInKnownlist)
 	{
+		packet.sendInBroadcast(true);
+		
 		World.getInstance().forEachVisibleObjectInRange(this, Player.class, radiusInKnownlist, player ->
 		{
 			if (isVisibleFor(player))
@@ -1980,8 +1979,11 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
 			_seenCreatures.clear();
 		}
 		
-		// Cancel the BuffFinishTask related to this creature.
-		cancelBuffFinishTask();
+		// Cancel the buff expiries related to this creature.
+		removeAllBuffInfoTimes();
+		
+		// Stop updating the position of this creature.
+		MovementTaskManager.getInstance().unregisterMovingObject(this);
 		
 		// Set world region to null.
 		setWorldRegion(null);
@@ -5777,36 +5779,53 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
 		return _ignoreSkillEffects;
 	}
 	
+	/**
+	 * @return the global container notified for every creature of this kind, {@code null} if none
+	 */
+	private ListenersContainer getGlobalListeners()
+	{
+		return isNpc() && !isMonster() ? Containers.Npcs() : isMonster() ? Containers.Monsters() : isPlayer() ? Containers.Players() : null;
+	}
+	
 	@Override
-	public Queue<AbstractEventListener> getListeners(EventType type)
+	public boolean hasListener(EventType type)
 	{
-		final Queue<AbstractEventListener> objectListenres = super.getListeners(type);
-		final Queue<AbstractEventListener> templateListeners = _template.getListeners(type);
-		final Queue<AbstractEventListener> globalListeners = isNpc() && !isMonster() ? Containers.Npcs().getListeners(type) : isMonster() ? Containers.Monsters().getListeners(type) : isPlayer() ? Containers.Players().getListeners(type) : EmptyQueue.emptyQueue();
-		
-		// Attempt to do not create collection
-		if (objectListenres.isEmpty() && templateListeners.isEmpty() && globalListeners.isEmpty())
+		if (super.hasListener(type) || _template.hasListener(type))
 		{
-			return EmptyQueue.emptyQueue();
+			return true;
 		}
-		else if (!objectListenres.isEmpty() && templateListeners.isEmpty() && globalListeners.isEmpty())
+		
+		final ListenersContainer globalListeners = getGlobalListeners();
+		return (globalListeners != null) && globalListeners.hasListener(type);
+	}
+	
+	@Override
+	public AbstractEventListener[] getListeners(EventType type)
+	{
+		final AbstractEventListener[] objectListeners = getLocalListeners(type);
+		final AbstractEventListener[] templateListeners = _template.getListeners(type);
+		final ListenersContainer globalContainer = getGlobalListeners();
+		final AbstractEventListener[] globalListeners = globalContainer != null ? globalContainer.getListeners(type) : EMPTY_LISTENERS;
+		
+		// Attempt to do not create an array.
+		if ((templateListeners.length == 0) && (globalListeners.length == 0))
 		{
-			return objectListenres;
+			return objectListeners;
 		}
-		else if (!templateListeners.isEmpty() && objectListenres.isEmpty() && globalListeners.isEmpty())
+		else if ((objectListeners.length == 0) && (globalListeners.length == 0))
 		{
 			return templateListeners;
 		}
-		else if (!globalListeners.isEmpty() && objectListenres.isEmpty() && templateListeners.isEmpty())
+		else if ((objectListeners.length == 0) && (templateListeners.length == 0))
 		{
 			return globalListeners;
 		}
 		
-		final Queue<AbstractEventListener> both = new LinkedBlockingDeque<>(objectListenres.size() + templateListeners.size() + globalListeners.size());
-		both.addAll(objectListenres);
-		both.addAll(templateListeners);
-		both.addAll(globalListeners);
-		return both;
+		final AbstractEventListener[] all = new AbstractEventListener[objectListeners.length + templateListeners.length + globalListeners.length];
+		System.arraycopy(objectListeners, 0, all, 0, objectListeners.length);
+		System.arraycopy(templateListeners, 0, all, objectListeners.length, templateListeners.length);
+		System.arraycopy(globalListeners, 0, all, objectListeners.length + templateListeners.length, globalListeners.length);
+		return all;
 	}
 	
 	public Race getRace()
@@ -6110,31 +6129,28 @@ public abstract class Creature extends WorldObject implements ISkillsHolder, IDe
 	
 	public void addBuffInfoTime(BuffInfo info)
 	{
-		if (_buffFinishTask == null)
-		{
-			_buffFinishTask = new BuffFinishTask();
-		}
-		_buffFinishTask.addBuffInfo(info);
+		EffectTickTaskManager.getInstance().addBuffInfo(info);
 	}
 	
 	public void removeBuffInfoTime(BuffInfo info)
 	{
-		if (_buffFinishTask != null)
-		{
-			_buffFinishTask.removeBuffInfo(info);
-		}
+		EffectTickTaskManager.getInstance().removeBuffInfo(info);
 	}
 	
-	public void cancelBuffFinishTask()
+	public void removeAllBuffInfoTimes()
 	{
-		if (_buffFinishTask != null)
+		final EffectList effectList = getEffectList();
+		for (BuffInfo info : effectList.getEffects())
 		{
-			final ScheduledFuture<?> task = _buffFinishTask.getTask();
-			if ((task != null) && !task.isCancelled() && !task.isDone())
-			{
-				task.cancel(true);
-			}
-			_buffFinishTask = null;
+			removeBuffInfoTime(info);
+		}
+		for (BuffInfo info : effectList.getPassives())
+		{
+			removeBuffInfoTime(info);
+		}
+		for (BuffInfo info : effectList.getOptions())
+		{
+			removeBuffInfoTime(info);
 		}
 	}
 	
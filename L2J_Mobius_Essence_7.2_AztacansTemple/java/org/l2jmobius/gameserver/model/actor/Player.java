@@ -405,6 +405,7 @@ import org.l2jmobius.gameserver.taskmanager.GameTimeTaskManager;
 import org.l2jmobius.gameserver.taskmanager.ItemsAutoDestroyTaskManager;
 import org.l2jmobius.gameserver.taskmanager.PlayerAutoSaveTaskManager;
 import org.l2jmobius.gameserver.taskmanager.PvpFlagTaskManager;
+import org.l2jmobius.gameserver.taskmanager.QuestWriteBehindTaskManager;
 import org.l2jmobius.gameserver.util.Broadcast;
 import org.l2jmobius.gameserver.util.EnumIntBitmask;
 import org.l2jmobius.gameserver.util.Util;
@@ -4383,7 +4384,7 @@ public class Player extends Playable
 		
 		if (_broadcastCharInfoTask == null)
 		{
-			_broadcastCharInfoTask = ThreadPool.schedule(() ->
+			_broadcastCharInfoTask = ThreadPool.scheduleTimer(() ->
 			{
 				final CharInfo charInfo = new CharInfo(this, false);
 				World.getInstance().forEachVisibleObject(this, Player.class, player ->
@@ -4446,6 +4447,8 @@ public class Player extends Playable
 			new IllegalArgumentException("CharInfo is being send via broadcastPacket. Do NOT do that! Use broadcastCharInfo() instead.");
 		}
 		
+		packet.sendInBroadcast(true);
+		
 		if (includeSelf)
 		{
 			sendPacket(packet);
@@ -4470,6 +4473,8 @@ public class Player extends Playable
 			new IllegalArgumentException("CharInfo is being send via broadcastPacket. Do NOT do that! Use broadcastCharInfo() instead.");
 		}
 		
+		packet.sendInBroadcast(true);
+		
 		sendPacket(packet);
 		
 		World.getInstance().forEachVisibleObject(this, Player.class, player ->
@@ -7433,9 +7438,22 @@ public class Player extends Playable
 	 * Update Player stats in the characters table of the database.
 	 * @param storeActiveEffects
 	 */
-	public synchronized void store(boolean storeActiveEffects)
+	public void store(boolean storeActiveEffects)
+	{
+		store(storeActiveEffects, true);
+	}
+	
+	/**
+	 * Update Player stats in the database.
+	 * @param storeActiveEffects
+	 * @param storeCharBase if false, the characters table row is expected to be stored by the caller (see {@link #storeCharBase(Collection)}).
+	 */
+	public synchronized void store(boolean storeActiveEffects, boolean storeCharBase)
 	{
-		storeCharBase();
+		if (storeCharBase)
+		{
+			storeCharBase();
+		}
 		storeCharSub();
 		storeEffect(storeActiveEffects);
 		storeItemReuseDelay();
@@ -7510,78 +7528,10 @@ public class Player extends Playable
 	
 	private void storeCharBase()
 	{
-		// Get the exp, level, and sp of base class to store in base table
-		final long exp = getStat().getBaseExp();
-		final int level = getStat().getBaseLevel();
-		final long sp = getStat().getBaseSp();
 		try (Connection con = DatabaseFactory.getConnection();
 			PreparedStatement statement = con.prepareStatement(UPDATE_CHARACTER))
 		{
-			statement.setInt(1, level);
-			statement.setInt(2, getMaxHp());
-			statement.setDouble(3, getCurrentHp());
-			statement.setInt(4, getMaxCp());
-			statement.setDouble(5, getCurrentCp());
-			statement.setInt(6, getMaxMp());
-			statement.setDouble(7, getCurrentMp());
-			statement.setInt(8, _appearance.getFace());
-			statement.setInt(9, _appearance.getHairStyle());
-			statement.setInt(10, _appearance.getHairColor());
-			statement.setInt(11, _appearance.isFemale() ? 1 : 0);
-			statement.setInt(12, getHeading());
-			statement.setInt(13, _lastLoc != null ? _lastLoc.getX() : getX());
-			statement.setInt(14, _lastLoc != null ? _lastLoc.getY() : getY());
-			statement.setInt(15, _lastLoc != null ? _lastLoc.getZ() : getZ());
-			statement.setLong(16, exp);
-			statement.setLong(17, _expBeforeDeath);
-			statement.setLong(18, sp);
-			statement.setInt(19, getReputation());
-			statement.setInt(20, _fame);
-			statement.setInt(21, _raidbossPoints);
-			statement.setInt(22, _pvpKills);
-			statement.setInt(23, _pkKills);
-			statement.setInt(24, getOgClanId());
-			statement.setInt(25, getRace().ordinal());
-			statement.setInt(26, getClassId().getId());
-			statement.setLong(27, _deleteTimer);
-			statement.setString(28, getTitle());
-			statement.setInt(29, _appearance.getTitleColor());
-			statement.setInt(30, isOnlineInt());
-			statement.setInt(31, _clanPrivileges.getBitmask());
-			statement.setInt(32, _wantsPeace);
-			statement.setInt(33, _baseClass);
-			long totalOnlineTime = _onlineTime;
-			if (_onlineBeginTime > 0)
-			{
-				totalOnlineTime += (System.currentTimeMillis() - _onlineBeginTime) / 1000;
-			}
-			statement.setLong(34, _offlineShopStart > 0 ? _onlineTime : totalOnlineTime);
-			statement.setInt(35, isNoble() ? 1 : 0);
-			statement.setInt(36, _powerGrade);
-			statement.setInt(37, _pledgeType);
-			statement.setInt(38, _lvlJoinedAcademy);
-			statement.setLong(39, _apprentice);
-			statement.setLong(40, _sponsor);
-			statement.setLong(41, _clanJoinExpiryTime);
-			statement.setLong(42, _clanCreateExpiryTime);
-			statement.setString(43, getName());
-			statement.setInt(44, _bookmarkslot);
-			statement.setInt(45, getStat().getBaseVitalityPoints());
-			statement.setString(46, _lang);
-			int factionId = 0;
-			if (_isGood)
-			{
-				factionId = 1;
-			}
-			if (_isEvil)
-			{
-				factionId = 2;
-			}
-			statement.setInt(47, factionId);
-			statement.setInt(48, _pcCafePoints);
-			statement.setInt(49, getTotalKills());
-			statement.setInt(50, getTotalDeaths());
-			statement.setInt(51, getObjectId());
+			setCharBaseParameters(statement);
 			statement.execute();
 		}
 		catch (Exception e)
@@ -7590,6 +7540,105 @@ public class Player extends Playable
 		}
 	}
 	
+	/**
+	 * Update the characters table rows of several players using a single batch statement.
+	 * @param players the players to store.
+	 */
+	public static void storeCharBase(Collection<Player> players)
+	{
+		try (Connection con = DatabaseFactory.getConnection();
+			PreparedStatement statement = con.prepareStatement(UPDATE_CHARACTER))
+		{
+			for (Player player : players)
+			{
+				player.setCharBaseParameters(statement);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+		catch (Exception e)
+		{
+			LOGGER.log(Level.WARNING, "Could not store char base data of " + players.size() + " players, storing one by one - " + e.getMessage(), e);
+			for (Player player : players)
+			{
+				player.storeCharBase();
+			}
+		}
+	}
+	
+	private void setCharBaseParameters(PreparedStatement statement) throws SQLException
+	{
+		// Get the exp, level, and sp of base class to store in base table
+		final long exp = getStat().getBaseExp();
+		final int level = getStat().getBaseLevel();
+		final long sp = getStat().getBaseSp();
+		statement.setInt(1, level);
+		statement.setInt(2, getMaxHp());
+		statement.setDouble(3, getCurrentHp());
+		statement.setInt(4, getMaxCp());
+		statement.setDouble(5, getCurrentCp());
+		statement.setInt(6, getMaxMp());
+		statement.setDouble(7, getCurrentMp());
+		statement.setInt(8, _appearance.getFace());
+		statement.setInt(9, _appearance.getHairStyle());
+		statement.setInt(10, _appearance.getHairColor());
+		statement.setInt(11, _appearance.isFemale() ? 1 : 0);
+		statement.setInt(12, getHeading());
+		statement.setInt(13, _lastLoc != null ? _lastLoc.getX() : getX());
+		statement.setInt(14, _lastLoc != null ? _lastLoc.getY() : getY());
+		statement.setInt(15, _lastLoc != null ? _lastLoc.getZ() : getZ());
+		statement.setLong(16, exp);
+		statement.setLong(17, _expBeforeDeath);
+		statement.setLong(18, sp);
+		statement.setInt(19, getReputation());
+		statement.setInt(20, _fame);
+		statement.setInt(21, _raidbossPoints);
+		statement.setInt(22, _pvpKills);
+		statement.setInt(23, _pkKills);
+		statement.setInt(24, getOgClanId());
+		statement.setInt(25, getRace().ordinal());
+		statement.setInt(26, getClassId().getId());
+		statement.setLong(27, _deleteTimer);
+		statement.setString(28, getTitle());
+		statement.setInt(29, _appearance.getTitleColor());
+		statement.setInt(30, isOnlineInt());
+		statement.setInt(31, _clanPrivileges.getBitmask());
+		statement.setInt(32, _wantsPeace);
+		statement.setInt(33, _baseClass);
+		long totalOnlineTime = _onlineTime;
+		if (_onlineBeginTime > 0)
+		{
+			totalOnlineTime += (System.currentTimeMillis() - _onlineBeginTime) / 1000;
+		}
+		statement.setLong(34, _offlineShopStart > 0 ? _onlineTime : totalOnlineTime);
+		statement.setInt(35, isNoble() ? 1 : 0);
+		statement.setInt(36, _powerGrade);
+		statement.setInt(37, _pledgeType);
+		statement.setInt(38, _lvlJoinedAcademy);
+		statement.setLong(39, _apprentice);
+		statement.setLong(40, _sponsor);
+		statement.setLong(41, _clanJoinExpiryTime);
+		statement.setLong(42, _clanCreateExpiryTime);
+		statement.setString(43, getName());
+		statement.setInt(44, _bookmarkslot);
+		statement.setInt(45, getStat().getBaseVitalityPoints());
+		statement.setString(46, _lang);
+		int factionId = 0;
+		if (_isGood)
+		{
+			factionId = 1;
+		}
+		if (_isEvil)
+		{
+			factionId = 2;
+		}
+		statement.setInt(47, factionId);
+		statement.setInt(48, _pcCafePoints);
+		statement.setInt(49, getTotalKills());
+		statement.setInt(50, getTotalDeaths());
+		statement.setInt(51, getObjectId());
+	}
+	
 	private void storeCharSub()
 	{
 		if (getTotalSubClasses() <= 0)
@@ -8663,7 +8712,16 @@ public class Player extends Playable
 	
 	public void autoSave()
 	{
-		storeMe();
+		autoSave(true);
+	}
+	
+	/**
+	 * Periodic save of the player data.
+	 * @param storeCharBase if false, the characters table row is expected to be stored by the caller (see {@link #storeCharBase(Collection)}).
+	 */
+	public void autoSave(boolean storeCharBase)
+	{
+		store(true, storeCharBase);
 		storeRecommendations();
 		
 		if (Config.UPDATE_ITEMS_ON_CHAR_STORE)
@@ -11630,6 +11688,12 @@ public class Player extends Playable
 		// Make sure account variables are stored.
 		getAccountVariables().storeMe();
 		
+		// Make sure pending quest changes are stored.
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			QuestWriteBehindTaskManager.getInstance().flush(getObjectId());
+		}
+		
 		// Recommendations must be saved before task (timer) is canceled
 		try
 		{
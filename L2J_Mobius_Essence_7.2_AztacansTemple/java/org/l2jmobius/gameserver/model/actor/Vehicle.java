@@ -315,6 +315,8 @@ public abstract class Vehicle extends Creature
 	
 	public void broadcastToPassengers(ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (Player player : _passengers)
 		{
 			if (player != null)
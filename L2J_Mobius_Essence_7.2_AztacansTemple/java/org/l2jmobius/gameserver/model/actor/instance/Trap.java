@@ -92,6 +92,8 @@ public class Trap extends Npc
 	@Override
 	public void broadcastPacket(ServerPacket packet, boolean includeSelf)
 	{
+		packet.sendInBroadcast(true);
+		
 		World.getInstance().forEachVisibleObject(this, Player.class, player ->
 		{
 			if (_isTriggered || canBeSeen(player))
@@ -104,6 +106,8 @@ public class Trap extends Npc
 	@Override
 	public void broadcastPacket(ServerPacket packet, int radiusInKnownlist)
 	{
+		packet.sendInBroadcast(true);
+		
 		World.getInstance().forEachVisibleObjectInRange(this, Player.class, radiusInKnownlist, player ->
 		{
 			if (_isTriggered || canBeSeen(player))
@@ -16,13 +16,17 @@
  */
 package org.l2jmobius.gameserver.model.actor.stat;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -83,6 +87,16 @@ public class CreatureStat
 	
 	private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
 	
+	/** Stat contribution of each pumped effect list entry, used to update stats without a full recalculation. */
+	private final Map<BuffInfo, StatContribution> _contributions = new IdentityHashMap<>();
+	private volatile boolean _contributionsValid = false;
+	private StatContribution _recording;
+	private Thread _recordingThread;
+	
+	/** Stats whose value depends on the base stats. */
+	private static final Set<Stat> BASE_STATS = EnumSet.of(Stat.STAT_STR, Stat.STAT_CON, Stat.STAT_DEX, Stat.STAT_INT, Stat.STAT_WIT, Stat.STAT_MEN);
+	private static final Set<Stat> BASE_STAT_DEPENDENTS = EnumSet.of(Stat.MAX_HP, Stat.MAX_MP, Stat.MAX_CP, Stat.PHYSICAL_ATTACK, Stat.PHYSICAL_DEFENCE, Stat.PHYSICAL_ATTACK_SPEED, Stat.MAGIC_ATTACK, Stat.MAGICAL_DEFENCE, Stat.MAGIC_ATTACK_SPEED, Stat.CRITICAL_RATE, Stat.MAGIC_CRITICAL_RATE, Stat.EVASION_RATE, Stat.ACCURACY_COMBAT, Stat.MAGIC_EVASION_RATE, Stat.ACCURACY_MAGIC, Stat.RUN_SPEED, Stat.WALK_SPEED, Stat.WEIGHT_LIMIT);
+	
 	public CreatureStat(Creature creature)
 	{
 		_creature = creature;
@@ -773,6 +787,11 @@ public class CreatureStat
 	public void mergeAdd(Stat stat, Double value)
 	{
 		_statsAdd.merge(stat, value, stat::functionAdd);
+		
+		if (isRecording())
+		{
+			_recording._adds.add(new StatHolder(stat, value));
+		}
 	}
 	
 	/**
@@ -783,6 +802,11 @@ public class CreatureStat
 	public void mergeMul(Stat stat, Double value)
 	{
 		_statsMul.merge(stat, value, stat::functionMul);
+		
+		if (isRecording())
+		{
+			_recording._muls.add(new StatHolder(stat, value));
+		}
 	}
 	
 	/**
@@ -801,6 +825,7 @@ public class CreatureStat
 	 */
 	public double getAdd(Stat stat, double defaultValue)
 	{
+		onStatRead();
 		_lock.readLock().lock();
 		try
 		{
@@ -833,6 +858,7 @@ public class CreatureStat
 	 */
 	public double getAddValue(Stat stat, double defaultValue)
 	{
+		onStatRead();
 		final Double val = _statsAdd.get(stat);
 		return val != null ? val.doubleValue() : defaultValue;
 	}
@@ -853,6 +879,7 @@ public class CreatureStat
 	 */
 	public double getMul(Stat stat, double defaultValue)
 	{
+		onStatRead();
 		_lock.readLock().lock();
 		try
 		{
@@ -885,6 +912,7 @@ public class CreatureStat
 	 */
 	public double getMulValue(Stat stat, double defaultValue)
 	{
+		onStatRead();
 		final Double val = _statsMul.get(stat);
 		return val != null ? val.doubleValue() : defaultValue;
 	}
@@ -896,6 +924,7 @@ public class CreatureStat
 	 */
 	public double getValue(Stat stat, double baseValue)
 	{
+		onStatRead();
 		final Double val = _fixedValue.get(stat);
 		return val != null ? val.doubleValue() : stat.finalize(_creature, OptionalDouble.of(baseValue));
 	}
@@ -906,6 +935,7 @@ public class CreatureStat
 	 */
 	public double getValue(Stat stat)
 	{
+		onStatRead();
 		final Double val = _fixedValue.get(stat);
 		return val != null ? val.doubleValue() : stat.finalize(_creature, OptionalDouble.empty());
 	}
@@ -947,45 +977,28 @@ public class CreatureStat
 		{
 			// Wipe all the data.
 			resetStats();
+			_contributions.clear();
 			
 			// Call pump to each effect.
 			for (BuffInfo info : _creature.getEffectList().getPassives())
 			{
-				if (info.isInUse() && info.getSkill().checkConditions(SkillConditionScope.PASSIVE, _creature, _creature.getTarget()))
+				if (info.isInUse())
 				{
-					for (AbstractEffect effect : info.getEffects())
-					{
-						if (effect.canStart(info.getEffector(), info.getEffected(), info.getSkill()) && effect.canPump(info.getEffector(), info.getEffected(), info.getSkill()))
-						{
-							effect.pump(info.getEffected(), info.getSkill());
-						}
-					}
+					pumpEffects(info, true);
 				}
 			}
 			for (BuffInfo info : _creature.getEffectList().getOptions())
 			{
 				if (info.isInUse())
 				{
-					for (AbstractEffect effect : info.getEffects())
-					{
-						if (effect.canStart(info.getEffector(), info.getEffected(), info.getSkill()) && effect.canPump(info.getEffector(), info.getEffected(), info.getSkill()))
-						{
-							effect.pump(info.getEffected(), info.getSkill());
-						}
-					}
+					pumpEffects(info, false);
 				}
 			}
 			for (BuffInfo info : _creature.getEffectList().getEffects())
 			{
 				if (info.isInUse())
 				{
-					for (AbstractEffect effect : info.getEffects())
-					{
-						if (effect.canStart(info.getEffector(), info.getEffected(), info.getSkill()) && effect.canPump(info.getEffector(), info.getEffected(), info.getSkill()))
-						{
-							effect.pump(info.getEffected(), info.getSkill());
-						}
-					}
+					pumpEffects(info, false);
 				}
 			}
 			
@@ -1024,6 +1037,9 @@ public class CreatureStat
 			}
 			_attackSpeedMultiplier = Formulas.calcAtkSpdMultiplier(_creature);
 			_mAttackSpeedMultiplier = Formulas.calcMAtkSpdMultiplier(_creature);
+			
+			// Summon stats can depend on the effects of the owner.
+			_contributionsValid = !_creature.isSummon();
 		}
 		finally
 		{
@@ -1060,6 +1076,300 @@ public class CreatureStat
 		}
 	}
 	
+	/**
+	 * Updates the stats after entries were added to, removed from, hidden or shown in the effect list.<br>
+	 * Unchanged effects keep their recorded contribution, only the stats of removed effects are rebuilt and only added or dynamic effects are pumped.<br>
+	 * Falls back to {@link #recalculateStats(boolean)} when there is no recorded state to update.
+	 * @param broadcast
+	 */
+	public void updateEffectStats(boolean broadcast)
+	{
+		final Set<Stat> changed = EnumSet.noneOf(Stat.class);
+		final boolean valid = _contributionsValid;
+		
+		_lock.writeLock().lock();
+		
+		try
+		{
+			if (valid)
+			{
+				// Find the entries that need to be pumped.
+				final Set<BuffInfo> current = Collections.newSetFromMap(new IdentityHashMap<>());
+				final List<BuffInfo> pumpPassives = new ArrayList<>();
+				final List<BuffInfo> pumpOthers = new ArrayList<>();
+				for (BuffInfo info : _creature.getEffectList().getPassives())
+				{
+					if (info.isInUse())
+					{
+						final StatContribution contribution = _contributions.get(info);
+						if ((contribution != null) && !contribution._dynamic)
+						{
+							current.add(info);
+						}
+						else
+						{
+							pumpPassives.add(info);
+						}
+					}
+				}
+				for (BuffInfo info : _creature.getEffectList().getOptions())
+				{
+					if (info.isInUse())
+					{
+						final StatContribution contribution = _contributions.get(info);
+						if ((contribution != null) && !contribution._dynamic)
+						{
+							current.add(info);
+						}
+						else
+						{
+							pumpOthers.add(info);
+						}
+					}
+				}
+				for (BuffInfo info : _creature.getEffectList().getEffects())
+				{
+					if (info.isInUse())
+					{
+						final StatContribution contribution = _contributions.get(info);
+						if ((contribution != null) && !contribution._dynamic)
+						{
+							current.add(info);
+						}
+						else
+						{
+							pumpOthers.add(info);
+						}
+					}
+				}
+				
+				// Drop the contribution of removed and dynamic entries.
+				final Iterator<Entry<BuffInfo, StatContribution>> iterator = _contributions.entrySet().iterator();
+				while (iterator.hasNext())
+				{
+					final Entry<BuffInfo, StatContribution> entry = iterator.next();
+					if (!current.contains(entry.getKey()))
+					{
+						final StatContribution contribution = entry.getValue();
+						contribution.collectStats(changed);
+						_vampiricSum -= contribution._vampiricSum;
+						_mpVampiricSum -= contribution._mpVampiricSum;
+						iterator.remove();
+					}
+				}
+				
+				// Conditional additional stats are always verified again.
+				for (StatHolder holder : _additionalAdd)
+				{
+					if (holder.hasCondition())
+					{
+						changed.add(holder.getStat());
+					}
+				}
+				for (StatHolder holder : _additionalMul)
+				{
+					if (holder.hasCondition())
+					{
+						changed.add(holder.getStat());
+					}
+				}
+				
+				// Rebuild the affected stats from the remaining contributions.
+				if (!changed.isEmpty())
+				{
+					for (Stat stat : changed)
+					{
+						_statsAdd.remove(stat);
+						_statsMul.remove(stat);
+						if (stat.getResetAddValue() != 0)
+						{
+							_statsAdd.put(stat, stat.getResetAddValue());
+						}
+						if (stat.getResetMulValue() != 0)
+						{
+							_statsMul.put(stat, stat.getResetMulValue());
+						}
+					}
+					for (StatContribution contribution : _contributions.values())
+					{
+						contribution.merge(this, changed);
+					}
+					for (StatHolder holder : _additionalAdd)
+					{
+						if (changed.contains(holder.getStat()) && holder.verifyCondition(_creature))
+						{
+							mergeAdd(holder.getStat(), holder.getValue());
+						}
+					}
+					for (StatHolder holder : _additionalMul)
+					{
+						if (changed.contains(holder.getStat()) && holder.verifyCondition(_creature))
+						{
+							mergeMul(holder.getStat(), holder.getValue());
+						}
+					}
+				}
+				
+				// Pump the added and dynamic entries.
+				for (BuffInfo info : pumpPassives)
+				{
+					pumpEffects(info, true).collectStats(changed);
+				}
+				for (BuffInfo info : pumpOthers)
+				{
+					pumpEffects(info, false).collectStats(changed);
+				}
+				
+				final double attackSpeedMultiplier = _attackSpeedMultiplier;
+				final double mAttackSpeedMultiplier = _mAttackSpeedMultiplier;
+				_attackSpeedMultiplier = Formulas.calcAtkSpdMultiplier(_creature);
+				_mAttackSpeedMultiplier = Formulas.calcMAtkSpdMultiplier(_creature);
+				if (attackSpeedMultiplier != _attackSpeedMultiplier)
+				{
+					changed.add(Stat.PHYSICAL_ATTACK_SPEED);
+				}
+				if (mAttackSpeedMultiplier != _mAttackSpeedMultiplier)
+				{
+					changed.add(Stat.MAGIC_ATTACK_SPEED);
+				}
+			}
+		}
+		finally
+		{
+			_lock.writeLock().unlock();
+		}
+		
+		// No recorded state, recalculate everything.
+		if (!valid)
+		{
+			recalculateStats(broadcast);
+			return;
+		}
+		
+		// Notify recalculation to child classes.
+		onRecalculateStats(broadcast);
+		
+		if (broadcast && !changed.isEmpty())
+		{
+			for (Stat stat : BASE_STATS)
+			{
+				if (changed.contains(stat))
+				{
+					changed.addAll(BASE_STAT_DEPENDENTS);
+					break;
+				}
+			}
+			_creature.broadcastModifiedStats(changed);
+		}
+	}
+	
+	/**
+	 * Pumps the effects of an effect list entry and records their contribution.<br>
+	 * Must be called while holding the write lock.
+	 * @param info the effect list entry
+	 * @param passive {@code true} if the entry is a passive skill
+	 * @return the recorded contribution
+	 */
+	private StatContribution pumpEffects(BuffInfo info, boolean passive)
+	{
+		final StatContribution contribution = new StatContribution();
+		_recording = contribution;
+		_recordingThread = Thread.currentThread();
+		try
+		{
+			if (passive && info.getSkill().hasConditions(SkillConditionScope.PASSIVE))
+			{
+				contribution._dynamic = true;
+				if (!info.getSkill().checkConditions(SkillConditionScope.PASSIVE, _creature, _creature.getTarget()))
+				{
+					return contribution;
+				}
+			}
+			
+			for (AbstractEffect effect : info.getEffects())
+			{
+				if (effect.isPumpDynamic())
+				{
+					contribution._dynamic = true;
+				}
+				if (effect.canStart(info.getEffector(), info.getEffected(), info.getSkill()) && effect.canPump(info.getEffector(), info.getEffected(), info.getSkill()))
+				{
+					effect.pump(info.getEffected(), info.getSkill());
+				}
+			}
+		}
+		finally
+		{
+			_recording = null;
+			_recordingThread = null;
+			_contributions.put(info, contribution);
+		}
+		return contribution;
+	}
+	
+	/**
+	 * @return {@code true} if the current thread is pumping effects of this creature.
+	 */
+	private boolean isRecording()
+	{
+		return (_recording != null) && (_recordingThread == Thread.currentThread());
+	}
+	
+	/**
+	 * Effects that read stats while pumping must be pumped again when other effects change.
+	 */
+	private void onStatRead()
+	{
+		if (isRecording())
+		{
+			_recording._dynamic = true;
+		}
+	}
+	
+	/**
+	 * The stats merged by the effects of one effect list entry.
+	 */
+	private static class StatContribution
+	{
+		private final List<StatHolder> _adds = new ArrayList<>(2);
+		private final List<StatHolder> _muls = new ArrayList<>(2);
+		private double _vampiricSum;
+		private double _mpVampiricSum;
+		private boolean _dynamic;
+		
+		private void collectStats(Set<Stat> stats)
+		{
+			for (StatHolder holder : _adds)
+			{
+				stats.add(holder.getStat());
+			}
+			for (StatHolder holder : _muls)
+			{
+				stats.add(holder.getStat());
+			}
+		}
+		
+		private void merge(CreatureStat creatureStat, Set<Stat> stats)
+		{
+			for (StatHolder holder : _adds)
+			{
+				final Stat stat = holder.getStat();
+				if (stats.contains(stat))
+				{
+					creatureStat._statsAdd.merge(stat, holder.getValue(), stat::functionAdd);
+				}
+			}
+			for (StatHolder holder : _muls)
+			{
+				final Stat stat = holder.getStat();
+				if (stats.contains(stat))
+				{
+					creatureStat._statsMul.merge(stat, holder.getValue(), stat::functionMul);
+				}
+			}
+		}
+	}
+	
 	protected void onRecalculateStats(boolean broadcast)
 	{
 		// Check if Max HP/MP/CP is lower than current due to new stats.
@@ -1164,6 +1474,11 @@ public class CreatureStat
 	public void addToVampiricSum(double sum)
 	{
 		_vampiricSum += sum;
+		
+		if (isRecording())
+		{
+			_recording._vampiricSum += sum;
+		}
 	}
 	
 	public double getVampiricSum()
@@ -1182,6 +1497,11 @@ public class CreatureStat
 	public void addToMpVampiricSum(double sum)
 	{
 		_mpVampiricSum += sum;
+		
+		if (isRecording())
+		{
+			_recording._mpVampiricSum += sum;
+		}
 	}
 	
 	public double getMpVampiricSum()
@@ -1216,6 +1536,7 @@ public class CreatureStat
 	 */
 	public boolean addAdditionalStat(Stat stat, double value, BiPredicate<Creature, StatHolder> condition)
 	{
+		_contributionsValid = false;
 		return _additionalAdd.add(new StatHolder(stat, value, condition));
 	}
 	
@@ -1227,6 +1548,7 @@ public class CreatureStat
 	 */
 	public boolean addAdditionalStat(Stat stat, double value)
 	{
+		_contributionsValid = false;
 		return _additionalAdd.add(new StatHolder(stat, value));
 	}
 	
@@ -1244,6 +1566,7 @@ public class CreatureStat
 			if ((holder.getStat() == stat) && (holder.getValue() == value))
 			{
 				it.remove();
+				_contributionsValid = false;
 				return true;
 			}
 		}
@@ -1259,6 +1582,7 @@ public class CreatureStat
 	 */
 	public boolean mulAdditionalStat(Stat stat, double value, BiPredicate<Creature, StatHolder> condition)
 	{
+		_contributionsValid = false;
 		return _additionalMul.add(new StatHolder(stat, value, condition));
 	}
 	
@@ -1270,6 +1594,7 @@ public class CreatureStat
 	 */
 	public boolean mulAdditionalStat(Stat stat, double value)
 	{
+		_contributionsValid = false;
 		return _additionalMul.add(new StatHolder(stat, value));
 	}
 	
@@ -1287,6 +1612,7 @@ public class CreatureStat
 			if ((holder.getStat() == stat) && (holder.getValue() == value))
 			{
 				it.remove();
+				_contributionsValid = false;
 				return true;
 			}
 		}
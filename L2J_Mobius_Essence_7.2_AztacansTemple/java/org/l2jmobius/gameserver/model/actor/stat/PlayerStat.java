@@ -780,6 +780,15 @@ public class PlayerStat extends PlayableStat
 		}
 	}
 	
+	@Override
+	public void updateEffectStats(boolean broadcast)
+	{
+		if (!getActiveChar().isChangingClass())
+		{
+			super.updateEffectStats(broadcast);
+		}
+	}
+	
 	@Override
 	protected void onRecalculateStats(boolean broadcast)
 	{
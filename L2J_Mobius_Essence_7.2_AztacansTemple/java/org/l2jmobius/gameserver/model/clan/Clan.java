@@ -1617,6 +1617,8 @@ public class Clan implements IIdentifiable, INamable
 	
 	public void broadcastToOnlineMembers(ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (ClanMember member : _members.values())
 		{
 			if ((member != null) && member.isOnline())
@@ -1628,6 +1630,8 @@ public class Clan implements IIdentifiable, INamable
 	
 	public void broadcastCSToOnlineMembers(CreatureSay packet, Player broadcaster)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (ClanMember member : _members.values())
 		{
 			if ((member != null) && member.isOnline() && !BlockList.isBlocked(member.getPlayer(), broadcaster))
@@ -1639,6 +1643,8 @@ public class Clan implements IIdentifiable, INamable
 	
 	public void broadcastToOtherOnlineMembers(ServerPacket packet, Player player)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (ClanMember member : _members.values())
 		{
 			if ((member != null) && member.isOnline() && (member.getPlayer() != player))
@@ -159,6 +159,16 @@ public abstract class AbstractEffect
 	{
 	}
 	
+	/**
+	 * Effects whose pump result can change while the effect list stays the same (conditions, level, time of day, other stats) are pumped again on every stat update.<br>
+	 * Other effects keep the stat contribution of their last pump until they are removed or stats are fully recalculated.
+	 * @return {@code true} if the pump result of this effect depends on the state of the effected, {@code false} otherwise
+	 */
+	public boolean isPumpDynamic()
+	{
+		return false;
+	}
+	
 	/**
 	 * Get this effect's type.<br>
 	 * TODO: Remove.
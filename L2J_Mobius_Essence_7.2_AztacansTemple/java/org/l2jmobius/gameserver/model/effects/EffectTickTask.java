@@ -19,23 +19,28 @@ package org.l2jmobius.gameserver.model.effects;
 import org.l2jmobius.gameserver.model.skill.BuffInfo;
 
 /**
- * Effect tick task.
+ * Effect tick task.<br>
+ * Run periodically by the effect tick task manager until cancelled.
  * @author Zoey76
  */
 public class EffectTickTask implements Runnable
 {
 	private final BuffInfo _info;
 	private final AbstractEffect _effect;
+	private final long _period;
+	private volatile boolean _cancelled;
 	
 	/**
 	 * EffectTickTask constructor.
 	 * @param info the buff info
 	 * @param effect the effect
+	 * @param period the period between ticks in milliseconds
 	 */
-	public EffectTickTask(BuffInfo info, AbstractEffect effect)
+	public EffectTickTask(BuffInfo info, AbstractEffect effect, long period)
 	{
 		_info = info;
 		_effect = effect;
+		_period = period;
 	}
 	
 	/**
@@ -56,6 +61,31 @@ public class EffectTickTask implements Runnable
 		return _effect;
 	}
 	
+	/**
+	 * Gets the period between ticks.
+	 * @return the period in milliseconds
+	 */
+	public long getPeriod()
+	{
+		return _period;
+	}
+	
+	/**
+	 * Stops any further ticks of this task.
+	 */
+	public void cancel()
+	{
+		_cancelled = true;
+	}
+	
+	/**
+	 * @return {@code true} if this task has been cancelled, {@code false} otherwise
+	 */
+	public boolean isCancelled()
+	{
+		return _cancelled;
+	}
+	
 	@Override
 	public void run()
 	{
@@ -16,7 +16,6 @@
  */
 package org.l2jmobius.gameserver.model.events;
 
-import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,7 +41,7 @@ public class EventDispatcher
 	 */
 	public boolean hasListener(EventType type)
 	{
-		return Containers.Global().hasListener(type);
+		return ListenersContainer.isRegistered(type) && Containers.Global().hasListener(type);
 	}
 	
 	/**
@@ -52,7 +51,7 @@ public class EventDispatcher
 	 */
 	public boolean hasListener(EventType type, ListenersContainer container)
 	{
-		return Containers.Global().hasListener(type) || ((container != null) && container.hasListener(type));
+		return ListenersContainer.isRegistered(type) && (Containers.Global().hasListener(type) || ((container != null) && container.hasListener(type)));
 	}
 	
 	/**
@@ -62,6 +61,11 @@ public class EventDispatcher
 	 */
 	public boolean hasListener(EventType type, ListenersContainer... containers)
 	{
+		if (!ListenersContainer.isRegistered(type))
+		{
+			return false;
+		}
+		
 		boolean hasListeners = Containers.Global().hasListener(type);
 		if (!hasListeners)
 		{
@@ -141,6 +145,12 @@ public class EventDispatcher
 			throw new NullPointerException("Event cannot be null!");
 		}
 		
+		// No container has listeners of this type.
+		if (!ListenersContainer.isRegistered(event.getType()))
+		{
+			return;
+		}
+		
 		ThreadPool.execute(() -> notifyEventToSingleContainer(event, container, null));
 	}
 	
@@ -156,6 +166,12 @@ public class EventDispatcher
 			throw new NullPointerException("Event cannot be null!");
 		}
 		
+		// No container has listeners of this type.
+		if (!ListenersContainer.isRegistered(event.getType()))
+		{
+			return;
+		}
+		
 		ThreadPool.execute(() -> notifyEventToMultipleContainers(event, containers, null));
 	}
 	
@@ -255,6 +271,12 @@ public class EventDispatcher
 			throw new NullPointerException("Event cannot be null!");
 		}
 		
+		// No container has listeners of this type.
+		if (!ListenersContainer.isRegistered(event.getType()))
+		{
+			return null;
+		}
+		
 		// Local listener container.
 		T callback = null;
 		if (container != null)
@@ -279,7 +301,7 @@ public class EventDispatcher
 	 * @param callbackValue
 	 * @return
 	 */
-	private <T extends AbstractEventReturn> T notifyToListeners(Queue<AbstractEventListener> listeners, IBaseEvent event, Class<T> returnBackClass, T callbackValue)
+	private <T extends AbstractEventReturn> T notifyToListeners(AbstractEventListener[] listeners, IBaseEvent event, Class<T> returnBackClass, T callbackValue)
 	{
 		T callback = callbackValue;
 		for (AbstractEventListener listener : listeners)
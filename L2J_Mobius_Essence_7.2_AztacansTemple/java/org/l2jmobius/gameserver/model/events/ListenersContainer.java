@@ -16,21 +16,35 @@
  */
 package org.l2jmobius.gameserver.model.events;
 
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Predicate;
 
-import org.l2jmobius.commons.util.EmptyQueue;
 import org.l2jmobius.gameserver.model.events.listeners.AbstractEventListener;
 
 /**
+ * Listeners are kept per event type in immutable arrays sorted by priority, replaced on every change, so notifications never lock or copy.
  * @author UnAfraid
  */
 public class ListenersContainer
 {
-	private Map<EventType, Queue<AbstractEventListener>> _listeners = null;
+	public static final AbstractEventListener[] EMPTY_LISTENERS = new AbstractEventListener[0];
+	
+	private static final int EVENT_TYPE_COUNT = EventType.values().length;
+	
+	/** Number of listeners registered on all containers for each event type. */
+	private static final AtomicIntegerArray REGISTERED = new AtomicIntegerArray(EVENT_TYPE_COUNT);
+	
+	private volatile AtomicReferenceArray<AbstractEventListener[]> _listeners = null;
+	
+	/**
+	 * @param type
+	 * @return {@code true} if any container may have a listener of the given type, {@code false} if notifying this type can be skipped.
+	 */
+	public static boolean isRegistered(EventType type)
+	{
+		return REGISTERED.get(type.ordinal()) > 0;
+	}
 	
 	/**
 	 * Registers listener for a callback when specified event is executed.
@@ -43,7 +57,31 @@ public class ListenersContainer
 		{
 			throw new NullPointerException("Listener cannot be null!");
 		}
-		getListeners().computeIfAbsent(listener.getType(), k -> new PriorityBlockingQueue<>()).add(listener);
+		
+		final AtomicReferenceArray<AbstractEventListener[]> listeners = getListeners();
+		final int index = listener.getType().ordinal();
+		synchronized (listeners)
+		{
+			final AbstractEventListener[] current = listeners.get(index);
+			final int size = current == null ? 0 : current.length;
+			
+			// Higher priority first, equal priorities in registration order.
+			int position = size;
+			while ((position > 0) && (current[position - 1].compareTo(listener) > 0))
+			{
+				position--;
+			}
+			
+			final AbstractEventListener[] updated = new AbstractEventListener[size + 1];
+			if (size > 0)
+			{
+				System.arraycopy(current, 0, updated, 0, position);
+				System.arraycopy(current, position, updated, position + 1, size - position);
+			}
+			updated[position] = listener;
+			listeners.set(index, updated);
+		}
+		REGISTERED.incrementAndGet(index);
 		return listener;
 	}
 	
@@ -58,16 +96,35 @@ public class ListenersContainer
 		{
 			throw new NullPointerException("Listener cannot be null!");
 		}
-		else if (_listeners == null)
+		
+		final AtomicReferenceArray<AbstractEventListener[]> listeners = _listeners;
+		if (listeners == null)
 		{
 			throw new NullPointerException("Listeners container is not initialized!");
 		}
-		else if (!_listeners.containsKey(listener.getType()))
+		
+		final int index = listener.getType().ordinal();
+		synchronized (listeners)
 		{
-			throw new IllegalAccessError("Listeners container doesn't had " + listener.getType() + " event type added!");
+			final AbstractEventListener[] current = listeners.get(index);
+			if (current == null)
+			{
+				throw new IllegalAccessError("Listeners container doesn't had " + listener.getType() + " event type added!");
+			}
+			
+			for (int i = 0; i < current.length; i++)
+			{
+				if (current[i] == listener)
+				{
+					final AbstractEventListener[] updated = current.length == 1 ? EMPTY_LISTENERS : new AbstractEventListener[current.length - 1];
+					System.arraycopy(current, 0, updated, 0, i);
+					System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+					listeners.set(index, updated);
+					REGISTERED.decrementAndGet(index);
+					break;
+				}
+			}
 		}
-		
-		_listeners.get(listener.getType()).remove(listener);
 		return listener;
 	}
 	
@@ -89,43 +146,67 @@ public class ListenersContainer
 	
 	public void removeListenerIf(Predicate<? super AbstractEventListener> filter)
 	{
-		if (_listeners == null)
+		final AtomicReferenceArray<AbstractEventListener[]> listeners = _listeners;
+		if (listeners == null)
 		{
 			return;
 		}
 		
-		for (Queue<AbstractEventListener> queue : getListeners().values())
+		for (int i = 0; i < listeners.length(); i++)
 		{
-			for (AbstractEventListener listener : queue)
+			final AbstractEventListener[] typeListeners = listeners.get(i);
+			if (typeListeners != null)
 			{
-				if (filter.test(listener))
+				for (AbstractEventListener listener : typeListeners)
 				{
-					listener.unregisterMe();
+					if (filter.test(listener))
+					{
+						listener.unregisterMe();
+					}
 				}
 			}
 		}
 	}
 	
+	/**
+	 * @param type
+	 * @return {@code true} if this container has a listener of the given type.
+	 */
 	public boolean hasListener(EventType type)
 	{
-		// TODO: return (_listeners != null) && !getListeners(type).isEmpty();
-		return !getListeners(type).isEmpty();
+		return getLocalListeners(type).length > 0;
 	}
 	
 	/**
 	 * @param type
-	 * @return {@code List} of {@link AbstractEventListener} by the specified type
+	 * @return the listeners of the specified type, sorted by priority. The array is shared and must not be modified.
 	 */
-	public Queue<AbstractEventListener> getListeners(EventType type)
+	public AbstractEventListener[] getListeners(EventType type)
 	{
-		return (_listeners != null) && _listeners.containsKey(type) ? _listeners.get(type) : EmptyQueue.emptyQueue();
+		return getLocalListeners(type);
+	}
+	
+	/**
+	 * @param type
+	 * @return the listeners registered on this container itself for the specified type, sorted by priority. The array is shared and must not be modified.
+	 */
+	protected final AbstractEventListener[] getLocalListeners(EventType type)
+	{
+		final AtomicReferenceArray<AbstractEventListener[]> listeners = _listeners;
+		if (listeners == null)
+		{
+			return EMPTY_LISTENERS;
+		}
+		
+		final AbstractEventListener[] typeListeners = listeners.get(type.ordinal());
+		return typeListeners == null ? EMPTY_LISTENERS : typeListeners;
 	}
 	
 	/**
-	 * Creates the listeners container map if doesn't exists.
-	 * @return the listeners container map.
+	 * Creates the listeners table if doesn't exists.
+	 * @return the listeners table, indexed by event type ordinal.
 	 */
-	private Map<EventType, Queue<AbstractEventListener>> getListeners()
+	private AtomicReferenceArray<AbstractEventListener[]> getListeners()
 	{
 		if (_listeners == null)
 		{
@@ -133,7 +214,7 @@ public class ListenersContainer
 			{
 				if (_listeners == null)
 				{
-					_listeners = new ConcurrentHashMap<>();
+					_listeners = new AtomicReferenceArray<>(EVENT_TYPE_COUNT);
 				}
 			}
 		}
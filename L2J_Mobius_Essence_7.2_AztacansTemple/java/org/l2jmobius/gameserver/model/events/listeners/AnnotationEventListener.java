@@ -16,7 +16,11 @@
  */
 package org.l2jmobius.gameserver.model.events.listeners;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,33 +30,56 @@ import org.l2jmobius.gameserver.model.events.impl.IBaseEvent;
 import org.l2jmobius.gameserver.model.events.returns.AbstractEventReturn;
 
 /**
- * Annotation event listener provides dynamically attached callback to any method operation with or without any return object.
+ * Annotation event listener provides dynamically attached callback to any method operation with or without any return object.<br>
+ * The method is invoked through a method handle adapted once to {@code (Object, IBaseEvent)Object}, avoiding the reflective checks and argument array of every call.
  * @author UnAfraid
  */
 public class AnnotationEventListener extends AbstractEventListener
 {
 	private static final Logger LOGGER = Logger.getLogger(AnnotationEventListener.class.getName());
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, IBaseEvent.class);
+	
 	private final Method _callback;
+	private final MethodHandle _invoker;
 	
 	public AnnotationEventListener(ListenersContainer container, EventType type, Method callback, Object owner, int priority)
 	{
 		super(container, type, owner);
 		_callback = callback;
+		_invoker = createInvoker(callback);
 		setPriority(priority);
 	}
 	
+	private static MethodHandle createInvoker(Method callback)
+	{
+		try
+		{
+			MethodHandle handle = MethodHandles.publicLookup().unreflect(callback);
+			if (Modifier.isStatic(callback.getModifiers()))
+			{
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			return handle.asType(INVOKER_TYPE);
+		}
+		catch (Exception e)
+		{
+			// Not accessible as a public method, keep using reflection.
+			return null;
+		}
+	}
+	
 	@Override
 	public <R extends AbstractEventReturn> R executeEvent(IBaseEvent event, Class<R> returnBackClass)
 	{
 		try
 		{
-			final Object result = _callback.invoke(getOwner(), event);
+			final Object result = _invoker != null ? (Object) _invoker.invokeExact(getOwner(), event) : _callback.invoke(getOwner(), event);
 			if (_callback.getReturnType() == returnBackClass)
 			{
 				return returnBackClass.cast(result);
 			}
 		}
-		catch (Exception e)
+		catch (Throwable e)
 		{
 			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Error while invoking " + _callback.getName() + " on " + getOwner(), e);
 		}
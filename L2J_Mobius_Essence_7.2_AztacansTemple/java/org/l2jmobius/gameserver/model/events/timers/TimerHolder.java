@@ -57,7 +57,7 @@ public class TimerHolder<T> implements Runnable
 		_eventScript = eventScript;
 		_cancelScript = cancelScript;
 		_postExecutor = postExecutor;
-		_task = isRepeating ? ThreadPool.scheduleAtFixedRate(this, _time, _time) : ThreadPool.schedule(this, _time);
+		_task = isRepeating ? ThreadPool.scheduleTimerAtFixedRate(this, _time, _time) : ThreadPool.scheduleTimer(this, _time);
 		
 		if (npc != null)
 		{
@@ -921,6 +921,11 @@ public class Instance implements IIdentifiable, INamable
 	 */
 	public void broadcastPacket(ServerPacket... packets)
 	{
+		for (ServerPacket packet : packets)
+		{
+			packet.sendInBroadcast(true);
+		}
+		
 		for (Player player : _players)
 		{
 			for (ServerPacket packet : packets)
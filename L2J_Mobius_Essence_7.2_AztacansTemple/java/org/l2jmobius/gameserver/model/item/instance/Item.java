@@ -102,6 +102,7 @@ import org.l2jmobius.gameserver.network.serverpackets.SystemMessage;
 import org.l2jmobius.gameserver.taskmanager.ItemAppearanceTaskManager;
 import org.l2jmobius.gameserver.taskmanager.ItemLifeTimeTaskManager;
 import org.l2jmobius.gameserver.taskmanager.ItemManaTaskManager;
+import org.l2jmobius.gameserver.taskmanager.ItemWriteBehindTaskManager;
 import org.l2jmobius.gameserver.util.GMAudit;
 
 /**
@@ -113,6 +114,15 @@ public class Item extends WorldObject
 	private static final Logger LOGGER = Logger.getLogger(Item.class.getName());
 	private static final Logger LOG_ITEMS = Logger.getLogger("item");
 	
+	private static final String[] DELETE_QUERIES =
+	{
+		"DELETE FROM items WHERE object_id = ?",
+		"DELETE FROM item_variations WHERE itemId = ?",
+		"DELETE FROM item_elementals WHERE itemId = ?",
+		"DELETE FROM item_special_abilities WHERE objectId = ?",
+		"DELETE FROM item_variables WHERE id = ?"
+	};
+	
 	/** Owner */
 	private int _ownerId;
 	private Player _owner;
@@ -1574,13 +1584,23 @@ public class Item extends WorldObject
 	 */
 	public void updateDatabase(boolean force)
 	{
+		// Delay the update to the next write-behind flush.
+		if (!force && (Config.ITEM_WRITE_BEHIND_INTERVAL > 0))
+		{
+			if (!Config.LAZY_ITEMS_UPDATE || !_existsInDb || isRemovedFromDb())
+			{
+				ItemWriteBehindTaskManager.getInstance().add(this);
+			}
+			return;
+		}
+		
 		_dbLock.lock();
 		
 		try
 		{
 			if (_existsInDb)
 			{
-				if ((_ownerId == 0) || (_loc == ItemLocation.VOID) || (_loc == ItemLocation.REFUND) || ((_count == 0) && (_loc != ItemLocation.LEASE)))
+				if (isRemovedFromDb())
 				{
 					removeFromDb();
 				}
@@ -1591,7 +1611,7 @@ public class Item extends WorldObject
 			}
 			else
 			{
-				if ((_ownerId == 0) || (_loc == ItemLocation.VOID) || (_loc == ItemLocation.REFUND) || ((_count == 0) && (_loc != ItemLocation.LEASE)))
+				if (isRemovedFromDb())
 				{
 					return;
 				}
@@ -1604,6 +1624,158 @@ public class Item extends WorldObject
 		}
 	}
 	
+	/**
+	 * @return {@code true} if this item should not have a database record.
+	 */
+	private boolean isRemovedFromDb()
+	{
+		return (_ownerId == 0) || (_loc == ItemLocation.VOID) || (_loc == ItemLocation.REFUND) || ((_count == 0) && (_loc != ItemLocation.LEASE));
+	}
+	
+	/**
+	 * Updates the database for several items using one connection and batch statements.
+	 * @param items the items to update.
+	 * @param force if the update should necessarilly be done.
+	 * @return the number of items written to the database.
+	 */
+	public static int updateDatabase(Collection<Item> items, boolean force)
+	{
+		if (items.isEmpty())
+		{
+			return 0;
+		}
+		
+		final List<Item> stored = new ArrayList<>();
+		final List<Boolean> existed = new ArrayList<>();
+		final List<Item> removed = new ArrayList<>();
+		try (Connection con = DatabaseFactory.getConnection();
+			PreparedStatement ps = con.prepareStatement("INSERT INTO items (owner_id,item_id,count,loc,loc_data,enchant_level,object_id,custom_type1,custom_type2,mana_left,time) VALUES (?,?,?,?,?,?,?,?,?,?,?) ON DUPLICATE KEY UPDATE owner_id=VALUES(owner_id),count=VALUES(count),loc=VALUES(loc),loc_data=VALUES(loc_data),enchant_level=VALUES(enchant_level),custom_type1=VALUES(custom_type1),custom_type2=VALUES(custom_type2),mana_left=VALUES(mana_left),time=VALUES(time)"))
+		{
+			for (Item item : items)
+			{
+				item._dbLock.lock();
+				try
+				{
+					if (item._wear || (item.getObjectId() == 0))
+					{
+						continue;
+					}
+					
+					if (item.isRemovedFromDb())
+					{
+						if (item._existsInDb)
+						{
+							removed.add(item);
+							item._existsInDb = false;
+							item._storedInDb = false;
+						}
+					}
+					else if (!item._existsInDb || (!item._storedInDb && (!Config.LAZY_ITEMS_UPDATE || force)))
+					{
+						ps.setInt(1, item._ownerId);
+						ps.setInt(2, item._itemId);
+						ps.setLong(3, item._count);
+						ps.setString(4, item._loc.name());
+						ps.setInt(5, item._locData);
+						ps.setInt(6, item._enchantLevel);
+						ps.setInt(7, item.getObjectId());
+						ps.setInt(8, item._type1);
+						ps.setInt(9, item._type2);
+						ps.setInt(10, item._mana);
+						ps.setLong(11, item._time);
+						ps.addBatch();
+						stored.add(item);
+						existed.add(item._existsInDb);
+						item._existsInDb = true;
+						item._storedInDb = true;
+					}
+				}
+				finally
+				{
+					item._dbLock.unlock();
+				}
+			}
+			
+			if (!stored.isEmpty())
+			{
+				ps.executeBatch();
+				for (Item item : stored)
+				{
+					if (item._augmentation != null)
+					{
+						item.updateItemOptions(con);
+					}
+					
+					if (item._elementals != null)
+					{
+						item.updateItemElements(con);
+					}
+					
+					item.updateSpecialAbilities(con);
+				}
+			}
+			
+			if (!removed.isEmpty())
+			{
+				for (String query : DELETE_QUERIES)
+				{
+					try (PreparedStatement delete = con.prepareStatement(query))
+					{
+						for (Item item : removed)
+						{
+							delete.setInt(1, item.getObjectId());
+							delete.addBatch();
+						}
+						delete.executeBatch();
+					}
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Items could not be updated in DB, they will be written again: Reason: " + e.getMessage(), e);
+			
+			// Restore the state of the items, so the next update writes them again.
+			for (int i = 0; i < stored.size(); i++)
+			{
+				final Item item = stored.get(i);
+				item._dbLock.lock();
+				try
+				{
+					item._existsInDb = existed.get(i);
+					item._storedInDb = false;
+				}
+				finally
+				{
+					item._dbLock.unlock();
+				}
+				if (Config.ITEM_WRITE_BEHIND_INTERVAL > 0)
+				{
+					ItemWriteBehindTaskManager.getInstance().add(item);
+				}
+			}
+			for (Item item : removed)
+			{
+				item._dbLock.lock();
+				try
+				{
+					item._existsInDb = true;
+				}
+				finally
+				{
+					item._dbLock.unlock();
+				}
+				if (Config.ITEM_WRITE_BEHIND_INTERVAL > 0)
+				{
+					ItemWriteBehindTaskManager.getInstance().add(item);
+				}
+			}
+			return 0;
+		}
+		
+		return stored.size() + removed.size();
+	}
+	
 	/**
 	 * Init a dropped Item and add it in the world as a visible object.<br>
 	 * <br>
@@ -1774,34 +1946,13 @@ public class Item extends WorldObject
 		
 		try (Connection con = DatabaseFactory.getConnection())
 		{
-			try (PreparedStatement ps = con.prepareStatement("DELETE FROM items WHERE object_id = ?"))
-			{
-				ps.setInt(1, getObjectId());
-				ps.executeUpdate();
-			}
-			
-			try (PreparedStatement ps = con.prepareStatement("DELETE FROM item_variations WHERE itemId = ?"))
-			{
-				ps.setInt(1, getObjectId());
-				ps.executeUpdate();
-			}
-			
-			try (PreparedStatement ps = con.prepareStatement("DELETE FROM item_elementals WHERE itemId = ?"))
-			{
-				ps.setInt(1, getObjectId());
-				ps.executeUpdate();
-			}
-			
-			try (PreparedStatement ps = con.prepareStatement("DELETE FROM item_special_abilities WHERE objectId = ?"))
+			for (String query : DELETE_QUERIES)
 			{
-				ps.setInt(1, getObjectId());
-				ps.executeUpdate();
-			}
-			
-			try (PreparedStatement ps = con.prepareStatement("DELETE FROM item_variables WHERE id = ?"))
-			{
-				ps.setInt(1, getObjectId());
-				ps.executeUpdate();
+				try (PreparedStatement ps = con.prepareStatement(query))
+				{
+					ps.setInt(1, getObjectId());
+					ps.executeUpdate();
+				}
 			}
 		}
 		catch (Exception e)
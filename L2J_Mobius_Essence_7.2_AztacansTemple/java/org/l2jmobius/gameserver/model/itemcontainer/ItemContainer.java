@@ -37,6 +37,7 @@ import org.l2jmobius.gameserver.model.actor.Player;
 import org.l2jmobius.gameserver.model.item.ItemTemplate;
 import org.l2jmobius.gameserver.model.item.instance.Item;
 import org.l2jmobius.gameserver.network.serverpackets.InventoryUpdate;
+import org.l2jmobius.gameserver.taskmanager.ItemWriteBehindTaskManager;
 
 /**
  * @author Advi
@@ -603,11 +604,17 @@ public abstract class ItemContainer
 	{
 		if ((this instanceof PlayerInventory) || (this instanceof PlayerWarehouse) || (getOwner() != null))
 		{
+			Item.updateDatabase(_items, true);
 			for (Item item : _items)
 			{
-				item.updateDatabase(true);
 				item.stopAllTasks();
 			}
+			
+			// Write the pending changes of items that are no longer in this container.
+			if (Config.ITEM_WRITE_BEHIND_INTERVAL > 0)
+			{
+				ItemWriteBehindTaskManager.getInstance().flush(getOwnerId());
+			}
 		}
 		
 		for (Item item : _items)
@@ -625,10 +632,7 @@ public abstract class ItemContainer
 	{
 		if (getOwner() != null)
 		{
-			for (Item item : _items)
-			{
-				item.updateDatabase(true);
-			}
+			Item.updateDatabase(_items, true);
 		}
 	}
 	
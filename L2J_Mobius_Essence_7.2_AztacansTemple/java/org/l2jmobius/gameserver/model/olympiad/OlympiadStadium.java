@@ -118,6 +118,8 @@ public class OlympiadStadium
 	
 	public void broadcastPacketToObservers(ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (Player target : _instance.getPlayers())
 		{
 			if (target.inObserverMode())
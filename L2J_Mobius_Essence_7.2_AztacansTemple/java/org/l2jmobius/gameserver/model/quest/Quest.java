@@ -86,6 +86,7 @@ import org.l2jmobius.gameserver.network.serverpackets.ExQuestNpcLogList;
 import org.l2jmobius.gameserver.network.serverpackets.NpcHtmlMessage;
 import org.l2jmobius.gameserver.network.serverpackets.NpcQuestHtmlMessage;
 import org.l2jmobius.gameserver.network.serverpackets.quest.ExQuestDialog;
+import org.l2jmobius.gameserver.taskmanager.QuestWriteBehindTaskManager;
 import org.l2jmobius.gameserver.util.Util;
 
 /**
@@ -1644,6 +1645,12 @@ public class Quest extends AbstractScript implements IIdentifiable
 	 */
 	public static void createQuestVarInDb(QuestState qs, String var, String value)
 	{
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			QuestWriteBehindTaskManager.getInstance().setVariable(qs.getPlayer().getObjectId(), qs.getQuestName(), var, value);
+			return;
+		}
+		
 		try (Connection con = DatabaseFactory.getConnection();
 			PreparedStatement statement = con.prepareStatement("INSERT INTO character_quests (charId,name,var,value) VALUES (?,?,?,?) ON DUPLICATE KEY UPDATE value=?"))
 		{
@@ -1668,6 +1675,12 @@ public class Quest extends AbstractScript implements IIdentifiable
 	 */
 	public static void updateQuestVarInDb(QuestState qs, String var, String value)
 	{
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			QuestWriteBehindTaskManager.getInstance().setVariable(qs.getPlayer().getObjectId(), qs.getQuestName(), var, value);
+			return;
+		}
+		
 		try (Connection con = DatabaseFactory.getConnection();
 			PreparedStatement statement = con.prepareStatement("UPDATE character_quests SET value=? WHERE charId=? AND name=? AND var = ?"))
 		{
@@ -1690,6 +1703,12 @@ public class Quest extends AbstractScript implements IIdentifiable
 	 */
 	public static void deleteQuestVarInDb(QuestState qs, String var)
 	{
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			QuestWriteBehindTaskManager.getInstance().setVariable(qs.getPlayer().getObjectId(), qs.getQuestName(), var, null);
+			return;
+		}
+		
 		try (Connection con = DatabaseFactory.getConnection();
 			PreparedStatement statement = con.prepareStatement("DELETE FROM character_quests WHERE charId=? AND name=? AND var=?"))
 		{
@@ -1711,6 +1730,12 @@ public class Quest extends AbstractScript implements IIdentifiable
 	 */
 	public static void deleteQuestInDb(QuestState qs, boolean repeatable)
 	{
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			QuestWriteBehindTaskManager.getInstance().deleteQuest(qs.getPlayer().getObjectId(), qs.getQuestName(), repeatable);
+			return;
+		}
+		
 		try (Connection con = DatabaseFactory.getConnection();
 			PreparedStatement ps = con.prepareStatement(repeatable ? QUEST_DELETE_FROM_CHAR_QUERY : QUEST_DELETE_FROM_CHAR_QUERY_NON_REPEATABLE_QUERY))
 		{
@@ -41,11 +41,11 @@ public class QuestTimer
 		
 		if (repeating)
 		{
-			_scheduler = ThreadPool.scheduleAtFixedRate(new ScheduleTimerTask(), time, time); // Prepare auto end task
+			_scheduler = ThreadPool.scheduleTimerAtFixedRate(new ScheduleTimerTask(), time, time); // Prepare auto end task
 		}
 		else
 		{
-			_scheduler = ThreadPool.schedule(new ScheduleTimerTask(), time); // Prepare auto end task
+			_scheduler = ThreadPool.scheduleTimer(new ScheduleTimerTask(), time); // Prepare auto end task
 		}
 		
 		if (npc != null)
@@ -1505,6 +1505,15 @@ public class Skill implements IIdentifiable
 		_conditionLists.computeIfAbsent(skillConditionScope, k -> new ArrayList<>()).add(skillCondition);
 	}
 	
+	/**
+	 * @param skillConditionScope the condition scope
+	 * @return {@code true} if this skill has conditions for the given condition scope, {@code false} otherwise
+	 */
+	public boolean hasConditions(SkillConditionScope skillConditionScope)
+	{
+		return _conditionLists.containsKey(skillConditionScope);
+	}
+	
 	/**
 	 * Checks the conditions of this skills for the given condition scope.
 	 * @param skillConditionScope the condition scope
@@ -51,6 +51,11 @@ public class StatHolder
 		return _value;
 	}
 	
+	public boolean hasCondition()
+	{
+		return _condition != null;
+	}
+	
 	public boolean verifyCondition(Creature creature)
 	{
 		return (_condition == null) || _condition.test(creature, this);
@@ -16,7 +16,11 @@
  */
 package org.l2jmobius.gameserver.model.variables;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.l2jmobius.gameserver.model.StatSet;
 import org.l2jmobius.gameserver.model.interfaces.IDeletable;
@@ -28,79 +32,80 @@ import org.l2jmobius.gameserver.model.interfaces.IStorable;
  */
 public abstract class AbstractVariables extends StatSet implements IRestorable, IStorable, IDeletable
 {
-	private final AtomicBoolean _hasChanges = new AtomicBoolean(false);
+	private final Set<String> _changes = ConcurrentHashMap.newKeySet();
 	
 	/**
 	 * Overriding following methods to prevent from doing useless database operations if there is no changes since player's login.
+	 * Each changed variable is tracked, so only the changed variables are written to the database.
 	 */
 	
 	@Override
 	public void set(String name, boolean value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, byte value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, short value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, int value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, long value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, float value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, double value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, String value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, Enum<?> value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
 	@Override
 	public void set(String name, Object value)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		super.set(name, value);
 	}
 	
@@ -114,7 +119,7 @@ public abstract class AbstractVariables extends StatSet implements IRestorable,
 	{
 		if (markAsChanged)
 		{
-			_hasChanges.compareAndSet(false, true);
+			markChanged(name);
 		}
 		super.set(name, value);
 	}
@@ -134,18 +139,52 @@ public abstract class AbstractVariables extends StatSet implements IRestorable,
 	 */
 	public boolean hasChanges()
 	{
-		return _hasChanges.get();
+		return !_changes.isEmpty();
 	}
 	
 	/**
-	 * Atomically sets the value to the given updated value if the current value {@code ==} the expected value.
-	 * @param expect
-	 * @param update
-	 * @return {@code true} if successful. {@code false} return indicates that the actual value was not equal to the expected value.
+	 * Marks the variable as changed, so it is written on the next save.<br>
+	 * A changed variable that no longer exists is deleted on the next save.
+	 * @param name
+	 */
+	protected void markChanged(String name)
+	{
+		_changes.add(name);
+	}
+	
+	/**
+	 * Takes the names of the variables changed since last load/save, they are no longer marked as changed.<br>
+	 * Variables changed after this call are marked again, so they are written on the next save.
+	 * @return the names of the changed variables
+	 */
+	protected List<String> takeChanges()
+	{
+		final List<String> names = new ArrayList<>(_changes.size());
+		for (String name : _changes)
+		{
+			if (_changes.remove(name))
+			{
+				names.add(name);
+			}
+		}
+		return names;
+	}
+	
+	/**
+	 * Marks the given variables as changed again, used when they could not be saved.
+	 * @param names
+	 */
+	protected void restoreChanges(Collection<String> names)
+	{
+		_changes.addAll(names);
+	}
+	
+	/**
+	 * Clears all changes, used after load or when all variables are deleted.
 	 */
-	public boolean compareAndSetChanges(boolean expect, boolean update)
+	protected void clearChanges()
 	{
-		return _hasChanges.compareAndSet(expect, update);
+		_changes.clear();
 	}
 	
 	/**
@@ -155,7 +194,7 @@ public abstract class AbstractVariables extends StatSet implements IRestorable,
 	@Override
 	public void remove(String name)
 	{
-		_hasChanges.compareAndSet(false, true);
+		markChanged(name);
 		getSet().remove(name);
 	}
 }
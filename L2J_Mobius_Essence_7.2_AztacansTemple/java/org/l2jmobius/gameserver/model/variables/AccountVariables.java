@@ -20,7 +20,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Map.Entry;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,6 +36,7 @@ public class AccountVariables extends AbstractVariables
 	// SQL Queries.
 	private static final String SELECT_QUERY = "SELECT * FROM account_gsdata WHERE account_name = ?";
 	private static final String DELETE_QUERY = "DELETE FROM account_gsdata WHERE account_name = ?";
+	private static final String DELETE_VAR_QUERY = "DELETE FROM account_gsdata WHERE account_name = ? AND var = ?";
 	private static final String INSERT_QUERY = "REPLACE INTO account_gsdata (account_name, var, value) VALUES (?, ?, ?)";
 	private static final String DELETE_QUERY_VAR = "DELETE FROM account_gsdata where var = ?";
 	
@@ -83,7 +84,7 @@ public class AccountVariables extends AbstractVariables
 		}
 		finally
 		{
-			compareAndSetChanges(true, false);
+			clearChanges();
 		}
 		return true;
 	}
@@ -92,42 +93,44 @@ public class AccountVariables extends AbstractVariables
 	public boolean storeMe()
 	{
 		// No changes, nothing to store.
-		if (!hasChanges())
+		final List<String> changes = takeChanges();
+		if (changes.isEmpty())
 		{
 			return false;
 		}
 		
-		try (Connection con = DatabaseFactory.getConnection())
+		try (Connection con = DatabaseFactory.getConnection();
+			PreparedStatement delete = con.prepareStatement(DELETE_VAR_QUERY);
+			PreparedStatement insert = con.prepareStatement(INSERT_QUERY))
 		{
-			// Clear previous entries.
-			try (PreparedStatement st = con.prepareStatement(DELETE_QUERY))
-			{
-				st.setString(1, _accountName);
-				st.execute();
-			}
+			delete.setString(1, _accountName);
+			insert.setString(1, _accountName);
 			
-			// Insert all variables.
-			try (PreparedStatement st = con.prepareStatement(INSERT_QUERY))
+			// Write only the changed variables, removed variables are deleted.
+			for (String name : changes)
 			{
-				st.setString(1, _accountName);
-				for (Entry<String, Object> entry : getSet().entrySet())
+				final Object value = getSet().get(name);
+				if (value == null)
+				{
+					delete.setString(2, name);
+					delete.addBatch();
+				}
+				else
 				{
-					st.setString(2, entry.getKey());
-					st.setString(3, String.valueOf(entry.getValue()));
-					st.addBatch();
+					insert.setString(2, name);
+					insert.setString(3, String.valueOf(value));
+					insert.addBatch();
 				}
-				st.executeBatch();
 			}
+			delete.executeBatch();
+			insert.executeBatch();
 		}
 		catch (SQLException e)
 		{
+			restoreChanges(changes);
 			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Couldn't update variables for: " + _accountName, e);
 			return false;
 		}
-		finally
-		{
-			compareAndSetChanges(true, false);
-		}
 		return true;
 	}
 	
@@ -145,6 +148,7 @@ public class AccountVariables extends AbstractVariables
 			
 			// Clear all entries
 			getSet().clear();
+			clearChanges();
 		}
 		catch (Exception e)
 		{
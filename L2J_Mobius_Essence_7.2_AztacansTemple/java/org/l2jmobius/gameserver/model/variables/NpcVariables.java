@@ -31,6 +31,12 @@ public class NpcVariables extends AbstractVariables
 		return super.getInt(key, 0);
 	}
 	
+	@Override
+	protected void markChanged(String name)
+	{
+		// NPC variables are not stored, no need to track changes.
+	}
+	
 	@Override
 	public boolean restoreMe()
 	{
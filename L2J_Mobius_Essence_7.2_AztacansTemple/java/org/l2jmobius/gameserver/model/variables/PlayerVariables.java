@@ -20,7 +20,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Map.Entry;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,6 +36,7 @@ public class PlayerVariables extends AbstractVariables
 	// SQL Queries.
 	private static final String SELECT_QUERY = "SELECT * FROM character_variables WHERE charId = ?";
 	private static final String DELETE_QUERY = "DELETE FROM character_variables WHERE charId = ?";
+	private static final String DELETE_VAR_QUERY = "DELETE FROM character_variables WHERE charId = ? AND var = ?";
 	private static final String INSERT_QUERY = "INSERT INTO character_variables (charId, var, val) VALUES (?, ?, ?)";
 	
 	// Public variable names.
@@ -133,7 +134,7 @@ public class PlayerVariables extends AbstractVariables
 		}
 		finally
 		{
-			compareAndSetChanges(true, false);
+			clearChanges();
 		}
 		return true;
 	}
@@ -142,42 +143,42 @@ public class PlayerVariables extends AbstractVariables
 	public boolean storeMe()
 	{
 		// No changes, nothing to store.
-		if (!hasChanges())
+		final List<String> changes = takeChanges();
+		if (changes.isEmpty())
 		{
 			return false;
 		}
 		
-		try (Connection con = DatabaseFactory.getConnection())
+		try (Connection con = DatabaseFactory.getConnection();
+			PreparedStatement delete = con.prepareStatement(DELETE_VAR_QUERY);
+			PreparedStatement insert = con.prepareStatement(INSERT_QUERY))
 		{
-			// Clear previous entries.
-			try (PreparedStatement st = con.prepareStatement(DELETE_QUERY))
-			{
-				st.setInt(1, _objectId);
-				st.execute();
-			}
+			delete.setInt(1, _objectId);
+			insert.setInt(1, _objectId);
 			
-			// Insert all variables.
-			try (PreparedStatement st = con.prepareStatement(INSERT_QUERY))
+			// Write only the changed variables, previous entries of each are replaced.
+			for (String name : changes)
 			{
-				st.setInt(1, _objectId);
-				for (Entry<String, Object> entry : getSet().entrySet())
+				delete.setString(2, name);
+				delete.addBatch();
+				
+				final Object value = getSet().get(name);
+				if (value != null)
 				{
-					st.setString(2, entry.getKey());
-					st.setString(3, String.valueOf(entry.getValue()));
-					st.addBatch();
+					insert.setString(2, name);
+					insert.setString(3, String.valueOf(value));
+					insert.addBatch();
 				}
-				st.executeBatch();
 			}
+			delete.executeBatch();
+			insert.executeBatch();
 		}
 		catch (SQLException e)
 		{
+			restoreChanges(changes);
 			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Couldn't update variables for: " + _objectId, e);
 			return false;
 		}
-		finally
-		{
-			compareAndSetChanges(true, false);
-		}
 		return true;
 	}
 	
@@ -195,6 +196,7 @@ public class PlayerVariables extends AbstractVariables
 			
 			// Clear all entries
 			getSet().clear();
+			clearChanges();
 		}
 		catch (Exception e)
 		{
@@ -33,6 +33,19 @@ public abstract class ZoneForm
 	
 	public abstract boolean intersectsRectangle(int x1, int x2, int y1, int y2);
 	
+	/**
+	 * Checks if every point of the given rectangle, borders included, lies within the zone plane. Used to precompute zone lookups, so it may return {@code false} when unsure.
+	 * @param x1 the lowest x of the rectangle
+	 * @param x2 the highest x of the rectangle
+	 * @param y1 the lowest y of the rectangle
+	 * @param y2 the highest y of the rectangle
+	 * @return {@code true} if the rectangle is fully contained in the zone plane, {@code false} otherwise
+	 */
+	public boolean containsRectangle(int x1, int x2, int y1, int y2)
+	{
+		return false;
+	}
+	
 	public abstract double getDistanceToZone(int x, int y);
 	
 	public abstract int getLowZ(); // Support for the ability to extract the z coordinates of zones.
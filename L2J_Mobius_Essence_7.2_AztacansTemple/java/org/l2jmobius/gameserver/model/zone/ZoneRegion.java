@@ -16,6 +16,9 @@
  */
 package org.l2jmobius.gameserver.model.zone;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -28,9 +31,16 @@ import org.l2jmobius.gameserver.model.zone.type.PeaceZone;
  */
 public class ZoneRegion
 {
+	/** Must match the region size of the zone manager. */
+	public static final int REGION_SHIFT = 15;
+	private static final int CELL_SHIFT = 9;
+	private static final int CELLS = 1 << (REGION_SHIFT - CELL_SHIFT);
+	private static final ZoneCell EMPTY_CELL = new ZoneCell(new ArrayList<>());
+	
 	private final int _regionX;
 	private final int _regionY;
 	private final Map<Integer, ZoneType> _zones = new ConcurrentHashMap<>();
+	private volatile ZoneGrid _grid;
 	
 	public ZoneRegion(int regionX, int regionY)
 	{
@@ -53,6 +63,238 @@ public class ZoneRegion
 		return _regionY;
 	}
 	
+	/**
+	 * Removes all zones and the lookup grid of this region.
+	 */
+	public void clearZones()
+	{
+		_grid = null;
+		_zones.clear();
+	}
+	
+	/**
+	 * Precomputes which zones may contain each cell of this region, so lookups only test the few zones crossing the cell border and skip the zones fully containing it.<br>
+	 * Must be called again after the zones of this region change.
+	 * @param worldX the lowest world x of this region
+	 * @param worldY the lowest world y of this region
+	 * @return the number of distinct cells, 0 if the region has no zones
+	 */
+	public int buildGrid(int worldX, int worldY)
+	{
+		final ZoneType[] zones = _zones.values().toArray(new ZoneType[0]);
+		if (zones.length == 0)
+		{
+			_grid = null;
+			return 0;
+		}
+		
+		@SuppressWarnings("unchecked")
+		final List<Integer>[] entries = new List[CELLS * CELLS];
+		for (int i = 0; i < zones.length; i++)
+		{
+			final ZoneType zone = zones[i];
+			final boolean blocked = (zone.getBlockedZones() != null) && !zone.getBlockedZones().isEmpty();
+			fillCells(entries, zone.getZone(), blocked, i, worldX, worldY, 0, 0, CELLS);
+		}
+		
+		// Most cells share the same zones, keep a single copy of each.
+		final Map<List<Integer>, ZoneCell> distinct = new HashMap<>();
+		final ZoneCell[] cells = new ZoneCell[CELLS * CELLS];
+		for (int i = 0; i < cells.length; i++)
+		{
+			cells[i] = entries[i] == null ? EMPTY_CELL : distinct.computeIfAbsent(entries[i], ZoneCell::new);
+		}
+		
+		_grid = new ZoneGrid(worldX, worldY, zones, cells);
+		return distinct.size();
+	}
+	
+	/**
+	 * Registers a zone into the cells of a square block, splitting the block while the zone border crosses it.
+	 * @param entries the cell entries, {@code index << 1 | contained} in zone order
+	 * @param form the zone form
+	 * @param blocked {@code true} if the zone has blocked areas and can never fully contain a cell
+	 * @param index the zone index
+	 * @param worldX the lowest world x of the region
+	 * @param worldY the lowest world y of the region
+	 * @param cellX the first cell x of the block
+	 * @param cellY the first cell y of the block
+	 * @param size the block size in cells
+	 */
+	private static void fillCells(List<Integer>[] entries, ZoneForm form, boolean blocked, int index, int worldX, int worldY, int cellX, int cellY, int size)
+	{
+		final int x1 = worldX + (cellX << CELL_SHIFT);
+		final int y1 = worldY + (cellY << CELL_SHIFT);
+		final int x2 = (x1 + (size << CELL_SHIFT)) - 1;
+		final int y2 = (y1 + (size << CELL_SHIFT)) - 1;
+		
+		// Grown by one unit, so zones only touching the block borders are not missed.
+		if (!form.intersectsRectangle(x1 - 1, x2 + 1, y1 - 1, y2 + 1))
+		{
+			return;
+		}
+		
+		final boolean contained = !blocked && form.containsRectangle(x1, x2, y1, y2);
+		if (contained || (size == 1))
+		{
+			final Integer entry = (index << 1) | (contained ? 1 : 0);
+			for (int x = cellX; x < (cellX + size); x++)
+			{
+				for (int y = cellY; y < (cellY + size); y++)
+				{
+					final int cell = (x * CELLS) + y;
+					if (entries[cell] == null)
+					{
+						entries[cell] = new ArrayList<>(4);
+					}
+					entries[cell].add(entry);
+				}
+			}
+			return;
+		}
+		
+		final int half = size >> 1;
+		fillCells(entries, form, blocked, index, worldX, worldY, cellX, cellY, half);
+		fillCells(entries, form, blocked, index, worldX, worldY, cellX + half, cellY, half);
+		fillCells(entries, form, blocked, index, worldX, worldY, cellX, cellY + half, half);
+		fillCells(entries, form, blocked, index, worldX, worldY, cellX + half, cellY + half, half);
+	}
+	
+	/**
+	 * @param grid the lookup grid
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return the cell holding the given coordinates, {@code null} if they are outside of this region
+	 */
+	private static ZoneCell getCell(ZoneGrid grid, int x, int y)
+	{
+		final int cellX = (x - grid.worldX) >> CELL_SHIFT;
+		final int cellY = (y - grid.worldY) >> CELL_SHIFT;
+		if ((cellX < 0) || (cellX >= CELLS) || (cellY < 0) || (cellY >= CELLS))
+		{
+			return null;
+		}
+		return grid.cells[(cellX * CELLS) + cellY];
+	}
+	
+	private static boolean isInsideZone(ZoneType zone, boolean contained, int x, int y, int z)
+	{
+		if (contained)
+		{
+			final ZoneForm form = zone.getZone();
+			return (z >= form.getLowZ()) && (z <= form.getHighZ());
+		}
+		return zone.isInsideZone(x, y, z);
+	}
+	
+	/**
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @return all zones of this region containing the given coordinates
+	 */
+	public List<ZoneType> getZones(int x, int y, int z)
+	{
+		final List<ZoneType> result = new ArrayList<>();
+		final ZoneGrid grid = _grid;
+		final ZoneCell cell = grid == null ? null : getCell(grid, x, y);
+		if (cell == null)
+		{
+			for (ZoneType zone : _zones.values())
+			{
+				if (zone.isInsideZone(x, y, z))
+				{
+					result.add(zone);
+				}
+			}
+			return result;
+		}
+		
+		for (int i = 0; i < cell.indexes.length; i++)
+		{
+			final ZoneType zone = grid.zones[cell.indexes[i]];
+			if (isInsideZone(zone, cell.contained[i], x, y, z))
+			{
+				result.add(zone);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return all zones of this region containing the given coordinates on their plane
+	 */
+	public List<ZoneType> getZones(int x, int y)
+	{
+		final List<ZoneType> result = new ArrayList<>();
+		final ZoneGrid grid = _grid;
+		final ZoneCell cell = grid == null ? null : getCell(grid, x, y);
+		if (cell == null)
+		{
+			for (ZoneType zone : _zones.values())
+			{
+				if (zone.isInsideZone(x, y))
+				{
+					result.add(zone);
+				}
+			}
+			return result;
+		}
+		
+		for (int i = 0; i < cell.indexes.length; i++)
+		{
+			final ZoneType zone = grid.zones[cell.indexes[i]];
+			if (cell.contained[i] || zone.isInsideZone(x, y))
+			{
+				result.add(zone);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param <T> the zone type
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @param type the zone class, subclasses included
+	 * @return the first zone of this region of the given type containing the given coordinates, {@code null} if none
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends ZoneType> T getZone(int x, int y, int z, Class<T> type)
+	{
+		final ZoneGrid grid = _grid;
+		final ZoneCell cell = grid == null ? null : getCell(grid, x, y);
+		if (cell == null)
+		{
+			for (ZoneType zone : _zones.values())
+			{
+				if (zone.isInsideZone(x, y, z) && type.isInstance(zone))
+				{
+					return (T) zone;
+				}
+			}
+			return null;
+		}
+		
+		final boolean[] typeMask = grid.getTypeMask(type);
+		for (int i = 0; i < cell.indexes.length; i++)
+		{
+			final int index = cell.indexes[i];
+			if (typeMask[index])
+			{
+				final ZoneType zone = grid.zones[index];
+				if (isInsideZone(zone, cell.contained[i], x, y, z))
+				{
+					return (T) zone;
+				}
+			}
+		}
+		return null;
+	}
+	
 	public void revalidateZones(Creature creature)
 	{
 		// do NOT update the world region while the character is still in the process of teleporting
@@ -62,9 +304,34 @@ public class ZoneRegion
 			return;
 		}
 		
-		for (ZoneType z : _zones.values())
+		final int x = creature.getX();
+		final int y = creature.getY();
+		final ZoneGrid grid = _grid;
+		final ZoneCell cell = grid == null ? null : getCell(grid, x, y);
+		if (cell == null)
+		{
+			for (ZoneType z : _zones.values())
+			{
+				z.revalidateInZone(creature);
+			}
+			return;
+		}
+		
+		// Zones outside of the cell can only remove the creature, which needs no boundary test.
+		final int z = creature.getZ();
+		int next = 0;
+		for (int index = 0; index < grid.zones.length; index++)
 		{
-			z.revalidateInZone(creature);
+			final ZoneType zone = grid.zones[index];
+			if ((next < cell.indexes.length) && (cell.indexes[next] == index))
+			{
+				zone.revalidateInZone(creature, isInsideZone(zone, cell.contained[next], x, y, z));
+				next++;
+			}
+			else
+			{
+				zone.removeCharacter(creature);
+			}
 		}
 	}
 	
@@ -83,58 +350,77 @@ public class ZoneRegion
 		final int down = y - range;
 		final int left = x + range;
 		final int right = x - range;
-		for (ZoneType e : _zones.values())
+		return (getZone(x, up, z, PeaceZone.class) == null) && (getZone(x, down, z, PeaceZone.class) == null) && (getZone(left, y, z, PeaceZone.class) == null) && (getZone(right, y, z, PeaceZone.class) == null) && (getZone(x, y, z, PeaceZone.class) == null);
+	}
+	
+	public void onDeath(Creature creature)
+	{
+		for (ZoneType z : getZones(creature.getX(), creature.getY(), creature.getZ()))
 		{
-			if (e instanceof PeaceZone)
-			{
-				if (e.isInsideZone(x, up, z))
-				{
-					return false;
-				}
-				
-				if (e.isInsideZone(x, down, z))
-				{
-					return false;
-				}
-				
-				if (e.isInsideZone(left, y, z))
-				{
-					return false;
-				}
-				
-				if (e.isInsideZone(right, y, z))
-				{
-					return false;
-				}
-				
-				if (e.isInsideZone(x, y, z))
-				{
-					return false;
-				}
-			}
+			z.onDieInside(creature);
 		}
-		return true;
 	}
 	
-	public void onDeath(Creature creature)
+	public void onRevive(Creature creature)
 	{
-		for (ZoneType z : _zones.values())
+		for (ZoneType z : getZones(creature.getX(), creature.getY(), creature.getZ()))
+		{
+			z.onReviveInside(creature);
+		}
+	}
+	
+	/**
+	 * Zones of a region cell, in region order, with a flag for the zones fully containing the cell plane.
+	 */
+	private static class ZoneCell
+	{
+		protected final int[] indexes;
+		protected final boolean[] contained;
+		
+		protected ZoneCell(List<Integer> entries)
 		{
-			if (z.isInsideZone(creature))
+			indexes = new int[entries.size()];
+			contained = new boolean[entries.size()];
+			for (int i = 0; i < indexes.length; i++)
 			{
-				z.onDieInside(creature);
+				final int entry = entries.get(i);
+				indexes[i] = entry >> 1;
+				contained[i] = (entry & 1) != 0;
 			}
 		}
 	}
 	
-	public void onRevive(Creature creature)
+	private static class ZoneGrid
 	{
-		for (ZoneType z : _zones.values())
+		protected final int worldX;
+		protected final int worldY;
+		protected final ZoneType[] zones;
+		protected final ZoneCell[] cells;
+		private final Map<Class<?>, boolean[]> _typeMasks = new ConcurrentHashMap<>();
+		
+		protected ZoneGrid(int gridWorldX, int gridWorldY, ZoneType[] gridZones, ZoneCell[] gridCells)
+		{
+			worldX = gridWorldX;
+			worldY = gridWorldY;
+			zones = gridZones;
+			cells = gridCells;
+		}
+		
+		/**
+		 * @param type the zone class
+		 * @return for each zone index, {@code true} if the zone is an instance of the given class
+		 */
+		protected boolean[] getTypeMask(Class<?> type)
 		{
-			if (z.isInsideZone(creature))
+			return _typeMasks.computeIfAbsent(type, key ->
 			{
-				z.onReviveInside(creature);
-			}
+				final boolean[] mask = new boolean[zones.length];
+				for (int i = 0; i < zones.length; i++)
+				{
+					mask[i] = key.isInstance(zones[i]);
+				}
+				return mask;
+			});
 		}
 	}
 }
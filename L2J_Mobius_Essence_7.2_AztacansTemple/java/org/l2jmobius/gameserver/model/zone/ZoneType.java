@@ -421,9 +421,19 @@ public abstract class ZoneType extends ListenersContainer
 	}
 	
 	public void revalidateInZone(Creature creature)
+	{
+		revalidateInZone(creature, isInsideZone(creature));
+	}
+	
+	/**
+	 * Adds or removes the creature from this zone, when it is already known whether the creature is inside.
+	 * @param creature the creature
+	 * @param inside {@code true} if the creature is inside the zone boundaries
+	 */
+	public void revalidateInZone(Creature creature, boolean inside)
 	{
 		// If the object is inside the zone...
-		if (isInsideZone(creature))
+		if (inside)
 		{
 			// If the character can't be affected by this zone return
 			if (_checkAffected && !isAffected(creature))
@@ -550,6 +560,8 @@ public abstract class ZoneType extends ListenersContainer
 			return;
 		}
 		
+		packet.sendInBroadcast(true);
+		
 		for (Creature creature : _characterList.values())
 		{
 			if ((creature != null) && creature.isPlayer())
@@ -105,6 +105,13 @@ public class ZoneCylinder extends ZoneForm
 		return false;
 	}
 	
+	@Override
+	public boolean containsRectangle(int x1, int x2, int y1, int y2)
+	{
+		// A circle is convex, so it contains the rectangle when it contains all of its corners.
+		return ((Math.pow(x1 - _x, 2) + Math.pow(y1 - _y, 2)) <= _radS) && ((Math.pow(x1 - _x, 2) + Math.pow(y2 - _y, 2)) <= _radS) && ((Math.pow(x2 - _x, 2) + Math.pow(y1 - _y, 2)) <= _radS) && ((Math.pow(x2 - _x, 2) + Math.pow(y2 - _y, 2)) <= _radS);
+	}
+	
 	@Override
 	public double getDistanceToZone(int x, int y)
 	{
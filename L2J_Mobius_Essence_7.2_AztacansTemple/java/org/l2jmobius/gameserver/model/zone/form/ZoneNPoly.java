@@ -60,6 +60,13 @@ public class ZoneNPoly extends ZoneForm
 		return _p.intersects(Math.min(ax1, ax2), Math.min(ay1, ay2), Math.abs(ax2 - ax1), Math.abs(ay2 - ay1));
 	}
 	
+	@Override
+	public boolean containsRectangle(int x1, int x2, int y1, int y2)
+	{
+		// Grown by one unit, so the rectangle never touches the polygon edges where point containment depends on the edge direction.
+		return _p.contains(x1 - 1, y1 - 1, (x2 - x1) + 2, (y2 - y1) + 2);
+	}
+	
 	@Override
 	public double getDistanceToZone(int x, int y)
 	{
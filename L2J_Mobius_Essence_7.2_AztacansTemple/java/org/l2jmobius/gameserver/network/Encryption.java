@@ -16,21 +16,40 @@
  */
 package org.l2jmobius.gameserver.network;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import org.l2jmobius.commons.network.Buffer;
 
 /**
- * @author KenM
+ * Game packet cipher.<br>
+ * Each byte is XORed with the key and the previous encrypted byte. Decryption works on whole 64-bit words, encryption computes the XOR chain of a word with three shifts.<br>
+ * The bytes are processed directly in the byte buffers holding the packet, see {@link Buffer#processRegions}. Words are only used with little-endian buffers, as provided by the resource pool.
+ * @author KenM, Mobius
  */
 public class Encryption
 {
-	private final byte[] _inKey = new byte[16];
-	private final byte[] _outKey = new byte[16];
+	private static final long BYTE_MASK = 0x0101010101010101L;
+	
+	// Key bytes 0-7 and 8-15 as little-endian words.
+	private final long[] _inKey = new long[2];
+	private final long[] _outKey = new long[2];
 	private boolean _isEnabled;
 	
+	// Position and previous encrypted byte of the packet being processed.
+	private int _inPosition;
+	private int _inPrevious;
+	private int _outPosition;
+	private int _outPrevious;
+	
+	private final Buffer.RegionProcessor _encryptor = this::encryptRegion;
+	private final Buffer.RegionProcessor _decryptor = this::decryptRegion;
+	
 	public void setKey(byte[] key)
 	{
-		System.arraycopy(key, 0, _inKey, 0, 16);
-		System.arraycopy(key, 0, _outKey, 0, 16);
+		final ByteBuffer buffer = ByteBuffer.wrap(key, 0, 16).order(ByteOrder.LITTLE_ENDIAN);
+		_inKey[0] = _outKey[0] = buffer.getLong();
+		_inKey[1] = _outKey[1] = buffer.getLong();
 	}
 	
 	public void encrypt(Buffer data, int offset, int size)
@@ -41,24 +60,11 @@ public class Encryption
 			return;
 		}
 		
-		int encrypted = 0;
-		for (int i = 0; i < size; i++)
-		{
-			final int raw = Byte.toUnsignedInt(data.readByte(offset + i));
-			encrypted = raw ^ _outKey[i & 0x0f] ^ encrypted;
-			data.writeByte(offset + i, (byte) encrypted);
-		}
+		_outPosition = 0;
+		_outPrevious = 0;
+		data.processRegions(offset, size, _encryptor);
 		
-		// Shift key.
-		int old = _outKey[8] & 0xff;
-		old |= (_outKey[9] << 8) & 0xff00;
-		old |= (_outKey[10] << 16) & 0xff0000;
-		old |= (_outKey[11] << 24) & 0xff000000;
-		old += size;
-		_outKey[8] = (byte) (old & 0xff);
-		_outKey[9] = (byte) ((old >> 8) & 0xff);
-		_outKey[10] = (byte) ((old >> 16) & 0xff);
-		_outKey[11] = (byte) ((old >> 24) & 0xff);
+		shiftKey(_outKey, size);
 	}
 	
 	public void decrypt(Buffer data, int offset, int size)
@@ -68,23 +74,112 @@ public class Encryption
 			return;
 		}
 		
-		int xOr = 0;
-		for (int i = 0; i < size; i++)
+		_inPosition = 0;
+		_inPrevious = 0;
+		data.processRegions(offset, size, _decryptor);
+		
+		shiftKey(_inKey, size);
+	}
+	
+	private void encryptRegion(ByteBuffer buffer, int index, int length)
+	{
+		int position = _outPosition;
+		int previous = _outPrevious;
+		int i = index;
+		final int end = index + length;
+		
+		// Bytes until the key is aligned to a word.
+		while (((position & 7) != 0) && (i < end))
+		{
+			previous = (buffer.get(i) ^ keyByte(_outKey, position) ^ previous) & 0xff;
+			buffer.put(i++, (byte) previous);
+			position++;
+		}
+		
+		if (buffer.order() == ByteOrder.LITTLE_ENDIAN)
+		{
+			while ((end - i) >= 8)
+			{
+				long word = buffer.getLong(i) ^ _outKey[(position >> 3) & 1];
+				
+				// Each byte becomes the XOR of itself and all lower bytes of the word.
+				word ^= word << 8;
+				word ^= word << 16;
+				word ^= word << 32;
+				word ^= previous * BYTE_MASK;
+				
+				buffer.putLong(i, word);
+				previous = (int) (word >>> 56);
+				position += 8;
+				i += 8;
+			}
+		}
+		
+		while (i < end)
+		{
+			previous = (buffer.get(i) ^ keyByte(_outKey, position) ^ previous) & 0xff;
+			buffer.put(i++, (byte) previous);
+			position++;
+		}
+		
+		_outPosition = position;
+		_outPrevious = previous;
+	}
+	
+	private void decryptRegion(ByteBuffer buffer, int index, int length)
+	{
+		int position = _inPosition;
+		int previous = _inPrevious;
+		int i = index;
+		final int end = index + length;
+		
+		// Bytes until the key is aligned to a word.
+		while (((position & 7) != 0) && (i < end))
+		{
+			final int encrypted = buffer.get(i) & 0xff;
+			buffer.put(i++, (byte) (encrypted ^ keyByte(_inKey, position) ^ previous));
+			previous = encrypted;
+			position++;
+		}
+		
+		if (buffer.order() == ByteOrder.LITTLE_ENDIAN)
 		{
-			final int encrypted = Byte.toUnsignedInt(data.readByte(offset + i));
-			data.writeByte(offset + i, (byte) (encrypted ^ _inKey[i & 15] ^ xOr));
-			xOr = encrypted;
+			while ((end - i) >= 8)
+			{
+				final long encrypted = buffer.getLong(i);
+				
+				// Every byte only depends on the previous encrypted byte, so the whole word is decrypted at once.
+				buffer.putLong(i, encrypted ^ _inKey[(position >> 3) & 1] ^ ((encrypted << 8) | previous));
+				previous = (int) (encrypted >>> 56);
+				position += 8;
+				i += 8;
+			}
 		}
 		
-		// Shift key.
-		int old = _inKey[8] & 0xff;
-		old |= (_inKey[9] << 8) & 0xff00;
-		old |= (_inKey[10] << 16) & 0xff0000;
-		old |= (_inKey[11] << 24) & 0xff000000;
-		old += size;
-		_inKey[8] = (byte) (old & 0xff);
-		_inKey[9] = (byte) ((old >> 8) & 0xff);
-		_inKey[10] = (byte) ((old >> 16) & 0xff);
-		_inKey[11] = (byte) ((old >> 24) & 0xff);
+		while (i < end)
+		{
+			final int encrypted = buffer.get(i) & 0xff;
+			buffer.put(i++, (byte) (encrypted ^ keyByte(_inKey, position) ^ previous));
+			previous = encrypted;
+			position++;
+		}
+		
+		_inPosition = position;
+		_inPrevious = previous;
+	}
+	
+	private static int keyByte(long[] key, int position)
+	{
+		return (int) (key[(position >> 3) & 1] >>> ((position & 7) << 3)) & 0xff;
+	}
+	
+	/**
+	 * Adds the packet size to key bytes 8-11.
+	 * @param key the key words.
+	 * @param size the packet size.
+	 */
+	private static void shiftKey(long[] key, int size)
+	{
+		key[1] = (key[1] & 0xFFFFFFFF00000000L) | (((int) key[1] + size) & 0xFFFFFFFFL);
 	}
 }
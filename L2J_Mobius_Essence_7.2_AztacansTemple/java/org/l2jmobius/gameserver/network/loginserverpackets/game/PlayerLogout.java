@@ -16,6 +16,8 @@
  */
 package org.l2jmobius.gameserver.network.loginserverpackets.game;
 
+import java.util.List;
+
 import org.l2jmobius.commons.network.base.BaseWritablePacket;
 
 /**
@@ -26,6 +28,17 @@ public class PlayerLogout extends BaseWritablePacket
 	public PlayerLogout(String player)
 	{
 		writeByte(0x03);
+		writeShort(1);
 		writeString(player);
 	}
+	
+	public PlayerLogout(List<String> players)
+	{
+		writeByte(0x03);
+		writeShort(players.size());
+		for (String player : players)
+		{
+			writeString(player);
+		}
+	}
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
 package org.l2jmobius.gameserver.network.serverpackets;
 
 import org.l2jmobius.gameserver.cache.HtmCache;
+import org.l2jmobius.gameserver.cache.HtmlTemplate;
 import org.l2jmobius.gameserver.enums.HtmlActionScope;
 import org.l2jmobius.gameserver.model.actor.Player;
 import org.l2jmobius.gameserver.network.PacketLogger;
@@ -31,6 +32,8 @@ public abstract class AbstractHtmlPacket extends ServerPacket
 	
 	private final int _npcObjId;
 	private String _html = null;
+	private HtmlTemplate _template = null;
+	private String[] _values = null;
 	private boolean _disabledValidation = false;
 	
 	protected AbstractHtmlPacket()
@@ -70,6 +73,9 @@ public abstract class AbstractHtmlPacket extends ServerPacket
 	
 	public void setHtml(String html)
 	{
+		_template = null;
+		_values = null;
+		
 		if (html.length() > 17200)
 		{
 			PacketLogger.warning(getClass().getSimpleName() + ": Html is too long! this will crash the client!");
@@ -85,20 +91,84 @@ public abstract class AbstractHtmlPacket extends ServerPacket
 	
 	public boolean setFile(Player player, String path)
 	{
-		final String content = HtmCache.getInstance().getHtm(player, path);
-		if (content == null)
+		final HtmlTemplate template = HtmCache.getInstance().getTemplate(player, path);
+		if (template == null)
 		{
 			setHtml("<html><body>My Text is missing:<br>" + path + "</body></html>");
 			PacketLogger.warning(getClass().getSimpleName() + ": Missing html page " + path);
 			return false;
 		}
-		setHtml(content);
+		
+		// Pages that setHtml would change are handled as plain text.
+		final String content = template.getContent();
+		if (!template.isExact() || (content.length() > 17200) || (!content.contains("<html") && !content.startsWith("..\\L2")))
+		{
+			setHtml(content);
+			return true;
+		}
+		
+		_template = template;
+		_values = new String[template.getPlaceholderCount()];
+		_html = null;
 		return true;
 	}
 	
 	public void replace(String pattern, String value)
 	{
-		_html = _html.replaceAll(pattern, value.replaceAll("\\$", "\\\\\\$"));
+		// Bind %name% placeholders to the template, the page is written once when needed.
+		// Values that contain a placeholder character could be matched by a later replace, so they are replaced in the text instead.
+		if ((_template != null) && HtmlTemplate.isPlaceholder(pattern) && (value.indexOf('%') < 0))
+		{
+			final int index = _template.indexOf(pattern);
+			if (index >= 0)
+			{
+				// Like a replace in the text, only the first value is used.
+				if (_values[index] == null)
+				{
+					_values[index] = value;
+					_html = null;
+				}
+				return;
+			}
+			
+			if (!_template.getContent().contains(pattern))
+			{
+				return;
+			}
+		}
+		
+		_html = getHtml();
+		_template = null;
+		_values = null;
+		_html = isLiteral(pattern) ? _html.replace(pattern, value) : _html.replaceAll(pattern, value.replaceAll("\\$", "\\\\\\$"));
+	}
+	
+	private static boolean isLiteral(String pattern)
+	{
+		for (int i = 0; i < pattern.length(); i++)
+		{
+			switch (pattern.charAt(i))
+			{
+				case '\\':
+				case '^':
+				case '$':
+				case '.':
+				case '|':
+				case '?':
+				case '*':
+				case '+':
+				case '(':
+				case ')':
+				case '[':
+				case ']':
+				case '{':
+				case '}':
+				{
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	public void replace(String pattern, CharSequence value)
@@ -139,7 +209,7 @@ public abstract class AbstractHtmlPacket extends ServerPacket
 		}
 		if (player != null)
 		{
-			Util.buildHtmlActionCache(player, getScope(), _npcObjId, _html);
+			Util.buildHtmlActionCache(player, getScope(), _npcObjId, getHtml());
 		}
 	}
 	
@@ -150,6 +220,10 @@ public abstract class AbstractHtmlPacket extends ServerPacket
 	
 	public String getHtml()
 	{
+		if ((_html == null) && (_template != null))
+		{
+			_html = _template.render(_values);
+		}
 		return _html;
 	}
 	
@@ -386,6 +386,13 @@ public class SystemMessage extends ServerPacket
 		return _params;
 	}
 	
+	@Override
+	public void sendInBroadcast(boolean broadcast)
+	{
+		// With multilang the text is written in the language of each player, so it cannot be shared.
+		super.sendInBroadcast(broadcast && !Config.MULTILANG_ENABLE);
+	}
+	
 	@Override
 	public void writeImpl(GameClient client, WritableBuffer buffer)
 	{
@@ -16,6 +16,7 @@
  */
 package org.l2jmobius.gameserver.scripting.java;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
@@ -25,9 +26,14 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import javax.tools.Diagnostic;
@@ -36,6 +42,10 @@ import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.ToolProvider;
 
+import com.sun.source.util.JavacTask;
+
+import org.l2jmobius.Config;
+import org.l2jmobius.commons.threads.ThreadProvider;
 import org.l2jmobius.gameserver.scripting.annotations.Disabled;
 
 /**
@@ -50,6 +60,7 @@ public class JavaExecutionContext
 	private static final List<String> OPTIONS = new ArrayList<>();
 	
 	private static Path _currentExecutingScript;
+	private static ScriptingCache _cache;
 	
 	public JavaExecutionContext()
 	{
@@ -60,6 +71,14 @@ public class JavaExecutionContext
 		addOptionIfNotNull(OPTIONS, "source,lines,vars", "-g:");
 		OPTIONS.add("-target");
 		OPTIONS.add("1.8");
+		
+		// Cached classes of unchanged scripts are found on the classpath while compiling changed scripts.
+		if (Config.SCRIPT_CACHE_ROOT != null)
+		{
+			final Path cacheRoot = Config.SCRIPT_CACHE_ROOT.toPath();
+			addOptionIfNotNull(OPTIONS, System.getProperty("java.class.path") + File.pathSeparator + cacheRoot, "-classpath");
+			_cache = new ScriptingCache(cacheRoot, OPTIONS);
+		}
 	}
 	
 	private boolean addOptionIfNotNull(List<String> list, String nullChecked, String before)
@@ -82,7 +101,65 @@ public class JavaExecutionContext
 		return true;
 	}
 	
-	public Map<Path, Throwable> executeScripts(Iterable<Path> sourcePaths) throws Exception
+	/**
+	 * Compiles the given scripts, in parallel for each scripts directory when more than one compile thread is configured.
+	 * @param sourcePaths the script sources.
+	 * @return the compiled classes.
+	 * @throws Exception if the compilation failed.
+	 */
+	private List<ScriptingOutputFileObject> compile(List<Path> sourcePaths) throws Exception
+	{
+		if ((Config.SCRIPT_COMPILE_THREADS < 2) || (sourcePaths.size() < 2))
+		{
+			return compileTask(sourcePaths);
+		}
+		
+		// Scripts of other directories are compiled again when referenced, so each directory can be compiled independently.
+		final Path scriptRoot = Config.SCRIPT_ROOT.toPath();
+		final Map<Path, List<Path>> directories = new HashMap<>();
+		for (Path sourcePath : sourcePaths)
+		{
+			final Path directory = sourcePath.startsWith(scriptRoot) && (sourcePath.getNameCount() > (scriptRoot.getNameCount() + 1)) ? sourcePath.getName(scriptRoot.getNameCount()) : scriptRoot;
+			directories.computeIfAbsent(directory, k -> new ArrayList<>()).add(sourcePath);
+		}
+		if (directories.size() < 2)
+		{
+			return compileTask(sourcePaths);
+		}
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(Config.SCRIPT_COMPILE_THREADS, directories.size()), new ThreadProvider("L2jMobius ScriptCompileThread"));
+		try
+		{
+			final List<Future<List<ScriptingOutputFileObject>>> tasks = new ArrayList<>();
+			for (List<Path> directory : directories.values())
+			{
+				tasks.add(executor.submit(() -> compileTask(directory)));
+			}
+			
+			final Map<String, ScriptingOutputFileObject> compiledClasses = new LinkedHashMap<>();
+			for (Future<List<ScriptingOutputFileObject>> task : tasks)
+			{
+				try
+				{
+					for (ScriptingOutputFileObject compiledClass : task.get())
+					{
+						compiledClasses.putIfAbsent(compiledClass.getJavaName(), compiledClass);
+					}
+				}
+				catch (ExecutionException e)
+				{
+					throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+			return new ArrayList<>(compiledClasses.values());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
+	private List<ScriptingOutputFileObject> compileTask(List<Path> sourcePaths) throws Exception
 	{
 		final DiagnosticCollector<JavaFileObject> fileManagerDiagnostics = new DiagnosticCollector<>();
 		final DiagnosticCollector<JavaFileObject> compilationDiagnostics = new DiagnosticCollector<>();
@@ -98,7 +175,10 @@ public class JavaExecutionContext
 			
 			final StringWriter strOut = new StringWriter();
 			final PrintWriter out = new PrintWriter(strOut);
-			final boolean compilationSuccess = COMPILER.getTask(out, fileManager, compilationDiagnostics, OPTIONS, null, fileManager.getJavaFileObjectsFromStrings(sourcePathStrings)).call();
+			final JavacTask task = (JavacTask) COMPILER.getTask(out, fileManager, compilationDiagnostics, OPTIONS, null, fileManager.getJavaFileObjectsFromStrings(sourcePathStrings));
+			final ScriptingConstantListener constantListener = new ScriptingConstantListener(task);
+			task.addTaskListener(constantListener);
+			final boolean compilationSuccess = task.call();
 			if (!compilationSuccess)
 			{
 				out.println();
@@ -126,66 +206,91 @@ public class JavaExecutionContext
 				throw new RuntimeException(strOut.toString());
 			}
 			
-			final Map<Path, Throwable> executionFailures = new HashMap<>();
-			final Iterable<ScriptingOutputFileObject> compiledClasses = fileManager.getCompiledClasses();
-			for (Path sourcePath : sourcePaths)
+			final List<ScriptingOutputFileObject> compiledClasses = new ArrayList<>();
+			for (ScriptingOutputFileObject compiledClass : fileManager.getCompiledClasses())
 			{
-				boolean found = false;
-				for (ScriptingOutputFileObject compiledClass : compiledClasses)
+				if (compiledClass.getSourcePath() != null)
 				{
-					final Path compiledSourcePath = compiledClass.getSourcePath();
-					// sourePath can be relative, so we have to use endsWith
-					if ((compiledSourcePath != null) && (compiledSourcePath.equals(sourcePath) || compiledSourcePath.endsWith(sourcePath)))
+					compiledClass.setConstantReferences(constantListener.getReferences(compiledClass.getSourcePath()));
+				}
+				compiledClasses.add(compiledClass);
+			}
+			return compiledClasses;
+		}
+	}
+	
+	public Map<Path, Throwable> executeScripts(Iterable<Path> sourcePaths) throws Exception
+	{
+		final Iterable<ScriptingOutputFileObject> compiledClasses;
+		if (_cache != null)
+		{
+			compiledClasses = _cache.getCompiledClasses(sourcePaths, this::compile);
+		}
+		else
+		{
+			final List<Path> sourcePathList = new ArrayList<>();
+			sourcePaths.forEach(sourcePathList::add);
+			compiledClasses = compile(sourcePathList);
+		}
+		
+		final Map<Path, Throwable> executionFailures = new HashMap<>();
+		for (Path sourcePath : sourcePaths)
+		{
+			boolean found = false;
+			for (ScriptingOutputFileObject compiledClass : compiledClasses)
+			{
+				final Path compiledSourcePath = compiledClass.getSourcePath();
+				// sourePath can be relative, so we have to use endsWith
+				if ((compiledSourcePath != null) && (compiledSourcePath.equals(sourcePath) || compiledSourcePath.endsWith(sourcePath)))
+				{
+					final String javaName = compiledClass.getJavaName();
+					if (javaName.indexOf('$') != -1)
 					{
-						final String javaName = compiledClass.getJavaName();
-						if (javaName.indexOf('$') != -1)
-						{
-							continue;
-						}
-						
-						found = true;
-						_currentExecutingScript = compiledSourcePath;
-						try
+						continue;
+					}
+					
+					found = true;
+					_currentExecutingScript = compiledSourcePath;
+					try
+					{
+						final ScriptingClassLoader loader = new ScriptingClassLoader(CLASS_LOADER, compiledClasses);
+						final Class<?> javaClass = loader.loadClass(javaName);
+						Method mainMethod = null;
+						for (Method m : javaClass.getMethods())
 						{
-							final ScriptingClassLoader loader = new ScriptingClassLoader(CLASS_LOADER, compiledClasses);
-							final Class<?> javaClass = loader.loadClass(javaName);
-							Method mainMethod = null;
-							for (Method m : javaClass.getMethods())
-							{
-								if (m.getName().equals("main") && Modifier.isStatic(m.getModifiers()) && (m.getParameterCount() == 1) && (m.getParameterTypes()[0] == String[].class))
-								{
-									mainMethod = m;
-									break;
-								}
-							}
-							if ((mainMethod != null) && !javaClass.isAnnotationPresent(Disabled.class))
+							if (m.getName().equals("main") && Modifier.isStatic(m.getModifiers()) && (m.getParameterCount() == 1) && (m.getParameterTypes()[0] == String[].class))
 							{
-								mainMethod.invoke(null, (Object) new String[]
-								{
-									compiledSourcePath.toString()
-								});
+								mainMethod = m;
+								break;
 							}
 						}
-						catch (Exception e)
-						{
-							executionFailures.put(compiledSourcePath, e);
-						}
-						finally
+						if ((mainMethod != null) && !javaClass.isAnnotationPresent(Disabled.class))
 						{
-							_currentExecutingScript = null;
+							mainMethod.invoke(null, (Object) new String[]
+							{
+								compiledSourcePath.toString()
+							});
 						}
-						break;
 					}
-				}
-				
-				if (!found)
-				{
-					LOGGER.severe("Compilation successfull, but class coresponding to " + sourcePath.toString() + " not found!");
+					catch (Exception e)
+					{
+						executionFailures.put(compiledSourcePath, e);
+					}
+					finally
+					{
+						_currentExecutingScript = null;
+					}
+					break;
 				}
 			}
 			
-			return executionFailures;
+			if (!found)
+			{
+				LOGGER.severe("Compilation successfull, but class coresponding to " + sourcePath.toString() + " not found!");
+			}
 		}
+		
+		return executionFailures;
 	}
 	
 	public Entry<Path, Throwable> executeScript(Path sourcePath) throws Exception
@@ -0,0 +1,644 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.scripting.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of compiled script classes.<br>
+ * Each script source is stored with the hash of its content, the classes it was compiled to and the script sources these classes reference.<br>
+ * References are taken from the constant pool of the compiled classes, and from the compiler for constants it inlined.<br>
+ * A script is compiled again only when its source, or the source of a script it depends on, has changed.<br>
+ * The whole cache is discarded when the compiler options, the Java version or the server classpath change.
+ * @author Mobius
+ */
+public class ScriptingCache
+{
+	private static final Logger LOGGER = Logger.getLogger(ScriptingCache.class.getName());
+	
+	private static final String INDEX_FILE = "index.dat";
+	private static final String SEPARATOR = "\t";
+	private static final Pattern CLASS_DESCRIPTOR = Pattern.compile("L([^;\\[]+);");
+	
+	private final Path _root;
+	private final String _key;
+	private final Map<Path, CacheEntry> _entries = new HashMap<>();
+	
+	@FunctionalInterface
+	interface ScriptCompiler
+	{
+		List<ScriptingOutputFileObject> compile(List<Path> sourcePaths) throws Exception;
+	}
+	
+	private static class CacheEntry
+	{
+		private final String _hash;
+		private final List<String> _classes;
+		private final Set<Path> _dependencies;
+		
+		private CacheEntry(String hash, List<String> classes, Set<Path> dependencies)
+		{
+			_hash = hash;
+			_classes = classes;
+			_dependencies = dependencies;
+		}
+	}
+	
+	/**
+	 * @param root the directory that stores the compiled classes.
+	 * @param options the compiler options the cached classes were compiled with.
+	 */
+	public ScriptingCache(Path root, List<String> options)
+	{
+		_root = root;
+		_key = String.join(" ", options) + SEPARATOR + System.getProperty("java.version") + SEPARATOR + getClasspathFingerprint();
+		loadIndex();
+	}
+	
+	public Path getRoot()
+	{
+		return _root;
+	}
+	
+	/**
+	 * Gets the compiled classes of the given scripts and of all the scripts they depend on.<br>
+	 * Scripts without valid cached classes are compiled with the given compiler and stored in the cache.
+	 * @param sourcePaths the script sources.
+	 * @param compiler the compiler used for changed scripts.
+	 * @return the compiled classes.
+	 * @throws Exception if the compilation failed.
+	 */
+	public synchronized List<ScriptingOutputFileObject> getCompiledClasses(Iterable<Path> sourcePaths, ScriptCompiler compiler) throws Exception
+	{
+		final List<Path> requested = new ArrayList<>();
+		for (Path sourcePath : sourcePaths)
+		{
+			requested.add(sourcePath.toAbsolutePath().normalize());
+		}
+		
+		// Missing sources are passed to the compiler that reports them.
+		final List<Path> missing = new ArrayList<>();
+		for (Path sourcePath : requested)
+		{
+			if (!Files.isRegularFile(sourcePath))
+			{
+				missing.add(sourcePath);
+			}
+		}
+		if (!missing.isEmpty())
+		{
+			compiler.compile(missing);
+		}
+		
+		final Map<String, ScriptingOutputFileObject> classes = new LinkedHashMap<>();
+		final Set<Path> compiledSources = new HashSet<>();
+		boolean modified = false;
+		Set<Path> closure;
+		while (true)
+		{
+			closure = getClosure(requested);
+			
+			// Find the scripts that changed since they were cached.
+			final Set<Path> changed = new HashSet<>();
+			final Map<Path, String> hashes = new HashMap<>();
+			for (Path sourcePath : closure)
+			{
+				final CacheEntry entry = _entries.get(sourcePath);
+				if (!Files.isRegularFile(sourcePath))
+				{
+					if (entry != null)
+					{
+						changed.add(sourcePath);
+					}
+					continue;
+				}
+				
+				final String hash = getHash(sourcePath);
+				hashes.put(sourcePath, hash);
+				if ((entry == null) || !entry._hash.equals(hash) || !hasClassFiles(entry))
+				{
+					changed.add(sourcePath);
+				}
+			}
+			if (changed.isEmpty())
+			{
+				break;
+			}
+			
+			// Scripts that depend on changed scripts are also invalid.
+			final Set<Path> invalid = getDependents(changed);
+			for (Path sourcePath : invalid)
+			{
+				remove(sourcePath);
+			}
+			modified = true;
+			
+			final List<Path> compile = new ArrayList<>();
+			for (Path sourcePath : closure)
+			{
+				if (invalid.contains(sourcePath) && Files.isRegularFile(sourcePath))
+				{
+					compile.add(sourcePath);
+				}
+			}
+			if (compile.isEmpty())
+			{
+				continue;
+			}
+			
+			final List<ScriptingOutputFileObject> compiled = compiler.compile(compile);
+			for (ScriptingOutputFileObject compiledClass : compiled)
+			{
+				classes.put(compiledClass.getJavaName(), compiledClass);
+			}
+			store(compile, compiled, hashes);
+			compiledSources.addAll(compile);
+		}
+		
+		// Load the cached classes of the unchanged scripts.
+		int cachedCount = 0;
+		for (Path sourcePath : closure)
+		{
+			final CacheEntry entry = _entries.get(sourcePath);
+			if ((entry == null) || compiledSources.contains(sourcePath))
+			{
+				continue;
+			}
+			
+			cachedCount++;
+			
+			for (String javaName : entry._classes)
+			{
+				if (!classes.containsKey(javaName))
+				{
+					classes.put(javaName, new ScriptingOutputFileObject(sourcePath, javaName, javaName.substring(javaName.lastIndexOf('.') + 1), Files.readAllBytes(getClassFile(javaName))));
+				}
+			}
+		}
+		
+		if (modified)
+		{
+			saveIndex();
+		}
+		
+		if (requested.size() > 1)
+		{
+			LOGGER.info(getClass().getSimpleName() + ": Compiled " + compiledSources.size() + " and loaded " + cachedCount + " cached scripts.");
+		}
+		
+		return new ArrayList<>(classes.values());
+	}
+	
+	/**
+	 * @param sourcePaths the script sources.
+	 * @return the given scripts and all the cached scripts they depend on.
+	 */
+	private Set<Path> getClosure(Collection<Path> sourcePaths)
+	{
+		final Set<Path> closure = new LinkedHashSet<>();
+		final Deque<Path> pending = new ArrayDeque<>(sourcePaths);
+		while (!pending.isEmpty())
+		{
+			final Path sourcePath = pending.poll();
+			if (closure.add(sourcePath))
+			{
+				final CacheEntry entry = _entries.get(sourcePath);
+				if (entry != null)
+				{
+					pending.addAll(entry._dependencies);
+				}
+			}
+		}
+		return closure;
+	}
+	
+	/**
+	 * @param sourcePaths the changed script sources.
+	 * @return the given scripts and all the cached scripts depending on them.
+	 */
+	private Set<Path> getDependents(Collection<Path> sourcePaths)
+	{
+		final Map<Path, List<Path>> dependents = new HashMap<>();
+		for (Entry<Path, CacheEntry> entry : _entries.entrySet())
+		{
+			for (Path dependency : entry.getValue()._dependencies)
+			{
+				dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(entry.getKey());
+			}
+		}
+		
+		final Set<Path> result = new HashSet<>();
+		final Deque<Path> pending = new ArrayDeque<>(sourcePaths);
+		while (!pending.isEmpty())
+		{
+			final Path sourcePath = pending.poll();
+			if (result.add(sourcePath))
+			{
+				pending.addAll(dependents.getOrDefault(sourcePath, Collections.emptyList()));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Stores the compiled classes and the dependencies of the compiled scripts.
+	 * @param sourcePaths the compiled script sources.
+	 * @param compiled the compiled classes, including the classes of scripts compiled implicitly.
+	 * @param hashes the known source hashes.
+	 * @throws IOException if a class could not be written.
+	 */
+	private void store(List<Path> sourcePaths, List<ScriptingOutputFileObject> compiled, Map<Path, String> hashes) throws IOException
+	{
+		final Map<Path, List<ScriptingOutputFileObject>> compiledSources = new LinkedHashMap<>();
+		for (Path sourcePath : sourcePaths)
+		{
+			compiledSources.put(sourcePath, new ArrayList<>());
+		}
+		for (ScriptingOutputFileObject compiledClass : compiled)
+		{
+			if (compiledClass.getSourcePath() != null)
+			{
+				compiledSources.computeIfAbsent(compiledClass.getSourcePath().toAbsolutePath().normalize(), k -> new ArrayList<>()).add(compiledClass);
+			}
+		}
+		
+		// Map the internal names of all known classes to their sources.
+		final Map<String, Path> classSources = new HashMap<>();
+		for (Entry<Path, CacheEntry> entry : _entries.entrySet())
+		{
+			for (String javaName : entry.getValue()._classes)
+			{
+				classSources.put(javaName.replace('.', '/'), entry.getKey());
+			}
+		}
+		for (Entry<Path, List<ScriptingOutputFileObject>> entry : compiledSources.entrySet())
+		{
+			for (ScriptingOutputFileObject compiledClass : entry.getValue())
+			{
+				classSources.put(compiledClass.getJavaName().replace('.', '/'), entry.getKey());
+			}
+		}
+		
+		// Scripts compiled implicitly may have changed, so the scripts depending on them are no longer valid.
+		final Set<Path> changed = new HashSet<>();
+		for (Path sourcePath : compiledSources.keySet())
+		{
+			final CacheEntry entry = _entries.get(sourcePath);
+			if ((entry != null) && !entry._hash.equals(getHash(sourcePath)))
+			{
+				changed.add(sourcePath);
+			}
+		}
+		if (!changed.isEmpty())
+		{
+			for (Path sourcePath : getDependents(changed))
+			{
+				if (!compiledSources.containsKey(sourcePath))
+				{
+					remove(sourcePath);
+				}
+			}
+		}
+		
+		for (Entry<Path, List<ScriptingOutputFileObject>> entry : compiledSources.entrySet())
+		{
+			final Path sourcePath = entry.getKey();
+			final List<String> javaNames = new ArrayList<>();
+			final Set<Path> dependencies = new HashSet<>();
+			for (ScriptingOutputFileObject compiledClass : entry.getValue())
+			{
+				final byte[] data = compiledClass.getJavaData();
+				final Path classFile = getClassFile(compiledClass.getJavaName());
+				Files.createDirectories(classFile.getParent());
+				Files.write(classFile, data);
+				javaNames.add(compiledClass.getJavaName());
+				
+				final Set<String> referencedClasses = getReferencedClasses(data);
+				referencedClasses.addAll(compiledClass.getConstantReferences());
+				for (String referencedClass : referencedClasses)
+				{
+					final Path dependency = classSources.get(referencedClass);
+					if ((dependency != null) && !dependency.equals(sourcePath))
+					{
+						dependencies.add(dependency);
+					}
+				}
+			}
+			
+			final String hash = hashes.containsKey(sourcePath) ? hashes.get(sourcePath) : getHash(sourcePath);
+			_entries.put(sourcePath, new CacheEntry(hash, javaNames, dependencies));
+		}
+	}
+	
+	/**
+	 * Removes a script and its classes from the cache.
+	 * @param sourcePath the script source.
+	 */
+	private void remove(Path sourcePath)
+	{
+		final CacheEntry entry = _entries.remove(sourcePath);
+		if (entry == null)
+		{
+			return;
+		}
+		
+		for (String javaName : entry._classes)
+		{
+			try
+			{
+				Files.deleteIfExists(getClassFile(javaName));
+			}
+			catch (IOException e)
+			{
+				LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Could not delete cached class " + javaName + ".", e);
+			}
+		}
+	}
+	
+	private boolean hasClassFiles(CacheEntry entry)
+	{
+		for (String javaName : entry._classes)
+		{
+			if (!Files.isRegularFile(getClassFile(javaName)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private Path getClassFile(String javaName)
+	{
+		return _root.resolve(javaName.replace('.', File.separatorChar) + ".class");
+	}
+	
+	private void loadIndex()
+	{
+		final Path indexFile = _root.resolve(INDEX_FILE);
+		if (!Files.isRegularFile(indexFile))
+		{
+			return;
+		}
+		
+		try
+		{
+			final List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+			if (lines.isEmpty() || !lines.get(0).equals(_key))
+			{
+				LOGGER.info(getClass().getSimpleName() + ": Compiler options, Java version or server libraries changed, discarding cached scripts.");
+				clear();
+				return;
+			}
+			
+			for (int i = 1; i < lines.size(); i++)
+			{
+				final String[] values = lines.get(i).split(SEPARATOR, -1);
+				if (values.length < 3)
+				{
+					continue;
+				}
+				
+				final List<String> javaNames = values[2].isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(values[2].split(",")));
+				final Set<Path> dependencies = new HashSet<>();
+				for (int j = 3; j < values.length; j++)
+				{
+					dependencies.add(Paths.get(values[j]));
+				}
+				_entries.put(Paths.get(values[0]), new CacheEntry(values[1], javaNames, dependencies));
+			}
+		}
+		catch (Exception e)
+		{
+			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Could not load script cache index, discarding cached scripts.", e);
+			clear();
+		}
+	}
+	
+	private void saveIndex()
+	{
+		final List<String> lines = new ArrayList<>(_entries.size() + 1);
+		lines.add(_key);
+		for (Entry<Path, CacheEntry> entry : _entries.entrySet())
+		{
+			final CacheEntry cacheEntry = entry.getValue();
+			final StringBuilder sb = new StringBuilder();
+			sb.append(entry.getKey());
+			sb.append(SEPARATOR);
+			sb.append(cacheEntry._hash);
+			sb.append(SEPARATOR);
+			sb.append(String.join(",", cacheEntry._classes));
+			for (Path dependency : cacheEntry._dependencies)
+			{
+				sb.append(SEPARATOR);
+				sb.append(dependency);
+			}
+			lines.add(sb.toString());
+		}
+		
+		try
+		{
+			Files.createDirectories(_root);
+			final Path tempFile = _root.resolve(INDEX_FILE + ".tmp");
+			Files.write(tempFile, lines, StandardCharsets.UTF_8);
+			Files.move(tempFile, _root.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Could not save script cache index.", e);
+		}
+	}
+	
+	/**
+	 * Deletes all cached classes.
+	 */
+	private void clear()
+	{
+		_entries.clear();
+		if (!Files.isDirectory(_root))
+		{
+			return;
+		}
+		
+		try (Stream<Path> files = Files.walk(_root))
+		{
+			files.sorted(Collections.reverseOrder()).filter(path -> !path.equals(_root)).forEach(path ->
+			{
+				try
+				{
+					Files.delete(path);
+				}
+				catch (IOException e)
+				{
+					LOGGER.warning(getClass().getSimpleName() + ": Could not delete " + path + ".");
+				}
+			});
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Could not clear script cache.", e);
+		}
+	}
+	
+	private static String getHash(Path sourcePath) throws IOException
+	{
+		return getHash(Files.readAllBytes(sourcePath));
+	}
+	
+	private static String getHash(byte[] data)
+	{
+		try
+		{
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @return the name, size and modification time of every classpath entry, so the cache is discarded when the server is updated.
+	 */
+	private static String getClasspathFingerprint()
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (String classpathEntry : System.getProperty("java.class.path", "").split(File.pathSeparator))
+		{
+			final Path path = Paths.get(classpathEntry);
+			long lastModified = 0;
+			long size = 0;
+			try
+			{
+				if (Files.isDirectory(path))
+				{
+					try (Stream<Path> files = Files.walk(path))
+					{
+						for (Path file : (Iterable<Path>) files::iterator)
+						{
+							lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+							size++;
+						}
+					}
+				}
+				else if (Files.isRegularFile(path))
+				{
+					lastModified = Files.getLastModifiedTime(path).toMillis();
+					size = Files.size(path);
+				}
+			}
+			catch (IOException e)
+			{
+				// Entry is not readable, it will not match next time either.
+			}
+			sb.append(path.getFileName()).append(':').append(size).append(':').append(lastModified).append(';');
+		}
+		return getHash(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * @param data the class file content.
+	 * @return the internal names of the classes referenced in the constant pool of the class, along with other constant strings.
+	 */
+	private static Set<String> getReferencedClasses(byte[] data)
+	{
+		final Set<String> result = new HashSet<>();
+		final ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.position(8); // Magic and version.
+		final int count = buffer.getShort() & 0xFFFF;
+		for (int i = 1; i < count; i++)
+		{
+			switch (buffer.get())
+			{
+				case 1: // Utf8
+				{
+					final int length = buffer.getShort() & 0xFFFF;
+					final String value = new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+					buffer.position(buffer.position() + length);
+					if (value.indexOf(';') < 0)
+					{
+						result.add(value);
+					}
+					else
+					{
+						final Matcher matcher = CLASS_DESCRIPTOR.matcher(value);
+						while (matcher.find())
+						{
+							result.add(matcher.group(1));
+						}
+					}
+					break;
+				}
+				case 7: // Class
+				case 8: // String
+				case 16: // MethodType
+				case 19: // Module
+				case 20: // Package
+				{
+					buffer.position(buffer.position() + 2);
+					break;
+				}
+				case 15: // MethodHandle
+				{
+					buffer.position(buffer.position() + 3);
+					break;
+				}
+				case 5: // Long
+				case 6: // Double
+				{
+					buffer.position(buffer.position() + 8);
+					i++;
+					break;
+				}
+				default: // Integer, Float, Fieldref, Methodref, InterfaceMethodref, NameAndType, Dynamic, InvokeDynamic
+				{
+					buffer.position(buffer.position() + 4);
+					break;
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.scripting.java;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * Collects, for each compiled script, the classes declaring the constants it uses.<br>
+ * The compiler inlines constant values, so these classes do not appear in the compiled class and have to be taken from the compiler.
+ * @author Mobius
+ */
+public class ScriptingConstantListener implements TaskListener
+{
+	private final Trees _trees;
+	private final Elements _elements;
+	private final Set<CompilationUnitTree> _scanned = new HashSet<>();
+	private final Map<Path, Set<String>> _references = new HashMap<>();
+	
+	public ScriptingConstantListener(JavacTask task)
+	{
+		_trees = Trees.instance(task);
+		_elements = task.getElements();
+	}
+	
+	@Override
+	public void finished(TaskEvent e)
+	{
+		// Analyze is reported for each top level class, so a compilation unit is scanned only once.
+		if ((e.getKind() != TaskEvent.Kind.ANALYZE) || (e.getCompilationUnit() == null) || !_scanned.add(e.getCompilationUnit()))
+		{
+			return;
+		}
+		
+		final CompilationUnitTree unit = e.getCompilationUnit();
+		final Set<String> references = _references.computeIfAbsent(Paths.get(unit.getSourceFile().getName()).toAbsolutePath().normalize(), k -> new HashSet<>());
+		new TreePathScanner<Void, Void>()
+		{
+			@Override
+			public Void visitIdentifier(IdentifierTree node, Void p)
+			{
+				addReference(references, _trees.getElement(getCurrentPath()));
+				return super.visitIdentifier(node, p);
+			}
+			
+			@Override
+			public Void visitMemberSelect(MemberSelectTree node, Void p)
+			{
+				addReference(references, _trees.getElement(getCurrentPath()));
+				return super.visitMemberSelect(node, p);
+			}
+		}.scan(unit, null);
+	}
+	
+	private void addReference(Set<String> references, Element element)
+	{
+		if ((element == null) || (element.getKind() != ElementKind.FIELD) || (((VariableElement) element).getConstantValue() == null))
+		{
+			return;
+		}
+		
+		final Element owner = element.getEnclosingElement();
+		if (owner instanceof TypeElement)
+		{
+			references.add(_elements.getBinaryName((TypeElement) owner).toString().replace('.', '/'));
+		}
+	}
+	
+	/**
+	 * @param sourcePath the script source.
+	 * @return the internal names of the classes declaring the constants used by the script.
+	 */
+	public Set<String> getReferences(Path sourcePath)
+	{
+		return _references.getOrDefault(sourcePath.toAbsolutePath().normalize(), new HashSet<>());
+	}
+}
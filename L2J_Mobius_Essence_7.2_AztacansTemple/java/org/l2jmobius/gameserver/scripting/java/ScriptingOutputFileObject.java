@@ -23,6 +23,8 @@ import java.io.Reader;
 import java.io.Writer;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
 
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.NestingKind;
@@ -37,6 +39,7 @@ public class ScriptingOutputFileObject implements JavaFileObject
 	private final String _javaName;
 	private final String _javaSimpleName;
 	private final ByteArrayOutputStream _out;
+	private Set<String> _constantReferences = Collections.emptySet();
 	
 	public ScriptingOutputFileObject(Path sourcePath, String javaName, String javaSimpleName)
 	{
@@ -46,6 +49,12 @@ public class ScriptingOutputFileObject implements JavaFileObject
 		_out = new ByteArrayOutputStream();
 	}
 	
+	public ScriptingOutputFileObject(Path sourcePath, String javaName, String javaSimpleName, byte[] javaData)
+	{
+		this(sourcePath, javaName, javaSimpleName);
+		_out.writeBytes(javaData);
+	}
+	
 	public Path getSourcePath()
 	{
 		return _sourcePath;
@@ -66,6 +75,19 @@ public class ScriptingOutputFileObject implements JavaFileObject
 		return _out.toByteArray();
 	}
 	
+	/**
+	 * @return the internal names of the classes declaring the constants inlined in this class by the compiler.
+	 */
+	public Set<String> getConstantReferences()
+	{
+		return _constantReferences;
+	}
+	
+	public void setConstantReferences(Set<String> constantReferences)
+	{
+		_constantReferences = constantReferences;
+	}
+	
 	@Override
 	public URI toUri()
 	{
@@ -16,50 +16,231 @@
  */
 package org.l2jmobius.gameserver.taskmanager;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
 import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.commons.threads.ThreadPriority;
+import org.l2jmobius.commons.util.CommonUtil;
+import org.l2jmobius.gameserver.model.WorldRegion;
 import org.l2jmobius.gameserver.model.actor.Creature;
 
 /**
+ * Creature see task manager class.<br>
+ * A creature only looks around again when a creature entered, moved in or became visible in one of its surrounding world regions since its last look. Due creatures are sharded by world region and updated in parallel.
  * @author Mobius
  */
-public class CreatureSeeTaskManager implements Runnable
+public class CreatureSeeTaskManager
 {
-	private static final Set<Creature> CREATURES = ConcurrentHashMap.newKeySet();
-	private static boolean _working = false;
+	protected static final Logger LOGGER = Logger.getLogger(CreatureSeeTaskManager.class.getName());
+	
+	private static final int SHARD_COUNT = 16; // Must be a power of two.
+	private static final int TASK_DELAY = 1000;
+	
+	/** Registered creatures and the start time of the tick that last updated their seen creatures. */
+	private final Map<Creature, AtomicLong> _creatures = new ConcurrentHashMap<>();
+	private final ForkJoinPool _pool;
+	private final AtomicBoolean _working = new AtomicBoolean();
+	
+	// Metrics.
+	private final AtomicLong _tickCount = new AtomicLong();
+	private final AtomicLong _overrunCount = new AtomicLong();
+	private final AtomicLong _skippedCount = new AtomicLong();
+	private final AtomicLong _updateCount = new AtomicLong();
+	private final AtomicLong _unchangedCount = new AtomicLong();
+	private final AtomicLong _totalTickTime = new AtomicLong();
+	private volatile long _lastTickTime;
+	private volatile long _maxTickTime;
+	private volatile int _lastUpdated;
 	
 	protected CreatureSeeTaskManager()
 	{
-		ThreadPool.scheduleAtFixedRate(this, 1000, 1000);
+		_pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool ->
+		{
+			final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("L2jMobius CreatureSeeThread " + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+		
+		ThreadPool.scheduleAtFixedRate(this::tick, TASK_DELAY, TASK_DELAY);
 	}
 	
-	@Override
-	public void run()
+	private static class SeeShard implements Callable<Void>
 	{
-		if (_working)
+		private final List<Creature> _due = new ArrayList<>();
+		private final long _time;
+		private final Map<Creature, AtomicLong> _creatures;
+		
+		protected SeeShard(long time, Map<Creature, AtomicLong> creatures)
 		{
-			return;
+			_time = time;
+			_creatures = creatures;
 		}
-		_working = true;
 		
-		for (Creature creature : CREATURES)
+		@Override
+		public Void call()
 		{
-			creature.updateSeenCreatures();
+			for (Creature creature : _due)
+			{
+				final AtomicLong lastUpdate = _creatures.get(creature);
+				if (lastUpdate == null)
+				{
+					continue;
+				}
+				
+				lastUpdate.set(_time);
+				try
+				{
+					creature.updateSeenCreatures();
+				}
+				catch (Exception e)
+				{
+					LOGGER.warning("CreatureSeeTaskManager: Problem updating seen creatures of " + creature);
+					LOGGER.warning(CommonUtil.getStackTrace(e));
+				}
+			}
+			return null;
+		}
+	}
+	
+	private void tick()
+	{
+		// Previous tick has not finished yet.
+		if (!_working.compareAndSet(false, true))
+		{
+			_skippedCount.incrementAndGet();
+			return;
 		}
 		
-		_working = false;
+		try
+		{
+			if (_creatures.isEmpty())
+			{
+				_lastUpdated = 0;
+				return;
+			}
+			
+			final long start = System.currentTimeMillis();
+			final SeeShard[] shards = new SeeShard[SHARD_COUNT];
+			int updated = 0;
+			for (Entry<Creature, AtomicLong> entry : _creatures.entrySet())
+			{
+				final Creature creature = entry.getKey();
+				if (creature.isDead() || !creature.isSpawned())
+				{
+					continue;
+				}
+				
+				// Inactive regions are checked again once they activate.
+				final WorldRegion region = creature.getWorldRegion();
+				if ((region == null) || !region.areNeighborsActive())
+				{
+					continue;
+				}
+				
+				if (!hasChanged(region, entry.getValue().get()))
+				{
+					_unchangedCount.incrementAndGet();
+					continue;
+				}
+				
+				final int hash = (region.getRegionX() * 31) + region.getRegionY();
+				final int index = (hash ^ (hash >>> 16)) & (SHARD_COUNT - 1);
+				if (shards[index] == null)
+				{
+					shards[index] = new SeeShard(start, _creatures);
+				}
+				shards[index]._due.add(creature);
+				updated++;
+			}
+			_lastUpdated = updated;
+			
+			if (updated > 0)
+			{
+				final List<SeeShard> tasks = new ArrayList<>(SHARD_COUNT);
+				for (SeeShard shard : shards)
+				{
+					if (shard != null)
+					{
+						tasks.add(shard);
+					}
+				}
+				_pool.invokeAll(tasks);
+				_updateCount.addAndGet(updated);
+			}
+			
+			final long time = System.currentTimeMillis() - start;
+			_lastTickTime = time;
+			_totalTickTime.addAndGet(time);
+			_tickCount.incrementAndGet();
+			if (time > _maxTickTime)
+			{
+				_maxTickTime = time;
+			}
+			if (time > TASK_DELAY)
+			{
+				_overrunCount.incrementAndGet();
+			}
+		}
+		finally
+		{
+			_working.set(false);
+		}
+	}
+	
+	/**
+	 * @param region the world region of the creature
+	 * @param lastUpdate the start time of the tick that last updated the creature
+	 * @return {@code true} if a creature entered, moved in or became visible in the surrounding regions since then
+	 */
+	private static boolean hasChanged(WorldRegion region, long lastUpdate)
+	{
+		for (WorldRegion surroundingRegion : region.getSurroundingRegions())
+		{
+			if (surroundingRegion.getLastCreatureChange() >= lastUpdate)
+			{
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	public void add(Creature creature)
 	{
-		CREATURES.add(creature);
+		_creatures.computeIfAbsent(creature, key -> new AtomicLong());
 	}
 	
 	public void remove(Creature creature)
 	{
-		CREATURES.remove(creature);
+		_creatures.remove(creature);
+	}
+	
+	public String[] getStats()
+	{
+		final long ticks = _tickCount.get();
+		final String[] stats = new String[11];
+		int pos = 0;
+		stats[pos++] = "Creature see task manager:";
+		stats[pos++] = " |- WatchingCreatures: . " + _creatures.size();
+		stats[pos++] = " |- LastUpdated: ....... " + _lastUpdated;
+		stats[pos++] = " |- TotalUpdated: ...... " + _updateCount.get();
+		stats[pos++] = " |- TotalUnchanged: .... " + _unchangedCount.get();
+		stats[pos++] = " |- LastTickTime: ...... " + _lastTickTime + "ms";
+		stats[pos++] = " |- AverageTickTime: ... " + (ticks > 0 ? _totalTickTime.get() / ticks : 0) + "ms";
+		stats[pos++] = " |- MaxTickTime: ....... " + _maxTickTime + "ms";
+		stats[pos++] = " |- OverrunTicks: ...... " + _overrunCount.get();
+		stats[pos++] = " |- SkippedTicks: ...... " + _skippedCount.get();
+		stats[pos] = " | -------";
+		return stats;
 	}
 	
 	public static CreatureSeeTaskManager getInstance()
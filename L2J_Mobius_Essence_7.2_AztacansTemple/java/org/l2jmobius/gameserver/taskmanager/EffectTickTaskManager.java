@@ -0,0 +1,362 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.taskmanager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.commons.util.CommonUtil;
+import org.l2jmobius.gameserver.enums.SkillFinishType;
+import org.l2jmobius.gameserver.model.EffectList;
+import org.l2jmobius.gameserver.model.actor.Creature;
+import org.l2jmobius.gameserver.model.effects.EffectTickTask;
+import org.l2jmobius.gameserver.model.skill.BuffInfo;
+
+/**
+ * Effect tick task manager class.<br>
+ * Continuous effect ticks and buff expiries are kept in time ordered queues, sharded by the effected creature. Once per game tick the due entries of each shard are processed as one batch.
+ * @author Mobius
+ */
+public class EffectTickTaskManager
+{
+	protected static final Logger LOGGER = Logger.getLogger(EffectTickTaskManager.class.getName());
+	
+	private static final int SHARD_COUNT = 16; // Must be a power of two.
+	
+	private final EffectShard[] _shards = new EffectShard[SHARD_COUNT];
+	private final Map<BuffInfo, ScheduledEntry> _expiries = new ConcurrentHashMap<>();
+	
+	// Metrics.
+	private final AtomicInteger _scheduledTicks = new AtomicInteger();
+	private final AtomicLong _tickedCount = new AtomicLong();
+	private final AtomicLong _expiredCount = new AtomicLong();
+	private final AtomicInteger _windowTicked = new AtomicInteger();
+	private final AtomicInteger _windowExpired = new AtomicInteger();
+	private long _windowStart = System.currentTimeMillis();
+	private volatile long _tickedPerSecond;
+	private volatile long _expiredPerSecond;
+	private volatile int _largestBatch;
+	
+	protected EffectTickTaskManager()
+	{
+		for (int i = 0; i < SHARD_COUNT; i++)
+		{
+			_shards[i] = new EffectShard();
+		}
+		
+		ThreadPool.schedulePriorityTaskAtFixedRate(this::tick, GameTimeTaskManager.MILLIS_IN_TICK, GameTimeTaskManager.MILLIS_IN_TICK);
+	}
+	
+	/**
+	 * A scheduled effect tick, or a buff expiry when there is no task.
+	 */
+	private static class ScheduledEntry implements Comparable<ScheduledEntry>
+	{
+		protected final BuffInfo _info;
+		protected final EffectTickTask _task;
+		protected long _time;
+		
+		protected ScheduledEntry(BuffInfo info, EffectTickTask task, long time)
+		{
+			_info = info;
+			_task = task;
+			_time = time;
+		}
+		
+		@Override
+		public int compareTo(ScheduledEntry other)
+		{
+			return Long.compare(_time, other._time);
+		}
+	}
+	
+	private class EffectShard implements Runnable
+	{
+		private final PriorityQueue<ScheduledEntry> _queue = new PriorityQueue<>();
+		private final List<ScheduledEntry> _batch = new ArrayList<>();
+		private final AtomicBoolean _working = new AtomicBoolean();
+		private int _cancelled = 0;
+		
+		protected synchronized void add(ScheduledEntry entry)
+		{
+			_queue.add(entry);
+		}
+		
+		/**
+		 * Counts a cancelled expiry of this shard and drops the cancelled entries from the queue once they outnumber the others, so they do not keep their buffs referenced until their original expiry time.
+		 */
+		protected synchronized void cancel()
+		{
+			if ((++_cancelled * 2) > _queue.size())
+			{
+				_queue.removeIf(entry -> (entry._task == null) && (_expiries.get(entry._info) != entry));
+				_cancelled = 0;
+			}
+		}
+		
+		protected synchronized int size()
+		{
+			return _queue.size();
+		}
+		
+		/**
+		 * @param time the current time
+		 * @return {@code true} if due entries were moved to the batch
+		 */
+		protected synchronized boolean collect(long time)
+		{
+			ScheduledEntry entry;
+			while (((entry = _queue.peek()) != null) && (entry._time <= time))
+			{
+				_batch.add(_queue.poll());
+			}
+			return !_batch.isEmpty();
+		}
+		
+		@Override
+		public void run()
+		{
+			try
+			{
+				if (_batch.size() > _largestBatch)
+				{
+					_largestBatch = _batch.size();
+				}
+				
+				Map<Creature, List<BuffInfo>> expired = null;
+				for (ScheduledEntry entry : _batch)
+				{
+					final EffectTickTask task = entry._task;
+					if (task == null)
+					{
+						// Expiry was cancelled or replaced.
+						if (!_expiries.remove(entry._info, entry))
+						{
+							continue;
+						}
+						
+						final Creature effected = entry._info.getEffected();
+						if (effected != null)
+						{
+							if (expired == null)
+							{
+								expired = new LinkedHashMap<>();
+							}
+							expired.computeIfAbsent(effected, k -> new ArrayList<>(1)).add(entry._info);
+						}
+						continue;
+					}
+					
+					if (task.isCancelled())
+					{
+						_scheduledTicks.decrementAndGet();
+						continue;
+					}
+					
+					try
+					{
+						task.run();
+					}
+					catch (Exception e)
+					{
+						LOGGER.warning("EffectTickTaskManager: Problem ticking " + task.getEffect() + " of " + entry._info.getEffected());
+						LOGGER.warning(CommonUtil.getStackTrace(e));
+					}
+					_tickedCount.incrementAndGet();
+					_windowTicked.incrementAndGet();
+					
+					if (task.isCancelled())
+					{
+						_scheduledTicks.decrementAndGet();
+					}
+					else
+					{
+						entry._time += task.getPeriod();
+						add(entry);
+					}
+				}
+				
+				if (expired != null)
+				{
+					for (Entry<Creature, List<BuffInfo>> entry : expired.entrySet())
+					{
+						expire(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+			finally
+			{
+				_batch.clear();
+				_working.set(false);
+			}
+		}
+	}
+	
+	private void tick()
+	{
+		final long time = System.currentTimeMillis();
+		for (EffectShard shard : _shards)
+		{
+			// Previous batch of this shard has not finished yet.
+			if (!shard._working.compareAndSet(false, true))
+			{
+				continue;
+			}
+			
+			if (shard.collect(time))
+			{
+				ThreadPool.execute(shard);
+			}
+			else
+			{
+				shard._working.set(false);
+			}
+		}
+		
+		final long elapsed = time - _windowStart;
+		if (elapsed >= 1000)
+		{
+			_tickedPerSecond = (_windowTicked.getAndSet(0) * 1000L) / elapsed;
+			_expiredPerSecond = (_windowExpired.getAndSet(0) * 1000L) / elapsed;
+			_windowStart = time;
+		}
+	}
+	
+	/**
+	 * Stops the expired buffs of a creature, updating its effect icons and stats only once.
+	 * @param creature the effected creature
+	 * @param infos the expired buffs
+	 */
+	private void expire(Creature creature, List<BuffInfo> infos)
+	{
+		try
+		{
+			final EffectList effectList = creature.getEffectList();
+			final List<BuffInfo> current = new ArrayList<>(infos.size());
+			for (BuffInfo info : infos)
+			{
+				final BuffInfo buff = effectList.getBuffInfoBySkillId(info.getSkill().getId());
+				if ((buff != null) && !current.contains(buff))
+				{
+					current.add(buff);
+				}
+			}
+			
+			final int last = current.size() - 1;
+			for (int i = 0; i <= last; i++)
+			{
+				effectList.remove(current.get(i), SkillFinishType.NORMAL, i == last, i == last);
+			}
+			
+			_expiredCount.addAndGet(infos.size());
+			_windowExpired.addAndGet(infos.size());
+		}
+		catch (Exception e)
+		{
+			LOGGER.warning("EffectTickTaskManager: Problem stopping expired effects of " + creature);
+			LOGGER.warning(CommonUtil.getStackTrace(e));
+		}
+	}
+	
+	private EffectShard getShard(BuffInfo info)
+	{
+		final Creature effected = info.getEffected();
+		return _shards[effected != null ? effected.getObjectId() & (SHARD_COUNT - 1) : 0];
+	}
+	
+	/**
+	 * Schedules the ticks of a continuous effect at the period of the task, until the task is cancelled.
+	 * @param task the effect tick task
+	 */
+	public void scheduleTick(EffectTickTask task)
+	{
+		_scheduledTicks.incrementAndGet();
+		getShard(task.getBuffInfo()).add(new ScheduledEntry(task.getBuffInfo(), task, System.currentTimeMillis() + task.getPeriod()));
+	}
+	
+	/**
+	 * Schedules the buff to finish after its abnormal time, replacing any previous expiry.
+	 * @param info the buff info
+	 */
+	public void addBuffInfo(BuffInfo info)
+	{
+		final ScheduledEntry entry = new ScheduledEntry(info, null, System.currentTimeMillis() + (info.getAbnormalTime() * 1000L));
+		final ScheduledEntry replaced = _expiries.put(info, entry);
+		final EffectShard shard = getShard(info);
+		shard.add(entry);
+		if (replaced != null)
+		{
+			shard.cancel();
+		}
+	}
+	
+	/**
+	 * Cancels the expiry of the buff.<br>
+	 * The queued entry is skipped if it becomes due, or dropped when its shard is compacted.
+	 * @param info the buff info
+	 */
+	public void removeBuffInfo(BuffInfo info)
+	{
+		if (_expiries.remove(info) != null)
+		{
+			getShard(info).cancel();
+		}
+	}
+	
+	public String[] getStats()
+	{
+		int queued = 0;
+		for (EffectShard shard : _shards)
+		{
+			queued += shard.size();
+		}
+		
+		final String[] stats = new String[10];
+		int pos = 0;
+		stats[pos++] = "Effect tick task manager:";
+		stats[pos++] = " |- ScheduledTicks: .... " + _scheduledTicks.get();
+		stats[pos++] = " |- PendingExpiries: ... " + _expiries.size();
+		stats[pos++] = " |- QueuedEntries: ..... " + queued;
+		stats[pos++] = " |- TickedPerSecond: ... " + _tickedPerSecond;
+		stats[pos++] = " |- ExpiredPerSecond: .. " + _expiredPerSecond;
+		stats[pos++] = " |- TotalTicked: ....... " + _tickedCount.get();
+		stats[pos++] = " |- TotalExpired: ...... " + _expiredCount.get();
+		stats[pos++] = " |- LargestBatch: ...... " + _largestBatch;
+		stats[pos] = " | -------";
+		return stats;
+	}
+	
+	public static final EffectTickTaskManager getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private static class SingletonHolder
+	{
+		protected static final EffectTickTaskManager INSTANCE = new EffectTickTaskManager();
+	}
+}
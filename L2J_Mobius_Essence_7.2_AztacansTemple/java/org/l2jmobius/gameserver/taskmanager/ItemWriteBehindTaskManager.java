@@ -0,0 +1,138 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.taskmanager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.l2jmobius.Config;
+import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.gameserver.model.item.instance.Item;
+
+/**
+ * Collects items with pending database changes per owner and writes them with batch statements.<br>
+ * Repeated changes of an item before the next flush are written once.
+ * @author Mobius
+ */
+public class ItemWriteBehindTaskManager implements Runnable
+{
+	private static final Map<Integer, Set<Item>> PENDING_ITEMS = new ConcurrentHashMap<>();
+	private static boolean _working = false;
+	
+	// Metrics.
+	private static final AtomicLong QUEUED_COUNT = new AtomicLong();
+	private static final AtomicLong COALESCED_COUNT = new AtomicLong();
+	private static final AtomicLong WRITTEN_COUNT = new AtomicLong();
+	
+	protected ItemWriteBehindTaskManager()
+	{
+		if (Config.ITEM_WRITE_BEHIND_INTERVAL > 0)
+		{
+			ThreadPool.scheduleAtFixedRate(this, Config.ITEM_WRITE_BEHIND_INTERVAL, Config.ITEM_WRITE_BEHIND_INTERVAL);
+		}
+	}
+	
+	@Override
+	public void run()
+	{
+		if (_working)
+		{
+			return;
+		}
+		_working = true;
+		
+		flushAll();
+		
+		_working = false;
+	}
+	
+	/**
+	 * Adds an item to the pending changes of its owner.
+	 * @param item the item to write on the next flush.
+	 */
+	public void add(Item item)
+	{
+		QUEUED_COUNT.incrementAndGet();
+		PENDING_ITEMS.compute(item.getOwnerId(), (ownerId, items) ->
+		{
+			final Set<Item> pending = items != null ? items : new HashSet<>();
+			if (!pending.add(item))
+			{
+				COALESCED_COUNT.incrementAndGet();
+			}
+			return pending;
+		});
+	}
+	
+	/**
+	 * Writes the pending changes of the given owner.
+	 * @param ownerId the object id of the owner.
+	 */
+	public void flush(int ownerId)
+	{
+		// Items are only added through compute, so once removed the set is no longer modified.
+		final Set<Item> items = PENDING_ITEMS.remove(ownerId);
+		if (items != null)
+		{
+			WRITTEN_COUNT.addAndGet(Item.updateDatabase(items, false));
+		}
+	}
+	
+	/**
+	 * Writes all pending changes.
+	 */
+	public void flushAll()
+	{
+		for (Integer ownerId : PENDING_ITEMS.keySet())
+		{
+			flush(ownerId);
+		}
+	}
+	
+	public String[] getStats()
+	{
+		int pendingItems = 0;
+		for (Set<Item> items : PENDING_ITEMS.values())
+		{
+			pendingItems += items.size();
+		}
+		
+		final String[] stats = new String[7];
+		int pos = 0;
+		stats[pos++] = "Item write-behind:";
+		stats[pos++] = " |- PendingOwners: ..... " + PENDING_ITEMS.size();
+		stats[pos++] = " |- PendingItems: ...... " + pendingItems;
+		stats[pos++] = " |- QueuedChanges: ..... " + QUEUED_COUNT.get();
+		stats[pos++] = " |- CoalescedChanges: .. " + COALESCED_COUNT.get();
+		stats[pos++] = " |- WrittenRows: ....... " + WRITTEN_COUNT.get();
+		stats[pos] = " | -------";
+		return stats;
+	}
+	
+	public static ItemWriteBehindTaskManager getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private static class SingletonHolder
+	{
+		protected static final ItemWriteBehindTaskManager INSTANCE = new ItemWriteBehindTaskManager();
+	}
+}
@@ -16,99 +16,221 @@
  */
 package org.l2jmobius.gameserver.taskmanager;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.commons.threads.ThreadPriority;
 import org.l2jmobius.commons.util.CommonUtil;
 import org.l2jmobius.gameserver.ai.CtrlEvent;
+import org.l2jmobius.gameserver.model.WorldRegion;
 import org.l2jmobius.gameserver.model.actor.Creature;
 
 /**
- * Movement task manager class.
+ * Movement task manager class.<br>
+ * Moving creatures are sharded by the world region they started moving in. A single fixed rate tick updates all shards in parallel on a work-stealing pool.
  * @author Mobius
  */
 public class MovementTaskManager
 {
 	protected static final Logger LOGGER = Logger.getLogger(MovementTaskManager.class.getName());
 	
-	private static final Set<Set<Creature>> POOLS = ConcurrentHashMap.newKeySet();
-	private static final int POOL_SIZE = 1000;
+	private static final int SHARD_COUNT = 64; // Must be a power of two.
 	private static final int TASK_DELAY = 100;
 	
+	private final MovementShard[] _shards = new MovementShard[SHARD_COUNT];
+	private final Map<Creature, MovementShard> _moving = new ConcurrentHashMap<>();
+	private final ForkJoinPool _pool;
+	private final AtomicBoolean _working = new AtomicBoolean();
+	
+	// Metrics.
+	private final AtomicLong _tickCount = new AtomicLong();
+	private final AtomicLong _overrunCount = new AtomicLong();
+	private final AtomicLong _skippedCount = new AtomicLong();
+	private final AtomicLong _totalTickTime = new AtomicLong();
+	private volatile long _lastTickTime;
+	private volatile long _maxTickTime;
+	private volatile int _lastBacklog;
+	private volatile int _largestShard;
+	
 	protected MovementTaskManager()
 	{
+		for (int i = 0; i < SHARD_COUNT; i++)
+		{
+			_shards[i] = new MovementShard();
+		}
+		
+		_pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool ->
+		{
+			final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("L2jMobius MovementThread " + thread.getPoolIndex());
+			thread.setPriority(ThreadPriority.PRIORITY_8.getId());
+			return thread;
+		}, null, false);
+		
+		ThreadPool.schedulePriorityTaskAtFixedRate(this::tick, TASK_DELAY, TASK_DELAY);
 	}
 	
-	private class Movement implements Runnable
+	private class MovementShard implements Callable<Void>
 	{
-		private final Set<Creature> _creatures;
-		
-		public Movement(Set<Creature> creatures)
-		{
-			_creatures = creatures;
-		}
+		private final Set<Creature> _creatures = ConcurrentHashMap.newKeySet();
 		
 		@Override
-		public void run()
+		public Void call()
 		{
-			if (_creatures.isEmpty())
-			{
-				return;
-			}
-			
-			Creature creature;
-			final Iterator<Creature> iterator = _creatures.iterator();
-			while (iterator.hasNext())
+			// The set iterator is weakly consistent, so creatures can be removed from the set while it is iterated.
+			for (Creature creature : _creatures)
 			{
-				creature = iterator.next();
 				try
 				{
 					if (creature.updatePosition())
 					{
-						iterator.remove();
+						remove(creature, this);
 						creature.getAI().notifyEvent(CtrlEvent.EVT_ARRIVED);
 					}
 				}
 				catch (Exception e)
 				{
-					iterator.remove();
+					remove(creature, this);
 					LOGGER.warning("MovementTaskManager: Problem updating position of " + creature);
 					LOGGER.warning(CommonUtil.getStackTrace(e));
 				}
 			}
+			return null;
 		}
 	}
 	
-	/**
-	 * Add a Creature to moving objects of MovementTaskManager.
-	 * @param creature The Creature to add to moving objects of MovementTaskManager.
-	 */
-	public synchronized void registerMovingObject(Creature creature)
+	private void tick()
 	{
-		for (Set<Creature> pool : POOLS)
+		// Previous tick has not finished yet.
+		if (!_working.compareAndSet(false, true))
 		{
-			if (pool.contains(creature))
-			{
-				return;
-			}
+			_skippedCount.incrementAndGet();
+			return;
 		}
 		
-		for (Set<Creature> pool : POOLS)
+		try
 		{
-			if (pool.size() < POOL_SIZE)
+			if (_moving.isEmpty())
 			{
-				pool.add(creature);
+				_lastBacklog = 0;
 				return;
 			}
+			
+			final long start = System.nanoTime();
+			final List<MovementShard> tasks = new ArrayList<>(SHARD_COUNT);
+			int largestShard = 0;
+			for (MovementShard shard : _shards)
+			{
+				final int size = shard._creatures.size();
+				if (size > 0)
+				{
+					tasks.add(shard);
+					if (size > largestShard)
+					{
+						largestShard = size;
+					}
+				}
+			}
+			_lastBacklog = _moving.size();
+			_largestShard = largestShard;
+			
+			_pool.invokeAll(tasks);
+			
+			final long time = (System.nanoTime() - start) / 1000000;
+			_lastTickTime = time;
+			_totalTickTime.addAndGet(time);
+			_tickCount.incrementAndGet();
+			if (time > _maxTickTime)
+			{
+				_maxTickTime = time;
+			}
+			if (time > TASK_DELAY)
+			{
+				_overrunCount.incrementAndGet();
+			}
 		}
-		
-		final Set<Creature> pool = ConcurrentHashMap.newKeySet(POOL_SIZE);
-		pool.add(creature);
-		ThreadPool.schedulePriorityTaskAtFixedRate(new Movement(pool), TASK_DELAY, TASK_DELAY);
-		POOLS.add(pool);
+		finally
+		{
+			_working.set(false);
+		}
+	}
+	
+	private MovementShard getShard(Creature creature)
+	{
+		final WorldRegion region = creature.getWorldRegion();
+		final int hash = region != null ? (region.getRegionX() * 31) + region.getRegionY() : creature.getObjectId();
+		return _shards[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+	}
+	
+	/**
+	 * Add a Creature to moving objects of MovementTaskManager.
+	 * @param creature The Creature to add to moving objects of MovementTaskManager.
+	 */
+	public void registerMovingObject(Creature creature)
+	{
+		// The shard is updated inside the map operation, so registrations and removals of a creature cannot interleave.
+		_moving.computeIfAbsent(creature, k ->
+		{
+			final MovementShard shard = getShard(k);
+			shard._creatures.add(k);
+			return shard;
+		});
+	}
+	
+	/**
+	 * Remove a Creature from moving objects of MovementTaskManager.
+	 * @param creature The Creature to remove from moving objects of MovementTaskManager.
+	 */
+	public void unregisterMovingObject(Creature creature)
+	{
+		remove(creature, null);
+	}
+	
+	/**
+	 * Removes a Creature from moving objects and from its shard at once.
+	 * @param creature the creature to remove.
+	 * @param expected the shard the creature must be registered in, or {@code null} for any shard.
+	 */
+	private void remove(Creature creature, MovementShard expected)
+	{
+		_moving.computeIfPresent(creature, (k, shard) ->
+		{
+			if ((expected != null) && (shard != expected))
+			{
+				return shard;
+			}
+			
+			shard._creatures.remove(k);
+			return null;
+		});
+	}
+	
+	public String[] getStats()
+	{
+		final long ticks = _tickCount.get();
+		final String[] stats = new String[10];
+		int pos = 0;
+		stats[pos++] = "Movement task manager:";
+		stats[pos++] = " |- MovingCreatures: ... " + _moving.size();
+		stats[pos++] = " |- LastBacklog: ....... " + _lastBacklog;
+		stats[pos++] = " |- LargestShard: ...... " + _largestShard;
+		stats[pos++] = " |- LastTickTime: ...... " + _lastTickTime + "ms";
+		stats[pos++] = " |- AverageTickTime: ... " + (ticks > 0 ? _totalTickTime.get() / ticks : 0) + "ms";
+		stats[pos++] = " |- MaxTickTime: ....... " + _maxTickTime + "ms";
+		stats[pos++] = " |- OverrunTicks: ...... " + _overrunCount.get();
+		stats[pos++] = " |- SkippedTicks: ...... " + _skippedCount.get();
+		stats[pos] = " | -------";
+		return stats;
 	}
 	
 	public static final MovementTaskManager getInstance()
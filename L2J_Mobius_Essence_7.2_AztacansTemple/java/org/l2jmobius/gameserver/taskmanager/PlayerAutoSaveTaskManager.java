@@ -16,22 +16,46 @@
  */
 package org.l2jmobius.gameserver.taskmanager;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.l2jmobius.Config;
 import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.commons.threads.ThreadProvider;
 import org.l2jmobius.gameserver.model.actor.Player;
 
 /**
+ * Saves all players whose autosave time has passed, once per second.<br>
+ * Due players are split in chunks that are saved in parallel by a bounded number of threads, each one using at most one database connection at a time.<br>
+ * The characters table rows of a chunk are updated with a single batch statement.<br>
+ * The number of players saved per pass adapts to the observed save latency.
  * @author Mobius
  */
 public class PlayerAutoSaveTaskManager implements Runnable
 {
+	private static final Logger LOGGER = Logger.getLogger(PlayerAutoSaveTaskManager.class.getName());
+	
 	private static final Map<Player, Long> PLAYER_TIMES = new ConcurrentHashMap<>();
-	private static boolean _working = false;
+	private static final ExecutorService SAVE_POOL = Executors.newFixedThreadPool(Config.CHAR_DATA_STORE_THREADS, new ThreadProvider("L2jMobius AutoSaveThread"));
+	private static final AtomicBoolean WORKING = new AtomicBoolean();
+	
+	// Metrics.
+	private static final AtomicLong SAVED_COUNT = new AtomicLong();
+	private static final AtomicLong FAILED_COUNT = new AtomicLong();
+	private static volatile int _batchSize = Config.CHAR_DATA_STORE_THREADS;
+	private static volatile double _averageLatency;
+	private static volatile long _lastPassTime;
 	
 	protected PlayerAutoSaveTaskManager()
 	{
@@ -41,21 +65,23 @@ public class PlayerAutoSaveTaskManager implements Runnable
 	@Override
 	public void run()
 	{
-		if (_working)
+		// Previous pass is still saving.
+		if (!WORKING.compareAndSet(false, true))
 		{
 			return;
 		}
-		_working = true;
 		
+		final List<Player> batch = new ArrayList<>();
 		if (!PLAYER_TIMES.isEmpty())
 		{
+			final int batchSize = _batchSize;
 			final long currentTime = System.currentTimeMillis();
 			final Iterator<Entry<Player, Long>> iterator = PLAYER_TIMES.entrySet().iterator();
 			Entry<Player, Long> entry;
 			Player player;
 			Long time;
 			
-			while (iterator.hasNext())
+			while (iterator.hasNext() && (batch.size() < batchSize))
 			{
 				entry = iterator.next();
 				player = entry.getKey();
@@ -65,9 +91,8 @@ public class PlayerAutoSaveTaskManager implements Runnable
 				{
 					if ((player != null) && player.isOnline())
 					{
-						player.autoSave();
-						PLAYER_TIMES.put(player, currentTime + Config.CHAR_DATA_STORE_INTERVAL);
-						break; // Prevent SQL flood.
+						batch.add(player);
+						continue;
 					}
 					
 					iterator.remove();
@@ -75,7 +100,89 @@ public class PlayerAutoSaveTaskManager implements Runnable
 			}
 		}
 		
-		_working = false;
+		if (batch.isEmpty())
+		{
+			WORKING.set(false);
+			return;
+		}
+		
+		// Split the batch in chunks, one for each save thread.
+		final int chunkCount = Math.min(Config.CHAR_DATA_STORE_THREADS, batch.size());
+		final List<List<Player>> chunks = new ArrayList<>(chunkCount);
+		for (int i = 0; i < chunkCount; i++)
+		{
+			chunks.add(new ArrayList<>((batch.size() / chunkCount) + 1));
+		}
+		for (int i = 0; i < batch.size(); i++)
+		{
+			chunks.get(i % chunkCount).add(batch.get(i));
+		}
+		
+		final long start = System.currentTimeMillis();
+		final AtomicInteger remaining = new AtomicInteger(chunkCount);
+		for (List<Player> chunk : chunks)
+		{
+			SAVE_POOL.execute(() ->
+			{
+				try
+				{
+					save(chunk);
+				}
+				finally
+				{
+					if (remaining.decrementAndGet() == 0)
+					{
+						onPassFinished(batch.size(), chunkCount, start);
+					}
+				}
+			});
+		}
+	}
+	
+	private void save(List<Player> players)
+	{
+		Player.storeCharBase(players);
+		for (Player player : players)
+		{
+			try
+			{
+				player.autoSave(false);
+				SAVED_COUNT.incrementAndGet();
+			}
+			catch (Exception e)
+			{
+				FAILED_COUNT.incrementAndGet();
+				LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Could not save " + player + ".", e);
+			}
+			
+			// Player may have logged out meanwhile.
+			PLAYER_TIMES.computeIfPresent(player, (k, v) -> System.currentTimeMillis() + Config.CHAR_DATA_STORE_INTERVAL);
+		}
+	}
+	
+	/**
+	 * Adapts the number of players saved per pass to the observed latency.
+	 * @param saved the number of players saved by the pass.
+	 * @param chunkCount the number of threads that were used by the pass.
+	 * @param start the time the pass started.
+	 */
+	private void onPassFinished(int saved, int chunkCount, long start)
+	{
+		final long passTime = System.currentTimeMillis() - start;
+		final double latency = (double) (passTime * chunkCount) / saved;
+		_averageLatency = _averageLatency == 0 ? latency : (_averageLatency * 0.7) + (latency * 0.3);
+		_lastPassTime = passTime;
+		
+		if (_averageLatency > Config.CHAR_DATA_STORE_TARGET_LATENCY)
+		{
+			_batchSize = Math.max(Config.CHAR_DATA_STORE_THREADS, _batchSize / 2);
+		}
+		else if ((_averageLatency < (Config.CHAR_DATA_STORE_TARGET_LATENCY / 2)) && (saved >= _batchSize))
+		{
+			_batchSize = Math.min(Config.CHAR_DATA_STORE_BATCH_SIZE, _batchSize + Config.CHAR_DATA_STORE_THREADS);
+		}
+		
+		WORKING.set(false);
 	}
 	
 	public void add(Player player)
@@ -88,6 +195,39 @@ public class PlayerAutoSaveTaskManager implements Runnable
 		PLAYER_TIMES.remove(player);
 	}
 	
+	/**
+	 * @return the time in milliseconds since the player that has gone the longest without being saved was last saved.
+	 */
+	public long getOldestUnsavedAge()
+	{
+		long oldest = Long.MAX_VALUE;
+		for (Long time : PLAYER_TIMES.values())
+		{
+			if (time < oldest)
+			{
+				oldest = time;
+			}
+		}
+		return oldest == Long.MAX_VALUE ? 0 : Math.max(0, (System.currentTimeMillis() - oldest) + Config.CHAR_DATA_STORE_INTERVAL);
+	}
+	
+	public String[] getStats()
+	{
+		final String[] stats = new String[10];
+		int pos = 0;
+		stats[pos++] = "Player autosave:";
+		stats[pos++] = " |- TrackedPlayers: .... " + PLAYER_TIMES.size();
+		stats[pos++] = " |- OldestUnsavedAge: .. " + (getOldestUnsavedAge() / 1000) + "s";
+		stats[pos++] = " |- StoreInterval: ..... " + (Config.CHAR_DATA_STORE_INTERVAL / 1000) + "s";
+		stats[pos++] = " |- BatchSize: ......... " + _batchSize;
+		stats[pos++] = " |- AverageLatency: .... " + (int) _averageLatency + "ms";
+		stats[pos++] = " |- LastPassTime: ...... " + _lastPassTime + "ms";
+		stats[pos++] = " |- SavedCount: ........ " + SAVED_COUNT.get();
+		stats[pos++] = " |- FailedCount: ....... " + FAILED_COUNT.get();
+		stats[pos] = " | -------";
+		return stats;
+	}
+	
 	public static PlayerAutoSaveTaskManager getInstance()
 	{
 		return SingletonHolder.INSTANCE;
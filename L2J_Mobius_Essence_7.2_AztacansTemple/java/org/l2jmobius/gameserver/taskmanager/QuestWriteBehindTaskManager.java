@@ -0,0 +1,382 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.gameserver.taskmanager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.l2jmobius.Config;
+import org.l2jmobius.commons.database.DatabaseFactory;
+import org.l2jmobius.commons.threads.ThreadPool;
+
+/**
+ * Collects quest state changes per player and writes them with batch statements.<br>
+ * Repeated changes of a quest variable before the next flush are written once, with the last value.
+ * @author Mobius
+ */
+public class QuestWriteBehindTaskManager implements Runnable
+{
+	private static final Logger LOGGER = Logger.getLogger(QuestWriteBehindTaskManager.class.getName());
+	
+	private static final String INSERT_VAR = "INSERT INTO character_quests (charId,name,var,value) VALUES (?,?,?,?) ON DUPLICATE KEY UPDATE value=?";
+	private static final String DELETE_VAR = "DELETE FROM character_quests WHERE charId=? AND name=? AND var=?";
+	private static final String DELETE_QUEST = "DELETE FROM character_quests WHERE charId=? AND name=?";
+	private static final String DELETE_QUEST_KEEP_STATE = "DELETE FROM character_quests WHERE charId=? AND name=? AND var!=?";
+	private static final String STATE_VAR = "<state>";
+	
+	private static final Map<Integer, Map<String, PendingQuest>> PENDING_QUESTS = new ConcurrentHashMap<>();
+	private static final int FLUSH_LOCK_COUNT = 64; // Must be a power of two.
+	private static final Object[] FLUSH_LOCKS = new Object[FLUSH_LOCK_COUNT];
+	static
+	{
+		for (int i = 0; i < FLUSH_LOCK_COUNT; i++)
+		{
+			FLUSH_LOCKS[i] = new Object();
+		}
+	}
+	private static boolean _working = false;
+	
+	// Metrics.
+	private static final AtomicLong QUEUED_COUNT = new AtomicLong();
+	private static final AtomicLong COALESCED_COUNT = new AtomicLong();
+	private static final AtomicLong WRITTEN_COUNT = new AtomicLong();
+	private static final AtomicLong BATCH_COUNT = new AtomicLong();
+	
+	/**
+	 * The pending changes of a single quest. A {@code null} value marks a deleted variable.
+	 */
+	private static class PendingQuest
+	{
+		protected final Map<String, String> _variables = new HashMap<>();
+		protected boolean _deleteQuest = false;
+		protected boolean _deleteQuestKeepState = false;
+	}
+	
+	protected QuestWriteBehindTaskManager()
+	{
+		if (Config.QUEST_WRITE_BEHIND_INTERVAL > 0)
+		{
+			ThreadPool.scheduleAtFixedRate(this, Config.QUEST_WRITE_BEHIND_INTERVAL, Config.QUEST_WRITE_BEHIND_INTERVAL);
+		}
+	}
+	
+	@Override
+	public void run()
+	{
+		if (_working)
+		{
+			return;
+		}
+		_working = true;
+		
+		flushAll();
+		
+		_working = false;
+	}
+	
+	/**
+	 * Adds a quest variable change to the pending changes of the player.
+	 * @param charId the object id of the player.
+	 * @param questName the name of the quest.
+	 * @param var the name of the variable.
+	 * @param value the new value of the variable, {@code null} to delete it.
+	 */
+	public void setVariable(int charId, String questName, String var, String value)
+	{
+		QUEUED_COUNT.incrementAndGet();
+		PENDING_QUESTS.compute(charId, (id, quests) ->
+		{
+			final Map<String, PendingQuest> pending = quests != null ? quests : new HashMap<>();
+			final PendingQuest quest = pending.computeIfAbsent(questName, k -> new PendingQuest());
+			if (quest._variables.containsKey(var))
+			{
+				COALESCED_COUNT.incrementAndGet();
+			}
+			quest._variables.put(var, value);
+			return pending;
+		});
+	}
+	
+	/**
+	 * Adds the deletion of a quest to the pending changes of the player.<br>
+	 * Pending variable changes of the quest are dropped, since the deletion overrides them.
+	 * @param charId the object id of the player.
+	 * @param questName the name of the quest.
+	 * @param repeatable if {@code false}, the state variable will be preserved, otherwise it will be deleted as well.
+	 */
+	public void deleteQuest(int charId, String questName, boolean repeatable)
+	{
+		QUEUED_COUNT.incrementAndGet();
+		PENDING_QUESTS.compute(charId, (id, quests) ->
+		{
+			final Map<String, PendingQuest> pending = quests != null ? quests : new HashMap<>();
+			final PendingQuest quest = pending.computeIfAbsent(questName, k -> new PendingQuest());
+			if (repeatable)
+			{
+				COALESCED_COUNT.addAndGet(quest._variables.size());
+				quest._variables.clear();
+				quest._deleteQuest = true;
+				quest._deleteQuestKeepState = false;
+			}
+			else
+			{
+				final String state = quest._variables.get(STATE_VAR);
+				final boolean hasState = quest._variables.containsKey(STATE_VAR);
+				COALESCED_COUNT.addAndGet(quest._variables.size() - (hasState ? 1 : 0));
+				quest._variables.clear();
+				if (hasState)
+				{
+					quest._variables.put(STATE_VAR, state);
+				}
+				
+				// An earlier full deletion already removed the stored state.
+				if (!quest._deleteQuest)
+				{
+					quest._deleteQuestKeepState = true;
+				}
+			}
+			return pending;
+		});
+	}
+	
+	/**
+	 * Writes the pending changes of the given player.<br>
+	 * Flushes of the same player are serialized, so a call made while another flush of the player is in progress waits for it to be committed.
+	 * @param charId the object id of the player.
+	 */
+	public void flush(int charId)
+	{
+		synchronized (FLUSH_LOCKS[charId & (FLUSH_LOCK_COUNT - 1)])
+		{
+			// Changes are only added through compute, so once removed the map is no longer modified.
+			final Map<String, PendingQuest> quests = PENDING_QUESTS.remove(charId);
+			if ((quests == null) || quests.isEmpty())
+			{
+				return;
+			}
+			
+			write(charId, quests);
+		}
+	}
+	
+	private void write(int charId, Map<String, PendingQuest> quests)
+	{
+		try (Connection con = DatabaseFactory.getConnection();
+			PreparedStatement deleteQuest = con.prepareStatement(DELETE_QUEST);
+			PreparedStatement deleteQuestKeepState = con.prepareStatement(DELETE_QUEST_KEEP_STATE);
+			PreparedStatement deleteVar = con.prepareStatement(DELETE_VAR);
+			PreparedStatement insertVar = con.prepareStatement(INSERT_VAR))
+		{
+			int deleteQuestCount = 0;
+			int deleteQuestKeepStateCount = 0;
+			int deleteVarCount = 0;
+			int insertVarCount = 0;
+			for (Entry<String, PendingQuest> entry : quests.entrySet())
+			{
+				final String questName = entry.getKey();
+				final PendingQuest quest = entry.getValue();
+				if (quest._deleteQuest)
+				{
+					deleteQuest.setInt(1, charId);
+					deleteQuest.setString(2, questName);
+					deleteQuest.addBatch();
+					deleteQuestCount++;
+				}
+				else if (quest._deleteQuestKeepState)
+				{
+					deleteQuestKeepState.setInt(1, charId);
+					deleteQuestKeepState.setString(2, questName);
+					deleteQuestKeepState.setString(3, STATE_VAR);
+					deleteQuestKeepState.addBatch();
+					deleteQuestKeepStateCount++;
+				}
+				
+				for (Entry<String, String> variable : quest._variables.entrySet())
+				{
+					final String value = variable.getValue();
+					if (value == null)
+					{
+						deleteVar.setInt(1, charId);
+						deleteVar.setString(2, questName);
+						deleteVar.setString(3, variable.getKey());
+						deleteVar.addBatch();
+						deleteVarCount++;
+					}
+					else
+					{
+						insertVar.setInt(1, charId);
+						insertVar.setString(2, questName);
+						insertVar.setString(3, variable.getKey());
+						insertVar.setString(4, value);
+						insertVar.setString(5, value);
+						insertVar.addBatch();
+						insertVarCount++;
+					}
+				}
+			}
+			
+			// Quest deletions go first, so that variables set after a deletion are kept.
+			if (deleteQuestCount > 0)
+			{
+				deleteQuest.executeBatch();
+				BATCH_COUNT.incrementAndGet();
+			}
+			if (deleteQuestKeepStateCount > 0)
+			{
+				deleteQuestKeepState.executeBatch();
+				BATCH_COUNT.incrementAndGet();
+			}
+			if (deleteVarCount > 0)
+			{
+				deleteVar.executeBatch();
+				BATCH_COUNT.incrementAndGet();
+			}
+			if (insertVarCount > 0)
+			{
+				insertVar.executeBatch();
+				BATCH_COUNT.incrementAndGet();
+			}
+			WRITTEN_COUNT.addAndGet(deleteQuestCount + deleteQuestKeepStateCount + deleteVarCount + insertVarCount);
+		}
+		catch (SQLException e)
+		{
+			restore(charId, quests);
+			LOGGER.log(Level.WARNING, getClass().getSimpleName() + ": Could not write quest changes for " + charId + ", they will be retried.", e);
+		}
+	}
+	
+	/**
+	 * Puts back changes that could not be written, without overwriting changes made since they were taken.
+	 * @param charId the object id of the player.
+	 * @param quests the changes that could not be written.
+	 */
+	private void restore(int charId, Map<String, PendingQuest> quests)
+	{
+		PENDING_QUESTS.compute(charId, (id, pending) ->
+		{
+			if (pending == null)
+			{
+				return quests;
+			}
+			
+			for (Entry<String, PendingQuest> entry : quests.entrySet())
+			{
+				final PendingQuest newer = pending.get(entry.getKey());
+				if (newer == null)
+				{
+					pending.put(entry.getKey(), entry.getValue());
+				}
+				else
+				{
+					merge(entry.getValue(), newer);
+				}
+			}
+			return pending;
+		});
+	}
+	
+	/**
+	 * Applies older changes of a quest underneath newer ones.
+	 * @param older the changes that were taken first.
+	 * @param newer the changes made since, which take precedence.
+	 */
+	private static void merge(PendingQuest older, PendingQuest newer)
+	{
+		// A newer full deletion overrides everything before it.
+		if (newer._deleteQuest)
+		{
+			return;
+		}
+		
+		if (newer._deleteQuestKeepState)
+		{
+			// An older full deletion also removed the stored state.
+			if (older._deleteQuest)
+			{
+				newer._deleteQuest = true;
+				newer._deleteQuestKeepState = false;
+			}
+			
+			// Only the older state variable survives a deletion that keeps the state.
+			if (older._variables.containsKey(STATE_VAR) && !newer._variables.containsKey(STATE_VAR))
+			{
+				newer._variables.put(STATE_VAR, older._variables.get(STATE_VAR));
+			}
+			return;
+		}
+		
+		newer._deleteQuest = older._deleteQuest;
+		newer._deleteQuestKeepState = older._deleteQuestKeepState;
+		for (Entry<String, String> variable : older._variables.entrySet())
+		{
+			if (!newer._variables.containsKey(variable.getKey()))
+			{
+				newer._variables.put(variable.getKey(), variable.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Writes all pending changes.
+	 */
+	public void flushAll()
+	{
+		for (Integer charId : PENDING_QUESTS.keySet())
+		{
+			flush(charId);
+		}
+	}
+	
+	public String[] getStats()
+	{
+		int pendingQuests = 0;
+		for (Map<String, PendingQuest> quests : PENDING_QUESTS.values())
+		{
+			pendingQuests += quests.size();
+		}
+		
+		final String[] stats = new String[8];
+		int pos = 0;
+		stats[pos++] = "Quest write-behind:";
+		stats[pos++] = " |- PendingPlayers: .... " + PENDING_QUESTS.size();
+		stats[pos++] = " |- PendingQuests: ..... " + pendingQuests;
+		stats[pos++] = " |- QueuedChanges: ..... " + QUEUED_COUNT.get();
+		stats[pos++] = " |- CoalescedChanges: .. " + COALESCED_COUNT.get();
+		stats[pos++] = " |- WrittenRows: ....... " + WRITTEN_COUNT.get();
+		stats[pos++] = " |- Batches: ........... " + BATCH_COUNT.get();
+		stats[pos] = " | -------";
+		return stats;
+	}
+	
+	public static QuestWriteBehindTaskManager getInstance()
+	{
+		return SingletonHolder.INSTANCE;
+	}
+	
+	private static class SingletonHolder
+	{
+		protected static final QuestWriteBehindTaskManager INSTANCE = new QuestWriteBehindTaskManager();
+	}
+}
@@ -53,6 +53,8 @@ public class Broadcast
 	 */
 	public static void toPlayersTargettingMyself(Creature creature, ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		World.getInstance().forEachVisibleObject(creature, Player.class, player ->
 		{
 			if (player.getTarget() == creature)
@@ -75,6 +77,8 @@ public class Broadcast
 	 */
 	public static void toKnownPlayers(Creature creature, ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		World.getInstance().forEachVisibleObject(creature, Player.class, player ->
 		{
 			try
@@ -133,6 +137,8 @@ public class Broadcast
 			radius = 1500;
 		}
 		
+		packet.sendInBroadcast(true);
+		
 		World.getInstance().forEachVisibleObjectInRange(creature, Player.class, radius, player -> player.sendPacket(packet));
 	}
 	
@@ -165,6 +171,8 @@ public class Broadcast
 			radius = 600;
 		}
 		
+		packet.sendInBroadcast(true);
+		
 		if (creature.isPlayer())
 		{
 			creature.sendPacket(packet);
@@ -184,6 +192,8 @@ public class Broadcast
 	 */
 	public static void toAllOnlinePlayers(ServerPacket packet)
 	{
+		packet.sendInBroadcast(true);
+		
 		for (Player player : World.getInstance().getPlayers())
 		{
 			if (player.isOnline())
@@ -216,6 +226,11 @@ public class Broadcast
 	 */
 	public static <T extends ZoneType> void toAllPlayersInZoneType(Class<T> zoneType, ServerPacket... packets)
 	{
+		for (ServerPacket packet : packets)
+		{
+			packet.sendInBroadcast(true);
+		}
+		
 		for (ZoneType zone : ZoneManager.getInstance().getAllZones(zoneType))
 		{
 			for (Creature creature : zone.getCharactersInside())
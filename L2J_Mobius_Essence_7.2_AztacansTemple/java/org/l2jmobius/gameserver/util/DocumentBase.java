@@ -34,6 +34,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 
+import org.l2jmobius.commons.util.XmlSnapshot;
 import org.l2jmobius.gameserver.data.xml.ItemData;
 import org.l2jmobius.gameserver.enums.CastleSide;
 import org.l2jmobius.gameserver.enums.CategoryType;
@@ -166,7 +167,7 @@ public abstract class DocumentBase
 			final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 			factory.setValidating(false);
 			factory.setIgnoringComments(true);
-			doc = factory.newDocumentBuilder().parse(_file);
+			doc = XmlSnapshot.getDocument(_file, factory.newDocumentBuilder());
 			parseDocument(doc);
 		}
 		catch (Exception e)
@@ -23,8 +23,11 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import org.l2jmobius.commons.crypt.NewCrypt;
@@ -54,6 +57,8 @@ public class GameServerThread extends Thread
 	private final Socket _socket;
 	private InputStream _in;
 	private OutputStream _out;
+	private final Queue<byte[]> _sendQueue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean _sending = new AtomicBoolean();
 	private final RSAPublicKey _publicKey;
 	private final RSAPrivateKey _privateKey;
 	private NewCrypt _blowfish;
@@ -251,27 +256,44 @@ public class GameServerThread extends Thread
 			
 			// Encrypt.
 			size = data.length - 2; // Data size without header.
+			NewCrypt.appendChecksum(data, 2, size);
+			_blowfish.crypt(data, 2, size);
 			
-			synchronized (_out)
+			_sendQueue.add(data);
+			flushSendQueue();
+		}
+		catch (Exception e)
+		{
+			LOGGER.severe("GameServerThread: Exception while sending packet " + packet.getClass().getSimpleName());
+			LOGGER.severe(CommonUtil.getStackTrace(e));
+		}
+	}
+	
+	/**
+	 * Writes the queued packets with a single flush.<br>
+	 * Packets queued by other threads meanwhile are written by the thread already sending.
+	 */
+	private void flushSendQueue()
+	{
+		while (!_sendQueue.isEmpty() && _sending.compareAndSet(false, true))
+		{
+			try
 			{
-				NewCrypt.appendChecksum(data, 2, size);
-				_blowfish.crypt(data, 2, size);
-				
-				_out.write(data);
-				try
-				{
-					_out.flush();
-				}
-				catch (IOException e)
+				byte[] data;
+				while ((data = _sendQueue.poll()) != null)
 				{
-					// GameServer might have terminated.
+					_out.write(data);
 				}
+				_out.flush();
+			}
+			catch (IOException e)
+			{
+				// GameServer might have terminated.
+			}
+			finally
+			{
+				_sending.set(false);
 			}
-		}
-		catch (IOException e)
-		{
-			LOGGER.severe("GameServerThread: IOException while sending packet " + packet.getClass().getSimpleName());
-			LOGGER.severe(CommonUtil.getStackTrace(e));
 		}
 	}
 	
@@ -28,12 +28,15 @@ import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,7 +44,9 @@ import javax.crypto.Cipher;
 
 import org.l2jmobius.Config;
 import org.l2jmobius.commons.database.DatabaseFactory;
+import org.l2jmobius.commons.threads.RunnableWrapper;
 import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.commons.threads.ThreadProvider;
 import org.l2jmobius.commons.util.Rnd;
 import org.l2jmobius.loginserver.GameServerTable.GameServerInfo;
 import org.l2jmobius.loginserver.enums.LoginFailReason;
@@ -73,9 +78,21 @@ public class LoginController
 	/** Authed Clients on LoginServer */
 	protected Map<String, LoginClient> _loginServerClients = new ConcurrentHashMap<>();
 	
-	private final Map<String, Integer> _failedLoginAttemps = new HashMap<>();
+	private final Map<String, Integer> _failedLoginAttemps = new ConcurrentHashMap<>();
 	private final Map<String, Long> _bannedIps = new ConcurrentHashMap<>();
 	
+	/** Accounts read from the database, reused until they expire. */
+	private final Map<String, CachedAccount> _accountCache = new ConcurrentHashMap<>();
+	
+	/** Reads accounts that are not cached, from the database unless replaced. */
+	private AccountLoader _accountLoader = this::readAccountInfo;
+	
+	/** Each thread keeps its own RSA cipher, reinitialized only when the key changes. */
+	private static final ThreadLocal<RSACipher> RSA_CIPHER = ThreadLocal.withInitial(RSACipher::new);
+	
+	/** Checks login credentials off the packet threads. */
+	private final ThreadPoolExecutor _authExecutor = new ThreadPoolExecutor(Config.LOGIN_AUTH_THREADS, Config.LOGIN_AUTH_THREADS, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, Config.LOGIN_AUTH_QUEUE_SIZE)), new ThreadProvider("L2jMobius LoginAuthThread"), new ThreadPoolExecutor.AbortPolicy());
+	
 	private static LoginController INSTANCE;
 	
 	private LoginController() throws GeneralSecurityException
@@ -116,6 +133,99 @@ public class LoginController
 		rsaCipher.init(Cipher.DECRYPT_MODE, key);
 	}
 	
+	private static class RSACipher
+	{
+		private Cipher _cipher;
+		private RSAPrivateKey _key;
+		
+		protected Cipher get(RSAPrivateKey key) throws GeneralSecurityException
+		{
+			if (_cipher == null)
+			{
+				_cipher = Cipher.getInstance("RSA/ECB/nopadding");
+			}
+			if (_key != key)
+			{
+				_cipher.init(Cipher.DECRYPT_MODE, key);
+				_key = key;
+			}
+			return _cipher;
+		}
+	}
+	
+	/**
+	 * Decrypts one RSA block with the cipher of the current thread.
+	 * @param key the private key
+	 * @param input the encrypted data
+	 * @param inputOffset the offset of the block in input
+	 * @param inputLength the length of the block
+	 * @param output the buffer for the decrypted data
+	 * @param outputOffset the offset in output
+	 * @throws GeneralSecurityException if the block could not be decrypted
+	 */
+	public static void decryptRSA(RSAPrivateKey key, byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset) throws GeneralSecurityException
+	{
+		final RSACipher cipher = RSA_CIPHER.get();
+		try
+		{
+			cipher.get(key).doFinal(input, inputOffset, inputLength, output, outputOffset);
+		}
+		catch (GeneralSecurityException e)
+		{
+			// Do not reuse a cipher left in an unknown state.
+			RSA_CIPHER.remove();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Decrypts one RSA block with the cipher of the current thread.
+	 * @param key the private key
+	 * @param input the encrypted block
+	 * @return the decrypted block
+	 * @throws GeneralSecurityException if the block could not be decrypted
+	 */
+	public static byte[] decryptRSA(RSAPrivateKey key, byte[] input) throws GeneralSecurityException
+	{
+		final RSACipher cipher = RSA_CIPHER.get();
+		try
+		{
+			return cipher.get(key).doFinal(input);
+		}
+		catch (GeneralSecurityException e)
+		{
+			// Do not reuse a cipher left in an unknown state.
+			RSA_CIPHER.remove();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Queues a credential check on the login auth threads.
+	 * @param task the task that reads the account and checks in the client
+	 * @return {@code true} if the task was queued, {@code false} if the queue is full
+	 */
+	public boolean executeAuth(Runnable task)
+	{
+		try
+		{
+			_authExecutor.execute(new RunnableWrapper(task));
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * @return the number of credential checks waiting for a login auth thread
+	 */
+	public int getAuthQueueSize()
+	{
+		return _authExecutor.getQueue().size();
+	}
+	
 	private void generateBlowFishKeys()
 	{
 		_blowfishKeys = new byte[BLOWFISH_KEYS][16];
@@ -167,24 +277,8 @@ public class LoginController
 	
 	private void recordFailedLoginAttemp(String addr)
 	{
-		// We need to synchronize this!
-		// When multiple connections from the same address fail to login at the same time, unexpected behavior can happen.
-		Integer failedLoginAttemps;
-		synchronized (_failedLoginAttemps)
-		{
-			failedLoginAttemps = _failedLoginAttemps.get(addr);
-			if (failedLoginAttemps == null)
-			{
-				failedLoginAttemps = 1;
-			}
-			else
-			{
-				++failedLoginAttemps;
-			}
-			
-			_failedLoginAttemps.put(addr, failedLoginAttemps);
-		}
-		
+		// Atomic for each address, so failures from the same address at the same time are all counted.
+		final int failedLoginAttemps = _failedLoginAttemps.merge(addr, 1, Integer::sum);
 		if (failedLoginAttemps >= Config.LOGIN_TRY_BEFORE_BAN)
 		{
 			addBanForAddress(addr, Config.LOGIN_BLOCK_AFTER_BAN * 1000);
@@ -196,12 +290,105 @@ public class LoginController
 	
 	private void clearFailedLoginAttemps(String clientAddr)
 	{
-		synchronized (_failedLoginAttemps)
+		_failedLoginAttemps.remove(clientAddr);
+	}
+	
+	private static class CachedAccount
+	{
+		protected final AccountInfo _info;
+		protected final long _expireTime;
+		
+		protected CachedAccount(AccountInfo info, long expireTime)
 		{
-			_failedLoginAttemps.remove(clientAddr);
+			_info = info;
+			_expireTime = expireTime;
 		}
 	}
 	
+	@FunctionalInterface
+	public interface AccountLoader
+	{
+		/**
+		 * @param login the account name
+		 * @return the account, or {@code null} if it does not exist
+		 * @throws Exception if the account could not be read
+		 */
+		AccountInfo load(String login) throws Exception;
+	}
+	
+	/**
+	 * Replaces the database read of accounts, so the login pipeline can run against another account source, as the login load test does.
+	 * @param loader the account loader
+	 */
+	public void setAccountLoader(AccountLoader loader)
+	{
+		_accountLoader = loader;
+	}
+	
+	/**
+	 * Drops the cached account, so the next login reads it from the database.
+	 * @param login the account name
+	 */
+	public void invalidateAccount(String login)
+	{
+		if (login != null)
+		{
+			_accountCache.remove(login.toLowerCase());
+		}
+	}
+	
+	/**
+	 * @param login the account name
+	 * @return the account, from the cache when it has not expired, otherwise from the account loader
+	 * @throws Exception if the account could not be read
+	 */
+	private AccountInfo loadAccountInfo(String login) throws Exception
+	{
+		final String key = login.toLowerCase();
+		if (Config.LOGIN_ACCOUNT_CACHE_TIME > 0)
+		{
+			final CachedAccount cached = _accountCache.get(key);
+			if (cached != null)
+			{
+				if (cached._expireTime > System.currentTimeMillis())
+				{
+					return cached._info;
+				}
+				_accountCache.remove(key, cached);
+			}
+		}
+		
+		final AccountInfo info = _accountLoader.load(login);
+		if ((info != null) && (Config.LOGIN_ACCOUNT_CACHE_TIME > 0))
+		{
+			_accountCache.put(key, new CachedAccount(info, System.currentTimeMillis() + (Config.LOGIN_ACCOUNT_CACHE_TIME * 1000L)));
+		}
+		return info;
+	}
+	
+	/**
+	 * @param login the account name
+	 * @return the account read from the database, or {@code null} if it does not exist
+	 * @throws Exception if the account could not be read
+	 */
+	private AccountInfo readAccountInfo(String login) throws Exception
+	{
+		try (Connection con = DatabaseFactory.getConnection();
+			PreparedStatement ps = con.prepareStatement(USER_INFO_SELECT))
+		{
+			ps.setString(1, Long.toString(System.currentTimeMillis()));
+			ps.setString(2, login);
+			try (ResultSet rset = ps.executeQuery())
+			{
+				if (rset.next())
+				{
+					return new AccountInfo(rset.getString("login"), rset.getString("password"), rset.getInt("accessLevel"), rset.getInt("lastServer"));
+				}
+			}
+		}
+		return null;
+	}
+	
 	private AccountInfo retriveAccountInfo(String clientAddr, String login, String password, boolean autoCreateIfEnabled)
 	{
 		try
@@ -210,27 +397,18 @@ public class LoginController
 			final byte[] raw = password.getBytes(StandardCharsets.UTF_8);
 			final String hashBase64 = Base64.getEncoder().encodeToString(md.digest(raw));
 			
-			try (Connection con = DatabaseFactory.getConnection();
-				PreparedStatement ps = con.prepareStatement(USER_INFO_SELECT))
+			final AccountInfo info = loadAccountInfo(login);
+			if (info != null)
 			{
-				ps.setString(1, Long.toString(System.currentTimeMillis()));
-				ps.setString(2, login);
-				try (ResultSet rset = ps.executeQuery())
+				if (!info.checkPassHash(hashBase64))
 				{
-					if (rset.next())
-					{
-						final AccountInfo info = new AccountInfo(rset.getString("login"), rset.getString("password"), rset.getInt("accessLevel"), rset.getInt("lastServer"));
-						if (!info.checkPassHash(hashBase64))
-						{
-							// Wrong password.
-							recordFailedLoginAttemp(clientAddr);
-							return null;
-						}
-						
-						clearFailedLoginAttemps(clientAddr);
-						return info;
-					}
+					// Wrong password.
+					recordFailedLoginAttemp(clientAddr);
+					return null;
 				}
+				
+				clearFailedLoginAttemps(clientAddr);
+				return info;
 			}
 			
 			if (!autoCreateIfEnabled || !Config.AUTO_CREATE_ACCOUNTS)
@@ -418,6 +596,7 @@ public class LoginController
 					ps.setInt(1, serverId);
 					ps.setString(2, client.getAccount());
 					ps.executeUpdate();
+					invalidateAccount(client.getAccount());
 				}
 				catch (Exception e)
 				{
@@ -437,6 +616,7 @@ public class LoginController
 			ps.setInt(1, banLevel);
 			ps.setString(2, account);
 			ps.executeUpdate();
+			invalidateAccount(account);
 		}
 		catch (Exception e)
 		{
@@ -588,12 +768,13 @@ public class LoginController
 	
 	private void purge()
 	{
+		final long currentTime = System.currentTimeMillis();
+		_accountCache.values().removeIf(cached -> cached._expireTime <= currentTime);
 		if (_loginServerClients.isEmpty())
 		{
 			return;
 		}
 		
-		final long currentTime = System.currentTimeMillis();
 		final Iterator<Entry<String, LoginClient>> iterator = _loginServerClients.entrySet().iterator();
 		while (iterator.hasNext())
 		{
@@ -49,7 +49,7 @@ public class LoginServer
 {
 	public static final Logger LOGGER = Logger.getLogger(LoginServer.class.getName());
 	
-	public static final int PROTOCOL_REV = 0x0106;
+	public static final int PROTOCOL_REV = 0x0107;
 	private static LoginServer INSTANCE;
 	private GameServerListener _gameServerListener;
 	private static int _loginStatus = ServerStatus.STATUS_NORMAL;
@@ -20,8 +20,6 @@ import java.security.GeneralSecurityException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.crypto.Cipher;
-
 import org.l2jmobius.Config;
 import org.l2jmobius.loginserver.GameServerTable.GameServerInfo;
 import org.l2jmobius.loginserver.LoginController;
@@ -75,12 +73,10 @@ public class RequestAuthLogin extends LoginClientPacket
 		final byte[] decrypted = new byte[_newAuthMethod ? 256 : 128];
 		try
 		{
-			final Cipher rsaCipher = Cipher.getInstance("RSA/ECB/nopadding");
-			rsaCipher.init(Cipher.DECRYPT_MODE, client.getRSAPrivateKey());
-			rsaCipher.doFinal(_raw1, 0, 128, decrypted, 0);
+			LoginController.decryptRSA(client.getRSAPrivateKey(), _raw1, 0, 128, decrypted, 0);
 			if (_newAuthMethod)
 			{
-				rsaCipher.doFinal(_raw2, 0, 128, decrypted, 128);
+				LoginController.decryptRSA(client.getRSAPrivateKey(), _raw2, 0, 128, decrypted, 128);
 			}
 		}
 		catch (GeneralSecurityException e)
@@ -110,6 +106,15 @@ public class RequestAuthLogin extends LoginClientPacket
 			return;
 		}
 		
+		// The account is read on the login auth threads.
+		if (!LoginController.getInstance().executeAuth(() -> authenticate(client, user, password)))
+		{
+			client.close(LoginFailReason.REASON_SERVER_OVERLOADED);
+		}
+	}
+	
+	private void authenticate(LoginClient client, String user, String password)
+	{
 		final String clientAddr = client.getIp();
 		final LoginController lc = LoginController.getInstance();
 		final AccountInfo info = lc.retriveAccountInfo(clientAddr, user, password);
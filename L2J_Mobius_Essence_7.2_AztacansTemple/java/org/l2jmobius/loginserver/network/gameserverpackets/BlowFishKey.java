@@ -20,11 +20,10 @@ import java.security.GeneralSecurityException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.crypto.Cipher;
-
 import org.l2jmobius.commons.crypt.NewCrypt;
 import org.l2jmobius.commons.network.base.BaseReadablePacket;
 import org.l2jmobius.loginserver.GameServerThread;
+import org.l2jmobius.loginserver.LoginController;
 import org.l2jmobius.loginserver.network.GameServerPacketHandler.GameServerState;
 
 /**
@@ -43,10 +42,7 @@ public class BlowFishKey extends BaseReadablePacket
 		final byte[] tempKey = readBytes(size);
 		try
 		{
-			byte[] tempDecryptKey;
-			final Cipher rsaCipher = Cipher.getInstance("RSA/ECB/nopadding");
-			rsaCipher.init(Cipher.DECRYPT_MODE, server.getPrivateKey());
-			tempDecryptKey = rsaCipher.doFinal(tempKey);
+			final byte[] tempDecryptKey = LoginController.decryptRSA(server.getPrivateKey(), tempKey);
 			// There are nulls before the key we must remove them.
 			int i = 0;
 			final int len = tempDecryptKey.length;
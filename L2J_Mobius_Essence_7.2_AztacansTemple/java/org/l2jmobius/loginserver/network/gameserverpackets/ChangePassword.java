@@ -30,6 +30,7 @@ import org.l2jmobius.commons.network.base.BaseReadablePacket;
 import org.l2jmobius.loginserver.GameServerTable;
 import org.l2jmobius.loginserver.GameServerTable.GameServerInfo;
 import org.l2jmobius.loginserver.GameServerThread;
+import org.l2jmobius.loginserver.LoginController;
 
 /**
  * @author Nik
@@ -100,6 +101,7 @@ public class ChangePassword extends BaseReadablePacket
 						ps.setString(2, accountName);
 						passUpdated = ps.executeUpdate();
 					}
+					LoginController.getInstance().invalidateAccount(accountName);
 					
 					LOGGER.info("The password for account " + accountName + " has been changed from " + curpassEnc + " to " + Base64.getEncoder().encodeToString(password));
 					if (passUpdated > 0)
@@ -33,7 +33,11 @@ public class PlayerLogout extends BaseReadablePacket
 		super(decrypt);
 		readByte(); // Packet id, it is already processed.
 		
-		final String account = readString();
-		server.removeAccountOnGameServer(account);
+		final int size = readShort();
+		for (int i = 0; i < size; i++)
+		{
+			final String account = readString();
+			server.removeAccountOnGameServer(account);
+		}
 	}
 }
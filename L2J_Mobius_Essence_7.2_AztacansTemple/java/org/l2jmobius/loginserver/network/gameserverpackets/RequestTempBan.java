@@ -68,6 +68,7 @@ public class RequestTempBan extends BaseReadablePacket
 			LOGGER.warning(getClass().getSimpleName() + ": " + e.getMessage());
 		}
 		
+		LoginController.getInstance().invalidateAccount(_accountName);
 		LoginController.getInstance().addBanForAddress(_ip, _banTime);
 	}
 }
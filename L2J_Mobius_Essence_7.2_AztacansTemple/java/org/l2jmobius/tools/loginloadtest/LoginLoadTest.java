@@ -0,0 +1,170 @@
+/*
+ * This file is part of the L2J Mobius project.
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.l2jmobius.tools.loginloadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Cipher;
+
+import org.l2jmobius.Config;
+import org.l2jmobius.commons.database.DatabaseFactory;
+import org.l2jmobius.commons.enums.ServerMode;
+import org.l2jmobius.commons.threads.ThreadPool;
+import org.l2jmobius.loginserver.LoginController;
+import org.l2jmobius.loginserver.model.data.AccountInfo;
+import org.l2jmobius.loginserver.network.ScrambledKeyPair;
+
+/**
+ * Drives synthetic logins through the login server authentication pipeline.<br>
+ * Credentials are RSA encrypted up front, then decrypted on a pool of packet threads and checked on the login auth threads, as RequestAuthLogin does.<br>
+ * Usage: LoginLoadTest [logins] [packet threads] [accounts] [stub]<br>
+ * Accounts are named loadtest0 to loadtestN with password loadtest, and are auto created when AutoCreateAccounts is enabled.<br>
+ * With "stub" the database is not used, accounts are read from an in memory account loader and the rest of the credential check runs as usual.
+ * @author Mobius
+ */
+public class LoginLoadTest
+{
+	private static final String ACCOUNT_PREFIX = "loadtest";
+	private static final String PASSWORD = "loadtest";
+	
+	public static void main(String[] args) throws Exception
+	{
+		final int logins = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		final int packetThreads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		final int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		final boolean stub = (args.length > 3) && args[3].equalsIgnoreCase("stub");
+		
+		Config.load(ServerMode.LOGIN);
+		ThreadPool.init();
+		if (!stub)
+		{
+			DatabaseFactory.init();
+		}
+		LoginController.load();
+		final LoginController lc = LoginController.getInstance();
+		if (stub)
+		{
+			// Only the account read is replaced, password hashing, failed attempts and the account cache still run.
+			final String passHash = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA").digest(PASSWORD.getBytes(StandardCharsets.UTF_8)));
+			lc.setAccountLoader(login -> login.startsWith(ACCOUNT_PREFIX) ? new AccountInfo(login, passHash, 0, 1) : null);
+			Config.AUTO_CREATE_ACCOUNTS = false;
+		}
+		
+		// Encrypt the credentials the way the client does, before the clock starts.
+		System.out.println("Encrypting " + logins + " logins...");
+		final RSAPrivateKey[] keys = new RSAPrivateKey[logins];
+		final byte[][] blocks = new byte[logins][];
+		final Cipher cipher = Cipher.getInstance("RSA/ECB/nopadding");
+		for (int i = 0; i < logins; i++)
+		{
+			final byte[] block = new byte[128];
+			final byte[] user = (ACCOUNT_PREFIX + (i % accounts)).getBytes(StandardCharsets.UTF_8);
+			final byte[] password = PASSWORD.getBytes(StandardCharsets.UTF_8);
+			System.arraycopy(user, 0, block, 0x5E, Math.min(user.length, 14));
+			System.arraycopy(password, 0, block, 0x6C, Math.min(password.length, 16));
+			
+			final ScrambledKeyPair pair = lc.getScrambledRSAKeyPair();
+			cipher.init(Cipher.ENCRYPT_MODE, pair.getPublicKey());
+			keys[i] = (RSAPrivateKey) pair.getPrivateKey();
+			blocks[i] = cipher.doFinal(block);
+		}
+		
+		final AtomicInteger succeeded = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		final AtomicInteger rejected = new AtomicInteger();
+		final AtomicLong totalLatency = new AtomicLong();
+		final AtomicLong maxLatency = new AtomicLong();
+		final CountDownLatch done = new CountDownLatch(logins);
+		final ExecutorService packetPool = Executors.newFixedThreadPool(packetThreads);
+		
+		System.out.println("Running " + logins + " logins on " + packetThreads + " packet threads and " + Config.LOGIN_AUTH_THREADS + " auth threads" + (stub ? " without database." : "."));
+		final long start = System.nanoTime();
+		for (int i = 0; i < logins; i++)
+		{
+			final int index = i;
+			packetPool.execute(() ->
+			{
+				final long loginStart = System.nanoTime();
+				try
+				{
+					final byte[] decrypted = new byte[128];
+					LoginController.decryptRSA(keys[index], blocks[index], 0, 128, decrypted, 0);
+					final String user = new String(decrypted, 0x5E, 14).trim();
+					final String password = new String(decrypted, 0x6C, 16).trim();
+					
+					// A distinct address for each login, so failures do not ban the test.
+					final String address = "10." + ((index >> 16) & 0xFF) + "." + ((index >> 8) & 0xFF) + "." + (index & 0xFF);
+					final boolean queued = lc.executeAuth(() ->
+					{
+						try
+						{
+							if (lc.retriveAccountInfo(address, user, password) != null)
+							{
+								succeeded.incrementAndGet();
+							}
+							else
+							{
+								failed.incrementAndGet();
+							}
+						}
+						finally
+						{
+							final long latency = System.nanoTime() - loginStart;
+							totalLatency.addAndGet(latency);
+							maxLatency.accumulateAndGet(latency, Math::max);
+							done.countDown();
+						}
+					});
+					if (!queued)
+					{
+						rejected.incrementAndGet();
+						done.countDown();
+					}
+				}
+				catch (Exception e)
+				{
+					failed.incrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+		
+		done.await();
+		final long time = System.nanoTime() - start;
+		packetPool.shutdown();
+		packetPool.awaitTermination(1, TimeUnit.MINUTES);
+		
+		final int completed = succeeded.get() + failed.get();
+		System.out.println("Time: ............ " + TimeUnit.NANOSECONDS.toMillis(time) + "ms");
+		System.out.println("Logins/second: ... " + ((logins * 1000000000L) / Math.max(1, time)));
+		System.out.println("Succeeded: ....... " + succeeded.get());
+		System.out.println("Failed: .......... " + failed.get());
+		System.out.println("Rejected: ........ " + rejected.get());
+		System.out.println("AverageLatency: .. " + (completed > 0 ? TimeUnit.NANOSECONDS.toMicros(totalLatency.get() / completed) : 0) + "us");
+		System.out.println("MaxLatency: ...... " + TimeUnit.NANOSECONDS.toMicros(maxLatency.get()) + "us");
+		System.exit(0);
+	}
+}